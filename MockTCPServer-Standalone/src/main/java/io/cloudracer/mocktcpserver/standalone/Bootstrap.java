@@ -1,10 +1,13 @@
 package io.cloudracer.mocktcpserver.standalone;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 import org.apache.commons.configuration2.ex.ConfigurationException;
 
 import io.cloudracer.mocktcpserver.MockTCPServer;
+import io.cloudracer.mocktcpserver.replay.Replay;
 
 /**
  * Control the startup of the MockTCPServer.
@@ -15,9 +18,11 @@ import io.cloudracer.mocktcpserver.MockTCPServer;
 public interface Bootstrap {
 
     /**
-     * Starts a MockTCPServer on a command-line.
+     * Starts a MockTCPServer on a command-line; or, if the first parameter is "replay", {@link Replay replays} a capture journal, or a file of messages, against a target.
+     * <p>
+     * If the first parameter is "-1", a server is started on every port in the configuration file. If it is followed by "-s" (or "--snapshot") and a snapshot file, the configuration is read from that {@link io.cloudracer.properties.ConfigurationSnapshot snapshot}, rather than parsing the configuration file; the snapshot is compiled first if it does not exist or is out of date.
      *
-     * @param args MockTCPServer parameters
+     * @param args MockTCPServer parameters, "-1" optionally followed by "--snapshot &lt;file&gt;", or "replay" followed by the {@link Replay#main(String[]) Replay} parameters
      *
      * @throws ConfigurationException error reading the configuration file
      * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
@@ -25,10 +30,19 @@ public interface Bootstrap {
      */
     public static void main(String[] args) throws ConfigurationException, InterruptedException, IOException {
         final String createPool = "-1";
+        final String replay = "replay";
+        final String snapshot = "--snapshot";
+        final String snapshotShort = "-s";
 
-        if (args.length > 0 && args[0].equals(createPool)) {
+        if (args.length > 0 && args[0].equals(replay)) {
+            Replay.main(Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length > 0 && args[0].equals(createPool)) {
             try (final io.cloudracer.mocktcpserver.bootstrap.Bootstrap bootstrap = new io.cloudracer.mocktcpserver.bootstrap.Bootstrap();) {
-                bootstrap.startup();
+                if (args.length > 2 && (args[1].equals(snapshot) || args[1].equals(snapshotShort))) {
+                    bootstrap.startup(Paths.get(args[2]));
+                } else {
+                    bootstrap.startup();
+                }
                 bootstrap.join();
             }
         } else {
@@ -4,29 +4,38 @@ import java.io.BufferedReader;
 import java.io.Closeable;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPathExpressionException;
 
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ReaderInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.Assert;
 import org.xml.sax.SAXException;
 
+import io.cloudracer.mocktcpserver.ResponseWriter.FlushPolicy;
 import io.cloudracer.mocktcpserver.datastream.DataStream;
 import io.cloudracer.mocktcpserver.datastream.DataStreamRegexMatcher;
+import io.cloudracer.mocktcpserver.datastream.FrameDecoder;
 import io.cloudracer.mocktcpserver.responses.ResponseDAO;
+import io.cloudracer.mocktcpserver.responses.RoutingTable;
+import io.cloudracer.mocktcpserver.tcpclient.ConnectionPool;
 import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
 
 /**
@@ -52,42 +61,106 @@ public class ClientConnection extends Thread implements Closeable {
 
     private AssertionError assertionError;
 
-    private BufferedReader inputStream;
+    private static final int READ_BUFFER_CAPACITY = 8192;
+
+    private InputStream inputStream;
     private DataOutputStream outputStream;
     private DataStreamRegexMatcher expectedMessage;
 
     private DataStream dataStream;
+    private FrameDecoder frameDecoder;
+    private byte[] readBuffer;
+    private ResponseWriter responseWriter;
+
+    private FlushPolicy flushPolicy = FlushPolicy.DRAIN;
+    private int flushCount = ResponseWriter.DEFAULT_FLUSH_COUNT;
+    private long flushInterval = ResponseWriter.DEFAULT_FLUSH_INTERVAL;
+    private volatile Executor flushExecutor;
 
     private boolean setIsAlwaysNAKResponse = false;
     private boolean setIsAlwaysNoResponse = false;
 
     private int messagesReceivedCount = 0;
 
-    private Status status = Status.OPEN;
+    private volatile Status status = Status.OPEN;
+    private volatile boolean isDraining = false;
+    private final ReentrantLock receiveLock = new ReentrantLock();
+    private volatile Closeable transport;
+
+    private final List<ResponseDAO> responsesSent = Collections.synchronizedList(new ArrayList<>());
+
+    private AtomicReference<RoutingTable> routingTable;
 
-    private final List<ResponseDAO> responsesSent = new ArrayList<>();
+    private Executor responseExecutor;
 
-    private Map<String, Set<TCPClient>> responses;
+    private ConnectionPool connectionPool;
+
+    /**
+     * Start the server on the specified port.
+     *
+     * @param inputStream the incoming (raw, unbuffered) stream from the client
+     * @param outputStream the output stream to reply to the server
+     * @param isAlwaysNAKResponse if true, the Servers next response will always be a NAK
+     * @param isAlwaysNoResponse true when the server will <b>never</b> return a response. Default is false
+     * @param expectedMessage a Regular Expression that describes what the next received message will be
+     * @param terminator the terminator
+     * @param responses the messages that will be sent when specified messages are received
+     */
+    public ClientConnection(final InputStream inputStream, final DataOutputStream outputStream, final boolean isAlwaysNAKResponse, final boolean isAlwaysNoResponse, final DataStreamRegexMatcher expectedMessage, final byte[] terminator, final Map<String, Set<TCPClient>> responses) {
+        this(inputStream, outputStream, isAlwaysNAKResponse, isAlwaysNoResponse, expectedMessage, terminator, responses == null ? RoutingTable.EMPTY : new RoutingTable(responses));
+    }
 
     /**
      * Start the server on the specified port.
      *
-     * @param inputStream the incoming stream from the client
+     * @param inputStream the incoming stream from the client, whose characters are encoded with the platform's default charset
      * @param outputStream the output stream to reply to the server
      * @param isAlwaysNAKResponse if true, the Servers next response will always be a NAK
      * @param isAlwaysNoResponse true when the server will <b>never</b> return a response. Default is false
      * @param expectedMessage a Regular Expression that describes what the next received message will be
      * @param terminator the terminator
      * @param responses the messages that will be sent when specified messages are received
+     * @deprecated the raw bytes from the client are read in bulk, so use {@link #ClientConnection(InputStream, DataOutputStream, boolean, boolean, DataStreamRegexMatcher, byte[], Map)} instead.
      */
+    @Deprecated
     public ClientConnection(final BufferedReader inputStream, final DataOutputStream outputStream, final boolean isAlwaysNAKResponse, final boolean isAlwaysNoResponse, final DataStreamRegexMatcher expectedMessage, final byte[] terminator, final Map<String, Set<TCPClient>> responses) {
+        this(inputStream == null ? null : new ReaderInputStream(inputStream, Charset.defaultCharset()), outputStream, isAlwaysNAKResponse, isAlwaysNoResponse, expectedMessage, terminator, responses);
+    }
+
+    /**
+     * Start the server on the specified port.
+     *
+     * @param inputStream the incoming (raw, unbuffered) stream from the client
+     * @param outputStream the output stream to reply to the server
+     * @param isAlwaysNAKResponse if true, the Servers next response will always be a NAK
+     * @param isAlwaysNoResponse true when the server will <b>never</b> return a response. Default is false
+     * @param expectedMessage a Regular Expression that describes what the next received message will be
+     * @param terminator the terminator
+     * @param routingTable the messages that will be sent when specified messages are received, which may be shared by every connection
+     */
+    public ClientConnection(final InputStream inputStream, final DataOutputStream outputStream, final boolean isAlwaysNAKResponse, final boolean isAlwaysNoResponse, final DataStreamRegexMatcher expectedMessage, final byte[] terminator, final RoutingTable routingTable) {
+        this(inputStream, outputStream, isAlwaysNAKResponse, isAlwaysNoResponse, expectedMessage, terminator, new AtomicReference<>(routingTable));
+    }
+
+    /**
+     * Start the server on the specified port.
+     *
+     * @param inputStream the incoming (raw, unbuffered) stream from the client
+     * @param outputStream the output stream to reply to the server
+     * @param isAlwaysNAKResponse if true, the Servers next response will always be a NAK
+     * @param isAlwaysNoResponse true when the server will <b>never</b> return a response. Default is false
+     * @param expectedMessage a Regular Expression that describes what the next received message will be
+     * @param terminator the terminator
+     * @param routingTable the messages that will be sent when specified messages are received. The routing table can be replaced (e.g. when the configuration file is reloaded) and the replacement is used from the next message received
+     */
+    public ClientConnection(final InputStream inputStream, final DataOutputStream outputStream, final boolean isAlwaysNAKResponse, final boolean isAlwaysNoResponse, final DataStreamRegexMatcher expectedMessage, final byte[] terminator, final AtomicReference<RoutingTable> routingTable) {
         setInputStream(inputStream);
         setOutputStream(outputStream);
         setIsAlwaysNAKResponse(isAlwaysNAKResponse);
         setIsAlwaysNoResponse(isAlwaysNoResponse);
         setExpectedMessage(expectedMessage);
         setTerminator(terminator);
-        setResponses(responses);
+        setRoutingTable(routingTable);
     }
 
     @Override
@@ -97,7 +170,12 @@ public class ClientConnection extends Thread implements Closeable {
                 this.readIncomingStream();
             }
         } catch (final SocketException e) {
-            this.logger.warn(e);
+            if (this.isOpen()) {
+                this.logger.warn(e);
+            } else {
+                // The socket was closed while the read was blocked e.g. the connection was drained, or forcibly closed, by the server.
+                this.logger.debug(e);
+            }
         } catch (final Exception e) {
             this.logger.error(e.getMessage(), e);
         } finally {
@@ -110,7 +188,7 @@ public class ClientConnection extends Thread implements Closeable {
     }
 
     /**
-     * Read and process the incoming stream.
+     * Read the next chunk of the incoming stream, and process every message that it completes.
      *
      * @throws IOException
      * @throws XPathExpressionException
@@ -119,45 +197,138 @@ public class ClientConnection extends Thread implements Closeable {
      * @throws SAXException
      */
     public void readIncomingStream() throws IOException, XPathExpressionException, ConfigurationException, ParserConfigurationException, SAXException {
-        this.setDataStream(null);
         try {
-            while (this.getDataStream().write(this.getInputStream().read()) != -1) {
-                if (Arrays.equals(this.getDataStream().getTail(), this.getTerminator())) {
-                    this.incrementMessagesReceivedCount();
-
-                    break;
-                }
-            }
-
-            if (this.getDataStream().getLastByte() == -1) {
-                // The stream has ended so close all streams so that a new ServerSocket is opened and a new connection can be accepted.
-                this.close();
-            } else if (this.getDataStream().size() > 0) { // Ignore null (i.e. zero length) in order allow a probing ping e.g. paping.exe
-                this.processIncomingMessage();
+            final byte[] buffer = this.getReadBuffer();
+            final int length = this.getInputStream().read(buffer);
+            if (length < 0) {
+                this.receive(-1);
+            } else {
+                this.receive(buffer, 0, length);
             }
-
-            responsesSent.addAll(sendResponses());
         } catch (SocketTimeoutException e) {
             // Do nothing. This occurs because a client was not closed and the read timeout on the locked stream (i.e. blocked thread) is 60 seconds.
             this.logger.warn(e);
         }
     }
 
-    private List<ResponseDAO> sendResponses() throws XPathExpressionException, ConfigurationException, ParserConfigurationException, SAXException, IOException {
-        if (getIsResponses()) {
-            final String message = this.getDataStream().toString().substring(0, this.getDataStream().toString().length() - this.getDataStream().getTail().length);
-            Set<TCPClient> clients = getResponses().get(message);
-            if (clients != null) {
-                for (TCPClient tcpClient : clients) {
-                    logger.debug("Sending responses from \"{}\".", tcpClient.toString());
-                    responsesSent.addAll(tcpClient.sendResponses());
+    /**
+     * Process the next byte of the incoming stream. When the byte completes a message, the message is processed, the ACK/NAK is written and any configured responses are sent.
+     *
+     * @param data the next byte of the incoming stream, or -1 if the stream has ended.
+     * @return true if the byte completed a message or ended the stream.
+     * @throws IOException error while responding to the client.
+     */
+    public boolean receive(final int data) throws IOException {
+        if (data == -1) {
+            // Write any responses that the flush policy has held back, before the connection is closed.
+            try {
+                this.getResponseWriter().flush();
+            } catch (final IOException e) {
+                this.logger.warn(e);
+            }
+            // The stream has ended so close all streams so that a new ServerSocket is opened and a new connection can be accepted.
+            this.close();
+            this.getFrameDecoder().reset();
+            this.setDataStream(null);
+
+            return true;
+        }
+
+        return this.receive(new byte[] { (byte) data }, 0, 1) > 0;
+    }
+
+    /**
+     * Process a chunk of the incoming stream. Each message that the chunk completes is processed, and any configured responses are sent. An incomplete message, at the end of the chunk, is completed by subsequent chunks.
+     * <p>
+     * A client may pipeline messages (i.e. send several messages without waiting for each response). The ACK/NAK responses are written to the client in the order that the messages were received, according to the {@link #getFlushPolicy() flush policy}; by default, the responses to all of the messages completed by the chunk are written in a single write.
+     * <p>
+     * This allows a transport other than the blocking {@link #readIncomingStream() read loop} (e.g. a non-blocking event loop) to feed the connection.
+     *
+     * @param data contains the received bytes.
+     * @param offset the start of the received bytes within data.
+     * @param length the number of bytes received.
+     * @return the number of messages completed by the chunk.
+     * @throws IOException error while responding to the client.
+     */
+    public int receive(final byte[] data, final int offset, final int length) throws IOException {
+        final int messages;
+        // A drain cannot check for a partial message, or close the connection, while a chunk is being processed.
+        this.receiveLock.lock();
+        try {
+            messages = this.getFrameDecoder().decode(data, offset, length, this::receiveMessage);
+            this.getResponseWriter().drained();
+        } finally {
+            this.receiveLock.unlock();
+        }
+        // Once draining, the connection is closed as soon as the message in progress is complete and acknowledged.
+        if (this.isDraining) {
+            this.drain();
+        }
+
+        return messages;
+    }
 
-                    tcpClient.close();
+    private void receiveMessage(final byte[] buffer, final int offset, final int length) throws IOException {
+        // The DataStream is reused for each message, so that its buffer is not reallocated.
+        this.getDataStream().reset();
+        this.getDataStream().write(buffer, offset, length);
+        this.incrementMessagesReceivedCount();
+
+        // Ignore null (i.e. zero length) in order allow a probing ping e.g. paping.exe
+        if (this.getDataStream().size() > 0) {
+            this.processIncomingMessage();
+        }
+        // Look the message (without its terminator) up where it lies in the buffer, rather than decoding it.
+        this.sendResponses(buffer, offset, length - this.getTerminator().length);
+    }
+
+    private void sendResponses(final byte[] buffer, final int offset, final int length) throws IOException {
+        // Read the routing table once, so that the whole message is routed by the same table even if it is replaced meanwhile.
+        final RoutingTable routingTable = this.getRoutingTable();
+        if (!routingTable.isEmpty()) {
+            final Set<TCPClient> clients = routingTable.get(buffer, offset, length);
+            if (clients != null) {
+                if (this.getResponseExecutor() == null) {
+                    // The client does not wait for its ACK/NAK while the responses are sent: the responses pending so far are written, as if the chunk ended here.
+                    this.getResponseWriter().drained();
+                    this.sendResponses(clients);
+                } else {
+                    this.getResponseExecutor().execute(() -> {
+                        try {
+                            this.sendResponses(clients);
+                        } catch (final Exception e) {
+                            this.logger.error(e.getMessage(), e);
+                        }
+                    });
                 }
             }
         }
+    }
 
-        return responsesSent;
+    private void sendResponses(final Set<TCPClient> clients) throws IOException {
+        final ConnectionPool connectionPool = this.getConnectionPool();
+        for (TCPClient tcpClient : clients) {
+            logger.debug("Sending responses from \"{}\".", tcpClient.toString());
+            if (connectionPool == null) {
+                responsesSent.addAll(tcpClient.sendResponses());
+
+                tcpClient.close();
+            } else {
+                final TCPClient connection = connectionPool.acquire(tcpClient.getHostName(), tcpClient.getPort());
+                boolean isValid = false;
+                try {
+                    responsesSent.addAll(tcpClient.sendResponses(connection));
+                    isValid = true;
+                } finally {
+                    // A connection that failed for any reason may be in an unknown state, so it is never returned to the pool.
+                    if (isValid) {
+                        connectionPool.release(connection);
+                    } else {
+                        connectionPool.invalidate(connection);
+                    }
+                }
+            }
+        }
     }
 
     /**
@@ -179,19 +350,19 @@ public class ClientConnection extends Thread implements Closeable {
             this.setAssertionError(e);
         }
         this.onMessage(this.getDataStream());
-        // If the stream has not ended and a response is required, send one.
-        if (this.getDataStream().getLastByte() != -1 && !this.getIsAlwaysNoResponse()) {
-            byte[] response;
-
+        byte[] response = null;
+        // If the message is not empty and a response is required, send one. The end of the stream is not a message, so it is never passed here.
+        if (this.getDataStream().size() > 0 && !this.getIsAlwaysNoResponse()) {
             if (this.getAssertionError() == null && !this.getIsAlwaysNAKResponse()) {
                 response = this.getACK();
             } else {
                 response = this.getNAK();
             }
-
-            this.getOutputStream().write(response);
-
-            this.afterResponse(response);
+        }
+        this.afterMessage(this.getDataStream(), response);
+        if (response != null) {
+            // The response is written (and afterResponse is called) according to the flush policy.
+            this.getResponseWriter().write(response);
         }
     }
 
@@ -215,6 +386,7 @@ public class ClientConnection extends Thread implements Closeable {
      */
     public synchronized void setTerminator(final byte[] terminator) {
         this.terminator = terminator;
+        this.frameDecoder = null;
     }
 
     /**
@@ -264,6 +436,8 @@ public class ClientConnection extends Thread implements Closeable {
 
     /**
      * A server callback when a message is received.
+     * <p>
+     * The {@link DataStream} is reused for the next message, so it must be copied (e.g. {@link DataStream#toString()}) if it is to be retained.
      *
      * @param message the message received.
      */
@@ -271,6 +445,19 @@ public class ClientConnection extends Thread implements Closeable {
         this.logger.info(String.format("Received: %s.", message.toString()));
     }
 
+    /**
+     * A server callback when a message has been received, and its response chosen, but before the response is written to the client.
+     * <p>
+     * The {@link DataStream} is reused for the next message, so it must be copied (e.g. {@link DataStream#toByteArray()}) if it is to be retained.
+     *
+     * @param message the message received.
+     * @param response the response that will be sent, or null if no response will be sent.
+     * @throws IOException error while recording the message.
+     */
+    public void afterMessage(final DataStream message, final byte[] response) throws IOException {
+        // Do nothing by default.
+    }
+
     /**
      * An error is recorded if a message other than that which is expected is received.
      *
@@ -333,10 +520,6 @@ public class ClientConnection extends Thread implements Closeable {
         this.setIsAlwaysNoResponse = isAlwaysNoResponse;
     }
 
-    private boolean getIsResponses() {
-        return getResponses() != null && !getResponses().isEmpty();
-    }
-
     /**
      * If any message, other that this one, is the next message to be received, record it as an {@link ClientConnection#getAssertionError() assertion error}.
      *
@@ -371,12 +554,126 @@ public class ClientConnection extends Thread implements Closeable {
         this.messagesReceivedCount++;
     }
 
-    Map<String, Set<TCPClient>> getResponses() {
-        return Collections.unmodifiableMap(responses);
+    /**
+     * The messages that will be sent when specified messages are received; the current routing table, if it has been replaced.
+     *
+     * @return the routing table.
+     */
+    public RoutingTable getRoutingTable() {
+        final RoutingTable current = this.routingTable.get();
+
+        return current == null ? RoutingTable.EMPTY : current;
+    }
+
+    private void setRoutingTable(final AtomicReference<RoutingTable> routingTable) {
+        this.routingTable = routingTable == null ? new AtomicReference<>() : routingTable;
+    }
+
+    /**
+     * The {@link Executor} that sends the configured responses to other machines. If null, the responses are sent on the {@link Thread} that received the message.
+     *
+     * @return the {@link Executor} that sends responses, or null.
+     */
+    public Executor getResponseExecutor() {
+        return this.responseExecutor;
+    }
+
+    /**
+     * The {@link Executor} that sends the configured responses to other machines. If null, the responses are sent on the {@link Thread} that received the message.
+     * <p>
+     * A transport that must never block (e.g. a non-blocking event loop) should specify an {@link Executor}.
+     *
+     * @param responseExecutor the {@link Executor} that sends responses, or null.
+     */
+    public void setResponseExecutor(final Executor responseExecutor) {
+        this.responseExecutor = responseExecutor;
+    }
+
+    /**
+     * The pool of persistent connections that the configured responses are sent on. If null, a new connection is opened for each message that has responses, and is closed once they are sent.
+     *
+     * @return the pool of connections, or null.
+     */
+    public ConnectionPool getConnectionPool() {
+        return this.connectionPool;
+    }
+
+    /**
+     * The pool of persistent connections that the configured responses are sent on; which may be shared by every connection of the server.
+     *
+     * @param connectionPool the pool of connections, or null.
+     */
+    public void setConnectionPool(final ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * When the ACK/NAK responses are written to the client. Default is {@link FlushPolicy#DRAIN}.
+     *
+     * @return the flush policy.
+     */
+    public FlushPolicy getFlushPolicy() {
+        return this.flushPolicy;
+    }
+
+    /**
+     * When the ACK/NAK responses are written to the client. The policy must be <b>set before the first message is received</b>.
+     *
+     * @param flushPolicy the flush policy.
+     */
+    public synchronized void setFlushPolicy(final FlushPolicy flushPolicy) {
+        this.flushPolicy = flushPolicy;
+        this.responseWriter = null;
+    }
+
+    /**
+     * The number of pending responses that are written together, when the flush policy is {@link FlushPolicy#COUNT}. Default is {@link ResponseWriter#DEFAULT_FLUSH_COUNT}.
+     *
+     * @return the flush count.
+     */
+    public int getFlushCount() {
+        return this.flushCount;
+    }
+
+    /**
+     * The number of pending responses that are written together, when the flush policy is {@link FlushPolicy#COUNT}. The count must be <b>set before the first message is received</b>.
+     *
+     * @param flushCount the flush count.
+     */
+    public synchronized void setFlushCount(final int flushCount) {
+        this.flushCount = flushCount;
+        this.responseWriter = null;
+    }
+
+    /**
+     * The maximum duration, in microseconds, that a response may be pending, when the flush policy is {@link FlushPolicy#INTERVAL}. Default is {@link ResponseWriter#DEFAULT_FLUSH_INTERVAL}.
+     *
+     * @return the flush interval in microseconds.
+     */
+    public long getFlushInterval() {
+        return this.flushInterval;
     }
 
-    private void setResponses(final Map<String, Set<TCPClient>> responses) {
-        this.responses = responses;
+    /**
+     * The maximum duration, in microseconds, that a response may be pending, when the flush policy is {@link FlushPolicy#INTERVAL}. The interval must be <b>set before the first message is received</b>.
+     *
+     * @param flushInterval the flush interval in microseconds.
+     */
+    public synchronized void setFlushInterval(final long flushInterval) {
+        this.flushInterval = flushInterval;
+        this.responseWriter = null;
+    }
+
+    /**
+     * The {@link Executor} that runs the flushes that are due to the {@link #getFlushInterval() flush interval}. If null, they are run on a shared timer {@link Thread}.
+     * <p>
+     * A transport that must only write on a specific {@link Thread} (e.g. a non-blocking event loop) should specify an {@link Executor} that runs on that {@link Thread}. The executor must be <b>set before the first message is received</b>.
+     *
+     * @param flushExecutor the {@link Executor} that runs interval flushes, or null.
+     */
+    public synchronized void setFlushExecutor(final Executor flushExecutor) {
+        this.flushExecutor = flushExecutor;
+        this.responseWriter = null;
     }
 
     /**
@@ -386,9 +683,93 @@ public class ClientConnection extends Thread implements Closeable {
     public synchronized void close() {
         this.logger.debug("Closing...");
 
+        if (this.responseWriter != null) {
+            this.responseWriter.close();
+        }
+
         this.setStatus(Status.CLOSED);
     }
 
+    /**
+     * Stop receiving messages, without abandoning a message that is in progress. If no message is in progress, the connection is closed now; otherwise, it is closed as soon as the message is complete and its response has been written.
+     * <p>
+     * A connection that does not complete its message can be closed with {@link #forceClose()}.
+     * <p>
+     * If a {@link #setFlushExecutor(Executor) flush executor} is specified, the connection is drained on it; so that the responses held back by the flush policy are written on the {@link Thread} that writes every other response (e.g. a non-blocking event loop).
+     *
+     * @return true if the connection is closed.
+     */
+    public boolean drain() {
+        this.isDraining = true;
+        final Executor executor = this.flushExecutor;
+        if (executor == null) {
+            this.drainNow();
+        } else {
+            executor.execute(this::drainNow);
+        }
+
+        return !this.isOpen();
+    }
+
+    private void drainNow() {
+        // If a chunk is being processed, the connection is drained by the receiving Thread once the chunk has been processed.
+        if (!this.isReceiving() && this.receiveLock.tryLock()) {
+            try {
+                if (this.isOpen() && this.getFrameDecoder().getPartialFrameLength() == 0) {
+                    this.closeDrained();
+                }
+            } finally {
+                this.receiveLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * True while the current {@link Thread} is processing a chunk received by this connection e.g. a callback, such as {@link #onMessage(DataStream)}, is running.
+     *
+     * @return true if the current {@link Thread} is processing a chunk received by this connection.
+     */
+    public boolean isReceiving() {
+        return this.receiveLock.isHeldByCurrentThread();
+    }
+
+    private void closeDrained() {
+        // Write any responses that the flush policy has held back, before the connection is closed.
+        try {
+            this.getResponseWriter().flush();
+        } catch (final IOException e) {
+            this.logger.warn(e);
+        }
+        this.close();
+        IOUtils.closeQuietly(this.transport);
+    }
+
+    /**
+     * Close the connection and its {@link #setTransport(Closeable) transport} now, abandoning any message that is in progress. A {@link Thread} blocked reading the connection is released.
+     */
+    public void forceClose() {
+        this.close();
+        IOUtils.closeQuietly(this.transport);
+    }
+
+    /**
+     * The transport that the connection is read from (e.g. its {@link java.net.Socket Socket}), which is closed when the connection is {@link #drain() drained} or {@link #forceClose() forcibly closed}.
+     *
+     * @param transport the transport, or null if there is none.
+     */
+    public void setTransport(final Closeable transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * True until the stream has ended or the connection has been {@link #close() closed}.
+     *
+     * @return true if the connection is open.
+     */
+    public boolean isOpen() {
+        return this.getStatus() == Status.OPEN;
+    }
+
     private Status getStatus() {
         return this.status;
     }
@@ -413,11 +794,35 @@ public class ClientConnection extends Thread implements Closeable {
         this.dataStream = dataStream;
     }
 
-    private BufferedReader getInputStream() {
+    private FrameDecoder getFrameDecoder() {
+        if (this.frameDecoder == null) {
+            this.frameDecoder = new FrameDecoder(this.getTerminator());
+        }
+
+        return this.frameDecoder;
+    }
+
+    private synchronized ResponseWriter getResponseWriter() {
+        if (this.responseWriter == null) {
+            this.responseWriter = new ResponseWriter(this.getOutputStream(), this.getFlushPolicy(), this.getFlushCount(), this.getFlushInterval(), this.flushExecutor, this::afterResponse);
+        }
+
+        return this.responseWriter;
+    }
+
+    private byte[] getReadBuffer() {
+        if (this.readBuffer == null) {
+            this.readBuffer = new byte[READ_BUFFER_CAPACITY];
+        }
+
+        return this.readBuffer;
+    }
+
+    private InputStream getInputStream() {
         return this.inputStream;
     }
 
-    private void setInputStream(final BufferedReader inputStream) {
+    private void setInputStream(final InputStream inputStream) {
         this.logger.debug("Closing input stream...");
         IOUtils.closeQuietly(this.inputStream);
         this.logger.debug("Closed input stream.");
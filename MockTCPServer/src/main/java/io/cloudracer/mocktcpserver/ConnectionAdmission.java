@@ -0,0 +1,367 @@
+package io.cloudracer.mocktcpserver;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Limits the number of {@link ClientConnection connections} that a {@link MockTCPServer} runs concurrently, so that a reconnect storm from the system under test cannot exhaust the servers memory.
+ * <p>
+ * When the {@link #getMaximumConnections() limit} is reached, newly accepted connections are handled according to the {@link OverflowPolicy overflow policy}. The number of connections admitted, queued and rejected is counted.
+ *
+ * @author John McDonnell
+ */
+public class ConnectionAdmission implements Closeable {
+
+    private final Logger logger = LogManager.getLogger();
+
+    /**
+     * What happens to a connection when the {@link ConnectionAdmission#getMaximumConnections() maximum number of connections} are already running.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The connection is accepted and immediately closed. This is the default.
+         */
+        REJECT,
+        /**
+         * The server stops accepting until a running connection ends, so that new connections wait in the Operating Systems accept backlog.
+         */
+        BACKLOG,
+        /**
+         * The connection is accepted and held in a bounded queue until a running connection ends. The connection is closed if the queue is full, or it is not run within the queue timeout.
+         */
+        QUEUE;
+
+        /**
+         * The OverflowPolicy with the specified name, regardless of case.
+         *
+         * @param name the name of the overflow policy e.g. "queue".
+         * @return the OverflowPolicy with the specified name.
+         * @throws IllegalArgumentException there is no OverflowPolicy with the specified name.
+         */
+        public static OverflowPolicy fromName(final String name) {
+            return OverflowPolicy.valueOf(StringUtils.upperCase(StringUtils.trim(name), Locale.ROOT));
+        }
+    }
+
+    /**
+     * The default maximum number of connections that may wait to run, when the overflow policy is {@link OverflowPolicy#QUEUE}.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+    /**
+     * The default maximum duration, in milliseconds, that a connection may wait to run, when the overflow policy is {@link OverflowPolicy#QUEUE}.
+     */
+    public static final long DEFAULT_QUEUE_TIMEOUT = 10000;
+
+    private static final long AWAIT_CAPACITY_INTERVAL = 100;
+
+    private final int maximumConnections;
+    private final OverflowPolicy overflowPolicy;
+    private final int queueCapacity;
+    private final long queueTimeout;
+    private final Executor workers;
+
+    private final Semaphore permits;
+    private final Deque<QueuedConnection> queue = new ArrayDeque<>();
+    private ScheduledExecutorService queueTimer;
+
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private volatile boolean isOpen = true;
+
+    private final class QueuedConnection {
+
+        private final ClientConnection connection;
+        private final Closeable socket;
+        private ScheduledFuture<?> timeout;
+
+        private QueuedConnection(final ClientConnection connection, final Closeable socket) {
+            this.connection = connection;
+            this.socket = socket;
+        }
+    }
+
+    /**
+     * Admit connections according to the specified limits.
+     *
+     * @param maximumConnections the maximum number of connections that may run concurrently, or zero (or less) if there is no limit.
+     * @param overflowPolicy what happens to a connection when the maximum number of connections are already running.
+     * @param queueCapacity the maximum number of connections that may wait to run, when the overflow policy is {@link OverflowPolicy#QUEUE}.
+     * @param queueTimeout the maximum duration, in milliseconds, that a connection may wait to run, when the overflow policy is {@link OverflowPolicy#QUEUE}.
+     * @param workers runs each admitted connection, or null if a {@link Thread} is to be {@link Thread#start() started} for each admitted connection.
+     */
+    public ConnectionAdmission(final int maximumConnections, final OverflowPolicy overflowPolicy, final int queueCapacity, final long queueTimeout, final Executor workers) {
+        this.maximumConnections = maximumConnections;
+        this.overflowPolicy = overflowPolicy;
+        this.queueCapacity = queueCapacity;
+        this.queueTimeout = queueTimeout;
+        this.workers = workers;
+        this.permits = this.isLimited() ? new Semaphore(maximumConnections) : null;
+    }
+
+    /**
+     * Block until a connection can be admitted, if the {@link OverflowPolicy#BACKLOG backlog policy} is in use. This must be called before each connection is accepted.
+     * <p>
+     * Each time that accepting is deferred, the {@link #getQueuedCount() queued count} is incremented.
+     *
+     * @return true if a connection can be accepted, or false if this admission control has been {@link #close() closed}.
+     * @throws InterruptedException the calling {@link Thread} was interrupted.
+     */
+    public boolean awaitCapacity() throws InterruptedException {
+        if (!this.isLimited() || this.getOverflowPolicy() != OverflowPolicy.BACKLOG) {
+            return this.isOpen;
+        }
+
+        if (this.permits.availablePermits() <= 0) {
+            this.queuedCount.incrementAndGet();
+        }
+        // Only wait for a permit to become available; it is acquired when the connection is submitted.
+        while (this.isOpen) {
+            if (this.permits.tryAcquire(AWAIT_CAPACITY_INTERVAL, TimeUnit.MILLISECONDS)) {
+                this.permits.release();
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Run the accepted connection if the {@link #getMaximumConnections() limit} has not been reached, otherwise handle the connection according to the {@link OverflowPolicy overflow policy}.
+     *
+     * @param connection the accepted connection.
+     * @param socket the accepted socket, which is closed if the connection is rejected.
+     */
+    public void submit(final ClientConnection connection, final Closeable socket) {
+        if (!this.isOpen) {
+            this.reject(connection, socket);
+        } else if (!this.isLimited()) {
+            this.admittedCount.incrementAndGet();
+            if (this.workers == null) {
+                connection.start();
+            } else {
+                this.execute(connection, socket, connection);
+            }
+        } else if (this.permits.tryAcquire()) {
+            this.run(connection, socket);
+        } else if (this.getOverflowPolicy() == OverflowPolicy.QUEUE) {
+            this.enqueue(connection, socket);
+        } else {
+            this.reject(connection, socket);
+        }
+    }
+
+    private void enqueue(final ClientConnection connection, final Closeable socket) {
+        final QueuedConnection queuedConnection = new QueuedConnection(connection, socket);
+        synchronized (this.queue) {
+            // A permit may have been released since it was last checked.
+            if (this.permits.tryAcquire()) {
+                this.run(connection, socket);
+
+                return;
+            }
+            if (this.queue.size() >= this.getQueueCapacity()) {
+                this.reject(connection, socket);
+
+                return;
+            }
+            this.queue.addLast(queuedConnection);
+            this.queuedCount.incrementAndGet();
+            queuedConnection.timeout = this.getQueueTimer().schedule(() -> this.expire(queuedConnection), this.getQueueTimeout(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void expire(final QueuedConnection queuedConnection) {
+        final boolean isExpired;
+        synchronized (this.queue) {
+            isExpired = this.queue.remove(queuedConnection);
+        }
+        if (isExpired) {
+            this.logger.debug(String.format("A queued connection was not run within %d milliseconds.", this.getQueueTimeout()));
+
+            this.reject(queuedConnection.connection, queuedConnection.socket);
+        }
+    }
+
+    /**
+     * Run the connection, which has acquired a permit. The permit is passed to the next queued connection, or released, when the connection ends.
+     */
+    private void run(final ClientConnection connection, final Closeable socket) {
+        this.admittedCount.incrementAndGet();
+
+        final Runnable task = () -> {
+            try {
+                connection.run();
+            } finally {
+                this.release();
+            }
+        };
+        if (this.workers == null) {
+            final Thread thread = new Thread(task, connection.getName());
+            thread.start();
+        } else if (!this.execute(task, socket, connection)) {
+            this.release();
+        }
+    }
+
+    private boolean execute(final Runnable task, final Closeable socket, final ClientConnection connection) {
+        try {
+            this.workers.execute(task);
+
+            return true;
+        } catch (final RejectedExecutionException e) {
+            this.logger.warn(e);
+            this.admittedCount.decrementAndGet();
+            this.reject(connection, socket);
+
+            return false;
+        }
+    }
+
+    private void release() {
+        final QueuedConnection next;
+        synchronized (this.queue) {
+            next = this.isOpen ? this.queue.pollFirst() : null;
+            if (next == null) {
+                // Release within the lock, so that a connection cannot be queued after the queue was found to be empty but before the permit is released.
+                this.permits.release();
+            }
+        }
+        if (next != null) {
+            next.timeout.cancel(false);
+
+            // The permit is passed directly to the queued connection.
+            this.run(next.connection, next.socket);
+        }
+    }
+
+    private void reject(final ClientConnection connection, final Closeable socket) {
+        this.rejectedCount.incrementAndGet();
+
+        connection.close();
+        IOUtils.closeQuietly(socket);
+    }
+
+    private synchronized ScheduledExecutorService getQueueTimer() {
+        if (this.queueTimer == null) {
+            this.queueTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, String.format("%s-QueueTimer", ConnectionAdmission.class.getSimpleName()));
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+
+        return this.queueTimer;
+    }
+
+    private boolean isLimited() {
+        return this.getMaximumConnections() > 0;
+    }
+
+    /**
+     * The maximum number of connections that may run concurrently, or zero (or less) if there is no limit.
+     *
+     * @return the maximum number of concurrent connections.
+     */
+    public int getMaximumConnections() {
+        return this.maximumConnections;
+    }
+
+    /**
+     * What happens to a connection when the {@link #getMaximumConnections() maximum number of connections} are already running.
+     *
+     * @return the overflow policy.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    /**
+     * The maximum number of connections that may wait to run, when the overflow policy is {@link OverflowPolicy#QUEUE}.
+     *
+     * @return the queue capacity.
+     */
+    public int getQueueCapacity() {
+        return this.queueCapacity;
+    }
+
+    /**
+     * The maximum duration, in milliseconds, that a connection may wait to run, when the overflow policy is {@link OverflowPolicy#QUEUE}.
+     *
+     * @return the queue timeout in milliseconds.
+     */
+    public long getQueueTimeout() {
+        return this.queueTimeout;
+    }
+
+    /**
+     * The number of connections that have been run.
+     *
+     * @return the number of admitted connections.
+     */
+    public long getAdmittedCount() {
+        return this.admittedCount.get();
+    }
+
+    /**
+     * The number of connections that have waited to be run; either in the {@link OverflowPolicy#QUEUE queue}, or (when accepting was deferred) in the {@link OverflowPolicy#BACKLOG accept backlog}.
+     *
+     * @return the number of queued connections.
+     */
+    public long getQueuedCount() {
+        return this.queuedCount.get();
+    }
+
+    /**
+     * The number of connections that have been closed without being run.
+     *
+     * @return the number of rejected connections.
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * Stop admitting connections, and reject any connections that are waiting in the queue.
+     */
+    @Override
+    public void close() {
+        this.isOpen = false;
+
+        final List<QueuedConnection> queued;
+        synchronized (this.queue) {
+            queued = new ArrayList<>(this.queue);
+            this.queue.clear();
+        }
+        for (final QueuedConnection queuedConnection : queued) {
+            queuedConnection.timeout.cancel(false);
+            this.reject(queuedConnection.connection, queuedConnection.socket);
+        }
+
+        synchronized (this) {
+            if (this.queueTimer != null) {
+                this.queueTimer.shutdown();
+            }
+        }
+    }
+}
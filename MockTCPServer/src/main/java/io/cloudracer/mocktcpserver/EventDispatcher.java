@@ -0,0 +1,305 @@
+package io.cloudracer.mocktcpserver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.cloudracer.mocktcpserver.datastream.DataStream;
+
+/**
+ * Delivers the connection, message and response events of a {@link MockTCPServer server} to its {@link Listener listeners}, on a single consumer {@link Thread}.
+ * <p>
+ * The connections publish their events to a lock-free {@link RingBuffer ring buffer}, so the read path of a connection never waits for a lock that is held by another connection, or by a listener. As there is a single consumer, each listener is called by one {@link Thread} at a time and in the order that the events were published, so a listener need not be thread safe. If the buffer is full, the publisher waits for the consumer to catch up, rather than an event being lost.
+ * <p>
+ * Events published before the dispatcher is {@link #start(String) started}, or after it is {@link #close() closed}, are delivered on the publishing {@link Thread}.
+ *
+ * @author John McDonnell
+ */
+public class EventDispatcher implements Closeable {
+
+    /**
+     * Receives the events of a {@link MockTCPServer server}. Every method does nothing, unless it is overridden.
+     */
+    public interface Listener {
+
+        /**
+         * A connection has been accepted.
+         *
+         * @param clientMachine the address of the client machine that made the connection
+         * @param clientPort the port the client is transmitting on
+         * @param serverMachine the name of the server machine
+         * @param serverPort the port the machine is listening on
+         */
+        default void onConnection(final String clientMachine, final int clientPort, final String serverMachine, final int serverPort) {
+            // Do nothing, unless overridden.
+        }
+
+        /**
+         * A message has been received.
+         *
+         * @param message a copy of the message received, which may be retained.
+         */
+        default void onMessage(final DataStream message) {
+            // Do nothing, unless overridden.
+        }
+
+        /**
+         * A response has been written to a client.
+         *
+         * @param response the response written.
+         */
+        default void onResponse(final byte[] response) {
+            // Do nothing, unless overridden.
+        }
+    }
+
+    /**
+     * The default number of events that may be published, but not yet delivered, before a publisher waits.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final long CLOSE_TIMEOUT = 1000;
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final RingBuffer<Consumer<Listener>> events;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong stalledCount = new AtomicLong();
+
+    private volatile Thread consumer;
+    private String consumerName;
+    private volatile boolean isWaiting = false;
+    private volatile boolean isClosed = false;
+
+    /**
+     * Create a dispatcher, that delivers events to no listeners until they are {@link #addListener(Listener) added}.
+     *
+     * @param capacity the number of events that may be published, but not yet delivered, before a publisher waits; rounded up to a power of two.
+     */
+    public EventDispatcher(final int capacity) {
+        this.events = new RingBuffer<>(capacity);
+    }
+
+    /**
+     * Deliver the events to the specified listener, after those listeners that have already been added.
+     *
+     * @param listener the listener to add.
+     */
+    public void addListener(final Listener listener) {
+        this.listeners.add(listener);
+        this.startConsumer();
+    }
+
+    /**
+     * Deliver the events to the specified listener, before those listeners that have already been added.
+     *
+     * @param listener the listener to add.
+     */
+    void addFirstListener(final Listener listener) {
+        this.listeners.add(0, listener);
+        this.startConsumer();
+    }
+
+    /**
+     * Stop delivering the events to the specified listener.
+     *
+     * @param listener the listener to remove.
+     */
+    public void removeListener(final Listener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * True if any listener has been added; if not, there is no need to publish an event.
+     *
+     * @return true if there are listeners.
+     */
+    public boolean hasListeners() {
+        return !this.listeners.isEmpty();
+    }
+
+    /**
+     * Start the consumer {@link Thread}, if it is not already started. The Thread is a daemon, so that it does not prevent the JVM from exiting. If no listener has been added, the Thread is not started until one is.
+     *
+     * @param name the name of the consumer {@link Thread}.
+     */
+    public synchronized void start(final String name) {
+        this.consumerName = name;
+        this.startConsumer();
+    }
+
+    private synchronized void startConsumer() {
+        if (this.consumer == null && this.consumerName != null && !this.isClosed && this.hasListeners()) {
+            final Thread thread = new Thread(this::consume, this.consumerName);
+            thread.setDaemon(true);
+            thread.start();
+
+            this.consumer = thread;
+        }
+    }
+
+    /**
+     * Publish a connection event; see {@link Listener#onConnection(String, int, String, int)}.
+     *
+     * @param clientMachine the address of the client machine that made the connection
+     * @param clientPort the port the client is transmitting on
+     * @param serverMachine the name of the server machine
+     * @param serverPort the port the machine is listening on
+     */
+    public void connection(final String clientMachine, final int clientPort, final String serverMachine, final int serverPort) {
+        this.publish(listener -> listener.onConnection(clientMachine, clientPort, serverMachine, serverPort));
+    }
+
+    /**
+     * Publish a message event; see {@link Listener#onMessage(DataStream)}. The message is copied, as the connection reuses its {@link DataStream} for the next message.
+     *
+     * @param message the message received.
+     */
+    public void message(final DataStream message) {
+        final DataStream copy;
+        try {
+            copy = message.copy();
+        } catch (final IOException e) {
+            this.logger.error(e.getMessage(), e);
+
+            return;
+        }
+
+        this.publish(listener -> listener.onMessage(copy));
+    }
+
+    /**
+     * Publish a response event; see {@link Listener#onResponse(byte[])}.
+     *
+     * @param response the response written.
+     */
+    public void response(final byte[] response) {
+        this.publish(listener -> listener.onResponse(response));
+    }
+
+    /**
+     * The number of events that have been delivered to the listeners.
+     *
+     * @return the number of events delivered.
+     */
+    public long getDeliveredCount() {
+        return this.deliveredCount.get();
+    }
+
+    /**
+     * The number of events whose publisher had to wait, because the buffer was full (i.e. the listeners could not keep up).
+     *
+     * @return the number of events that stalled their publisher.
+     */
+    public long getStalledCount() {
+        return this.stalledCount.get();
+    }
+
+    /**
+     * The number of events that have been published, but not yet delivered.
+     *
+     * @return the number of events pending.
+     */
+    public int getPendingCount() {
+        return this.events.size();
+    }
+
+    private void publish(final Consumer<Listener> event) {
+        final Thread thread = this.consumer;
+        if (thread == null || this.isClosed) {
+            this.deliver(event);
+
+            return;
+        }
+
+        boolean isStalled = false;
+        while (!this.events.offer(event)) {
+            // A listener that publishes an event cannot wait for itself to make space, and nothing is waited for once the dispatcher is closed.
+            if (thread == Thread.currentThread() || this.isClosed) {
+                this.deliver(event);
+
+                return;
+            }
+            if (!isStalled) {
+                isStalled = true;
+                this.stalledCount.incrementAndGet();
+            }
+            Thread.yield();
+        }
+
+        if (this.isClosed) {
+            // The consumer may already have stopped, so deliver whatever it has left.
+            this.drain();
+        } else if (this.isWaiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void consume() {
+        while (!this.isClosed) {
+            final Consumer<Listener> event = this.events.poll();
+            if (event == null) {
+                this.isWaiting = true;
+                // Check again, once the publishers can see that the consumer is waiting, so that a wake up is not missed.
+                if (this.events.isEmpty() && !this.isClosed) {
+                    LockSupport.park(this);
+                }
+                this.isWaiting = false;
+            } else {
+                this.deliver(event);
+            }
+        }
+
+        this.drain();
+    }
+
+    private void drain() {
+        Consumer<Listener> event;
+        while ((event = this.events.poll()) != null) {
+            this.deliver(event);
+        }
+    }
+
+    private void deliver(final Consumer<Listener> event) {
+        for (final Listener listener : this.listeners) {
+            try {
+                event.accept(listener);
+            } catch (final RuntimeException e) {
+                this.logger.error(e.getMessage(), e);
+            }
+        }
+        this.deliveredCount.incrementAndGet();
+    }
+
+    /**
+     * Deliver the events already published, and stop the consumer {@link Thread}. Waits up to one second for the consumer to finish, unless called by a listener (i.e. on the consumer Thread).
+     */
+    @Override
+    public void close() {
+        final Thread thread;
+        synchronized (this) {
+            this.isClosed = true;
+            thread = this.consumer;
+        }
+
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            if (thread != Thread.currentThread()) {
+                try {
+                    thread.join(CLOSE_TIMEOUT);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        this.drain();
+    }
+}
@@ -0,0 +1,299 @@
+package io.cloudracer.mocktcpserver;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Delivers the messages received by one or more {@link MockTCPServer servers} to a {@link MessageListener}, in batches, on a {@link Thread} of its own.
+ * <p>
+ * The connections offer each message to a bounded, lock-free, {@link RingBuffer queue}, so a slow listener does not delay the read path of a connection: when the queue is full, the message is dropped or the connection waits, according to the {@link OverflowPolicy overflow policy}. A batch is delivered as soon as it holds the {@link #getBatchSize() batch size} of messages, or once the {@link #getMaximumDelay() maximum delay} has elapsed since its first message was received; whichever is sooner.
+ *
+ * @author John McDonnell
+ */
+public class MessageDelivery implements Closeable {
+
+    /**
+     * What a connection does with a message when the queue of a {@link MessageDelivery} is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The message is not delivered, and is counted as {@link MessageDelivery#getDroppedCount() dropped}; so the connection is never delayed by the listener. This is the default.
+         */
+        DROP,
+        /**
+         * The connection waits until there is space in the queue; so every message is delivered, but a slow listener delays the connections.
+         */
+        BLOCK;
+
+        /**
+         * The OverflowPolicy with the specified name, regardless of case.
+         *
+         * @param name the name of the overflow policy e.g. "drop".
+         * @return the OverflowPolicy with the specified name.
+         * @throws IllegalArgumentException there is no OverflowPolicy with the specified name.
+         */
+        public static OverflowPolicy fromName(final String name) {
+            return OverflowPolicy.valueOf(StringUtils.upperCase(StringUtils.trim(name), Locale.ROOT));
+        }
+    }
+
+    /**
+     * The default maximum number of messages in each batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    /**
+     * The default maximum duration, in milliseconds, that a message waits to be delivered while its batch is filled.
+     */
+    public static final long DEFAULT_MAXIMUM_DELAY = 10;
+    /**
+     * The default number of messages that may wait to be delivered, before the {@link OverflowPolicy overflow policy} applies.
+     */
+    public static final int DEFAULT_CAPACITY = 65536;
+
+    private static final long CLOSE_TIMEOUT = 1000;
+    private static final AtomicLong DELIVERY_COUNT = new AtomicLong();
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final MessageListener listener;
+    private final int batchSize;
+    private final long maximumDelay;
+    private final OverflowPolicy overflowPolicy;
+    private final RingBuffer<MessageEvent> events;
+    private final Thread consumer;
+
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private volatile boolean isWaiting = false;
+    private volatile boolean isIdle = false;
+    private volatile boolean isClosed = false;
+
+    /**
+     * Deliver messages to the specified listener, with the {@link #DEFAULT_BATCH_SIZE default batch size}, {@link #DEFAULT_MAXIMUM_DELAY maximum delay}, {@link #DEFAULT_CAPACITY capacity} and the {@link OverflowPolicy#DROP drop} overflow policy.
+     *
+     * @param listener receives the batches of messages.
+     */
+    public MessageDelivery(final MessageListener listener) {
+        this(listener, DEFAULT_BATCH_SIZE, DEFAULT_MAXIMUM_DELAY, DEFAULT_CAPACITY, OverflowPolicy.DROP);
+    }
+
+    /**
+     * Deliver messages to the specified listener, and start the delivery {@link Thread}. The Thread is a daemon, so that it does not prevent the JVM from exiting.
+     *
+     * @param listener receives the batches of messages.
+     * @param batchSize the maximum number of messages in each batch.
+     * @param maximumDelay the maximum duration, in milliseconds, that a message waits to be delivered while its batch is filled. Zero delivers whatever messages are waiting, without delay.
+     * @param capacity the number of messages that may wait to be delivered, before the overflow policy applies; rounded up to a power of two.
+     * @param overflowPolicy what a connection does with a message when the queue is full.
+     */
+    public MessageDelivery(final MessageListener listener, final int batchSize, final long maximumDelay, final int capacity, final OverflowPolicy overflowPolicy) {
+        if (listener == null) {
+            throw new IllegalArgumentException("A message listener must be specified.");
+        }
+        this.listener = listener;
+        this.batchSize = Math.max(1, batchSize);
+        this.maximumDelay = Math.max(0, maximumDelay);
+        this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.DROP : overflowPolicy;
+        this.events = new RingBuffer<>(capacity);
+
+        this.consumer = new Thread(this::consume, String.format("%s-%d", this.getClass().getSimpleName(), DELIVERY_COUNT.incrementAndGet()));
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Offer a message to be delivered. If the queue is full, the message is dropped or the calling {@link Thread} waits, according to the {@link #getOverflowPolicy() overflow policy}.
+     *
+     * @param event the message received.
+     * @return true if the message will be delivered, or false if it was dropped (or the delivery is closed).
+     */
+    public boolean offer(final MessageEvent event) {
+        if (this.isClosed) {
+            this.droppedCount.incrementAndGet();
+
+            return false;
+        }
+
+        while (!this.events.offer(event)) {
+            // The listener cannot wait for itself to make space.
+            if (this.overflowPolicy == OverflowPolicy.DROP || this.isClosed || this.consumer == Thread.currentThread()) {
+                this.droppedCount.incrementAndGet();
+
+                return false;
+            }
+            LockSupport.unpark(this.consumer);
+            Thread.yield();
+        }
+
+        // Wake the consumer if it is idle, or if it is filling a batch that the waiting messages would complete.
+        if (this.isWaiting && (this.isIdle || this.events.size() >= this.batchSize)) {
+            LockSupport.unpark(this.consumer);
+        }
+
+        return true;
+    }
+
+    private void consume() {
+        final List<MessageEvent> batch = new ArrayList<>(this.batchSize);
+        final List<MessageEvent> messages = Collections.unmodifiableList(batch);
+
+        while (!this.isClosed) {
+            long deadline = 0;
+            while (batch.size() < this.batchSize && !this.isClosed) {
+                final MessageEvent event = this.events.poll();
+                if (event != null) {
+                    if (batch.isEmpty()) {
+                        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.maximumDelay);
+                    }
+                    batch.add(event);
+                } else if (batch.isEmpty()) {
+                    this.await(true, 0);
+                } else {
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    this.await(false, remaining);
+                }
+            }
+
+            this.deliver(batch, messages);
+        }
+
+        this.drain(batch, messages);
+    }
+
+    /**
+     * Park the consumer until it is woken by a producer, or the timeout elapses. The queue is checked again once the producers can see that the consumer is waiting, so that a wake up is not missed.
+     */
+    private void await(final boolean isIdle, final long timeout) {
+        this.isIdle = isIdle;
+        this.isWaiting = true;
+        if (this.events.isEmpty() && !this.isClosed) {
+            if (isIdle) {
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, timeout);
+            }
+        }
+        this.isWaiting = false;
+    }
+
+    private void drain(final List<MessageEvent> batch, final List<MessageEvent> messages) {
+        MessageEvent event;
+        while ((event = this.events.poll()) != null) {
+            batch.add(event);
+            if (batch.size() == this.batchSize) {
+                this.deliver(batch, messages);
+            }
+        }
+        this.deliver(batch, messages);
+    }
+
+    private void deliver(final List<MessageEvent> batch, final List<MessageEvent> messages) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.listener.onMessages(messages);
+        } catch (final RuntimeException e) {
+            this.logger.error(e.getMessage(), e);
+        }
+        this.deliveredCount.addAndGet(batch.size());
+        this.batchCount.incrementAndGet();
+        batch.clear();
+    }
+
+    /**
+     * The listener that receives the batches of messages.
+     *
+     * @return the listener.
+     */
+    public MessageListener getListener() {
+        return this.listener;
+    }
+
+    /**
+     * The maximum number of messages in each batch.
+     *
+     * @return the maximum number of messages in each batch.
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * The maximum duration, in milliseconds, that a message waits to be delivered while its batch is filled.
+     *
+     * @return the maximum delay, in milliseconds.
+     */
+    public long getMaximumDelay() {
+        return this.maximumDelay;
+    }
+
+    /**
+     * What a connection does with a message when the queue is full.
+     *
+     * @return the overflow policy.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    /**
+     * The number of messages that have been delivered to the listener.
+     *
+     * @return the number of messages delivered.
+     */
+    public long getDeliveredCount() {
+        return this.deliveredCount.get();
+    }
+
+    /**
+     * The number of batches that have been delivered to the listener.
+     *
+     * @return the number of batches delivered.
+     */
+    public long getBatchCount() {
+        return this.batchCount.get();
+    }
+
+    /**
+     * The number of messages that were not delivered, because the queue was full (when the overflow policy is {@link OverflowPolicy#DROP}) or the delivery was closed.
+     *
+     * @return the number of messages dropped.
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    /**
+     * Deliver the messages that are waiting, and stop the delivery {@link Thread}. Waits up to one second for the messages to be delivered, unless called by the listener. Messages offered after the delivery is closed are {@link #getDroppedCount() dropped}.
+     */
+    @Override
+    public void close() {
+        this.isClosed = true;
+        LockSupport.unpark(this.consumer);
+
+        if (this.consumer != Thread.currentThread()) {
+            try {
+                this.consumer.join(CLOSE_TIMEOUT);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.cloudracer.mocktcpserver;
+
+import io.cloudracer.mocktcpserver.datastream.DataStream;
+
+/**
+ * A message received by a {@link MockTCPServer server}, as delivered to a {@link MessageListener}.
+ *
+ * @author John McDonnell
+ */
+public final class MessageEvent {
+
+    private final int port;
+    private final DataStream message;
+    private final long timestamp;
+
+    /**
+     * A message received by the server listening on the specified port.
+     *
+     * @param port the {@link MockTCPServer#getPort() port} of the server that received the message.
+     * @param message a copy of the message received.
+     * @param timestamp when the message was received, in milliseconds since the epoch.
+     */
+    public MessageEvent(final int port, final DataStream message, final long timestamp) {
+        this.port = port;
+        this.message = message;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * The {@link MockTCPServer#getPort() port} of the server that received the message; the first port, if the server listens on a {@link MockTCPServer#getLastPort() range of ports}.
+     *
+     * @return the port of the server.
+     */
+    public int getPort() {
+        return this.port;
+    }
+
+    /**
+     * A copy of the message received, which is not changed when the connection receives its next message.
+     *
+     * @return the message received.
+     */
+    public DataStream getMessage() {
+        return this.message;
+    }
+
+    /**
+     * When the message was received.
+     *
+     * @return when the message was received, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d: %s", this.port, this.message);
+    }
+}
@@ -0,0 +1,19 @@
+package io.cloudracer.mocktcpserver;
+
+import java.util.List;
+
+/**
+ * Receives the messages of one or more {@link MockTCPServer servers} in batches, on a {@link Thread} of its own; see {@link MessageDelivery}.
+ *
+ * @author John McDonnell
+ */
+@FunctionalInterface
+public interface MessageListener {
+
+    /**
+     * A batch of messages has been received.
+     *
+     * @param messages the messages received, in the order that they were received by each connection. The list is reused for the next batch once this method returns, so it must be copied if it is to be retained; the {@link MessageEvent events} themselves may be retained.
+     */
+    void onMessages(List<MessageEvent> messages);
+}
@@ -1,24 +1,43 @@
 package io.cloudracer.mocktcpserver;
 
-import java.io.BufferedReader;
 import java.io.Closeable;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,12 +54,24 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import io.cloudracer.mocktcpserver.ConnectionAdmission.OverflowPolicy;
+import io.cloudracer.mocktcpserver.ResponseWriter.FlushPolicy;
 import io.cloudracer.mocktcpserver.bootstrap.Bootstrap;
 import io.cloudracer.mocktcpserver.datastream.DataStream;
 import io.cloudracer.mocktcpserver.datastream.DataStreamRegexMatcher;
+import io.cloudracer.mocktcpserver.journal.CaptureJournal;
+import io.cloudracer.mocktcpserver.nio.EventLoop;
+import io.cloudracer.mocktcpserver.nio.EventLoopGroup;
+import io.cloudracer.mocktcpserver.nio.SelectorTransport;
+import io.cloudracer.mocktcpserver.responses.MessagePattern;
 import io.cloudracer.mocktcpserver.responses.ResponseDAO;
+import io.cloudracer.mocktcpserver.responses.Responses;
+import io.cloudracer.mocktcpserver.responses.RoutingTable;
+import io.cloudracer.mocktcpserver.tcpclient.ConnectionPool;
 import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
 import io.cloudracer.properties.ConfigurationSettings;
+import io.cloudracer.properties.ConfigurationSnapshot;
+import io.cloudracer.properties.ConfigurationWatcher;
 
 /**
  * A TCP Server that is designed to simulate success <b>and</b> failure conditions in System/Integration test environments.
@@ -55,23 +86,142 @@ public class MockTCPServer extends Thread implements Closeable {
         OPEN, CLOSING, CLOSED
     }
 
+    /**
+     * The transport that accepts connections, and reads and responds to messages.
+     */
+    public enum Engine {
+        /**
+         * A {@link Thread} is started for each accepted connection, and that {@link Thread} blocks while it waits for data. This is the default.
+         */
+        BLOCKING,
+        /**
+         * Accept, read, frame and respond to every connection using non-blocking I/O on a {@link EventLoopGroup small, fixed, set of event loop threads}.
+         */
+        NIO;
+
+        /**
+         * The Engine with the specified name, regardless of case.
+         *
+         * @param name the name of the engine e.g. "nio".
+         * @return the Engine with the specified name.
+         * @throws IllegalArgumentException there is no Engine with the specified name.
+         */
+        public static Engine fromName(final String name) {
+            return Engine.valueOf(StringUtils.upperCase(StringUtils.trim(name), Locale.ROOT));
+        }
+    }
+
+    /**
+     * How the {@link Engine#BLOCKING blocking engine} runs the read loop of each accepted connection.
+     */
+    public enum ExecutionMode {
+        /**
+         * A platform {@link Thread} is started for each accepted connection. This is the default.
+         */
+        PLATFORM,
+        /**
+         * Each accepted connection is run on a virtual thread, so that tens of thousands of connections can be held open. Virtual threads require a Java 21 (or later) runtime; on an earlier runtime a warning is logged and {@link #PLATFORM} is used.
+         */
+        VIRTUAL;
+
+        /**
+         * The ExecutionMode with the specified name, regardless of case.
+         *
+         * @param name the name of the execution mode e.g. "virtual".
+         * @return the ExecutionMode with the specified name.
+         * @throws IllegalArgumentException there is no ExecutionMode with the specified name.
+         */
+        public static ExecutionMode fromName(final String name) {
+            return ExecutionMode.valueOf(StringUtils.upperCase(StringUtils.trim(name), Locale.ROOT));
+        }
+    }
+
     private static final byte[] DEFAULT_TERMINATOR = { 13, 10, 10 };
 
+    /**
+     * The default maximum number of persistent connections to each destination of the configured responses: zero, so a new connection is opened for each message that has responses, unless {@link #setMaximumOutboundConnections(int) pooling} is enabled.
+     */
+    public static final int DEFAULT_MAXIMUM_OUTBOUND_CONNECTIONS = 0;
+
+    /**
+     * The default maximum duration, in milliseconds, that a server waits for the messages in progress to be acknowledged when it is {@link #close() closed}.
+     */
+    public static final long DEFAULT_DRAIN_TIMEOUT = 1000;
+
+    private static final long CLOSE_TIMEOUT = 1000;
+
+    private static volatile String localHostName;
+
     private byte[] terminator = null;
     private AssertionError assertionError;
 
     private ServerSocket socket;
+    private SelectorTransport selectorTransport;
+    private Engine engine = Engine.BLOCKING;
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+    private Executor connectionExecutor;
+    private ExecutorService workerExecutor;
+    private ConnectionAdmission connectionAdmission;
+    private int acceptorCount = SelectorTransport.DEFAULT_ACCEPTOR_COUNT;
+    private int maximumConnections = 0;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+    private int queueCapacity = ConnectionAdmission.DEFAULT_QUEUE_CAPACITY;
+    private long queueTimeout = ConnectionAdmission.DEFAULT_QUEUE_TIMEOUT;
+    private FlushPolicy flushPolicy = FlushPolicy.DRAIN;
+    private int flushCount = ResponseWriter.DEFAULT_FLUSH_COUNT;
+    private long flushInterval = ResponseWriter.DEFAULT_FLUSH_INTERVAL;
+    private long drainTimeout = DEFAULT_DRAIN_TIMEOUT;
+    private int maximumOutboundConnections = DEFAULT_MAXIMUM_OUTBOUND_CONNECTIONS;
+    private volatile ConnectionPool connectionPool;
+    private Path journalDirectory;
+    private volatile CaptureJournal journal;
+    private boolean isJournalCreated = false;
     private DataStreamRegexMatcher expectedMessage;
 
     private Integer port;
+    private Integer lastPort;
     private boolean setIsAlwaysNAKResponse = false;
     private boolean setIsAlwaysNoResponse = false;
     private boolean isSendResponses = true;
 
-    private Status status = Status.OPEN;
-    private final ConfigurationSettings configurationSettings = new ConfigurationSettings();
+    private volatile Status status = Status.OPEN;
+    private final CompletableFuture<MockTCPServer> ready = new CompletableFuture<>();
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final ConfigurationSettings configurationSettings;
 
     private Map<String, Set<TCPClient>> tcpClients = new HashMap<>();;
+    private Map<MessagePattern, Set<TCPClient>> patternTCPClients = new LinkedHashMap<>();
+    private final AtomicReference<RoutingTable> routingTable = new AtomicReference<>();
+    private volatile Closeable configurationWatch;
+    private final AtomicLong reloadCount = new AtomicLong();
+    private final AtomicLong reloadFailureCount = new AtomicLong();
+    private volatile long reloadDuration;
+    private final Set<ClientConnection> connections = ConcurrentHashMap.newKeySet();
+    private final Object connectionsLock = new Object();
+    private boolean isDraining = false;
+    private final AtomicLong drainedConnectionCount = new AtomicLong();
+    private final AtomicLong killedConnectionCount = new AtomicLong();
+    private final EventDispatcher eventDispatcher = new EventDispatcher(EventDispatcher.DEFAULT_CAPACITY);
+    private volatile boolean isAsynchronousCallbacks = false;
+    private final EventDispatcher.Listener asynchronousCallbacks = new EventDispatcher.Listener() {
+
+        @Override
+        public void onConnection(final String clientMachine, final int clientPort, final String serverMachine, final int serverPort) {
+            MockTCPServer.this.afterConnection(clientMachine, clientPort, serverMachine, serverPort);
+        }
+
+        @Override
+        public void onMessage(final DataStream message) {
+            MockTCPServer.this.onMessage(message);
+        }
+
+        @Override
+        public void onResponse(final byte[] response) {
+            MockTCPServer.this.afterResponse(response);
+        }
+    };
+    private final List<MessageDelivery> messageDeliveries = new CopyOnWriteArrayList<>();
+    private final List<MessageDelivery> createdMessageDeliveries = new CopyOnWriteArrayList<>();
 
     private abstract static class Print {
 
@@ -140,11 +290,26 @@ public class MockTCPServer extends Thread implements Closeable {
      * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
      */
     public MockTCPServer(final Integer port, boolean startServer) throws ConfigurationException, InterruptedException {
+        this(port, startServer, new ConfigurationSettings());
+    }
+
+    /**
+     * Start the server on the specified port, configured by the specified settings e.g. settings read from a {@link io.cloudracer.properties.ConfigurationSnapshot snapshot}.
+     *
+     * @param port the TCP Server will listen on this port. If null, the default port will be used.
+     * @param startServer if true, start the server
+     * @param configurationSettings the configuration of the server.
+     *
+     * @throws ConfigurationException error reading the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     */
+    public MockTCPServer(final Integer port, boolean startServer, final ConfigurationSettings configurationSettings) throws ConfigurationException, InterruptedException {
+        this.configurationSettings = configurationSettings;
         // If the port is specified as -1, creating a connection pool containing a separate server to listen on each port specified in the configuration file.
         if (port == -1) {
             this.logger.info("Starting a connection pool...");
 
-            new Bootstrap().startup();
+            awaitQuietly(new Bootstrap().startup(configurationSettings));
         } else {
             this.logger.info(String.format("Starting to listen on port %d only...", port));
 
@@ -152,21 +317,43 @@ public class MockTCPServer extends Thread implements Closeable {
                 this.setPort(port);
             }
 
-            super.setName(String.format("%s-%d", this.getThreadName(), this.getPort()));
+            this.setLastPort(this.configurationSettings.getLastPort(this.getPort()));
+            if (this.getLastPort() > this.getPort()) {
+                super.setName(String.format("%s-%d-%d", this.getThreadName(), this.getPort(), this.getLastPort()));
+            } else {
+                super.setName(String.format("%s-%d", this.getThreadName(), this.getPort()));
+            }
+
+            this.setEngine(this.configurationSettings.getEngine(this.getPort()));
+            this.setExecutionMode(this.configurationSettings.getExecutionMode(this.getPort()));
+            this.setAcceptorCount(this.configurationSettings.getAcceptorCount(this.getPort()));
+            this.setMaximumConnections(this.configurationSettings.getMaximumConnections(this.getPort()));
+            this.setOverflowPolicy(this.configurationSettings.getOverflowPolicy(this.getPort()));
+            this.setQueueCapacity(this.configurationSettings.getQueueCapacity(this.getPort()));
+            this.setQueueTimeout(this.configurationSettings.getQueueTimeout(this.getPort()));
+            this.setFlushPolicy(this.configurationSettings.getFlushPolicy(this.getPort()));
+            this.setFlushCount(this.configurationSettings.getFlushCount(this.getPort()));
+            this.setFlushInterval(this.configurationSettings.getFlushInterval(this.getPort()));
+            this.setDrainTimeout(this.configurationSettings.getDrainTimeout(this.getPort()));
+            this.setMaximumOutboundConnections(this.configurationSettings.getMaximumOutboundConnections(this.getPort()));
+            this.setJournalDirectory(this.configurationSettings.getJournal(this.getPort()));
 
             if (startServer) {
                 this.start();
+                // Wait until the port is accepting, so that a test that *immediately* tries to connect does not get a "connection refused" error.
+                awaitQuietly(this.getReadyFuture());
             }
         }
+    }
 
-        /*
-         * If this pause is not done here, a test that *immediately* tries to connect, may get a "connection refused" error.
-         */
+    /**
+     * Wait for the future to complete. If it completes exceptionally, the cause has already been logged by the server that failed.
+     */
+    private static void awaitQuietly(final CompletableFuture<?> future) throws InterruptedException {
         try {
-            final long sleepDuration = 20;
-            TimeUnit.MILLISECONDS.sleep(sleepDuration);
-        } catch (final InterruptedException e) {
-            Thread.currentThread().interrupt();
+            future.get();
+        } catch (final ExecutionException e) {
+            // Do nothing; the failure has already been logged.
         }
     }
 
@@ -194,10 +381,31 @@ public class MockTCPServer extends Thread implements Closeable {
                 Print.printVersion();
             } else if (commandLine.hasOption("help")) {
                 Print.printHelp();
+            } else if (commandLine.hasOption("compile-snapshot")) {
+                final Path snapshot = Paths.get(commandLine.getOptionValue("compile-snapshot"));
+                ConfigurationSnapshot.compile(new ConfigurationSettings().getFileName(), snapshot);
+                logger.info(String.format("Compiled the configuration snapshot \"%s\".", snapshot.toAbsolutePath()));
             } else {
                 final MockTCPServer mockTCPServer;
                 final int port = Integer.parseInt(commandLine.getOptionValue("port"));
-                mockTCPServer = new MockTCPServer(port);
+                final ConfigurationSettings configurationSettings = commandLine.hasOption("snapshot") ? ConfigurationSettings.fromSnapshot(Paths.get(commandLine.getOptionValue("snapshot"))) : new ConfigurationSettings();
+                // The options override the configuration of every server; including each server of a pool (i.e. port -1), which is configured as it is created.
+                if (commandLine.hasOption("engine")) {
+                    configurationSettings.setServerAttribute(ConfigurationSettings.ENGINE_ATTRIBUTE_NAME, Engine.fromName(commandLine.getOptionValue("engine")).name());
+                }
+                if (commandLine.hasOption("acceptors")) {
+                    configurationSettings.setServerAttribute(ConfigurationSettings.ACCEPTOR_COUNT_ATTRIBUTE_NAME, String.valueOf(Integer.parseInt(commandLine.getOptionValue("acceptors"))));
+                }
+                if (commandLine.hasOption("execution-mode")) {
+                    configurationSettings.setServerAttribute(ConfigurationSettings.EXECUTION_MODE_ATTRIBUTE_NAME, ExecutionMode.fromName(commandLine.getOptionValue("execution-mode")).name());
+                }
+                if (commandLine.hasOption("journal")) {
+                    configurationSettings.setServerAttribute(ConfigurationSettings.JOURNAL_ATTRIBUTE_NAME, commandLine.getOptionValue("journal"));
+                }
+                mockTCPServer = new MockTCPServer(port, false, configurationSettings);
+                if (port != -1) {
+                    mockTCPServer.start();
+                }
 
                 // When the Operating System interrupts the thread (kill or CTRL-C), stop the server.
                 Runtime.getRuntime().addShutdownHook(new Thread() {
@@ -233,38 +441,203 @@ public class MockTCPServer extends Thread implements Closeable {
     @Override
     public void run() {
         try {
+            this.watchConfiguration();
+            // Resolve the name of this machine before the first connection is accepted, rather than on the accept path.
+            MockTCPServer.getLocalHostName();
+            this.eventDispatcher.start(String.format("%s-Events", super.getName()));
             try {
-                while (this.getStatus() == Status.OPEN && this.getSocket() != null) {
-                    handleConnection();
+                this.openJournal();
+                if (this.getMaximumOutboundConnections() > 0) {
+                    this.connectionPool = new ConnectionPool(this.getMaximumOutboundConnections(), ConnectionPool.DEFAULT_ACQUIRE_TIMEOUT);
+                }
+                if (this.getEngine() == Engine.NIO) {
+                    handleSelectorConnections();
+                } else {
+                    if (this.getAcceptorCount() > SelectorTransport.DEFAULT_ACCEPTOR_COUNT) {
+                        this.logger.warn(String.format("Only the %s engine supports more than one acceptor. Port %d will be served by a single acceptor.", Engine.NIO, this.getPort()));
+                    }
+                    this.setConnectionAdmission(new ConnectionAdmission(this.getMaximumConnections(), this.getOverflowPolicy(), this.getQueueCapacity(), this.getQueueTimeout(), this.getConnectionExecutor()));
+                    this.getSocket();
+                    this.ready.complete(this);
+                    while (this.getStatus() == Status.OPEN && this.getSocket() != null) {
+                        handleConnection();
+                    }
                 }
             } catch (final IOException | ConfigurationException e) {
+                this.ready.completeExceptionally(e);
                 this.logger.error(e.getMessage(), e);
             }
         } finally {
+            // If the server stopped before it was ready (e.g. it was closed while starting), anything waiting for it to be ready is released.
+            this.ready.completeExceptionally(new IllegalStateException(String.format("The server on port %d closed before it was ready.", this.getPort())));
             this.setStatus(Status.CLOSING);
 
             this.close();
         }
     }
 
+    /**
+     * Accept, and process, connections on the {@link EventLoopGroup#getDefault() shared event loops} until the server is {@link #close() closed}.
+     *
+     * @throws IOException the port could not be bound.
+     */
+    private void handleSelectorConnections() throws IOException {
+        this.logger.debug(String.format("Opening a selector transport on ports %d-%d...", this.getPort(), this.getLastPort()));
+        this.setSelectorTransport(new SelectorTransport(this.getPort(), this.getLastPort(), this.getAcceptorCount(), EventLoopGroup.getDefault()) {
+
+            @Override
+            protected ClientConnection newConnection(final SocketChannel channel, final DataOutputStream outputStream) throws IOException {
+                MockTCPServer.this.afterConnection(channel.socket());
+
+                try {
+                    return MockTCPServer.this.createClientConnection(null, outputStream, getRoutingTableReference());
+                } catch (final ConfigurationException e) {
+                    throw new IOException(e);
+                }
+            }
+        });
+        this.getSelectorTransport().open();
+        this.ready.complete(this);
+
+        synchronized (this) {
+            while (this.getStatus() == Status.OPEN) {
+                try {
+                    this.wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+
+                    break;
+                }
+            }
+        }
+    }
+
     private void handleConnection() throws IOException, ConfigurationException {
+        final ConnectionAdmission admission = this.getConnectionAdmission();
+        try {
+            // If the server is at capacity, leave new connections in the accept backlog (depending upon the overflow policy).
+            if (!admission.awaitCapacity()) {
+                return;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return;
+        }
+
         try {
-            acceptNewConnection().start();
+            this.logger.info(String.format("Waiting for a connection on port %d...", this.getPort()));
+            final Socket client = this.socket.accept();
+            admission.submit(acceptNewConnection(client), client);
         } catch (final SocketException e) {
-            this.logger.warn(e);
+            if (this.getStatus() == Status.OPEN) {
+                this.logger.warn(e);
+            } else {
+                // The server socket was closed, to stop accepting connections, while waiting for a connection.
+                this.logger.debug(e);
+            }
+        }
+    }
+
+    /**
+     * The {@link Executor} that runs each accepted connection: the {@link #setConnectionExecutor(Executor) pluggable Executor}, if set, otherwise a virtual thread per task {@link Executor}, if the {@link ExecutionMode#VIRTUAL virtual execution mode} is set and virtual threads are available, otherwise a pool of platform threads bounded by the {@link #getMaximumConnections() maximum number of connections}, if there is a maximum.
+     *
+     * @return the {@link Executor}, or null if a platform {@link Thread} is to be started for each connection.
+     */
+    private synchronized Executor getConnectionExecutor() {
+        if (this.connectionExecutor != null) {
+            return this.connectionExecutor;
+        }
+        if (this.getExecutionMode() == ExecutionMode.VIRTUAL && this.workerExecutor == null) {
+            this.workerExecutor = newVirtualThreadPerTaskExecutor();
+            if (this.workerExecutor == null) {
+                this.logger.warn(String.format("Virtual threads are not available on the Java %s runtime. A platform Thread will be started for each connection.", System.getProperty("java.version")));
+
+                this.setExecutionMode(ExecutionMode.PLATFORM);
+            }
+        }
+        if (this.getMaximumConnections() > 0 && this.workerExecutor == null) {
+            this.workerExecutor = newWorkerPool(this.getName(), this.getMaximumConnections());
+        }
+
+        return this.workerExecutor;
+    }
+
+    /**
+     * Create a pool of platform threads, that expire when idle, to run no more than the maximum number of connections concurrently.
+     *
+     * @param name the prefix of each worker {@link Thread} name.
+     * @param maximumConnections the maximum number of connections.
+     * @return a bounded pool of worker threads.
+     */
+    private static ExecutorService newWorkerPool(final String name, final int maximumConnections) {
+        final long keepAlive = 60;
+        final AtomicInteger workerCount = new AtomicInteger();
+        final ThreadPoolExecutor workers = new ThreadPoolExecutor(maximumConnections, maximumConnections, keepAlive, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, String.format("%s-Worker-%d", name, workerCount.incrementAndGet())));
+        workers.allowCoreThreadTimeOut(true);
+
+        return workers;
+    }
+
+    /**
+     * Create a virtual thread per task {@link ExecutorService}, if the runtime supports virtual threads. Reflection is used so that MockTCPServer still runs on the earlier runtimes that it is compiled for.
+     *
+     * @return a virtual thread per task {@link ExecutorService}, or null if virtual threads are not available.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            return null;
         }
     }
 
     /**
-     * A server callback when a message has been processed, and a response has been sent to the client.
+     * A server callback when a connection has been accepted. It is called on the {@link Thread} that accepted the connection, unless the {@link #setIsAsynchronousCallbacks(boolean) callbacks are asynchronous}.
      *
-     * @param clientMachine the name of the client machine that made the connection
+     * @param clientMachine the address of the client machine that made the connection
      * @param clientPort the port the client is transmitting on
      * @param serverMachine the name of the server machine
      * @param serverPort the port the machine is listening on
      */
-    public synchronized void afterConnection(final String clientMachine, final int clientPort, final String serverMachine, final int serverPort) {
-        this.logger.info(String.format("Accepted a connection on machine %s:%d, from the client %s:%d.", serverMachine, serverPort, clientMachine, clientPort));
+    public void afterConnection(final String clientMachine, final int clientPort, final String serverMachine, final int serverPort) {
+        if (this.logger.isInfoEnabled()) {
+            this.logger.info(String.format("Accepted a connection on machine %s:%d, from the client %s:%d.", serverMachine, serverPort, clientMachine, clientPort));
+        }
+    }
+
+    /**
+     * Called on the accept path for every connection, so no name is resolved here: the client is identified by its raw address, and the server by the {@link #getLocalHostName() local host name} that is resolved once.
+     *
+     * @param client the accepted connection.
+     */
+    private void afterConnection(final Socket client) {
+        final String clientMachine = client.getInetAddress().getHostAddress();
+        if (!this.getIsAsynchronousCallbacks()) {
+            this.afterConnection(clientMachine, client.getPort(), MockTCPServer.getLocalHostName(), client.getLocalPort());
+        }
+        if (this.eventDispatcher.hasListeners()) {
+            this.eventDispatcher.connection(clientMachine, client.getPort(), MockTCPServer.getLocalHostName(), client.getLocalPort());
+        }
+    }
+
+    /**
+     * The name of this machine, resolved on first use and then reused; resolving the name can take milliseconds on a host with a slow resolver.
+     *
+     * @return the name of this machine, or its loopback address if the name cannot be resolved.
+     */
+    static String getLocalHostName() {
+        if (MockTCPServer.localHostName == null) {
+            String hostName;
+            try {
+                hostName = InetAddress.getLocalHost().getHostName();
+            } catch (final UnknownHostException e) {
+                hostName = InetAddress.getLoopbackAddress().getHostName();
+            }
+            MockTCPServer.localHostName = hostName;
+        }
+
+        return MockTCPServer.localHostName;
     }
 
     /**
@@ -290,244 +663,1007 @@ public class MockTCPServer extends Thread implements Closeable {
     }
 
     /**
-     * A server callback when a message has been processed, and a response has been sent to the client.
+     * The transport that accepts connections, and reads and responds to messages. The engine must be <b>set before the server is started</b>.
+     * <p>
+     * Default is {@link Engine#BLOCKING}, unless the server is configured with a different engine in the {@link ConfigurationSettings#getFileName() configuration file}. A server that listens on a {@link #getLastPort() range of ports} always uses the {@link Engine#NIO NIO engine}.
      *
-     * @param response the response that has been sent.
+     * @return the transport engine.
      */
-    public synchronized void afterResponse(final byte[] response) {
-        this.logger.debug(String.format("Sent the response: %s.", new String(response)));
+    public Engine getEngine() {
+        return this.getLastPort() > this.getPort() ? Engine.NIO : this.engine;
     }
 
     /**
-     * A server callback when a message is received.
+     * The transport that accepts connections, and reads and responds to messages. The engine must be <b>set before the server is started</b>.
      *
-     * @param message the message received.
+     * @param engine the transport engine.
      */
-    public synchronized void onMessage(final DataStream message) {
-        this.logger.info(String.format("Received: %s.", message.toString()));
+    public void setEngine(final Engine engine) {
+        this.engine = engine;
     }
 
     /**
-     * An error is recorded if a message other than that which is expected is received.
+     * How the {@link Engine#BLOCKING blocking engine} runs each accepted connection. The execution mode must be <b>set before the server is started</b>.
+     * <p>
+     * Default is {@link ExecutionMode#PLATFORM}, unless the server is configured with a different execution mode in the {@link ConfigurationSettings#getFileName() configuration file}.
      *
-     * @return a recorded error.
+     * @return the execution mode.
      */
-    public AssertionError getAssertionError() {
-        return this.assertionError;
+    public ExecutionMode getExecutionMode() {
+        return this.executionMode;
     }
 
     /**
-     * An error will be recorded if a message other than that which is {@link ClientConnection#getAssertionError() expected} is received. This property must be <b>set before a client connection is established</b>.
+     * How the {@link Engine#BLOCKING blocking engine} runs each accepted connection. The execution mode must be <b>set before the server is started</b>.
      *
-     * @param assertionError a recorded error.
+     * @param executionMode the execution mode.
      */
-    private void setAssertionError(final AssertionError assertionError) {
-        this.assertionError = assertionError;
+    public void setExecutionMode(final ExecutionMode executionMode) {
+        this.executionMode = executionMode;
     }
 
     /**
-     * Forces the Server to return a NAK in response to the next message received (regardless of <u>any</u> other conditions). The next message will first be processed as normal; irrespective of this property.
-     * <p>
-     * This is intended to be used to test a clients response to receiving a NAK.
+     * Run each connection accepted by the {@link Engine#BLOCKING blocking engine} with this {@link Executor}, instead of starting a {@link Thread} for it. When set, the {@link #getExecutionMode() execution mode} is ignored. The {@link Executor} must be <b>set before the server is started</b>.
      * <p>
-     * Default is false.
+     * The {@link Executor} is not shutdown when the server is {@link #close() closed}. Each connection blocks the {@link Executor} thread that it runs on until the client disconnects, so the {@link Executor} must not have fewer threads than the number of concurrent connections expected.
      *
-     * @return If true, the Servers next response will always be a NAK.
+     * @param connectionExecutor runs each accepted connection, or null to use the {@link #getExecutionMode() execution mode}.
      */
-    public boolean getIsAlwaysNAKResponse() {
-        return this.setIsAlwaysNAKResponse;
+    public synchronized void setConnectionExecutor(final Executor connectionExecutor) {
+        this.connectionExecutor = connectionExecutor;
     }
 
     /**
-     * Forces the Server to return a NAK in response to the next message received (regardless of <u>any</u> other conditions). The next message will first be processed as normal; irrespective of this property.
-     * <p>
-     * This is intended to be used to test a clients response to receiving a NAK. This property must be <b>set before a client connection is established</b>.
+     * The number of acceptors (i.e. listening sockets bound to the same port with <code>SO_REUSEPORT</code>) for each port, when the server uses the {@link Engine#NIO NIO engine}. Each acceptor is served by its own {@link EventLoopGroup#getDefault() event loop}, so the operating system spreads the incoming connections across the event loops. The number must be <b>set before the server is started</b>.
      * <p>
-     * Default is false.
+     * Default is {@link SelectorTransport#DEFAULT_ACCEPTOR_COUNT}, unless the server is configured with a different number in the {@link ConfigurationSettings#getFileName() configuration file}.
      *
-     * @param isAlwaysNAKResponse if true, the Servers next response will always be a NAK.
+     * @return the number of acceptors for each port.
      */
-    public void setIsAlwaysNAKResponse(final boolean isAlwaysNAKResponse) {
-        this.setIsAlwaysNAKResponse = isAlwaysNAKResponse;
+    public int getAcceptorCount() {
+        return this.acceptorCount;
     }
 
     /**
-     * The server <b>never</b> return a response, when true.
+     * The number of acceptors for each port, when the server uses the {@link Engine#NIO NIO engine}. The number must be <b>set before the server is started</b>.
      *
-     * @return true when the server will <b>never</b> return a response. Default is false.
+     * @param acceptorCount the number of acceptors for each port.
      */
-    public boolean getIsAlwaysNoResponse() {
-        return this.setIsAlwaysNoResponse;
+    public void setAcceptorCount(final int acceptorCount) {
+        this.acceptorCount = acceptorCount;
     }
 
     /**
-     * The server <b>never</b> return a response, when true. This property must be <b>set before a client connection is established</b>.
+     * The number of connections accepted by each acceptor, when the server uses the {@link Engine#NIO NIO engine}; see {@link #getAcceptorCount()}.
      *
-     * @param isAlwaysNoResponse true when the server will <b>never</b> return a response. Default is false.
+     * @return the number of connections accepted, indexed by acceptor; empty if the server does not use the {@link Engine#NIO NIO engine}, or has not been started.
      */
-    public void setIsAlwaysNoResponse(final boolean isAlwaysNoResponse) {
-        this.setIsAlwaysNoResponse = isAlwaysNoResponse;
+    public long[] getAcceptCounts() {
+        final SelectorTransport transport = this.getSelectorTransport();
+
+        return transport == null ? new long[0] : transport.getAcceptCounts();
     }
 
     /**
-     * The server will send the responses described by {@link #getResponses()}.
+     * The maximum number of persistent connections to each machine and port that the configured responses are sent to; or zero if a new connection is opened for each message that has responses, and is closed once they are sent.
      * <p>
-     * Default is true.
+     * Default is {@link #DEFAULT_MAXIMUM_OUTBOUND_CONNECTIONS} (no pooling), unless the server is configured with a different maximum in the {@link ConfigurationSettings#getFileName() configuration file}.
      *
-     * @return true, if the {@link #getResponses() responses} are to be sent.
+     * @return the maximum number of connections to each destination, or zero.
      */
-    public boolean getIsSendResponses() {
-        return isSendResponses;
+    public int getMaximumOutboundConnections() {
+        return this.maximumOutboundConnections;
     }
 
     /**
-     * The server will send the responses described by {@link #getResponses()}. This property must be <b>set before a client connection is established</b>.
-     * <p>
-     * Default is true.
-     *
-     * @param isSendResponses true, if the {@link #getResponses() responses} are to be sent
+     * The maximum number of persistent connections to each machine and port that the configured responses are sent to; or zero if a new connection is opened for each message. The maximum must be <b>set before the server is started</b>.
      *
+     * @param maximumOutboundConnections the maximum number of connections to each destination, or zero.
      */
-    public void setIsSendResponses(boolean isSendResponses) {
-        this.isSendResponses = isSendResponses;
+    public void setMaximumOutboundConnections(final int maximumOutboundConnections) {
+        this.maximumOutboundConnections = maximumOutboundConnections;
     }
 
     /**
-     * If any message, other that this one, is the next message to be received, record it as an {@link MockTCPServer#getAssertionError() assertion error}.
+     * The pool of persistent connections that the configured responses are sent on; see {@link #getMaximumOutboundConnections()}.
      *
-     * @return ignore if null.
+     * @return the pool of connections, or null if the responses are sent on a new connection for each message (or the server has not been started).
      */
-    public DataStreamRegexMatcher getExpectedMessage() {
-        return this.expectedMessage;
+    public ConnectionPool getConnectionPool() {
+        return this.connectionPool;
     }
 
     /**
-     * If any message, other that this one, is the next message to be received, record it as an {@link MockTCPServer#getAssertionError() assertion error} and respond with a NAK. This property must be <b>set before a client connection is established</b>.
+     * The directory of the {@link CaptureJournal capture journal} that every message received, and the response sent for it, is written to. The journal of the server is written to a sub-directory, named after the {@link #getPort() port}, of this directory; unless a journal is {@link #setJournal(CaptureJournal) set}.
+     * <p>
+     * Default is null (i.e. the messages are not journaled), unless the server is configured with a directory in the {@link ConfigurationSettings#getFileName() configuration file}.
      *
-     * @param expectedMessage a Regular Expression that describes what the next received message will be.
+     * @return the directory of the journal, or null if the messages are not journaled.
      */
-
-    public void setExpectedMessage(final String expectedMessage) {
-        this.expectedMessage = new DataStreamRegexMatcher(expectedMessage);
+    public Path getJournalDirectory() {
+        return this.journalDirectory;
     }
 
     /**
-     * Get the messages, initialised from the configuration file, that will be sent when specified messages are received.
+     * The directory of the {@link CaptureJournal capture journal} that every message received, and the response sent for it, is written to. The directory must be <b>set before the server is started</b>.
      *
-     * @return the server responses.
-     * @throws ConfigurationException error reading the configuration file
+     * @param journalDirectory the directory of the journal, or null if the messages are not to be journaled.
      */
-    public Map<String, Set<TCPClient>> getResponses() throws ConfigurationException {
-        if (getIsSendResponses()) {
-            if (tcpClients.isEmpty()) {
-                final Map<String, List<ResponseDAO>> responsesDAOs = this.configurationSettings.getResponses(getPort()).getResponses();
-
-                for (Map.Entry<String, List<ResponseDAO>> incommingMessage : responsesDAOs.entrySet()) {
-                    for (ResponseDAO responseDAO : incommingMessage.getValue()) {
-                        final TCPClient tcpClient = new TCPClient(responseDAO.getMachineName(), responseDAO.getPort());
-                        tcpClient.addResponse(responseDAO.getResponse());
-                        final Set<TCPClient> client = new HashSet<>(Arrays.asList(tcpClient));
-                        if (tcpClients.containsKey(incommingMessage.getKey())) {
-                            Set<TCPClient> currentClients = tcpClients.get(incommingMessage.getKey());
-                            updateTCPClientList(currentClients, tcpClient);
-                        } else {
-                            tcpClients.put(incommingMessage.getKey(), client);
-                        }
-                    }
-                }
-            }
-        } else {
-            tcpClients = new HashMap<>();
-        }
-
-        return Collections.unmodifiableMap(tcpClients);
-
+    public void setJournalDirectory(final Path journalDirectory) {
+        this.journalDirectory = journalDirectory;
     }
 
-    private void updateTCPClientList(Set<TCPClient> currentClients, final TCPClient tcpClient) {
-        if (currentClients.contains(tcpClient)) {
-            for (Iterator<TCPClient> it = currentClients.iterator(); it.hasNext();) {
-                TCPClient currentClient = it.next();
-                if (currentClient.equals(tcpClient)) {
-                    currentClient.addResponse(tcpClient.getResponses().get(0));
-                }
-            }
-        } else {
-            currentClients.add(tcpClient);
-        }
+    /**
+     * The {@link CaptureJournal capture journal} that every message received, and the response sent for it, is written to.
+     *
+     * @return the journal, or null if the messages are not journaled (or the server has not been started).
+     */
+    public CaptureJournal getJournal() {
+        return this.journal;
     }
 
     /**
-     * Close the socket (if it is open) and any open data streams.
+     * The {@link CaptureJournal capture journal} that every message received, and the response sent for it, is written to; which may be shared with other servers. A journal that is set is not closed when the server is closed. The journal must be <b>set before the server is started</b>.
+     *
+     * @param journal the journal, or null if the messages are not to be journaled.
      */
-    @Override
-    public synchronized void close() {
-        this.logger.info("Closing...");
-
-        if (this.getStatus() != Status.CLOSING) {
-            this.setStatus(Status.CLOSED);
-        }
-
-        this.closeStreams();
-
-        while ((socket != null && !socket.isClosed() && socket.isBound()) || (super.isAlive() && this.getStatus() != Status.CLOSING)) {
-            final long maximumTimeToWait = 1000;
-
-            try {
-                super.join(maximumTimeToWait);
-            } catch (final InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-
-            // Intermittently, the server fails to close. Retry it indefinitely until it does close; an improvement of blocking forever with no feedback.
-            if (super.isAlive()) {
-                this.logger.warn(String.format("Failed to close the Server(%s) in %d milliseconds. Trying again to shutdown the Server...", super.getName(), maximumTimeToWait));
-                if (!super.isInterrupted()) {
-                    this.logger.trace(String.format("Interrupting the Server Thread(%s)...", super.getName()));
+    public void setJournal(final CaptureJournal journal) {
+        this.journal = journal;
+    }
 
-                    this.closeStreams();
-                }
-            }
+    /**
+     * Open a journal in the {@link #getJournalDirectory() journal directory}, unless a journal has been {@link #setJournal(CaptureJournal) set}.
+     */
+    private synchronized void openJournal() throws IOException {
+        if (this.journal == null && this.getJournalDirectory() != null) {
+            this.journal = new CaptureJournal(this.getJournalDirectory().resolve(String.valueOf(this.getPort())));
+            this.isJournalCreated = true;
+            this.logger.info(String.format("Journaling the messages received to \"%s\".", this.journal.getDirectory()));
         }
-
-        this.logger.info("Closed.");
     }
 
-    private void closeStreams() {
-        // Do not set the ServerSocket to null; just close the Stream.
-        this.logger.debug("Closing the socket...");
-        IOUtils.closeQuietly(this.socket);
-        this.logger.debug("Closed the socket.");
+    private synchronized void closeJournal() {
+        if (this.isJournalCreated) {
+            this.journal.close();
+        }
     }
 
-    private Status getStatus() {
-        return this.status;
+    /**
+     * The maximum number of connections that the {@link Engine#BLOCKING blocking engine} will run concurrently, or zero if there is no limit. When the limit is reached, new connections are handled according to the {@link #getOverflowPolicy() overflow policy}. The maximum must be <b>set before the server is started</b>.
+     * <p>
+     * Default is zero, unless the server is configured with a maximum in the {@link ConfigurationSettings#getFileName() configuration file}.
+     *
+     * @return the maximum number of concurrent connections.
+     */
+    public int getMaximumConnections() {
+        return this.maximumConnections;
     }
 
-    private void setStatus(final Status status) {
-        this.status = status;
+    /**
+     * The maximum number of connections that the {@link Engine#BLOCKING blocking engine} will run concurrently, or zero if there is no limit. The maximum must be <b>set before the server is started</b>.
+     *
+     * @param maximumConnections the maximum number of concurrent connections.
+     */
+    public void setMaximumConnections(final int maximumConnections) {
+        this.maximumConnections = maximumConnections;
     }
 
     /**
-     * The port that this server is listening on.
+     * What happens to a new connection when the {@link #getMaximumConnections() maximum number of connections} are already running. The policy must be <b>set before the server is started</b>.
+     * <p>
+     * Default is {@link OverflowPolicy#REJECT}, unless the server is configured with a different policy in the {@link ConfigurationSettings#getFileName() configuration file}.
      *
-     * @return the port that this server is listening on.
+     * @return the overflow policy.
      */
-    public int getPort() {
-        return this.port;
+    public OverflowPolicy getOverflowPolicy() {
+        return this.overflowPolicy;
     }
 
-    private void setPort(int port) {
-        this.port = port;
+    /**
+     * What happens to a new connection when the {@link #getMaximumConnections() maximum number of connections} are already running. The policy must be <b>set before the server is started</b>.
+     *
+     * @param overflowPolicy the overflow policy.
+     */
+    public void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
     }
 
     /**
-     * Open the Server Socket and wait for a connection.
+     * The maximum number of connections that may wait to run, when the overflow policy is {@link OverflowPolicy#QUEUE}. The capacity must be <b>set before the server is started</b>.
      * <p>
-     * The socket is opened on the configured {@link #getPort() port} on localhost.
+     * Default is {@link ConnectionAdmission#DEFAULT_QUEUE_CAPACITY}.
      *
-     * @return a new ServerSocket.
-     * @throws IOException
+     * @return the queue capacity.
+     */
+    public int getQueueCapacity() {
+        return this.queueCapacity;
+    }
+
+    /**
+     * The maximum number of connections that may wait to run, when the overflow policy is {@link OverflowPolicy#QUEUE}. The capacity must be <b>set before the server is started</b>.
+     *
+     * @param queueCapacity the queue capacity.
+     */
+    public void setQueueCapacity(final int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * The maximum duration, in milliseconds, that a connection may wait to run, when the overflow policy is {@link OverflowPolicy#QUEUE}. The timeout must be <b>set before the server is started</b>.
+     * <p>
+     * Default is {@link ConnectionAdmission#DEFAULT_QUEUE_TIMEOUT}.
+     *
+     * @return the queue timeout in milliseconds.
+     */
+    public long getQueueTimeout() {
+        return this.queueTimeout;
+    }
+
+    /**
+     * The maximum duration, in milliseconds, that a connection may wait to run, when the overflow policy is {@link OverflowPolicy#QUEUE}. The timeout must be <b>set before the server is started</b>.
+     *
+     * @param queueTimeout the queue timeout in milliseconds.
+     */
+    public void setQueueTimeout(final long queueTimeout) {
+        this.queueTimeout = queueTimeout;
+    }
+
+    /**
+     * When the ACK/NAK responses are written to each client. The policy must be <b>set before the server is started</b>.
+     * <p>
+     * Default is {@link FlushPolicy#DRAIN}, unless the server is configured with a different policy in the {@link ConfigurationSettings#getFileName() configuration file}.
+     *
+     * @return the flush policy.
+     */
+    public FlushPolicy getFlushPolicy() {
+        return this.flushPolicy;
+    }
+
+    /**
+     * When the ACK/NAK responses are written to each client. The policy must be <b>set before the server is started</b>.
+     *
+     * @param flushPolicy the flush policy.
+     */
+    public void setFlushPolicy(final FlushPolicy flushPolicy) {
+        this.flushPolicy = flushPolicy;
+    }
+
+    /**
+     * The number of pending responses that are written together, when the flush policy is {@link FlushPolicy#COUNT}. The count must be <b>set before the server is started</b>.
+     * <p>
+     * Default is {@link ResponseWriter#DEFAULT_FLUSH_COUNT}.
+     *
+     * @return the flush count.
+     */
+    public int getFlushCount() {
+        return this.flushCount;
+    }
+
+    /**
+     * The number of pending responses that are written together, when the flush policy is {@link FlushPolicy#COUNT}. The count must be <b>set before the server is started</b>.
+     *
+     * @param flushCount the flush count.
+     */
+    public void setFlushCount(final int flushCount) {
+        this.flushCount = flushCount;
+    }
+
+    /**
+     * The maximum duration, in microseconds, that a response may be pending, when the flush policy is {@link FlushPolicy#INTERVAL}. The interval must be <b>set before the server is started</b>.
+     * <p>
+     * Default is {@link ResponseWriter#DEFAULT_FLUSH_INTERVAL}.
+     *
+     * @return the flush interval in microseconds.
+     */
+    public long getFlushInterval() {
+        return this.flushInterval;
+    }
+
+    /**
+     * The maximum duration, in microseconds, that a response may be pending, when the flush policy is {@link FlushPolicy#INTERVAL}. The interval must be <b>set before the server is started</b>.
+     *
+     * @param flushInterval the flush interval in microseconds.
+     */
+    public void setFlushInterval(final long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * The maximum duration, in milliseconds, that the server waits, when it is {@link #close() closed}, for the messages in progress to be received and acknowledged; the connections that are still in progress are then forcibly closed.
+     * <p>
+     * Default is {@link #DEFAULT_DRAIN_TIMEOUT}.
+     *
+     * @return the drain timeout in milliseconds.
+     */
+    public long getDrainTimeout() {
+        return this.drainTimeout;
+    }
+
+    /**
+     * The maximum duration, in milliseconds, that the server waits, when it is {@link #close() closed}, for the messages in progress to be received and acknowledged. Zero closes every connection immediately.
+     *
+     * @param drainTimeout the drain timeout in milliseconds.
+     */
+    public void setDrainTimeout(final long drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * The number of connections that were closed cleanly (i.e. with no message in progress) when the server was closed.
+     *
+     * @return the number of drained connections.
+     */
+    public long getDrainedConnectionCount() {
+        return this.drainedConnectionCount.get();
+    }
+
+    /**
+     * The number of connections that were forcibly closed, because a message was still in progress when the {@link #getDrainTimeout() drain timeout} elapsed.
+     *
+     * @return the number of killed connections.
+     */
+    public long getKilledConnectionCount() {
+        return this.killedConnectionCount.get();
+    }
+
+    /**
+     * Delivers the connection, message and response events of this server to any {@link EventDispatcher#addListener(EventDispatcher.Listener) listener that is added}; and, first, to the server callbacks (i.e. {@link #afterConnection(String, int, String, int)}, {@link #onMessage(DataStream)} and {@link #afterResponse(byte[])}) if they are {@link #setIsAsynchronousCallbacks(boolean) asynchronous}.
+     *
+     * @return the event dispatcher of this server.
+     */
+    public EventDispatcher getEventDispatcher() {
+        return this.eventDispatcher;
+    }
+
+    /**
+     * The server callbacks (i.e. {@link #afterConnection(String, int, String, int)}, {@link #onMessage(DataStream)} and {@link #afterResponse(byte[])}) are called on the {@link #getEventDispatcher() event dispatcher} {@link Thread}, rather than on the Thread of the connection.
+     * <p>
+     * Default is false: each callback is called on the Thread of the connection, so the callbacks of different connections may be called at the same time.
+     *
+     * @return true, if the server callbacks are asynchronous.
+     */
+    public boolean getIsAsynchronousCallbacks() {
+        return this.isAsynchronousCallbacks;
+    }
+
+    /**
+     * The server callbacks (i.e. {@link #afterConnection(String, int, String, int)}, {@link #onMessage(DataStream)} and {@link #afterResponse(byte[])}) are called on the {@link #getEventDispatcher() event dispatcher} {@link Thread}, rather than on the Thread of the connection. The read path of a connection then never waits for a callback, and the callbacks are called one at a time, in order, but after the response has been sent. This property must be <b>set before the server is started</b>.
+     * <p>
+     * Default is false.
+     *
+     * @param isAsynchronousCallbacks true, if the server callbacks are to be asynchronous.
+     */
+    public void setIsAsynchronousCallbacks(final boolean isAsynchronousCallbacks) {
+        this.isAsynchronousCallbacks = isAsynchronousCallbacks;
+        // The callbacks are the first listener, so they are called before any listener that is added.
+        this.eventDispatcher.removeListener(this.asynchronousCallbacks);
+        if (isAsynchronousCallbacks) {
+            this.eventDispatcher.addFirstListener(this.asynchronousCallbacks);
+        }
+    }
+
+    /**
+     * Deliver the messages received by this server to the specified listener, in batches, on a {@link Thread} of its own; with the {@link MessageDelivery#MessageDelivery(MessageListener) default} batch size, maximum delay, capacity and overflow policy. The delivery is closed when the server is closed.
+     *
+     * @param listener receives the batches of messages.
+     * @return the delivery, which counts the messages delivered and dropped; close it to stop delivering messages to the listener.
+     */
+    public MessageDelivery addMessageListener(final MessageListener listener) {
+        final MessageDelivery messageDelivery = new MessageDelivery(listener);
+        this.createdMessageDeliveries.add(messageDelivery);
+        this.addMessageDelivery(messageDelivery);
+
+        return messageDelivery;
+    }
+
+    /**
+     * Deliver the messages received by this server by the specified {@link MessageDelivery}, which may also deliver the messages of other servers. The delivery is not closed when the server is closed.
+     *
+     * @param messageDelivery delivers the messages to its listener.
+     */
+    public void addMessageDelivery(final MessageDelivery messageDelivery) {
+        this.messageDeliveries.add(messageDelivery);
+    }
+
+    /**
+     * Stop delivering the messages received by this server by the specified {@link MessageDelivery}.
+     *
+     * @param messageDelivery a delivery that was added to this server.
+     */
+    public void removeMessageDelivery(final MessageDelivery messageDelivery) {
+        this.messageDeliveries.remove(messageDelivery);
+        this.createdMessageDeliveries.remove(messageDelivery);
+    }
+
+    /**
+     * Offer the message to every {@link MessageDelivery}. The message is copied once, and the copy is shared by the deliveries, as the connection reuses its {@link DataStream} for the next message.
+     */
+    private void deliverMessage(final DataStream message) {
+        if (this.messageDeliveries.isEmpty()) {
+            return;
+        }
+
+        final MessageEvent event;
+        try {
+            event = new MessageEvent(this.getPort(), message.copy(), System.currentTimeMillis());
+        } catch (final IOException e) {
+            this.logger.error(e.getMessage(), e);
+
+            return;
+        }
+        for (final MessageDelivery messageDelivery : this.messageDeliveries) {
+            messageDelivery.offer(event);
+        }
+    }
+
+    /**
+     * The admission control of the {@link Engine#BLOCKING blocking engine}, which counts the connections that have been admitted, queued and rejected.
+     *
+     * @return the admission control, or null if the server has not been started.
+     */
+    public ConnectionAdmission getConnectionAdmission() {
+        return this.connectionAdmission;
+    }
+
+    private void setConnectionAdmission(final ConnectionAdmission connectionAdmission) {
+        this.connectionAdmission = connectionAdmission;
+    }
+
+    /**
+     * A server callback when a message has been processed, and a response has been sent to the client. It is called on the Thread of the connection, which is not synchronized with the other connections, unless the {@link #setIsAsynchronousCallbacks(boolean) callbacks are asynchronous}.
+     *
+     * @param response the response that has been sent.
+     */
+    public void afterResponse(final byte[] response) {
+        this.logger.debug(String.format("Sent the response: %s.", new String(response)));
+    }
+
+    /**
+     * A server callback when a message is received. It is called on the Thread of the connection, which is not synchronized with the other connections, unless the {@link #setIsAsynchronousCallbacks(boolean) callbacks are asynchronous}, in which case it is called with a copy of the message that may be retained.
+     *
+     * @param message the message received.
+     */
+    public void onMessage(final DataStream message) {
+        this.logger.info(String.format("Received: %s.", message.toString()));
+    }
+
+    /**
+     * An error is recorded if a message other than that which is expected is received.
+     *
+     * @return a recorded error.
+     */
+    public AssertionError getAssertionError() {
+        return this.assertionError;
+    }
+
+    /**
+     * An error will be recorded if a message other than that which is {@link ClientConnection#getAssertionError() expected} is received. This property must be <b>set before a client connection is established</b>.
+     *
+     * @param assertionError a recorded error.
+     */
+    private void setAssertionError(final AssertionError assertionError) {
+        this.assertionError = assertionError;
+    }
+
+    /**
+     * Forces the Server to return a NAK in response to the next message received (regardless of <u>any</u> other conditions). The next message will first be processed as normal; irrespective of this property.
+     * <p>
+     * This is intended to be used to test a clients response to receiving a NAK.
+     * <p>
+     * Default is false.
+     *
+     * @return If true, the Servers next response will always be a NAK.
+     */
+    public boolean getIsAlwaysNAKResponse() {
+        return this.setIsAlwaysNAKResponse;
+    }
+
+    /**
+     * Forces the Server to return a NAK in response to the next message received (regardless of <u>any</u> other conditions). The next message will first be processed as normal; irrespective of this property.
+     * <p>
+     * This is intended to be used to test a clients response to receiving a NAK. This property must be <b>set before a client connection is established</b>.
+     * <p>
+     * Default is false.
+     *
+     * @param isAlwaysNAKResponse if true, the Servers next response will always be a NAK.
+     */
+    public void setIsAlwaysNAKResponse(final boolean isAlwaysNAKResponse) {
+        this.setIsAlwaysNAKResponse = isAlwaysNAKResponse;
+    }
+
+    /**
+     * The server <b>never</b> return a response, when true.
+     *
+     * @return true when the server will <b>never</b> return a response. Default is false.
+     */
+    public boolean getIsAlwaysNoResponse() {
+        return this.setIsAlwaysNoResponse;
+    }
+
+    /**
+     * The server <b>never</b> return a response, when true. This property must be <b>set before a client connection is established</b>.
+     *
+     * @param isAlwaysNoResponse true when the server will <b>never</b> return a response. Default is false.
+     */
+    public void setIsAlwaysNoResponse(final boolean isAlwaysNoResponse) {
+        this.setIsAlwaysNoResponse = isAlwaysNoResponse;
+    }
+
+    /**
+     * The server will send the responses described by {@link #getResponses()}.
+     * <p>
+     * Default is true.
+     *
+     * @return true, if the {@link #getResponses() responses} are to be sent.
+     */
+    public boolean getIsSendResponses() {
+        return isSendResponses;
+    }
+
+    /**
+     * The server will send the responses described by {@link #getResponses()}. This property must be <b>set before a client connection is established</b>.
+     * <p>
+     * Default is true.
+     *
+     * @param isSendResponses true, if the {@link #getResponses() responses} are to be sent
+     *
+     */
+    public synchronized void setIsSendResponses(boolean isSendResponses) {
+        this.isSendResponses = isSendResponses;
+        this.routingTable.set(null);
+    }
+
+    /**
+     * If any message, other that this one, is the next message to be received, record it as an {@link MockTCPServer#getAssertionError() assertion error}.
+     *
+     * @return ignore if null.
+     */
+    public DataStreamRegexMatcher getExpectedMessage() {
+        return this.expectedMessage;
+    }
+
+    /**
+     * If any message, other that this one, is the next message to be received, record it as an {@link MockTCPServer#getAssertionError() assertion error} and respond with a NAK. This property must be <b>set before a client connection is established</b>.
+     *
+     * @param expectedMessage a Regular Expression that describes what the next received message will be.
+     */
+
+    public void setExpectedMessage(final String expectedMessage) {
+        this.setExpectedMessage(expectedMessage, false);
+    }
+
+    /**
+     * If any message, other that this one, is the next message to be received, record it as an {@link MockTCPServer#getAssertionError() assertion error} and respond with a NAK. This property must be <b>set before a client connection is established</b>.
+     *
+     * @param expectedMessage a Regular Expression that describes what the next received message will be.
+     * @param isMatchBytes if true, the Regular Expression is matched against a {@link DataStream#asCharSequence() view of the bytes} of each message, rather than the decoded message; this avoids allocating a String for each message, and is appropriate where the messages are ASCII.
+     */
+    public void setExpectedMessage(final String expectedMessage, final boolean isMatchBytes) {
+        this.expectedMessage = new DataStreamRegexMatcher(expectedMessage, isMatchBytes);
+    }
+
+    /**
+     * Get the messages, initialised from the configuration file, that will be sent when specified messages are received.
+     *
+     * @return the server responses.
+     * @throws ConfigurationException error reading the configuration file
+     */
+    public Map<String, Set<TCPClient>> getResponses() throws ConfigurationException {
+        this.loadResponses();
+
+        return Collections.unmodifiableMap(tcpClients);
+
+    }
+
+    /**
+     * Get the messages, initialised from the configuration file, that will be sent when messages that match a {@link MessagePattern rule} (other than an exact message) are received; in the order that the rules are matched.
+     *
+     * @return the server responses to each rule.
+     * @throws ConfigurationException error reading the configuration file
+     */
+    public Map<MessagePattern, Set<TCPClient>> getPatternResponses() throws ConfigurationException {
+        this.loadResponses();
+
+        return Collections.unmodifiableMap(patternTCPClients);
+    }
+
+    private void loadResponses() throws ConfigurationException {
+        if (getIsSendResponses()) {
+            if (tcpClients.isEmpty() && patternTCPClients.isEmpty()) {
+                loadResponses(tcpClients, patternTCPClients);
+            }
+        } else {
+            tcpClients = new HashMap<>();
+            patternTCPClients = new LinkedHashMap<>();
+        }
+    }
+
+    private void loadResponses(final Map<String, Set<TCPClient>> clients, final Map<MessagePattern, Set<TCPClient>> patternClients) throws ConfigurationException {
+        final Responses responses = this.configurationSettings.getResponses(getPort());
+
+        for (Map.Entry<String, List<ResponseDAO>> incommingMessage : responses.getResponses().entrySet()) {
+            addTCPClients(clients, incommingMessage.getKey(), incommingMessage.getValue());
+        }
+        for (Map.Entry<MessagePattern, List<ResponseDAO>> incommingMessage : responses.getPatternResponses().entrySet()) {
+            addTCPClients(patternClients, incommingMessage.getKey(), incommingMessage.getValue());
+        }
+    }
+
+    private <K> void addTCPClients(final Map<K, Set<TCPClient>> clients, final K incommingMessage, final List<ResponseDAO> responseDAOs) {
+        for (ResponseDAO responseDAO : responseDAOs) {
+            final TCPClient tcpClient = new TCPClient(responseDAO.getMachineName(), responseDAO.getPort());
+            tcpClient.addResponse(responseDAO);
+            final Set<TCPClient> client = new HashSet<>(Arrays.asList(tcpClient));
+            if (clients.containsKey(incommingMessage)) {
+                Set<TCPClient> currentClients = clients.get(incommingMessage);
+                updateTCPClientList(currentClients, tcpClient, responseDAO);
+            } else {
+                clients.put(incommingMessage, client);
+            }
+        }
+    }
+
+    /**
+     * The {@link #getResponses() responses}, and {@link #getPatternResponses() responses to rules}, compiled into a routing table that is shared by every client connection. The table is built when it is first required, and replaced when the responses are {@link #reloadResponses() reloaded}.
+     *
+     * @return the server responses, keyed by the bytes of each message.
+     * @throws ConfigurationException error reading the configuration file
+     */
+    public RoutingTable getRoutingTable() throws ConfigurationException {
+        return this.getRoutingTableReference().get();
+    }
+
+    /**
+     * The reference to the {@link #getRoutingTable() routing table} that is shared by every client connection; so that, when the table is replaced, each connection uses the replacement from the next message that it receives, without a lock.
+     */
+    private AtomicReference<RoutingTable> getRoutingTableReference() throws ConfigurationException {
+        if (this.routingTable.get() == null) {
+            synchronized (this) {
+                if (this.routingTable.get() == null) {
+                    this.routingTable.set(new RoutingTable(this.getResponses(), this.getPatternResponses()));
+                }
+            }
+        }
+
+        return this.routingTable;
+    }
+
+    /**
+     * Read the responses from the configuration file again, and replace the {@link #getRoutingTable() routing table}. The new table is built before it replaces the current table, in a single step, so client connections are neither blocked nor dropped; each connection uses the new table from the next message that it receives.
+     * <p>
+     * If the configuration file cannot be read, the current table is kept. The duration of each reload, and the number of reloads that fail, are recorded; see {@link #getReloadDuration()} and {@link #getReloadFailureCount()}.
+     *
+     * @throws ConfigurationException error reading the configuration file
+     */
+    public void reloadResponses() throws ConfigurationException {
+        final long start = System.nanoTime();
+        try {
+            final Map<String, Set<TCPClient>> clients = new HashMap<>();
+            final Map<MessagePattern, Set<TCPClient>> patternClients = new LinkedHashMap<>();
+            if (getIsSendResponses()) {
+                loadResponses(clients, patternClients);
+            }
+            final RoutingTable replacement = new RoutingTable(clients, patternClients);
+
+            synchronized (this) {
+                this.tcpClients = clients;
+                this.patternTCPClients = patternClients;
+                this.routingTable.set(replacement);
+            }
+        } catch (final ConfigurationException | RuntimeException e) {
+            this.reloadFailureCount.incrementAndGet();
+            this.logger.error(String.format("Failed to reload the responses: %s", e.getMessage()), e);
+
+            throw e;
+        } finally {
+            this.reloadDuration = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        }
+        this.reloadCount.incrementAndGet();
+        this.logger.info(String.format("Reloaded the responses in %d microseconds.", this.reloadDuration));
+    }
+
+    /**
+     * The number of times that the responses have been {@link #reloadResponses() reloaded} successfully.
+     *
+     * @return the number of successful reloads.
+     */
+    public long getReloadCount() {
+        return this.reloadCount.get();
+    }
+
+    /**
+     * The number of times that the responses have failed to {@link #reloadResponses() reload}.
+     *
+     * @return the number of failed reloads.
+     */
+    public long getReloadFailureCount() {
+        return this.reloadFailureCount.get();
+    }
+
+    /**
+     * The duration, in microseconds, of the most recent {@link #reloadResponses() reload}; whether or not it succeeded.
+     *
+     * @return the duration of the most recent reload, or zero if the responses have not been reloaded.
+     */
+    public long getReloadDuration() {
+        return this.reloadDuration;
+    }
+
+    /**
+     * If the {@link ConfigurationSettings#CONFIGURATION_RELOAD_ENABLED System Property} is true, {@link #reloadResponses() reload} the responses whenever the configuration file is modified.
+     */
+    private void watchConfiguration() {
+        if (this.configurationSettings.isConfigurationReloadEnabled()) {
+            try {
+                this.configurationWatch = ConfigurationWatcher.getDefault().watch(this.configurationSettings.getFileName(), () -> {
+                    try {
+                        this.reloadResponses();
+                    } catch (final ConfigurationException e) {
+                        // Already logged; the current responses are kept.
+                    }
+                });
+            } catch (final IOException e) {
+                this.logger.warn(String.format("The configuration file will not be reloaded: %s", e.getMessage()));
+            }
+        }
+    }
+
+    private void updateTCPClientList(Set<TCPClient> currentClients, final TCPClient tcpClient, final ResponseDAO responseDAO) {
+        if (currentClients.contains(tcpClient)) {
+            for (Iterator<TCPClient> it = currentClients.iterator(); it.hasNext();) {
+                TCPClient currentClient = it.next();
+                if (currentClient.equals(tcpClient)) {
+                    currentClient.addResponse(responseDAO);
+                }
+            }
+        } else {
+            currentClients.add(tcpClient);
+        }
+    }
+
+    /**
+     * Close the server, {@link #close(long) draining} its connections for up to the {@link #getDrainTimeout() drain timeout}.
+     */
+    @Override
+    public void close() {
+        this.close(this.getDrainTimeout());
+    }
+
+    /**
+     * Close the server in bounded time. The server stops accepting connections, and the open connections are drained: each is closed as soon as it has no message in progress, so the messages already in progress are received and acknowledged. The connections that have not drained when the timeout elapses are forcibly closed.
+     * <p>
+     * See {@link #getDrainedConnectionCount()} and {@link #getKilledConnectionCount()}.
+     * <p>
+     * When called on an {@link EventLoop} Thread (i.e. from a callback of a non-blocking connection), the server is closed on another Thread and this method returns immediately: the event loop must keep running for its connections to drain.
+     *
+     * @param drainTimeout the maximum duration, in milliseconds, to wait for the connections to drain. Zero closes every connection immediately.
+     */
+    public void close(final long drainTimeout) {
+        if (Thread.currentThread() instanceof EventLoop) {
+            new Thread(() -> this.close(drainTimeout), String.format("%s-Close", super.getName())).start();
+
+            return;
+        }
+        this.logger.info("Closing...");
+
+        synchronized (this) {
+            if (this.getStatus() != Status.CLOSING) {
+                this.setStatus(Status.CLOSED);
+            }
+            // Wake the server Thread if it is waiting for the selector transport to be closed.
+            this.notifyAll();
+
+            this.stopAccepting();
+        }
+        final long drainDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeout);
+        // The server monitor is not held while draining, as the connections call back to the server as they respond.
+        this.drainConnections(drainTimeout);
+        // The responses that a non-blocking connection could not write before it was drained are written, within the drain timeout, before the connection is closed.
+        final SelectorTransport transport = this.selectorTransport;
+        final long remainingDrainTimeout = TimeUnit.NANOSECONDS.toMillis(drainDeadline - System.nanoTime());
+        if (transport != null && remainingDrainTimeout > 0 && !transport.awaitConnectionsClosed(remainingDrainTimeout)) {
+            this.logger.warn(String.format("The pending responses of the connections to port %d were not written in %d milliseconds.", this.getPort(), drainTimeout));
+        }
+
+        synchronized (this) {
+            this.closeStreams();
+
+            final long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT;
+            while ((socket != null && !socket.isClosed() && socket.isBound()) || (super.isAlive() && this.getStatus() != Status.CLOSING)) {
+                final long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    this.logger.warn(String.format("Failed to close the Server(%s) in %d milliseconds.", super.getName(), CLOSE_TIMEOUT));
+
+                    break;
+                }
+
+                try {
+                    super.join(remaining);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+
+                    break;
+                }
+
+                // The server Thread may have opened a new socket just before the socket was closed.
+                if (socket != null && !socket.isClosed()) {
+                    this.closeStreams();
+                }
+            }
+            this.closed.countDown();
+        }
+        // The events published by the drained connections are delivered before the server is reported as closed.
+        this.eventDispatcher.close();
+        for (final MessageDelivery messageDelivery : this.createdMessageDeliveries) {
+            messageDelivery.close();
+        }
+        this.closeJournal();
+
+        this.logger.info("Closed.");
+    }
+
+    private void stopAccepting() {
+        IOUtils.closeQuietly(this.socket);
+        if (this.selectorTransport != null) {
+            this.selectorTransport.stopAccepting();
+        }
+    }
+
+    private void drainConnections(final long drainTimeout) {
+        synchronized (this.connectionsLock) {
+            // If the server is already being drained (e.g. it is closed by the server Thread, and another Thread, together), wait for that drain to finish.
+            while (this.isDraining) {
+                try {
+                    this.connectionsLock.wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+
+                    return;
+                }
+            }
+            this.isDraining = true;
+        }
+        try {
+            final List<ClientConnection> draining = new ArrayList<>(this.connections);
+            if (draining.isEmpty()) {
+                return;
+            }
+            this.logger.debug(String.format("Draining %d connection(s)...", draining.size()));
+            final List<ClientConnection> awaited = new ArrayList<>();
+            for (final ClientConnection connection : draining) {
+                connection.drain();
+                // A connection that closes the server from one of its own callbacks cannot drain until the callback returns, so it is not waited for.
+                if (!connection.isReceiving()) {
+                    awaited.add(connection);
+                }
+            }
+
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeout);
+            synchronized (this.connectionsLock) {
+                long remaining;
+                while (awaited.stream().anyMatch(this.connections::contains) && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this.connectionsLock, remaining);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+
+                        break;
+                    }
+                }
+            }
+
+            final List<ClientConnection> killed = new ArrayList<>(awaited);
+            killed.retainAll(this.connections);
+            for (final ClientConnection connection : killed) {
+                connection.forceClose();
+            }
+            final int drained = Math.max(draining.size() - killed.size(), 0);
+            this.drainedConnectionCount.addAndGet(drained);
+            this.killedConnectionCount.addAndGet(killed.size());
+            if (killed.isEmpty()) {
+                this.logger.info(String.format("Drained %d connection(s).", drained));
+            } else {
+                this.logger.warn(String.format("Drained %d connection(s), and forcibly closed %d connection(s) that did not drain in %d milliseconds.", drained, killed.size(), drainTimeout));
+            }
+        } finally {
+            synchronized (this.connectionsLock) {
+                this.isDraining = false;
+                this.connectionsLock.notifyAll();
+            }
+        }
+    }
+
+    private void removeConnection(final ClientConnection connection) {
+        if (this.connections.remove(connection)) {
+            synchronized (this.connectionsLock) {
+                this.connectionsLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Completed when the server is accepting connections on its {@link #getPort() port}; or completed exceptionally, if the port cannot be bound or the server is closed first.
+     *
+     * @return a future that is completed, with this server, when the server is ready.
+     */
+    public CompletableFuture<MockTCPServer> getReadyFuture() {
+        return this.ready;
+    }
+
+    /**
+     * Wait for the server to be {@link #close() closed}.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit the unit of the timeout.
+     * @return true if the server is closed, or false if the timeout elapsed first.
+     * @throws InterruptedException interrupted while waiting.
+     */
+    public boolean awaitClosed(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return this.closed.await(timeout, unit);
+    }
+
+    private void closeStreams() {
+        // Do not set the ServerSocket to null; just close the Stream.
+        this.logger.debug("Closing the socket...");
+        IOUtils.closeQuietly(this.configurationWatch);
+        IOUtils.closeQuietly(this.socket);
+        IOUtils.closeQuietly(this.selectorTransport);
+        IOUtils.closeQuietly(this.connectionAdmission);
+        IOUtils.closeQuietly(this.connectionPool);
+        if (this.workerExecutor != null) {
+            this.workerExecutor.shutdown();
+        }
+        this.logger.debug("Closed the socket.");
+    }
+
+    private Status getStatus() {
+        return this.status;
+    }
+
+    private void setStatus(final Status status) {
+        this.status = status;
+    }
+
+    /**
+     * The port that this server is listening on.
+     *
+     * @return the port that this server is listening on.
+     */
+    public int getPort() {
+        return this.port;
+    }
+
+    private void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * The last port that this server is listening on; the same as {@link #getPort()}, unless the server listens on a range of ports.
+     *
+     * @return the last port that this server is listening on.
+     */
+    public int getLastPort() {
+        return this.lastPort == null ? this.getPort() : this.lastPort;
+    }
+
+    /**
+     * Listen on every port from {@link #getPort()} to the specified port, inclusive. Every port in the range is served by the {@link EventLoopGroup#getDefault() shared event loops} (i.e. the {@link Engine#NIO NIO engine}) rather than a {@link Thread} per port. The range must be <b>set before the server is started</b>.
+     * <p>
+     * Default is {@link #getPort()}, unless the server is configured with a range of ports in the {@link ConfigurationSettings#getFileName() configuration file}.
+     *
+     * @param lastPort the last port to listen on.
+     */
+    public void setLastPort(final int lastPort) {
+        this.lastPort = lastPort;
+    }
+
+    /**
+     * Open the Server Socket and wait for a connection.
+     * <p>
+     * The socket is opened on the configured {@link #getPort() port} on localhost.
+     *
+     * @return a new ServerSocket.
+     * @throws IOException
      */
     private ServerSocket getSocket() throws IOException {
         if (this.socket == null || this.socket.isClosed()) {
@@ -538,20 +1674,41 @@ public class MockTCPServer extends Thread implements Closeable {
         return this.socket;
     }
 
-    private ClientConnection acceptNewConnection() throws IOException, ConfigurationException {
-        this.logger.info(String.format("Waiting for a connection on port %d...", this.getPort()));
-        final Socket client = this.socket.accept();
-        @SuppressWarnings("static-access")
-        final InetAddress inetAddress = client.getInetAddress().getLocalHost(); // NOSONAR
-        this.afterConnection(inetAddress.getHostName(), client.getPort(), InetAddress.getLocalHost().getHostName(), this.getPort());
-        final BufferedReader inputStream = new BufferedReader(new InputStreamReader(client.getInputStream()));
+    private ClientConnection acceptNewConnection(final Socket client) throws IOException, ConfigurationException {
+        this.afterConnection(client);
+        // The raw stream is read in bulk by the ClientConnection, so it is neither buffered nor decoded here.
+        final InputStream inputStream = client.getInputStream();
         final DataOutputStream outputStream = new DataOutputStream(client.getOutputStream());
-        final ClientConnection clientConnection = new ClientConnection(inputStream, outputStream, getIsAlwaysNAKResponse(), getIsAlwaysNoResponse(), getExpectedMessage(), getTerminator(), getResponses()) {
+        final ClientConnection clientConnection = this.createClientConnection(inputStream, outputStream, getRoutingTableReference());
+        // Closing the socket releases the connection Thread, if it is blocked reading, when the connection is drained or forcibly closed.
+        clientConnection.setTransport(client);
+        this.logger.debug("Ready to receive input.");
+
+        return clientConnection;
+    }
+
+    /**
+     * Create a {@link ClientConnection} that calls back to this server when a message is received or a response is sent.
+     *
+     * @param inputStream the incoming stream from the client, or null if the {@link ClientConnection} will be fed by another transport.
+     * @param outputStream the output stream to reply to the client.
+     * @param routingTable the messages that will be sent when specified messages are received; shared with every connection, so that a replacement is used by them all.
+     * @return a new {@link ClientConnection}.
+     */
+    private ClientConnection createClientConnection(final InputStream inputStream, final DataOutputStream outputStream, final AtomicReference<RoutingTable> routingTable) {
+        final ClientConnection clientConnection = new ClientConnection(inputStream, outputStream, getIsAlwaysNAKResponse(), getIsAlwaysNoResponse(), getExpectedMessage(), getTerminator(), routingTable) {
 
             @Override
             public void onMessage(DataStream message) {
                 super.onMessage(message);
-                MockTCPServer.this.onMessage(message);
+                if (!MockTCPServer.this.getIsAsynchronousCallbacks()) {
+                    MockTCPServer.this.onMessage(message);
+                }
+                // The message is only copied, and published, if there is a listener to deliver it to.
+                if (MockTCPServer.this.eventDispatcher.hasListeners()) {
+                    MockTCPServer.this.eventDispatcher.message(message);
+                }
+                MockTCPServer.this.deliverMessage(message);
             }
 
             @Override
@@ -563,10 +1720,34 @@ public class MockTCPServer extends Thread implements Closeable {
             @Override
             public synchronized void afterResponse(byte[] response) throws IOException {
                 super.afterResponse(response);
-                MockTCPServer.this.afterResponse(response);
+                if (!MockTCPServer.this.getIsAsynchronousCallbacks()) {
+                    MockTCPServer.this.afterResponse(response);
+                }
+                if (MockTCPServer.this.eventDispatcher.hasListeners()) {
+                    MockTCPServer.this.eventDispatcher.response(response);
+                }
+            }
+
+            @Override
+            public void afterMessage(DataStream message, byte[] response) throws IOException {
+                super.afterMessage(message, response);
+                final CaptureJournal captureJournal = MockTCPServer.this.getJournal();
+                if (captureJournal != null) {
+                    captureJournal.append(System.currentTimeMillis(), MockTCPServer.this.getPort(), this.getId(), message.toByteArray(), response);
+                }
+            }
+
+            @Override
+            public void close() {
+                super.close();
+                MockTCPServer.this.removeConnection(this);
             }
         };
-        this.logger.debug("Ready to receive input.");
+        clientConnection.setConnectionPool(this.connectionPool);
+        clientConnection.setFlushPolicy(this.getFlushPolicy());
+        clientConnection.setFlushCount(this.getFlushCount());
+        clientConnection.setFlushInterval(this.getFlushInterval());
+        this.connections.add(clientConnection);
 
         return clientConnection;
     }
@@ -575,6 +1756,14 @@ public class MockTCPServer extends Thread implements Closeable {
         this.socket = socket;
     }
 
+    private SelectorTransport getSelectorTransport() {
+        return this.selectorTransport;
+    }
+
+    private void setSelectorTransport(final SelectorTransport selectorTransport) {
+        this.selectorTransport = selectorTransport;
+    }
+
     private static Options getCommandLineOptions() {
         // create the Options
         final Options options = new Options();
@@ -587,7 +1776,44 @@ public class MockTCPServer extends Thread implements Closeable {
                 .numberOfArgs(1)
                 .build();
         startup.addOption(port);
+        final Option compileSnapshot = Option.builder("c")
+                .longOpt("compile-snapshot")
+                .desc("compile the configuration file into the specified snapshot file, and exit.")
+                .numberOfArgs(1)
+                .build();
+        startup.addOption(compileSnapshot);
         options.addOptionGroup(startup);
+        final Option snapshot = Option.builder("s")
+                .longOpt("snapshot")
+                .desc("read the configuration from the specified snapshot file; which is compiled first, if it does not exist or is out of date.")
+                .numberOfArgs(1)
+                .build();
+        options.addOption(snapshot);
+        final Option engine = Option.builder("e")
+                .longOpt("engine")
+                .desc(String.format("the transport engine that the server will use, overriding the configuration file: %s.", StringUtils.join(Engine.values(), ", ").toLowerCase(Locale.ROOT)))
+                .numberOfArgs(1)
+                .build();
+        options.addOption(engine);
+        final Option acceptors = Option.builder("a")
+                .longOpt("acceptors")
+                .desc("the number of acceptors (listening sockets bound with SO_REUSEPORT, each served by its own event loop) for the port, when the nio engine is used, overriding the configuration file.")
+                .type(Integer.class)
+                .numberOfArgs(1)
+                .build();
+        options.addOption(acceptors);
+        final Option executionMode = Option.builder("m")
+                .longOpt("execution-mode")
+                .desc(String.format("how the blocking engine runs each connection, overriding the configuration file: %s.", StringUtils.join(ExecutionMode.values(), ", ").toLowerCase(Locale.ROOT)))
+                .numberOfArgs(1)
+                .build();
+        options.addOption(executionMode);
+        final Option journal = Option.builder("j")
+                .longOpt("journal")
+                .desc("write every message received, and the response sent, to a capture journal in a sub-directory (named after the port) of the specified directory, overriding the configuration file.")
+                .numberOfArgs(1)
+                .build();
+        options.addOption(journal);
         options.addOption("h", "help", false, "print these usage instructions and exit.");
         options.addOption("?", "help", false, "print these usage instructions and exit.");
         options.addOption("v", "version", false, "print product version and exit.");
@@ -0,0 +1,281 @@
+package io.cloudracer.mocktcpserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Buffers the ACK/NAK responses of a {@link ClientConnection}, and writes them to the client according to a {@link FlushPolicy flush policy}.
+ * <p>
+ * The responses are always written in the order that they were buffered. Each time that the buffer is flushed, all of the pending responses are written in a single write; so that a flush policy other than {@link FlushPolicy#IMMEDIATE} trades the latency of each response for fewer system calls (and TCP segments) under load.
+ *
+ * @author John McDonnell
+ */
+public class ResponseWriter implements Flushable, Closeable {
+
+    private final Logger logger = LogManager.getLogger();
+
+    /**
+     * When the buffered responses are written to the client.
+     */
+    public enum FlushPolicy {
+        /**
+         * Each response is written as soon as its message has been processed.
+         */
+        IMMEDIATE,
+        /**
+         * The responses are written once all of the messages, completed by the bytes read from the client, have been processed. This is the default.
+         */
+        DRAIN,
+        /**
+         * The responses are written once the {@link ResponseWriter#getFlushCount() flush count} of responses are pending. A client that waits for each response, before it sends the next message, will wait until the connection is closed unless the flush count is one.
+         */
+        COUNT,
+        /**
+         * The responses are written no later than the {@link ResponseWriter#getFlushInterval() flush interval} after the first of them was buffered.
+         */
+        INTERVAL;
+
+        /**
+         * The FlushPolicy with the specified name, regardless of case.
+         *
+         * @param name the name of the flush policy e.g. "drain".
+         * @return the FlushPolicy with the specified name.
+         * @throws IllegalArgumentException there is no FlushPolicy with the specified name.
+         */
+        public static FlushPolicy fromName(final String name) {
+            return FlushPolicy.valueOf(StringUtils.upperCase(StringUtils.trim(name), Locale.ROOT));
+        }
+    }
+
+    /**
+     * Receives each response once it has been written to the client.
+     */
+    @FunctionalInterface
+    public interface ResponseListener {
+
+        /**
+         * The response has been written to the client.
+         *
+         * @param response the response written.
+         * @throws IOException error while processing the response.
+         */
+        void sent(byte[] response) throws IOException;
+    }
+
+    /**
+     * The default number of pending responses that are written together, when the flush policy is {@link FlushPolicy#COUNT}.
+     */
+    public static final int DEFAULT_FLUSH_COUNT = 16;
+    /**
+     * The default maximum duration, in microseconds, that a response may be pending, when the flush policy is {@link FlushPolicy#INTERVAL}.
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    private static final int INITIAL_BUFFER_CAPACITY = 64;
+
+    private final OutputStream outputStream;
+    private final FlushPolicy flushPolicy;
+    private final int flushCount;
+    private final long flushInterval;
+    private final ResponseListener listener;
+    private final Executor flushExecutor;
+
+    private final ByteArrayOutputStream pendingBytes = new ByteArrayOutputStream(INITIAL_BUFFER_CAPACITY);
+    private final List<byte[]> pendingResponses = new ArrayList<>();
+    private volatile ScheduledFuture<?> scheduledFlush;
+    private volatile boolean isClosed = false;
+
+    /**
+     * The timer that is shared by every {@link ResponseWriter} that uses the {@link FlushPolicy#INTERVAL interval flush policy}. It is only created when first used.
+     */
+    private static final class FlushTimer {
+
+        private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, String.format("%s-FlushTimer", ResponseWriter.class.getSimpleName()));
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        private FlushTimer() {
+            // Do nothing. This class cannot be constructed.
+        }
+    }
+
+    /**
+     * Write responses to the specified stream, according to the specified flush policy.
+     *
+     * @param outputStream the stream that the responses are written to.
+     * @param flushPolicy when the buffered responses are written.
+     * @param flushCount the number of pending responses that are written together, when the flush policy is {@link FlushPolicy#COUNT}.
+     * @param flushInterval the maximum duration, in microseconds, that a response may be pending, when the flush policy is {@link FlushPolicy#INTERVAL}.
+     * @param flushExecutor runs the flushes that are due to the {@link FlushPolicy#INTERVAL flush interval}, or null if they may run on the shared timer {@link Thread}. A stream that must only be written on a specific {@link Thread} (e.g. a non-blocking event loop) should specify an {@link Executor} that runs on that {@link Thread}.
+     * @param listener receives each response once it has been written, or null.
+     */
+    public ResponseWriter(final OutputStream outputStream, final FlushPolicy flushPolicy, final int flushCount, final long flushInterval, final Executor flushExecutor, final ResponseListener listener) {
+        this.outputStream = outputStream;
+        this.flushPolicy = flushPolicy == null ? FlushPolicy.DRAIN : flushPolicy;
+        this.flushCount = Math.max(1, flushCount);
+        this.flushInterval = Math.max(0, flushInterval);
+        this.flushExecutor = flushExecutor;
+        this.listener = listener;
+    }
+
+    /**
+     * Buffer the response, and write the pending responses if the {@link FlushPolicy flush policy} requires it.
+     *
+     * @param response the response to the latest message.
+     * @throws IOException error while writing to the client.
+     */
+    public synchronized void write(final byte[] response) throws IOException {
+        this.pendingBytes.write(response, 0, response.length);
+        this.pendingResponses.add(response);
+
+        switch (this.getFlushPolicy()) {
+            case IMMEDIATE:
+                this.flush();
+                break;
+            case COUNT:
+                if (this.pendingResponses.size() >= this.getFlushCount()) {
+                    this.flush();
+                }
+                break;
+            case INTERVAL:
+                this.scheduleFlush();
+                break;
+            default:
+                // The responses are written when the input has been drained.
+                break;
+        }
+    }
+
+    /**
+     * All of the messages completed by the bytes read from the client have been processed. The pending responses are written if the flush policy is {@link FlushPolicy#DRAIN}.
+     *
+     * @throws IOException error while writing to the client.
+     */
+    public synchronized void drained() throws IOException {
+        if (this.getFlushPolicy() == FlushPolicy.DRAIN) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Write all of the pending responses to the client in a single write, regardless of the flush policy.
+     *
+     * @throws IOException error while writing to the client.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (this.scheduledFlush != null) {
+            this.scheduledFlush.cancel(false);
+            this.scheduledFlush = null;
+        }
+        if (this.pendingResponses.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.pendingBytes.writeTo(this.outputStream);
+            this.outputStream.flush();
+
+            if (this.listener != null) {
+                for (final byte[] response : this.pendingResponses) {
+                    this.listener.sent(response);
+                }
+            }
+        } finally {
+            this.pendingBytes.reset();
+            this.pendingResponses.clear();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (this.scheduledFlush == null && !this.isClosed) {
+            this.scheduledFlush = FlushTimer.TIMER.schedule(() -> {
+                if (this.flushExecutor == null) {
+                    this.flushDue();
+                } else {
+                    this.flushExecutor.execute(this::flushDue);
+                }
+            }, this.getFlushInterval(), TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private synchronized void flushDue() {
+        if (this.isClosed) {
+            return;
+        }
+        try {
+            this.flush();
+        } catch (final IOException e) {
+            this.logger.warn(e);
+        }
+    }
+
+    /**
+     * The number of responses that have not yet been written to the client.
+     *
+     * @return the number of pending responses.
+     */
+    public synchronized int getPendingCount() {
+        return this.pendingResponses.size();
+    }
+
+    /**
+     * When the buffered responses are written to the client.
+     *
+     * @return the flush policy.
+     */
+    public FlushPolicy getFlushPolicy() {
+        return this.flushPolicy;
+    }
+
+    /**
+     * The number of pending responses that are written together, when the flush policy is {@link FlushPolicy#COUNT}.
+     *
+     * @return the flush count.
+     */
+    public int getFlushCount() {
+        return this.flushCount;
+    }
+
+    /**
+     * The maximum duration, in microseconds, that a response may be pending, when the flush policy is {@link FlushPolicy#INTERVAL}.
+     *
+     * @return the flush interval in microseconds.
+     */
+    public long getFlushInterval() {
+        return this.flushInterval;
+    }
+
+    /**
+     * Cancel any scheduled flush, so that any pending responses are discarded. The stream is <b>not</b> closed.
+     * <p>
+     * This does not wait for a flush that is in progress, so that it can be called while the {@link ResponseListener listener} is locked.
+     */
+    @Override
+    public void close() {
+        this.isClosed = true;
+
+        final ScheduledFuture<?> pendingFlush = this.scheduledFlush;
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.cloudracer.mocktcpserver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free, queue that may be offered to, and polled, by any number of {@link Thread threads}.
+ * <p>
+ * Each slot of the buffer carries a sequence number: a producer claims the next slot with a single compare-and-set, and then publishes the element by advancing the slot's sequence; a consumer only takes a slot that has been published. Neither waits for a lock, so a producer is never delayed by another producer or by a consumer, other than when the buffer is full.
+ *
+ * @param <E> the type of the elements held.
+ *
+ * @author John McDonnell
+ */
+final class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Create an empty buffer.
+     *
+     * @param capacity the minimum number of elements that the buffer will hold; rounded up to a power of two.
+     * @throws IllegalArgumentException the capacity is less than one, or too large.
+     */
+    RingBuffer(final int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException(String.format("The capacity of a ring buffer must be between 1 and %d, not %d.", 1 << 30, capacity));
+        }
+        final int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add the element to the tail of the buffer, if the buffer is not full.
+     *
+     * @param element the element to add.
+     * @return true if the element was added, or false if the buffer is full.
+     */
+    boolean offer(final E element) {
+        long position = this.tail.get();
+        while (true) {
+            final int index = (int) position & this.mask;
+            final long difference = this.sequences.get(index) - position;
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.elements.set(index, element);
+                    // Publish the element to the consumers.
+                    this.sequences.set(index, position + 1);
+
+                    return true;
+                }
+            } else if (difference < 0) {
+                // The slot has not yet been consumed since the buffer last wrapped, so the buffer is full.
+                return false;
+            }
+            position = this.tail.get();
+        }
+    }
+
+    /**
+     * Remove the element at the head of the buffer.
+     *
+     * @return the element removed, or null if the buffer is empty.
+     */
+    E poll() {
+        long position = this.head.get();
+        while (true) {
+            final int index = (int) position & this.mask;
+            final long difference = this.sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (this.head.compareAndSet(position, position + 1)) {
+                    final E element = this.elements.get(index);
+                    this.elements.set(index, null);
+                    // Release the slot to the producers, for when the buffer next wraps.
+                    this.sequences.set(index, position + this.mask + 1);
+
+                    return element;
+                }
+            } else if (difference < 0) {
+                // The slot has not yet been published, so the buffer is empty.
+                return null;
+            }
+            position = this.head.get();
+        }
+    }
+
+    /**
+     * True if no element has been claimed but not yet taken. An element that is still being published is counted, so the buffer may be reported as not empty just before an element can be {@link #poll() polled}.
+     *
+     * @return true if the buffer is empty.
+     */
+    boolean isEmpty() {
+        return this.head.get() >= this.tail.get();
+    }
+
+    /**
+     * The number of elements held; an estimate, if the buffer is being offered to or polled at the same time.
+     *
+     * @return the number of elements held.
+     */
+    int size() {
+        return (int) Math.max(0, this.tail.get() - this.head.get());
+    }
+
+    /**
+     * The maximum number of elements held.
+     *
+     * @return the capacity of the buffer.
+     */
+    int capacity() {
+        return this.mask + 1;
+    }
+}
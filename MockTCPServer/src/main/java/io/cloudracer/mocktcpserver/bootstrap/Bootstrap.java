@@ -1,39 +1,74 @@
 package io.cloudracer.mocktcpserver.bootstrap;
 
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration2.ex.ConfigurationException;
 
+import io.cloudracer.mocktcpserver.MessageDelivery;
+import io.cloudracer.mocktcpserver.MessageListener;
 import io.cloudracer.mocktcpserver.MockTCPServer;
 import io.cloudracer.properties.ConfigurationSettings;
+import io.cloudracer.properties.ConfigurationSnapshot;
 
 /**
  * Start the Server by initialising the server Thread pool with each Thread listening to a different port.
+ * <p>
+ * The servers are held by the {@link #getServerPool() server pool}, to which every {@link MockTCPServerPool} method of the Bootstrap is delegated.
  *
  * @author John McDonnell
  *
  */
 public final class Bootstrap extends MockTCPServerPool {
 
-    private static ConfigurationSettings configurationSettings;
-    private MockTCPServerPool serverPool;
+    private ConfigurationSettings configurationSettings;
+    private final MockTCPServerPool serverPool = new MockTCPServerPool();
 
     /**
      * Start the Server and listen on all ports specified in the configured file.
      *
+     * @return a future that is completed when every port is accepting connections; see {@link MockTCPServerPool#getReadyFuture()}.
      * @throws ConfigurationException error reading the configuration file
      * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
      */
-    public void startup() throws ConfigurationException, InterruptedException {
-        final Set<Integer> ports = getConfigurationSettings().getPorts();
+    public CompletableFuture<MockTCPServerPool> startup() throws ConfigurationException, InterruptedException {
+        return startup(getConfigurationSettings());
+    }
+
+    /**
+     * Start the Server and listen on all ports specified in the {@link ConfigurationSnapshot snapshot}. The snapshot is memory-mapped, rather than parsing the configuration file; unless it does not exist or is out of date, in which case it is compiled first.
+     *
+     * @param snapshot the snapshot file.
+     * @return a future that is completed when every port is accepting connections; see {@link MockTCPServerPool#getReadyFuture()}.
+     * @throws ConfigurationException error reading the snapshot, or compiling the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     */
+    public CompletableFuture<MockTCPServerPool> startup(final Path snapshot) throws ConfigurationException, InterruptedException {
+        return startup(ConfigurationSettings.fromSnapshot(snapshot));
+    }
+
+    /**
+     * Start the Server and listen on all ports specified in the configuration settings. Every server is created first, and then they are all started together, so that the ports are bound in parallel.
+     *
+     * @param configurationSettings the configuration of every server.
+     * @return a future that is completed when every port is accepting connections; see {@link MockTCPServerPool#getReadyFuture()}.
+     * @throws ConfigurationException error reading the configuration
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     */
+    public CompletableFuture<MockTCPServerPool> startup(final ConfigurationSettings configurationSettings) throws ConfigurationException, InterruptedException {
+        final Set<Integer> ports = configurationSettings.getPorts();
         for (Iterator<Integer> iterator = ports.iterator(); iterator.hasNext();) {
             final Integer port = iterator.next();
 
-            getServerPool().add(new MockTCPServer(port));
+            getServerPool().add(new MockTCPServer(port, false, configurationSettings));
         }
 
         super.start();
+
+        return getServerPool().open();
     }
 
     /**
@@ -42,17 +77,114 @@ public final class Bootstrap extends MockTCPServerPool {
     @Override
     public void shutdown() {
         getServerPool().shutdown();
+        super.shutdown();
+    }
+
+    /**
+     * Add a {@link MockTCPServer server} to the {@link #getServerPool() server pool}.
+     *
+     * @param mockTCPServer the server to add to the pool.
+     */
+    @Override
+    public void add(final MockTCPServer mockTCPServer) {
+        getServerPool().add(mockTCPServer);
+    }
+
+    /**
+     * Deliver the messages received by every {@link MockTCPServer server} in the {@link #getServerPool() server pool} to the specified listener; see {@link MockTCPServerPool#addMessageListener(MessageListener)}.
+     *
+     * @param listener receives the batches of messages, from every server in the pool.
+     * @return the delivery, which counts the messages delivered and dropped; close it to stop delivering messages to the listener.
+     */
+    @Override
+    public MessageDelivery addMessageListener(final MessageListener listener) {
+        return getServerPool().addMessageListener(listener);
+    }
+
+    /**
+     * Deliver the messages received by every {@link MockTCPServer server} in the {@link #getServerPool() server pool} by the specified {@link MessageDelivery}; see {@link MockTCPServerPool#addMessageDelivery(MessageDelivery)}.
+     *
+     * @param messageDelivery delivers the messages to its listener.
+     */
+    @Override
+    public void addMessageDelivery(final MessageDelivery messageDelivery) {
+        getServerPool().addMessageDelivery(messageDelivery);
+    }
+
+    /**
+     * Stop delivering the messages received by the {@link MockTCPServer servers} in the {@link #getServerPool() server pool} by the specified {@link MessageDelivery}.
+     *
+     * @param messageDelivery a delivery that was added to the pool.
+     */
+    @Override
+    public void removeMessageDelivery(final MessageDelivery messageDelivery) {
+        getServerPool().removeMessageDelivery(messageDelivery);
+    }
+
+    /**
+     * Get a specific {@link MockTCPServer server} from the {@link #getServerPool() server pool}.
+     *
+     * @param port the port being listened too by the required {@link MockTCPServer server}, including any port in a {@link MockTCPServer#getLastPort() range of ports}
+     *
+     * @return the requested {@link MockTCPServer server}, or null if no server in the pool listens on the port
+     */
+    @Override
+    public MockTCPServer get(final int port) {
+        return getServerPool().get(port);
     }
 
-    static ConfigurationSettings getConfigurationSettings() {
-        if (Bootstrap.configurationSettings == null) {
-            Bootstrap.configurationSettings = new ConfigurationSettings();
+    /**
+     * Start every {@link MockTCPServer server} in the {@link #getServerPool() server pool} that is not already started.
+     *
+     * @return a future that is completed when every server is accepting connections; see {@link #getReadyFuture()}.
+     */
+    @Override
+    public CompletableFuture<MockTCPServerPool> open() {
+        return getServerPool().open();
+    }
+
+    /**
+     * Wait for the {@link #getServerPool() server pool} to be {@link #shutdown() shutdown}.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit the unit of the timeout.
+     * @return true if the pool is shutdown, or false if the timeout elapsed first.
+     * @throws InterruptedException interrupted while waiting.
+     */
+    @Override
+    public boolean awaitShutdown(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return getServerPool().awaitShutdown(timeout, unit);
+    }
+
+    /**
+     * Completed when every server in the {@link #getServerPool() server pool} is accepting connections.
+     *
+     * @return a future that is completed when the server pool is ready.
+     */
+    @Override
+    public CompletableFuture<MockTCPServerPool> getReadyFuture() {
+        return getServerPool().getReadyFuture();
+    }
+
+    /**
+     * The {@link Status} of the {@link #getServerPool() server pool}.
+     *
+     * @return the {@link Status} of the server pool
+     */
+    @Override
+    public Status getStatus() {
+        return getServerPool().getStatus();
+    }
+
+    ConfigurationSettings getConfigurationSettings() {
+        if (this.configurationSettings == null) {
+            this.configurationSettings = new ConfigurationSettings();
         }
-        return Bootstrap.configurationSettings;
+        return this.configurationSettings;
     }
 
-    static void setConfigurationSettings(ConfigurationSettings configurationSettings) {
-        Bootstrap.configurationSettings = configurationSettings;
+    void setConfigurationSettings(ConfigurationSettings configurationSettings) {
+        this.configurationSettings = configurationSettings;
     }
 
     /**
@@ -61,10 +193,6 @@ public final class Bootstrap extends MockTCPServerPool {
      * @return the {@link MockTCPServerPool server pool}
      */
     public MockTCPServerPool getServerPool() {
-        if (serverPool == null) {
-            this.serverPool = new MockTCPServerPool();
-        }
-
         return serverPool;
     }
 }
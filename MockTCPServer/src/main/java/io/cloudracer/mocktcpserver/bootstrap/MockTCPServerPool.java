@@ -2,24 +2,42 @@ package io.cloudracer.mocktcpserver.bootstrap;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.cloudracer.mocktcpserver.MessageDelivery;
+import io.cloudracer.mocktcpserver.MessageListener;
 import io.cloudracer.mocktcpserver.MockTCPServer;
 
 /**
  * Manage a pool of MockTCPServer servers where each server listens of a different port.
+ * <p>
+ * The servers are {@link #open() started} together, so that each binds its port in parallel, and the pool is {@link #getReadyFuture() ready} when every server is accepting connections. The servers are closed together, when the pool is {@link #shutdown() shutdown}. The state of each pool is its own, and is safe to read and change from any {@link Thread}.
  *
  * @author John McDonnell
  */
 public class MockTCPServerPool extends Thread implements Closeable {
 
+    private static final Logger logger = LogManager.getLogger(MockTCPServerPool.class);
+
     /**
      * The status of the server pool.
      */
     public enum Status {
+        /**
+         * The server pool is starting, and not every server is accepting connections yet.
+         */
+        STARTING,
         /**
          * The server pool is started.
          */
@@ -38,25 +56,26 @@ public class MockTCPServerPool extends Thread implements Closeable {
         STOPPING_FAILED
     }
 
-    private static Status status = Status.STARTED;
+    private volatile Status status = Status.STARTING;
 
-    private static Map<Integer, MockTCPServer> mockTCPServerSet = new HashMap<>();
+    private final Map<Integer, MockTCPServer> mockTCPServerSet = new ConcurrentHashMap<>();
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private final List<MessageDelivery> messageDeliveries = new CopyOnWriteArrayList<>();
+    private final List<MessageDelivery> createdMessageDeliveries = new CopyOnWriteArrayList<>();
 
     /**
-     * The pool will remain active until it is {@link #shutdown() shutdown)} (i.e. the {@link #getStatus() status)} is STOPPED).
+     * The pool will remain active until it is {@link #shutdown() shutdown)} (i.e. the {@link #getStatus() status)} is STOPPED or STOPPING_FAILED).
      */
     @Override
     public void run() {
         super.run();
 
-        final int interval = 1;
-
-        while (!getStatus().equals(Status.STOPPED)) {
-            try {
-                TimeUnit.SECONDS.sleep(interval);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+        try {
+            this.stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -66,35 +85,154 @@ public class MockTCPServerPool extends Thread implements Closeable {
      * @param mockTCPServer the server to add to the pool.
      */
     public void add(MockTCPServer mockTCPServer) {
+        for (final MessageDelivery messageDelivery : messageDeliveries) {
+            mockTCPServer.addMessageDelivery(messageDelivery);
+        }
         mockTCPServerSet.put(mockTCPServer.getPort(), mockTCPServer);
     }
 
+    /**
+     * Deliver the messages received by every {@link MockTCPServer server} in the pool, including those added later, to the specified listener; in batches, on a single {@link Thread} of its own. The {@link MessageDelivery#MessageDelivery(MessageListener) default} batch size, maximum delay, capacity and overflow policy are used. The delivery is closed when the pool is {@link #shutdown() shutdown}.
+     *
+     * @param listener receives the batches of messages, from every server in the pool.
+     * @return the delivery, which counts the messages delivered and dropped; close it to stop delivering messages to the listener.
+     */
+    public MessageDelivery addMessageListener(final MessageListener listener) {
+        final MessageDelivery messageDelivery = new MessageDelivery(listener);
+        createdMessageDeliveries.add(messageDelivery);
+        addMessageDelivery(messageDelivery);
+
+        return messageDelivery;
+    }
+
+    /**
+     * Deliver the messages received by every {@link MockTCPServer server} in the pool, including those added later, by the specified {@link MessageDelivery}. The delivery is not closed when the pool is shutdown.
+     *
+     * @param messageDelivery delivers the messages to its listener.
+     */
+    public void addMessageDelivery(final MessageDelivery messageDelivery) {
+        messageDeliveries.add(messageDelivery);
+        for (final MockTCPServer mockTCPServer : mockTCPServerSet.values()) {
+            mockTCPServer.addMessageDelivery(messageDelivery);
+        }
+    }
+
+    /**
+     * Stop delivering the messages received by the {@link MockTCPServer servers} in the pool by the specified {@link MessageDelivery}.
+     *
+     * @param messageDelivery a delivery that was added to the pool.
+     */
+    public void removeMessageDelivery(final MessageDelivery messageDelivery) {
+        messageDeliveries.remove(messageDelivery);
+        createdMessageDeliveries.remove(messageDelivery);
+        for (final MockTCPServer mockTCPServer : mockTCPServerSet.values()) {
+            mockTCPServer.removeMessageDelivery(messageDelivery);
+        }
+    }
+
     /**
      * Get a specific {@link MockTCPServer server} from the {@link MockTCPServerPool server pool}.
      *
-     * @param port the port being listened too by the required {@link MockTCPServer server}
+     * @param port the port being listened too by the required {@link MockTCPServer server}, including any port in a {@link MockTCPServer#getLastPort() range of ports}
      *
-     * @return the requested {@link MockTCPServer server}
+     * @return the requested {@link MockTCPServer server}, or null if no server in the pool listens on the port
      */
     public MockTCPServer get(final int port) {
-        return mockTCPServerSet.get(port);
+        final MockTCPServer mockTCPServer = mockTCPServerSet.get(port);
+        if (mockTCPServer != null) {
+            return mockTCPServer;
+        }
+
+        // A server that listens on a range of ports is held once, by the first port of the range.
+        for (final MockTCPServer server : mockTCPServerSet.values()) {
+            if (port > server.getPort() && port <= server.getLastPort()) {
+                return server;
+            }
+        }
+
+        return null;
     }
 
     /**
-     * Close all {@link MockTCPServer servers} in the pool.
+     * Start every {@link MockTCPServer server} in the pool that is not already started. Each server binds its port on its own {@link Thread}, so the ports are bound in parallel.
+     *
+     * @return a future that is completed when every server is accepting connections; see {@link #getReadyFuture()}.
+     */
+    public CompletableFuture<MockTCPServerPool> open() {
+        for (final MockTCPServer mockTCPServer : mockTCPServerSet.values()) {
+            if (mockTCPServer.getState() == State.NEW) {
+                mockTCPServer.start();
+            }
+        }
+
+        return getReadyFuture();
+    }
+
+    /**
+     * Completed when every {@link MockTCPServer server} in the pool is accepting connections, at which point the {@link #getStatus() status} is STARTED; or completed exceptionally, if any server fails to start.
+     *
+     * @return a future that is completed, with this pool, when the pool is ready.
+     */
+    public CompletableFuture<MockTCPServerPool> getReadyFuture() {
+        final CompletableFuture<?>[] readyFutures = mockTCPServerSet.values().stream().map(MockTCPServer::getReadyFuture).toArray(CompletableFuture<?>[]::new);
+
+        return CompletableFuture.allOf(readyFutures).thenApply(ignored -> {
+            if (status == Status.STARTING) {
+                status = Status.STARTED;
+            }
+
+            return this;
+        });
+    }
+
+    /**
+     * Close all {@link MockTCPServer servers} in the pool. The servers are closed in parallel, each on a {@link Thread} of its own (as closing a server blocks while its connections are drained), and this method returns when every server is closed.
      */
     public void shutdown() {
-        for (Entry<Integer, MockTCPServer> entry : mockTCPServerSet.entrySet()) {
-            entry.getValue().close();
+        status = Status.STOPPING;
+
+        final ExecutorService closeExecutor = Executors.newFixedThreadPool(Math.max(1, mockTCPServerSet.size()), runnable -> {
+            final Thread thread = new Thread(runnable, String.format("%s-Shutdown", MockTCPServerPool.class.getSimpleName()));
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        final CompletableFuture<?>[] closeFutures = mockTCPServerSet.values().stream().map(mockTCPServer -> CompletableFuture.runAsync(mockTCPServer::close, closeExecutor)).toArray(CompletableFuture<?>[]::new);
+        try {
+            CompletableFuture.allOf(closeFutures).join();
+            for (final MessageDelivery messageDelivery : createdMessageDeliveries) {
+                messageDelivery.close();
+            }
+
+            status = Status.STOPPED;
+        } catch (RuntimeException e) {
+            logger.error(e.getMessage(), e);
+
+            status = Status.STOPPING_FAILED;
+        } finally {
+            closeExecutor.shutdown();
+            stopped.countDown();
         }
     }
 
+    /**
+     * Wait for the pool to be {@link #shutdown() shutdown}.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit the unit of the timeout.
+     * @return true if the pool is shutdown, or false if the timeout elapsed first.
+     * @throws InterruptedException interrupted while waiting.
+     */
+    public boolean awaitShutdown(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return stopped.await(timeout, unit);
+    }
+
     /**
      * The {@link Status} of the connection pool.
      *
      * @return the {@link Status} of the connection pool
      */
-    public static Status getStatus() {
+    public Status getStatus() {
         return status;
     }
 
@@ -102,4 +240,4 @@ public class MockTCPServerPool extends Thread implements Closeable {
     public void close() throws IOException {
         shutdown();
     }
-}
\ No newline at end of file
+}
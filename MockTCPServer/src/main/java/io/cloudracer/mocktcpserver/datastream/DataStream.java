@@ -7,9 +7,6 @@ import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.UnsupportedEncodingException;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Iterator;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
@@ -29,9 +26,16 @@ public class DataStream implements Closeable {
      */
     public static final int DEFAULT_TAIL_MAXIMUM_LENGTH = 3;
 
-    private ByteArrayOutputStream output;
-    private Deque<Byte> tailQueue = null;
-    private Byte lastByte;
+    private Output output;
+    private CharSequence charSequence;
+    /**
+     * A ring buffer of the most recently written bytes; the oldest byte is at tailStart. A primitive ring buffer is used so that maintaining, and comparing, the tail does not allocate.
+     */
+    private byte[] tail = null;
+    private int tailStart = 0;
+    private int tailLength = 0;
+    private byte lastByte;
+    private boolean isLastByte = false;
     private Integer tailMaximumLength = null;
     private String rootLoggerName;
 
@@ -73,10 +77,28 @@ public class DataStream implements Closeable {
      */
     public synchronized int write(final int data) throws IOException {
         this.getOutput().write(data);
+        this.addToTail((byte) data);
 
         return data;
     }
 
+    /**
+     * Write bytes to the {@link ByteArrayOutputStream#write(byte[], int, int)}. The {@link DataStream#getTail() tail} and {@link DataStream#getLastByte() last byte} are updated once, from the end of the bytes written, rather than for every byte.
+     *
+     * @param data contains the bytes to write.
+     * @param offset the start of the bytes within data.
+     * @param length the number of bytes to write.
+     * @throws IOException see source documentation
+     */
+    public synchronized void write(final byte[] data, final int offset, final int length) throws IOException {
+        this.getOutput().write(data, offset, length);
+
+        final int end = offset + length;
+        for (int i = Math.max(offset, end - this.getTailMaximumLength()); i < end; i++) {
+            this.addToTail(data[i]);
+        }
+    }
+
     /**
      * {@link PipedOutputStream#close() close} the {@link PipedOutputStream output stream}.
      *
@@ -88,10 +110,13 @@ public class DataStream implements Closeable {
     }
 
     /**
-     * Delegate of {@link ByteArrayOutputStream#reset()}.
+     * Delegate of {@link ByteArrayOutputStream#reset()}. The {@link DataStream#getTail() tail} and {@link DataStream#getLastByte() last byte} are also cleared, but the capacity of the stream is retained so that it can be reused without allocating.
      */
-    public void reset() {
+    public synchronized void reset() {
         this.getOutput().reset();
+        this.tailStart = 0;
+        this.tailLength = 0;
+        this.isLastByte = false;
     }
 
     /**
@@ -103,18 +128,10 @@ public class DataStream implements Closeable {
         return this.getOutput().size();
     }
 
-    private synchronized ByteArrayOutputStream getOutput() {
+    private synchronized Output getOutput() {
         if (this.output == null) {
             // The ByteArrayOutputStream is closed automatically when the class is destroyed.
-            this.output = new ByteArrayOutputStream() { // NOSONAR
-
-                @Override
-                public synchronized void write(final int b) {
-                    super.write(b);
-                    DataStream.this.setLastByte((byte) b);
-                    DataStream.this.addToTailList();
-                }
-            };
+            this.output = new Output(); // NOSONAR
         }
 
         return this.output;
@@ -129,6 +146,23 @@ public class DataStream implements Closeable {
         return this.getOutput().toByteArray();
     }
 
+    /**
+     * A copy of the stream, which is not changed when this stream is {@link #reset() reset} or written to; so that the content can be retained, or handed to another {@link Thread}, while this stream is reused.
+     *
+     * @return a copy of the stream.
+     * @throws IOException see source documentation.
+     */
+    public synchronized DataStream copy() throws IOException {
+        final DataStream copy = new DataStream(this.getTailMaximumLength());
+        // The logger is shared, rather than looked up again, as copies may be made of every message received.
+        copy.rootLoggerName = this.rootLoggerName;
+        copy.logger = this.logger;
+        final byte[] content = this.toByteArray();
+        copy.write(content, 0, content.length);
+
+        return copy;
+    }
+
     /**
      * Copies the stream to a newly created {@link PipedInputStream input stream}. The {@link PipedInputStream input stream} is cached internally and only reinitialised when new bytes are written to the stream.
      * <p>
@@ -167,13 +201,85 @@ public class DataStream implements Closeable {
 
     }
 
+    /**
+     * A {@link CharSequence} view of the content of the stream, in which each byte is a single ISO-8859-1 character. The content is neither copied nor decoded, so the view can be matched (e.g. by a {@link java.util.regex.Pattern Regular Expression}) without allocating.
+     * <p>
+     * The view reflects the current content of the stream, so it must not be used while the stream is being written. Where the content is ASCII, the view is equal to the {@link #toString() UTF-8 String}; a multi-byte UTF-8 character appears in the view as several characters.
+     *
+     * @return a view of the content of the stream.
+     */
+    public synchronized CharSequence asCharSequence() {
+        if (this.charSequence == null) {
+            this.charSequence = new ByteCharSequence(0, -1);
+        }
+
+        return this.charSequence;
+    }
+
+    /**
+     * A {@link ByteArrayOutputStream} that allows its buffer to be read in place.
+     */
+    private static final class Output extends ByteArrayOutputStream {
+
+        private synchronized byte byteAt(final int index) {
+            return this.buf[index];
+        }
+    }
+
+    /**
+     * A view of a range of the content of the stream. An end of -1 denotes the end of the stream, wherever that currently is.
+     */
+    private final class ByteCharSequence implements CharSequence {
+
+        private final int start;
+        private final int end;
+
+        private ByteCharSequence(final int start, final int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return (this.end < 0 ? DataStream.this.size() : this.end) - this.start;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (index < 0 || index >= this.length()) {
+                throw new IndexOutOfBoundsException(String.format("Index: %d, Length: %d", index, this.length()));
+            }
+
+            return (char) (DataStream.this.getOutput().byteAt(this.start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            if (start < 0 || end > this.length() || start > end) {
+                throw new IndexOutOfBoundsException(String.format("Start: %d, End: %d, Length: %d", start, end, this.length()));
+            }
+
+            return new ByteCharSequence(this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder(this.length());
+            for (int i = 0; i < this.length(); i++) {
+                builder.append(this.charAt(i));
+            }
+
+            return builder.toString();
+        }
+    }
+
     /**
      * {@link ByteArrayOutputStream#close() close} the {@link ByteArrayOutputStream output stream}.
      *
      * @param output if null, the current {@link ByteArrayOutputStream output stream} is closed before being reinitialised.
      * @throws IOException see source documentation.
      */
-    private void setOutput(final ByteArrayOutputStream output) throws IOException {
+    private void setOutput(final Output output) throws IOException {
         if (output == null && this.output != null) {
             IOUtils.closeQuietly(this.output);
         }
@@ -201,53 +307,79 @@ public class DataStream implements Closeable {
     /**
      * The tail of the specified {@link DataStream#getTailMaximumLength() length}.
      *
-     * @return the {@link Bytes} that represent the tail of the DataStrean.
+     * @return a byte[] containing the tail data, of specified maximum length.
      */
-    private Deque<Byte> getTailQueue() {
-        if (this.tailQueue == null) {
-            this.tailQueue = new ArrayDeque<>(this.getTailMaximumLength());
+    public synchronized byte[] getTail() {
+        final byte[] copy = new byte[this.tailLength];
+        for (int i = 0; i < this.tailLength; i++) {
+            copy[i] = this.tailByte(i);
         }
 
-        return this.tailQueue;
+        return copy;
     }
 
     /**
-     * The tail of the specified {@link DataStream#getTailMaximumLength() length}.
+     * Compare the end of the stream to the specified bytes, without allocating.
+     * <p>
+     * Only the {@link DataStream#getTail() tail} is retained for comparison, so the suffix must be no longer than the {@link DataStream#getTailMaximumLength() maximum tail length}.
      *
-     * @return a byte[] containing the tail data, of specified maximum length.
+     * @param suffix the bytes to compare to the end of the stream.
+     * @return true if the stream ends with the suffix.
+     * @throws IllegalArgumentException the suffix is longer than the {@link DataStream#getTailMaximumLength() maximum tail length}.
      */
-    public byte[] getTail() {
-        // Convert the list to an array.
-        final byte[] tail = new byte[this.getTailQueue().size()];
-        int i = 0;
-        for (final Iterator<Byte> iterator = this.getTailQueue().iterator(); iterator.hasNext();) {
-            final Byte nextByte = iterator.next();
-            tail[i] = nextByte;
-
-            i++;
+    public synchronized boolean endsWith(final byte[] suffix) {
+        if (suffix.length > this.getTailMaximumLength()) {
+            throw new IllegalArgumentException(String.format("The suffix (%d bytes) is longer than the maximum tail length (%d bytes).", suffix.length, this.getTailMaximumLength()));
+        }
+        if (suffix.length > this.tailLength) {
+            return false;
         }
 
-        return tail;
+        final int offset = this.tailLength - suffix.length;
+        for (int i = 0; i < suffix.length; i++) {
+            if (this.tailByte(offset + i) != suffix[i]) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
-    private void addToTailList() {
-        this.getTailQueue().addLast(this.getLastByte());
-        if (this.getTailQueue().size() > this.getTailMaximumLength()) {
-            this.getTailQueue().removeFirst();
+    /**
+     * The byte at the specified position of the tail, where zero is the oldest byte.
+     */
+    private byte tailByte(final int index) {
+        return this.tail[(this.tailStart + index) % this.tail.length];
+    }
+
+    private void addToTail(final byte data) {
+        this.lastByte = data;
+        this.isLastByte = true;
+
+        if (this.getTailMaximumLength() <= 0) {
+            return;
+        }
+        if (this.tail == null) {
+            this.tail = new byte[this.getTailMaximumLength()];
+        }
+        if (this.tailLength < this.tail.length) {
+            this.tail[(this.tailStart + this.tailLength) % this.tail.length] = data;
+            this.tailLength++;
+        } else {
+            // The tail is full, so overwrite the oldest byte.
+            this.tail[this.tailStart] = data;
+            this.tailStart = (this.tailStart + 1) % this.tail.length;
         }
     }
 
     /**
      * Get the most recently received byte of the stream.
      *
-     * @return the first byte in the stream.
+     * @return the most recently received byte, or null if the stream is empty.
      */
-    public Byte getLastByte() {
-        return this.lastByte;
-    }
-
-    private void setLastByte(final byte lastByte) {
-        this.lastByte = lastByte;
+    public synchronized Byte getLastByte() {
+        // Byte.valueOf returns a cached instance, so this does not allocate.
+        return this.isLastByte ? Byte.valueOf(this.lastByte) : null;
     }
 
     /**
@@ -1,16 +1,21 @@
 package io.cloudracer.mocktcpserver.datastream;
 
+import java.util.regex.Pattern;
+
 import org.hamcrest.Description;
 import org.hamcrest.TypeSafeMatcher;
 
 /**
  * Type-safe comparison between a Regular Expression and the content of a {@link DataStream}.
+ * <p>
+ * The Regular Expression is compiled once, when the matcher is created, rather than for each comparison.
  *
  * @author John McDonnell
  */
 public class DataStreamRegexMatcher extends TypeSafeMatcher<DataStream> {
 
-    private String regEx;
+    private Pattern pattern;
+    private boolean isMatchBytes;
 
     /**
      * Specify the Regular Expression to compares.
@@ -18,7 +23,18 @@ public class DataStreamRegexMatcher extends TypeSafeMatcher<DataStream> {
      * @param regEx {@link DataStreamRegexMatcher#matchesSafely(DataStream)} will parse this Regular Expression against the content of a provided {@link DataStream}.
      */
     public DataStreamRegexMatcher(final String regEx) {
+        this(regEx, false);
+    }
+
+    /**
+     * Specify the Regular Expression to compares, and whether it is compared to the {@link DataStream#toString() decoded} content of a {@link DataStream} or to a {@link DataStream#asCharSequence() view of its bytes}.
+     *
+     * @param regEx {@link DataStreamRegexMatcher#matchesSafely(DataStream)} will parse this Regular Expression against the content of a provided {@link DataStream}.
+     * @param isMatchBytes if true, the Regular Expression is matched against a {@link DataStream#asCharSequence() view of the bytes} of the {@link DataStream}, which does not allocate a String for each comparison. This is appropriate where the messages are ASCII.
+     */
+    public DataStreamRegexMatcher(final String regEx, final boolean isMatchBytes) {
         setRegEx(regEx);
+        setIsMatchBytes(isMatchBytes);
     }
 
     @Override
@@ -32,7 +48,11 @@ public class DataStreamRegexMatcher extends TypeSafeMatcher<DataStream> {
      */
     @Override
     public boolean matchesSafely(final DataStream data) {
-        return data.toString().matches(getRegEx());
+        if (getIsMatchBytes()) {
+            return getPattern().matcher(data.asCharSequence()).matches();
+        }
+
+        return getPattern().matcher(data.toString()).matches();
     }
 
     /**
@@ -41,10 +61,32 @@ public class DataStreamRegexMatcher extends TypeSafeMatcher<DataStream> {
      * @return the Regular Expression used by this comparison
      */
     public String getRegEx() {
-        return new String(regEx);
+        return getPattern().pattern();
     }
 
     private void setRegEx(String regex) {
-        this.regEx = regex;
+        this.pattern = Pattern.compile(regex);
+    }
+
+    /**
+     * The compiled {@link #getRegEx() Regular Expression} used by this comparison.
+     *
+     * @return the compiled Regular Expression
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * If true, the {@link #getRegEx() Regular Expression} is matched against a {@link DataStream#asCharSequence() view of the bytes} of the {@link DataStream}, rather than its {@link DataStream#toString() decoded} content.
+     *
+     * @return true if the bytes are matched
+     */
+    public boolean getIsMatchBytes() {
+        return isMatchBytes;
+    }
+
+    private void setIsMatchBytes(boolean isMatchBytes) {
+        this.isMatchBytes = isMatchBytes;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package io.cloudracer.mocktcpserver.datastream;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Split a stream of raw bytes, received in chunks of any size, into the messages (i.e. frames) that are delimited by a terminator.
+ * <p>
+ * Each chunk is scanned for the terminator in a single pass, so a read may complete zero, one or several messages. The start of a message that is not complete at the end of a chunk is carried over to the next chunk. A terminator may be split across chunks.
+ *
+ * @author John McDonnell
+ */
+public class FrameDecoder {
+
+    private static final int INITIAL_PARTIAL_FRAME_CAPACITY = 256;
+
+    private final byte[] terminator;
+    /**
+     * For each terminator prefix, the length of the longest proper prefix that is also a suffix (i.e. the Knuth-Morris-Pratt failure function). This allows the scan to continue, without backtracking, after a partial terminator match.
+     */
+    private final int[] fallback;
+
+    private byte[] partialFrame = new byte[INITIAL_PARTIAL_FRAME_CAPACITY];
+    private int partialFrameLength = 0;
+    private int terminatorMatched = 0;
+
+    /**
+     * Receives each complete message.
+     */
+    @FunctionalInterface
+    public interface FrameHandler {
+
+        /**
+         * A complete message, including its terminator, has been decoded. The buffer is only valid for the duration of the call, so the message must be copied if it is to be retained.
+         *
+         * @param buffer contains the message.
+         * @param offset the start of the message within the buffer.
+         * @param length the length of the message, including its terminator.
+         * @throws IOException error while processing the message.
+         */
+        void frame(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    /**
+     * Decode messages that are delimited by the specified terminator.
+     *
+     * @param terminator the bytes that mark the end of each message. Must not be empty.
+     */
+    public FrameDecoder(final byte[] terminator) {
+        if (terminator == null || terminator.length == 0) {
+            throw new IllegalArgumentException("The terminator must contain at least one byte.");
+        }
+
+        this.terminator = Arrays.copyOf(terminator, terminator.length);
+        this.fallback = new int[terminator.length];
+        for (int i = 1, matched = 0; i < terminator.length; i++) {
+            while (matched > 0 && terminator[i] != terminator[matched]) {
+                matched = this.fallback[matched - 1];
+            }
+            if (terminator[i] == terminator[matched]) {
+                matched++;
+            }
+            this.fallback[i] = matched;
+        }
+    }
+
+    /**
+     * Scan the chunk for terminators and pass each complete message to the handler. Any bytes after the last terminator are retained, and form the start of the next message.
+     *
+     * @param chunk the bytes received.
+     * @param offset the start of the received bytes within the chunk.
+     * @param length the number of bytes received.
+     * @param handler receives each complete message.
+     * @return the number of complete messages decoded.
+     * @throws IOException the handler failed to process a message.
+     */
+    public int decode(final byte[] chunk, final int offset, final int length, final FrameHandler handler) throws IOException {
+        final int end = offset + length;
+        int frameStart = offset;
+        int frames = 0;
+
+        for (int i = offset; i < end; i++) {
+            final byte next = chunk[i];
+            while (this.terminatorMatched > 0 && next != this.terminator[this.terminatorMatched]) {
+                this.terminatorMatched = this.fallback[this.terminatorMatched - 1];
+            }
+            if (next == this.terminator[this.terminatorMatched]) {
+                this.terminatorMatched++;
+            }
+
+            if (this.terminatorMatched == this.terminator.length) {
+                this.terminatorMatched = 0;
+                frames++;
+
+                if (this.partialFrameLength == 0) {
+                    // The whole message is within this chunk, so it is passed on without being copied.
+                    handler.frame(chunk, frameStart, i + 1 - frameStart);
+                } else {
+                    this.appendToPartialFrame(chunk, frameStart, i + 1 - frameStart);
+                    final int frameLength = this.partialFrameLength;
+                    this.partialFrameLength = 0;
+                    handler.frame(this.partialFrame, 0, frameLength);
+                }
+                frameStart = i + 1;
+            }
+        }
+
+        this.appendToPartialFrame(chunk, frameStart, end - frameStart);
+
+        return frames;
+    }
+
+    private void appendToPartialFrame(final byte[] chunk, final int offset, final int length) {
+        if (length > 0) {
+            if (this.partialFrameLength + length > this.partialFrame.length) {
+                this.partialFrame = Arrays.copyOf(this.partialFrame, Math.max(this.partialFrame.length * 2, this.partialFrameLength + length));
+            }
+            System.arraycopy(chunk, offset, this.partialFrame, this.partialFrameLength, length);
+            this.partialFrameLength += length;
+        }
+    }
+
+    /**
+     * The number of bytes received since the last complete message.
+     *
+     * @return the length of the incomplete message.
+     */
+    public int getPartialFrameLength() {
+        return this.partialFrameLength;
+    }
+
+    /**
+     * Discard the incomplete message, if any.
+     */
+    public void reset() {
+        this.partialFrameLength = 0;
+        this.terminatorMatched = 0;
+    }
+
+    /**
+     * The bytes that mark the end of each message.
+     *
+     * @return a copy of the terminator.
+     */
+    public byte[] getTerminator() {
+        return Arrays.copyOf(this.terminator, this.terminator.length);
+    }
+}
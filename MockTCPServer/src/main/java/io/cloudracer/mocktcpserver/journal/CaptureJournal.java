@@ -0,0 +1,276 @@
+package io.cloudracer.mocktcpserver.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An append-only journal of the messages received by one or more {@link io.cloudracer.mocktcpserver.MockTCPServer servers}, and the response sent for each; written to rolling, memory-mapped, segment files in a directory.
+ * <p>
+ * Records are appended, from any number of connections at once, without a lock: each append claims the space for its record with a single atomic add, and then copies the record into the mapped segment. The length of each record is written last, and is followed by a checksum of the record, so that a {@link JournalReader reader} can tail the journal while it is being written and only read complete records. When a segment is full, the append that overflows it marks the end of the segment and opens the next one.
+ * <p>
+ * A journal never overwrites a segment: when it is opened, it appends to a new segment that follows any segments already in the directory.
+ *
+ * @author John McDonnell
+ */
+public class CaptureJournal implements Closeable {
+
+    /**
+     * The version of the segment format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The default size, in bytes, of each segment file.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int MINIMUM_SEGMENT_SIZE = 1024;
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final LongAdder appendedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+
+    private volatile Segment segment;
+    private volatile boolean isClosed = false;
+
+    /**
+     * A segment that is being appended to.
+     */
+    private static final class Segment {
+
+        private final long index;
+        private final MappedByteBuffer buffer;
+        /**
+         * The records must end before the limit, so that there is always space to mark the end of the segment.
+         */
+        private final int limit;
+        private final AtomicLong claimed = new AtomicLong(JournalSegment.HEADER_LENGTH);
+        private final AtomicLong committed = new AtomicLong();
+
+        private Segment(final long index, final MappedByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+            this.limit = buffer.capacity() - Integer.BYTES;
+        }
+    }
+
+    /**
+     * Open a journal in the specified directory, with segments of the {@link #DEFAULT_SEGMENT_SIZE default size}.
+     *
+     * @param directory the directory of the segment files; created if it does not exist.
+     * @throws IOException the directory, or the first segment, could not be created.
+     */
+    public CaptureJournal(final Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Open a journal in the specified directory.
+     *
+     * @param directory the directory of the segment files; created if it does not exist.
+     * @param segmentSize the size, in bytes, of each segment file. A record must fit in a single segment.
+     * @throws IOException the directory, or the first segment, could not be created.
+     */
+    public CaptureJournal(final Path directory, final int segmentSize) throws IOException {
+        if (segmentSize < MINIMUM_SEGMENT_SIZE) {
+            throw new IllegalArgumentException(String.format("The segment size must be at least %d bytes, not %d.", MINIMUM_SEGMENT_SIZE, segmentSize));
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+        final List<Long> indexes = JournalSegment.getIndexes(directory);
+        long index = 0;
+        if (!indexes.isEmpty()) {
+            index = indexes.get(indexes.size() - 1);
+            this.seal(index);
+            index++;
+        }
+        this.segment = this.create(index);
+    }
+
+    /**
+     * Append a record of a message, and the response sent for it. Safe to call from any number of {@link Thread threads} at once.
+     *
+     * @param timestamp when the message was received, in milliseconds since the epoch.
+     * @param port the port of the server that received the message.
+     * @param connectionId identifies the connection that received the message.
+     * @param message the bytes of the message.
+     * @param response the response sent for the message, or null if no response was sent.
+     * @return true if the record was appended, or false if the journal is closed.
+     * @throws IOException the record is larger than a segment, or the next segment could not be created (in which case the journal is closed).
+     */
+    public boolean append(final long timestamp, final int port, final long connectionId, final byte[] message, final byte[] response) throws IOException {
+        final int length = JournalSegment.RECORD_OVERHEAD + message.length + (response == null ? 0 : response.length);
+        final int frameLength = JournalSegment.FRAME_HEADER_LENGTH + length;
+        if (frameLength > this.segmentSize - JournalSegment.HEADER_LENGTH - Integer.BYTES) {
+            throw new IOException(String.format("A record of %d bytes is larger than a journal segment of %d bytes.", frameLength, this.segmentSize));
+        }
+
+        while (!this.isClosed) {
+            final Segment current = this.segment;
+            final long offset = current.claimed.getAndAdd(frameLength);
+            if (offset + frameLength <= current.limit) {
+                this.write(current, (int) offset, length, timestamp, port, connectionId, message, response);
+                this.appendedCount.increment();
+
+                return true;
+            }
+
+            if (offset <= current.limit) {
+                // This append is the first that does not fit, so it ends the segment and opens the next one.
+                this.roll(current, (int) offset);
+            } else {
+                // Wait for the append that overflowed the segment to open the next one.
+                while (this.segment == current && !this.isClosed) {
+                    Thread.yield();
+                }
+            }
+        }
+        this.droppedCount.increment();
+
+        return false;
+    }
+
+    private void write(final Segment segment, final int offset, final int length, final long timestamp, final int port, final long connectionId, final byte[] message, final byte[] response) {
+        final ByteBuffer record = segment.buffer.duplicate();
+        record.position(offset + JournalSegment.FRAME_HEADER_LENGTH);
+        record.putLong(timestamp);
+        record.putInt(port);
+        record.putLong(connectionId);
+        record.putInt(message.length);
+        record.put(message);
+        if (response == null) {
+            record.putInt(JournalSegment.NO_RESPONSE);
+        } else {
+            record.putInt(response.length);
+            record.put(response);
+        }
+        record.putInt(offset + Integer.BYTES, JournalSegment.checksum(segment.buffer, offset + JournalSegment.FRAME_HEADER_LENGTH, length));
+
+        // The atomic update orders the writes of the record before the write of its length, which publishes the record to the readers.
+        segment.committed.incrementAndGet();
+        record.putInt(offset, length);
+    }
+
+    private void roll(final Segment current, final int offset) throws IOException {
+        current.buffer.putInt(offset, JournalSegment.END_OF_SEGMENT);
+        current.buffer.force();
+        try {
+            this.segment = this.create(current.index + 1);
+        } catch (final IOException e) {
+            this.isClosed = true;
+
+            throw e;
+        }
+        this.logger.debug(String.format("Journal segment %d of \"%s\" is full, after %d records.", current.index, this.directory, current.committed.get()));
+    }
+
+    /**
+     * Create, and map, a segment. The header is written before the segment is given its name, so that a reader never opens a segment without a header.
+     */
+    private Segment create(final long index) throws IOException {
+        final Path file = JournalSegment.getFile(this.directory, index);
+        final Path temporary = Files.createTempFile(this.directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (final RandomAccessFile output = new RandomAccessFile(temporary.toFile(), "rw")) {
+                output.setLength(this.segmentSize);
+                output.writeInt(JournalSegment.MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(index);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        return new Segment(index, JournalSegment.map(file, index, true));
+    }
+
+    /**
+     * Mark the end of a segment that was left open (e.g. the server stopped without closing its journal), after its last complete record, so that a reader moves on to the next segment.
+     */
+    private void seal(final long index) throws IOException {
+        final MappedByteBuffer buffer = JournalSegment.map(JournalSegment.getFile(this.directory, index), index, true);
+
+        int position = JournalSegment.HEADER_LENGTH;
+        int frameLength;
+        while ((frameLength = JournalSegment.getFrameLength(buffer, position)) > 0) {
+            position += frameLength;
+        }
+        if (frameLength == 0 && position + Integer.BYTES <= buffer.capacity()) {
+            buffer.putInt(position, JournalSegment.END_OF_SEGMENT);
+            buffer.force();
+        }
+    }
+
+    /**
+     * The directory of the segment files.
+     *
+     * @return the directory of the journal.
+     */
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * The size, in bytes, of each segment file.
+     *
+     * @return the size of each segment.
+     */
+    public int getSegmentSize() {
+        return this.segmentSize;
+    }
+
+    /**
+     * The number of records appended since the journal was opened.
+     *
+     * @return the number of records appended.
+     */
+    public long getAppendedCount() {
+        return this.appendedCount.sum();
+    }
+
+    /**
+     * The number of records that were not appended, because the journal was closed.
+     *
+     * @return the number of records dropped.
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.sum();
+    }
+
+    /**
+     * Mark the end of the current segment, and write it to the file system. Records that are appended while the journal is closing may be dropped.
+     */
+    @Override
+    public void close() {
+        if (this.isClosed) {
+            return;
+        }
+        this.isClosed = true;
+
+        final Segment current = this.segment;
+        // Claim the rest of the segment, so that no further record is appended to it.
+        final long offset = current.claimed.getAndAdd(this.segmentSize);
+        if (offset <= current.limit) {
+            current.buffer.putInt((int) offset, JournalSegment.END_OF_SEGMENT);
+        }
+        current.buffer.force();
+    }
+}
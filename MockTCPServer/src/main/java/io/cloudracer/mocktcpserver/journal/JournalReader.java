@@ -0,0 +1,107 @@
+package io.cloudracer.mocktcpserver.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read the records of a {@link CaptureJournal capture journal}, in the order that they were appended, while the journal is still being written (i.e. tail the journal). The reader maps each segment read-only, so it may run in the same process as the journal, or in another.
+ * <p>
+ * A reader is not thread safe.
+ *
+ * @author John McDonnell
+ */
+public class JournalReader implements Closeable {
+
+    private static final long POLL_INTERVAL = 1;
+
+    private final Path directory;
+
+    private long index;
+    private MappedByteBuffer buffer;
+    private int position;
+
+    /**
+     * Read the journal in the specified directory, from its first record.
+     *
+     * @param directory the directory of the segment files.
+     * @throws IOException the directory could not be read.
+     */
+    public JournalReader(final Path directory) throws IOException {
+        this.directory = directory;
+
+        final List<Long> indexes = JournalSegment.getIndexes(directory);
+        this.index = indexes.isEmpty() ? 0 : indexes.get(0);
+    }
+
+    /**
+     * The next record, if it has been completely written.
+     *
+     * @return the next record, or null if no further record has been written yet.
+     * @throws IOException a segment could not be read.
+     */
+    public JournalRecord poll() throws IOException {
+        while (true) {
+            if (this.buffer == null) {
+                final Path file = JournalSegment.getFile(this.directory, this.index);
+                if (!Files.exists(file)) {
+                    return null;
+                }
+                this.buffer = JournalSegment.map(file, this.index, false);
+                this.position = JournalSegment.HEADER_LENGTH;
+            }
+
+            final int frameLength = JournalSegment.getFrameLength(this.buffer, this.position);
+            if (frameLength == 0) {
+                return null;
+            }
+            if (frameLength == JournalSegment.END_OF_SEGMENT) {
+                this.buffer = null;
+                this.index++;
+            } else {
+                final JournalRecord record = JournalSegment.decode(this.buffer, this.position);
+                this.position += frameLength;
+
+                return record;
+            }
+        }
+    }
+
+    /**
+     * The next record, waiting for it to be written if necessary.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit the unit of the timeout.
+     * @return the next record, or null if the timeout elapsed first.
+     * @throws IOException a segment could not be read.
+     * @throws InterruptedException interrupted while waiting.
+     */
+    public JournalRecord poll(final long timeout, final TimeUnit unit) throws IOException, InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        JournalRecord record;
+        while ((record = this.poll()) == null && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL);
+        }
+
+        return record;
+    }
+
+    /**
+     * The index of the segment being read.
+     *
+     * @return the index of the segment being read.
+     */
+    public long getSegmentIndex() {
+        return this.index;
+    }
+
+    @Override
+    public void close() {
+        this.buffer = null;
+    }
+}
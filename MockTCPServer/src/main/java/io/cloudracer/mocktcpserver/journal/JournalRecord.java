@@ -0,0 +1,84 @@
+package io.cloudracer.mocktcpserver.journal;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A message received by a {@link io.cloudracer.mocktcpserver.MockTCPServer server}, and the response sent for it, as read from a {@link CaptureJournal capture journal}.
+ *
+ * @author John McDonnell
+ */
+public final class JournalRecord {
+
+    private final long timestamp;
+    private final int port;
+    private final long connectionId;
+    private final byte[] message;
+    private final byte[] response;
+
+    /**
+     * A record of a message, and its response.
+     *
+     * @param timestamp when the message was received, in milliseconds since the epoch.
+     * @param port the port of the server that received the message.
+     * @param connectionId identifies the connection that received the message; unique while the server is running.
+     * @param message the bytes of the message, including the terminator.
+     * @param response the response sent for the message, or null if no response was sent.
+     */
+    public JournalRecord(final long timestamp, final int port, final long connectionId, final byte[] message, final byte[] response) {
+        this.timestamp = timestamp;
+        this.port = port;
+        this.connectionId = connectionId;
+        this.message = message;
+        this.response = response;
+    }
+
+    /**
+     * When the message was received.
+     *
+     * @return when the message was received, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * The port of the server that received the message.
+     *
+     * @return the port of the server.
+     */
+    public int getPort() {
+        return this.port;
+    }
+
+    /**
+     * Identifies the connection that received the message, so that the messages of each connection can be told apart.
+     *
+     * @return the id of the connection.
+     */
+    public long getConnectionId() {
+        return this.connectionId;
+    }
+
+    /**
+     * The bytes of the message, including the terminator.
+     *
+     * @return the bytes of the message.
+     */
+    public byte[] getMessage() {
+        return this.message;
+    }
+
+    /**
+     * The response sent for the message (e.g. the ACK or NAK).
+     *
+     * @return the response sent, or null if no response was sent.
+     */
+    public byte[] getResponse() {
+        return this.response;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d %d:%d %s -> %s", this.timestamp, this.port, this.connectionId, new String(this.message, StandardCharsets.UTF_8), this.response == null ? null : new String(this.response, StandardCharsets.UTF_8));
+    }
+}
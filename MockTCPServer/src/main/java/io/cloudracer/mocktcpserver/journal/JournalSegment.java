@@ -0,0 +1,141 @@
+package io.cloudracer.mocktcpserver.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The layout of a segment file of a {@link CaptureJournal capture journal}, shared by the journal and its {@link JournalReader readers}; see the {@link io.cloudracer.mocktcpserver.journal package documentation}.
+ *
+ * @author John McDonnell
+ */
+final class JournalSegment {
+
+    static final int MAGIC = 0x4D54434A; // MTCJ
+    static final int HEADER_LENGTH = 16;
+    /**
+     * The length, and the checksum, of a record.
+     */
+    static final int FRAME_HEADER_LENGTH = 8;
+    /**
+     * The timestamp, port, connection id, message length and response length of a record.
+     */
+    static final int RECORD_OVERHEAD = 28;
+    static final int END_OF_SEGMENT = -1;
+    static final int NO_RESPONSE = -1;
+
+    private static final String SUFFIX = ".journal";
+
+    private JournalSegment() {
+        // Do nothing. This class cannot be constructed.
+    }
+
+    static Path getFile(final Path directory, final long index) {
+        return directory.resolve(String.format("%019d%s", index, SUFFIX));
+    }
+
+    /**
+     * The indexes of the segments in the directory, in ascending order.
+     */
+    static List<Long> getIndexes(final Path directory) throws IOException {
+        final List<Long> indexes = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (final DirectoryStream<Path> files = Files.newDirectoryStream(directory, String.format("*%s", SUFFIX))) {
+                for (final Path file : files) {
+                    final String name = file.getFileName().toString();
+                    try {
+                        indexes.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+                    } catch (final NumberFormatException e) {
+                        // Not a segment.
+                    }
+                }
+            }
+        }
+        Collections.sort(indexes);
+
+        return indexes;
+    }
+
+    /**
+     * Map the whole of the segment file, and check its header.
+     */
+    static MappedByteBuffer map(final Path file, final long index, final boolean isWritable) throws IOException {
+        final MappedByteBuffer buffer;
+        try (final FileChannel channel = isWritable ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE) : FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(isWritable ? MapMode.READ_WRITE : MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(0) != MAGIC || buffer.getInt(4) != CaptureJournal.VERSION || buffer.getLong(8) != index) {
+            throw new IOException(String.format("\"%s\" is not a segment of a version %d capture journal.", file, CaptureJournal.VERSION));
+        }
+
+        return buffer;
+    }
+
+    /**
+     * The length of the frame at the specified position: the {@link #FRAME_HEADER_LENGTH frame header} and its record.
+     *
+     * @return the length of the frame; {@link #END_OF_SEGMENT} if the segment ends at the position; or zero if the record at the position has not yet been completely written.
+     */
+    static int getFrameLength(final ByteBuffer buffer, final int position) {
+        if (position + FRAME_HEADER_LENGTH > buffer.capacity()) {
+            return position + Integer.BYTES <= buffer.capacity() && buffer.getInt(position) == END_OF_SEGMENT ? END_OF_SEGMENT : 0;
+        }
+
+        final int length = buffer.getInt(position);
+        if (length == END_OF_SEGMENT) {
+            return END_OF_SEGMENT;
+        }
+        if (length < RECORD_OVERHEAD || position + FRAME_HEADER_LENGTH + length > buffer.capacity()) {
+            return 0;
+        }
+        // The length is written last, but the checksum confirms that the rest of the record has been written too.
+        if (buffer.getInt(position + Integer.BYTES) != checksum(buffer, position + FRAME_HEADER_LENGTH, length)) {
+            return 0;
+        }
+
+        return FRAME_HEADER_LENGTH + length;
+    }
+
+    /**
+     * Decode the record of the frame at the specified position, which must be {@link #getFrameLength(ByteBuffer, int) complete}.
+     */
+    static JournalRecord decode(final ByteBuffer buffer, final int position) {
+        final ByteBuffer record = buffer.duplicate();
+        record.position(position + FRAME_HEADER_LENGTH);
+
+        final long timestamp = record.getLong();
+        final int port = record.getInt();
+        final long connectionId = record.getLong();
+        final byte[] message = new byte[record.getInt()];
+        record.get(message);
+        final int responseLength = record.getInt();
+        byte[] response = null;
+        if (responseLength != NO_RESPONSE) {
+            response = new byte[responseLength];
+            record.get(response);
+        }
+
+        return new JournalRecord(timestamp, port, connectionId, message, response);
+    }
+
+    static int checksum(final ByteBuffer buffer, final int offset, final int length) {
+        final ByteBuffer record = buffer.duplicate();
+        record.limit(offset + length);
+        record.position(offset);
+
+        final CRC32 crc = new CRC32();
+        crc.update(record);
+
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * A durable, append-only, record of the messages received by the {@link io.cloudracer.mocktcpserver.MockTCPServer servers}, and the response sent for each; written to rolling, memory-mapped, segment files by a {@link io.cloudracer.mocktcpserver.journal.CaptureJournal} and read, while it is still being written, by a {@link io.cloudracer.mocktcpserver.journal.JournalReader}.
+ * <p>
+ * Each segment starts with a header (a magic number, the {@link io.cloudracer.mocktcpserver.journal.CaptureJournal#VERSION format version} and the index of the segment), which is followed by framed records. Each frame is the length of the record, a CRC32 checksum of the record, and then the record itself: the timestamp, port, connection id, message bytes and response bytes. A frame whose length is -1 marks the end of a segment; the records continue in the segment with the next index.
+ *
+ * @author John McDonnell
+ **/
+package io.cloudracer.mocktcpserver.journal;
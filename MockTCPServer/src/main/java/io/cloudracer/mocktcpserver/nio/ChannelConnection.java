@@ -0,0 +1,140 @@
+package io.cloudracer.mocktcpserver.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.cloudracer.mocktcpserver.ClientConnection;
+
+/**
+ * Feed the bytes read from a non-blocking {@link SocketChannel} to a {@link ClientConnection}, which frames the messages, calls the server callbacks and writes the ACK/NAK responses.
+ * <p>
+ * The {@link ClientConnection} is <b>never</b> {@link Thread#start() started}; all of its work is done on the {@link EventLoop} thread that the channel is registered with.
+ * <p>
+ * When the connection is {@link #close() closed}, any responses that the channel has not yet accepted are written before the channel is closed; unless the connection is {@link #closeNow() closed now}.
+ *
+ * @author John McDonnell
+ */
+public class ChannelConnection implements ChannelHandler {
+
+    private static final int READ_BUFFER_CAPACITY = 8192;
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final SelectorTransport transport;
+    private final EventLoop eventLoop;
+    private final SocketChannel channel;
+    private final ChannelOutputStream outputStream;
+    private final ClientConnection clientConnection;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_CAPACITY);
+    private SelectionKey key;
+    private boolean isClosing = false;
+
+    /**
+     * Connect the channel to the {@link ClientConnection} that will process its messages.
+     *
+     * @param transport the transport that accepted the channel.
+     * @param eventLoop the event loop that the channel is registered with.
+     * @param channel the accepted channel.
+     * @param outputStream the stream that the {@link ClientConnection} writes its responses to.
+     * @param clientConnection processes the incoming messages.
+     */
+    public ChannelConnection(final SelectorTransport transport, final EventLoop eventLoop, final SocketChannel channel, final ChannelOutputStream outputStream, final ClientConnection clientConnection) {
+        this.transport = transport;
+        this.eventLoop = eventLoop;
+        this.channel = channel;
+        this.outputStream = outputStream;
+        this.clientConnection = clientConnection;
+    }
+
+    @Override
+    public void registered(final SelectionKey key) {
+        this.key = key;
+        this.outputStream.setKey(key);
+    }
+
+    @Override
+    public void handle(final SelectionKey key) throws IOException {
+        if (this.isClosing) {
+            this.finishClosing();
+
+            return;
+        }
+        if (key.isWritable()) {
+            this.outputStream.flushPending();
+        }
+        if (key.isValid() && key.isReadable()) {
+            this.read();
+        }
+    }
+
+    private void read() throws IOException {
+        if (this.channel.read(this.readBuffer) < 0) {
+            this.clientConnection.receive(-1);
+        } else {
+            this.clientConnection.receive(this.readBuffer.array(), this.readBuffer.arrayOffset(), this.readBuffer.position());
+            this.readBuffer.clear();
+        }
+
+        if (!this.clientConnection.isOpen()) {
+            this.close();
+        }
+    }
+
+    /**
+     * The {@link ClientConnection} that processes the incoming messages.
+     *
+     * @return the {@link ClientConnection}.
+     */
+    public ClientConnection getClientConnection() {
+        return this.clientConnection;
+    }
+
+    /**
+     * Close the {@link ClientConnection}, and then close the channel once the responses that it has not yet accepted have been written. Nothing more is read from the channel.
+     * <p>
+     * The channel is closed on the event loop, so that the pending responses are not written by two {@link Thread Threads} at once.
+     */
+    @Override
+    public void close() {
+        this.clientConnection.close();
+        this.eventLoop.execute(() -> {
+            if (this.outputStream.isPending() && this.key != null && this.key.isValid()) {
+                this.isClosing = true;
+                this.key.interestOps(SelectionKey.OP_WRITE);
+            } else {
+                this.closeNow();
+            }
+        });
+    }
+
+    private void finishClosing() {
+        try {
+            this.outputStream.flushPending();
+        } catch (final IOException e) {
+            // The client will not accept the pending responses (e.g. it has closed the connection), so they are abandoned.
+            this.logger.debug(e);
+        }
+        if (!this.outputStream.isPending() || !this.channel.isOpen()) {
+            this.closeNow();
+        }
+    }
+
+    /**
+     * Close the channel and the {@link ClientConnection} now, abandoning any responses that the channel has not yet accepted.
+     */
+    public void closeNow() {
+        IOUtils.closeQuietly(this.channel);
+        if (this.key != null) {
+            // Ensure that the close is completed promptly, even if the event loop is waiting in a select.
+            this.key.selector().wakeup();
+        }
+        this.clientConnection.close();
+        this.transport.remove(this);
+    }
+}
@@ -0,0 +1,33 @@
+package io.cloudracer.mocktcpserver.nio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+
+/**
+ * The attachment of every {@link SelectionKey} registered with an {@link EventLoop}. The {@link EventLoop} calls {@link #handle(SelectionKey)} whenever the channel is ready for one of its registered operations.
+ * <p>
+ * All methods are called on the {@link EventLoop} thread, so implementations must <b>never</b> block.
+ *
+ * @author John McDonnell
+ */
+public interface ChannelHandler extends Closeable {
+
+    /**
+     * The channel has been registered with the {@link EventLoop}.
+     *
+     * @param key the key that represents the registration.
+     * @throws IOException the channel could not be initialised.
+     */
+    default void registered(final SelectionKey key) throws IOException {
+        // Do nothing by default.
+    }
+
+    /**
+     * The channel is ready for one, or more, of its registered operations.
+     *
+     * @param key the key that identifies the channel and the operations that are ready.
+     * @throws IOException an error reading, or writing, the channel. The {@link EventLoop} will {@link #close() close} the handler.
+     */
+    void handle(SelectionKey key) throws IOException;
+}
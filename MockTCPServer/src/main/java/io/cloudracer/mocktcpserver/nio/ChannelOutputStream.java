@@ -0,0 +1,112 @@
+package io.cloudracer.mocktcpserver.nio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * An {@link OutputStream} that writes to a non-blocking {@link SocketChannel} without ever blocking.
+ * <p>
+ * Whatever the channel cannot accept immediately is held in a pending buffer, and {@link SelectionKey#OP_WRITE} interest is registered so that the {@link EventLoop} will {@link #flushPending() flush} it when the channel becomes writable. Bytes are always written in the order they are received.
+ * <p>
+ * This stream must only be used on the {@link EventLoop} thread that the channel is registered with.
+ *
+ * @author John McDonnell
+ */
+public class ChannelOutputStream extends OutputStream {
+
+    private static final int MINIMUM_PENDING_CAPACITY = 1024;
+
+    private final SocketChannel channel;
+    private SelectionKey key;
+    private ByteBuffer pending;
+
+    /**
+     * Write to the specified channel.
+     *
+     * @param channel a non-blocking channel.
+     */
+    public ChannelOutputStream(final SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        this.write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        final ByteBuffer data = ByteBuffer.wrap(b, off, len);
+
+        if (this.pending == null) {
+            this.channel.write(data);
+        }
+        if (data.hasRemaining()) {
+            this.enqueue(data);
+        }
+    }
+
+    /**
+     * Write as much of the pending buffer as the channel will accept. Once the pending buffer is empty, {@link SelectionKey#OP_WRITE} interest is removed.
+     *
+     * @throws IOException see source documentation.
+     */
+    public void flushPending() throws IOException {
+        if (this.pending != null) {
+            this.channel.write(this.pending);
+            if (!this.pending.hasRemaining()) {
+                this.pending = null;
+                this.setWriteInterest(false);
+            }
+        }
+    }
+
+    /**
+     * True if there are bytes that have not yet been written to the channel.
+     *
+     * @return true if there are bytes waiting to be written.
+     */
+    public boolean isPending() {
+        return this.pending != null;
+    }
+
+    /**
+     * The key that represents the channels registration with its {@link EventLoop}.
+     *
+     * @param key the channels key.
+     */
+    void setKey(final SelectionKey key) {
+        this.key = key;
+    }
+
+    private void enqueue(final ByteBuffer data) {
+        if (this.pending == null) {
+            this.pending = ByteBuffer.allocate(Math.max(data.remaining(), MINIMUM_PENDING_CAPACITY));
+        } else {
+            this.pending.compact();
+            if (this.pending.remaining() < data.remaining()) {
+                final ByteBuffer larger = ByteBuffer.allocate(Math.max(this.pending.capacity() * 2, this.pending.position() + data.remaining()));
+                this.pending.flip();
+                larger.put(this.pending);
+                this.pending = larger;
+            }
+        }
+        this.pending.put(data);
+        this.pending.flip();
+
+        this.setWriteInterest(true);
+    }
+
+    private void setWriteInterest(final boolean isInterested) {
+        if (this.key != null && this.key.isValid()) {
+            if (isInterested) {
+                this.key.interestOps(this.key.interestOps() | SelectionKey.OP_WRITE);
+            } else {
+                this.key.interestOps(this.key.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+        }
+    }
+}
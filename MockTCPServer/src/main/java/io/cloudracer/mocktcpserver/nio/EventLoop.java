@@ -0,0 +1,204 @@
+package io.cloudracer.mocktcpserver.nio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A single {@link Thread} that owns a {@link Selector} and services every channel registered with it.
+ * <p>
+ * Work that must be done on the event loop (e.g. registering a channel that was accepted by another event loop) is submitted with {@link #execute(Runnable)}.
+ *
+ * @author John McDonnell
+ */
+public class EventLoop extends Thread implements Closeable {
+
+    private final Logger logger = LogManager.getLogger();
+
+    private static final long CLOSE_TIMEOUT = 1000;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean isOpen = true;
+
+    /**
+     * Open a {@link Selector} and name the event loop {@link Thread}. The {@link Thread} must be {@link #start() started} separately.
+     *
+     * @param name the {@link Thread} name.
+     * @throws IOException the {@link Selector} could not be opened.
+     */
+    public EventLoop(final String name) throws IOException {
+        super(name);
+
+        this.selector = Selector.open();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (this.isOpen) {
+                this.selector.select();
+                this.runTasks();
+                this.handleSelectedKeys();
+            }
+        } catch (final IOException e) {
+            this.logger.error(e.getMessage(), e);
+        } finally {
+            this.closeChannels();
+        }
+    }
+
+    /**
+     * Run the task on the event loop {@link Thread}. If called from the event loop {@link Thread} the task is run immediately.
+     *
+     * @param task the task to run.
+     */
+    public void execute(final Runnable task) {
+        if (Thread.currentThread() == this) {
+            task.run();
+        } else {
+            this.tasks.add(task);
+            this.selector.wakeup();
+        }
+    }
+
+    /**
+     * Register the channel with this event loop. The registration is done on the event loop {@link Thread}, after which the handler is notified that it has been {@link ChannelHandler#registered(SelectionKey) registered}.
+     *
+     * @param channel a non-blocking channel.
+     * @param operations the operations (see {@link SelectionKey}) that the handler is interested in.
+     * @param handler the handler of the channels events.
+     */
+    public void register(final SelectableChannel channel, final int operations, final ChannelHandler handler) {
+        this.execute(() -> {
+            try {
+                handler.registered(channel.register(this.selector, operations, handler));
+            } catch (final ClosedChannelException e) {
+                this.logger.debug(e);
+                IOUtils.closeQuietly(handler);
+            } catch (final IOException e) {
+                this.logger.warn(e);
+                IOUtils.closeQuietly(handler);
+            }
+        });
+    }
+
+    /**
+     * Close the channel and wait for it to be deregistered from this event loop.
+     * <p>
+     * A registered channel is not <i>really</i> closed until the event loop next selects, so a listening port would remain bound after {@link SelectableChannel#close()} returns. This method closes the channel on the event loop and then selects, so that the port is released before this method returns.
+     *
+     * @param channel the channel to close.
+     */
+    public void close(final SelectableChannel channel) {
+        this.close(Collections.singletonList(channel));
+    }
+
+    /**
+     * Close the channels and wait for them to be deregistered from this event loop. The channels are closed together, so that closing many channels (e.g. the listening channels of a range of ports) takes a single trip to the event loop.
+     *
+     * @param channels the channels to close.
+     */
+    public void close(final Collection<? extends SelectableChannel> channels) {
+        if (!this.isAlive()) {
+            channels.forEach(IOUtils::closeQuietly);
+
+            return;
+        }
+
+        final CountDownLatch closed = new CountDownLatch(1);
+        this.execute(() -> {
+            channels.forEach(IOUtils::closeQuietly);
+            try {
+                this.selector.selectNow();
+            } catch (final IOException e) {
+                this.logger.debug(e);
+            } finally {
+                closed.countDown();
+            }
+        });
+        try {
+            if (!closed.await(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                this.logger.warn(String.format("Failed to close %d channel(s) on the event loop %s in %d milliseconds.", channels.size(), this.getName(), CLOSE_TIMEOUT));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The number of channels registered with this event loop.
+     *
+     * @return the number of registered channels.
+     */
+    public int getChannelCount() {
+        return this.selector.keys().size();
+    }
+
+    /**
+     * Stop the event loop and close every channel registered with it.
+     */
+    @Override
+    public void close() {
+        this.isOpen = false;
+        this.selector.wakeup();
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                this.logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    private void handleSelectedKeys() {
+        final Iterator<SelectionKey> iterator = this.selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            final SelectionKey key = iterator.next();
+            iterator.remove();
+
+            final ChannelHandler handler = (ChannelHandler) key.attachment();
+            try {
+                if (key.isValid()) {
+                    handler.handle(key);
+                }
+            } catch (final CancelledKeyException e) {
+                this.logger.debug(e);
+                IOUtils.closeQuietly(handler);
+            } catch (final IOException e) {
+                this.logger.warn(e);
+                IOUtils.closeQuietly(handler);
+            } catch (final RuntimeException e) {
+                this.logger.error(e.getMessage(), e);
+                IOUtils.closeQuietly(handler);
+            }
+        }
+    }
+
+    private void closeChannels() {
+        for (final SelectionKey key : this.selector.keys()) {
+            IOUtils.closeQuietly((ChannelHandler) key.attachment());
+        }
+        IOUtils.closeQuietly(this.selector);
+    }
+}
@@ -0,0 +1,88 @@
+package io.cloudracer.mocktcpserver.nio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small, fixed, set of {@link EventLoop event loops}. Channels are spread across the event loops in a round-robin fashion.
+ * <p>
+ * The {@link #getDefault() default} group is shared by every server that uses the {@link io.cloudracer.mocktcpserver.MockTCPServer.Engine#NIO NIO engine}, and its size can be set with the {@link #THREADS_PROPERTY_NAME System Property}.
+ *
+ * @author John McDonnell
+ */
+public class EventLoopGroup implements Closeable {
+
+    /**
+     * A System Property that specifies the number of event loop threads in the {@link #getDefault() default} group. By default, there is one event loop per processor.
+     */
+    public static final String THREADS_PROPERTY_NAME = "mocktcpserver.nio.threads";
+
+    private static EventLoopGroup defaultGroup;
+
+    private final EventLoop[] eventLoops;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    /**
+     * Create, and start, the specified number of {@link EventLoop event loops}.
+     *
+     * @param name the prefix of each event loop {@link Thread} name.
+     * @param size the number of event loops.
+     * @throws IOException an event loop could not be opened.
+     */
+    public EventLoopGroup(final String name, final int size) throws IOException {
+        this.eventLoops = new EventLoop[Math.max(1, size)];
+        for (int i = 0; i < this.eventLoops.length; i++) {
+            this.eventLoops[i] = new EventLoop(String.format("%s-%d", name, i));
+            this.eventLoops[i].setDaemon(true);
+            this.eventLoops[i].start();
+        }
+    }
+
+    /**
+     * The group shared by all servers in this JVM. It is created on first use, and its {@link Thread threads} are daemons so they do not prevent the JVM from exiting.
+     *
+     * @return the shared group.
+     */
+    public static synchronized EventLoopGroup getDefault() {
+        if (EventLoopGroup.defaultGroup == null) {
+            final int size = Integer.getInteger(THREADS_PROPERTY_NAME, Runtime.getRuntime().availableProcessors());
+            try {
+                EventLoopGroup.defaultGroup = new EventLoopGroup("MockTCPServer-EventLoop", size);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return EventLoopGroup.defaultGroup;
+    }
+
+    /**
+     * The next {@link EventLoop event loop} in the round-robin.
+     *
+     * @return an event loop.
+     */
+    public EventLoop next() {
+        return this.eventLoops[Math.abs(this.nextIndex.getAndIncrement() % this.eventLoops.length)];
+    }
+
+    /**
+     * The number of {@link EventLoop event loops} in this group.
+     *
+     * @return the number of event loops.
+     */
+    public int size() {
+        return this.eventLoops.length;
+    }
+
+    /**
+     * Stop every {@link EventLoop event loop} in the group.
+     */
+    @Override
+    public void close() {
+        for (final EventLoop eventLoop : this.eventLoops) {
+            eventLoop.close();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package io.cloudracer.mocktcpserver.nio;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.cloudracer.mocktcpserver.ClientConnection;
+
+/**
+ * A non-blocking transport that accepts, reads and responds to connections on a {@link EventLoopGroup small, fixed, set of threads} instead of a {@link Thread} per connection.
+ * <p>
+ * The transport listens on a single port, or on a range of ports. Each listening channel is registered with the {@link EventLoopGroup#next() next} event loop in the group, so that thousands of ports are served by the same, small, set of threads; and each accepted connection is registered with the {@link EventLoopGroup#next() next} event loop in the group. Each connection is processed by the {@link ClientConnection} returned by {@link #newConnection(SocketChannel, DataOutputStream)}.
+ * <p>
+ * Each port can be served by several acceptors (i.e. shards): a listening channel per acceptor is bound to the same port with <code>SO_REUSEPORT</code>, and each is registered with a different event loop, so that the operating system spreads the incoming connections across the event loops. A connection accepted by a shard is served by that shard's event loop.
+ * <p>
+ * Responses to other machines are sent using blocking I/O, so they are sent from a separate {@link Thread} in order to keep the event loops free.
+ *
+ * @author John McDonnell
+ */
+public abstract class SelectorTransport implements Closeable {
+
+    /**
+     * The default number of acceptors for each port.
+     */
+    public static final int DEFAULT_ACCEPTOR_COUNT = 1;
+
+    private static final SocketOption<Boolean> SO_REUSEPORT = getReusePortOption();
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final int port;
+    private final int lastPort;
+    private final AtomicLongArray acceptCounts;
+    private volatile int shardCount;
+    private final EventLoopGroup eventLoopGroup;
+    private final Set<ChannelConnection> connections = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final ExecutorService responseExecutor;
+
+    /**
+     * The listening channels, grouped by the event loop that each is registered with.
+     */
+    private final Map<EventLoop, List<ServerSocketChannel>> serverChannels = new LinkedHashMap<>();
+
+    /**
+     * Listen on the specified port using the specified {@link EventLoopGroup event loops}.
+     *
+     * @param port the port to listen on.
+     * @param eventLoopGroup the event loops that will service the listening channel and every accepted connection.
+     */
+    public SelectorTransport(final int port, final EventLoopGroup eventLoopGroup) {
+        this(port, port, eventLoopGroup);
+    }
+
+    /**
+     * Listen on every port in the specified range using the specified {@link EventLoopGroup event loops}.
+     *
+     * @param port the first port to listen on.
+     * @param lastPort the last port to listen on, inclusive.
+     * @param eventLoopGroup the event loops that will service the listening channels and every accepted connection.
+     */
+    public SelectorTransport(final int port, final int lastPort, final EventLoopGroup eventLoopGroup) {
+        this(port, lastPort, DEFAULT_ACCEPTOR_COUNT, eventLoopGroup);
+    }
+
+    /**
+     * Listen on every port in the specified range, with the specified number of acceptors for each port, using the specified {@link EventLoopGroup event loops}.
+     *
+     * @param port the first port to listen on.
+     * @param lastPort the last port to listen on, inclusive.
+     * @param acceptorCount the number of listening channels bound to each port with <code>SO_REUSEPORT</code>. Each acceptor is registered with a different event loop, if there are enough event loops in the group.
+     * @param eventLoopGroup the event loops that will service the listening channels and every accepted connection.
+     */
+    public SelectorTransport(final int port, final int lastPort, final int acceptorCount, final EventLoopGroup eventLoopGroup) {
+        this.port = port;
+        this.lastPort = Math.max(port, lastPort);
+        this.shardCount = Math.max(DEFAULT_ACCEPTOR_COUNT, acceptorCount);
+        this.acceptCounts = new AtomicLongArray(this.shardCount);
+        this.eventLoopGroup = eventLoopGroup;
+        this.responseExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, String.format("%s-Responses-%d", SelectorTransport.class.getSimpleName(), port));
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Create the {@link ClientConnection} that will process the messages received on a newly accepted channel.
+     *
+     * @param channel the accepted channel.
+     * @param outputStream the ACK/NAK responses must be written to this stream.
+     * @return the {@link ClientConnection} that will process the messages received on the channel.
+     * @throws IOException the connection could not be initialised.
+     */
+    protected abstract ClientConnection newConnection(SocketChannel channel, DataOutputStream outputStream) throws IOException;
+
+    /**
+     * Bind to every port and start accepting connections. If any port cannot be bound, the ports that have already been bound are released.
+     *
+     * @throws IOException a port could not be bound.
+     */
+    public synchronized void open() throws IOException {
+        for (int nextPort = this.getPort(); nextPort <= this.getLastPort(); nextPort++) {
+            for (int shard = 0; shard < this.getShardCount(); shard++) {
+                final ServerSocketChannel serverChannel = ServerSocketChannel.open();
+                try {
+                    serverChannel.configureBlocking(false);
+                    if (this.getShardCount() > 1) {
+                        this.setReusePort(serverChannel);
+                    }
+                    serverChannel.bind(new InetSocketAddress(nextPort));
+                } catch (final IOException e) {
+                    IOUtils.closeQuietly(serverChannel);
+                    this.stopAccepting();
+
+                    throw e;
+                }
+
+                final EventLoop acceptEventLoop = this.eventLoopGroup.next();
+                this.serverChannels.computeIfAbsent(acceptEventLoop, eventLoop -> new ArrayList<>()).add(serverChannel);
+                // A sharded acceptor serves its own connections; otherwise, the connections are spread across the event loops.
+                acceptEventLoop.register(serverChannel, SelectionKey.OP_ACCEPT, new Acceptor(serverChannel, shard, this.getShardCount() > 1 ? acceptEventLoop : null));
+            }
+        }
+    }
+
+    /**
+     * If <code>SO_REUSEPORT</code> is not supported (e.g. by the Java runtime or the operating system) the port is served by a single acceptor.
+     */
+    private void setReusePort(final ServerSocketChannel serverChannel) throws IOException {
+        if (SO_REUSEPORT == null || !serverChannel.supportedOptions().contains(SO_REUSEPORT)) {
+            this.logger.warn(String.format("SO_REUSEPORT is not supported on the Java %s runtime, or by the operating system. Port %d will be served by a single acceptor.", System.getProperty("java.version"), this.getPort()));
+            this.shardCount = DEFAULT_ACCEPTOR_COUNT;
+
+            return;
+        }
+
+        serverChannel.setOption(SO_REUSEPORT, Boolean.TRUE);
+    }
+
+    /**
+     * <code>SO_REUSEPORT</code> is a {@link StandardSocketOptions standard socket option} from Java 9; it is looked up so that the transport can still run on Java 8.
+     */
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> getReusePortOption() {
+        try {
+            return (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+        } catch (final ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Accept the connections on one listening channel.
+     */
+    private final class Acceptor implements ChannelHandler {
+
+        private final ServerSocketChannel serverChannel;
+        private final int shard;
+        private final EventLoop eventLoop;
+
+        private Acceptor(final ServerSocketChannel serverChannel, final int shard, final EventLoop eventLoop) {
+            this.serverChannel = serverChannel;
+            this.shard = shard;
+            this.eventLoop = eventLoop;
+        }
+
+        @Override
+        public void handle(final SelectionKey key) throws IOException {
+            if (key.isAcceptable()) {
+                SocketChannel channel;
+                while ((channel = this.serverChannel.accept()) != null) {
+                    SelectorTransport.this.acceptCounts.incrementAndGet(this.shard);
+                    SelectorTransport.this.accept(channel, this.eventLoop == null ? SelectorTransport.this.eventLoopGroup.next() : this.eventLoop);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            IOUtils.closeQuietly(this.serverChannel);
+        }
+    }
+
+    private void accept(final SocketChannel channel, final EventLoop eventLoop) {
+        try {
+            channel.configureBlocking(false);
+
+            final ChannelOutputStream outputStream = new ChannelOutputStream(channel);
+            final ClientConnection clientConnection = this.newConnection(channel, new DataOutputStream(outputStream));
+            clientConnection.setResponseExecutor(this.responseExecutor);
+
+            // The channel must only be written on its event loop, including when responses are flushed by a timer.
+            clientConnection.setFlushExecutor(eventLoop::execute);
+
+            final ChannelConnection connection = new ChannelConnection(this, eventLoop, channel, outputStream, clientConnection);
+            clientConnection.setTransport(connection);
+            this.connections.add(connection);
+            eventLoop.register(channel, SelectionKey.OP_READ, connection);
+        } catch (final IOException e) {
+            // A failure to initialise one connection must not stop the transport accepting others.
+            this.logger.warn(e);
+            IOUtils.closeQuietly(channel);
+        }
+    }
+
+    void remove(final ChannelConnection connection) {
+        if (this.connections.remove(connection)) {
+            synchronized (this.connections) {
+                this.connections.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Wait for every connection that is {@link ChannelConnection#close() closing} to finish writing its pending responses, and close its channel. A connection that has not been closed is waited for too.
+     *
+     * @param timeout the maximum duration, in milliseconds, to wait.
+     * @return true if every connection is closed.
+     */
+    public boolean awaitConnectionsClosed(final long timeout) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        synchronized (this.connections) {
+            long remaining;
+            while (!this.connections.isEmpty() && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this.connections, remaining);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+
+                    break;
+                }
+            }
+
+            return this.connections.isEmpty();
+        }
+    }
+
+    /**
+     * The port that this transport is listening on; the first port, if it is listening on a range of ports.
+     *
+     * @return the port number.
+     */
+    public int getPort() {
+        return this.port;
+    }
+
+    /**
+     * The last port that this transport is listening on; the same as {@link #getPort()}, unless it is listening on a range of ports.
+     *
+     * @return the port number.
+     */
+    public int getLastPort() {
+        return this.lastPort;
+    }
+
+    /**
+     * The number of acceptors (i.e. listening channels) for each port. This is fewer than requested if <code>SO_REUSEPORT</code> is not supported.
+     *
+     * @return the number of acceptors for each port.
+     */
+    public int getShardCount() {
+        return this.shardCount;
+    }
+
+    /**
+     * The number of connections accepted by each acceptor, for every port, since the transport was opened.
+     *
+     * @return the number of connections accepted, indexed by acceptor.
+     */
+    public long[] getAcceptCounts() {
+        final long[] counts = new long[this.getShardCount()];
+        for (int shard = 0; shard < counts.length; shard++) {
+            counts[shard] = this.acceptCounts.get(shard);
+        }
+
+        return counts;
+    }
+
+    /**
+     * The number of connections that are currently open.
+     *
+     * @return the number of open connections.
+     */
+    public int getConnectionCount() {
+        return this.connections.size();
+    }
+
+    /**
+     * Stop accepting connections; the connections that are already open are not closed.
+     */
+    public synchronized void stopAccepting() {
+        // The channels registered with each event loop are closed together.
+        for (final Map.Entry<EventLoop, List<ServerSocketChannel>> acceptEventLoop : this.serverChannels.entrySet()) {
+            acceptEventLoop.getKey().close(acceptEventLoop.getValue());
+        }
+        this.serverChannels.clear();
+    }
+
+    /**
+     * Stop accepting connections and close every open connection now, abandoning any responses that have not been written; see {@link #awaitConnectionsClosed(long)}.
+     */
+    @Override
+    public void close() {
+        this.stopAccepting();
+        if (this.getShardCount() > 1) {
+            this.logger.info(String.format("Connections accepted on port %d by each acceptor: %s.", this.getPort(), Arrays.toString(this.getAcceptCounts())));
+        }
+        for (final ChannelConnection connection : new ArrayList<>(this.connections)) {
+            connection.closeNow();
+        }
+        this.responseExecutor.shutdown();
+    }
+}
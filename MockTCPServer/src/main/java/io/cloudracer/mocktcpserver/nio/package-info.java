@@ -0,0 +1,8 @@
+/**
+ * A non-blocking transport, built on {@link java.nio.channels.ServerSocketChannel} and {@link java.nio.channels.Selector}, that serves many connections from a small, fixed, set of {@link io.cloudracer.mocktcpserver.nio.EventLoop event loop} threads.
+ * <p>
+ * The transport is selected with the {@link io.cloudracer.mocktcpserver.MockTCPServer.Engine#NIO NIO engine}. Message framing, ACK/NAK responses and the server callbacks are identical to those of the default, thread per connection, engine because both engines process messages with a {@link io.cloudracer.mocktcpserver.ClientConnection}.
+ *
+ * @author John McDonnell
+ **/
+package io.cloudracer.mocktcpserver.nio;
@@ -0,0 +1,522 @@
+package io.cloudracer.mocktcpserver.replay;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.OptionGroup;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.cloudracer.mocktcpserver.journal.CaptureJournal;
+import io.cloudracer.mocktcpserver.journal.JournalReader;
+import io.cloudracer.mocktcpserver.journal.JournalRecord;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+
+/**
+ * A load generator that replays a {@link CaptureJournal capture journal}, or a file of messages, against a target system.
+ * <p>
+ * The messages of each captured connection are sent, in order, on a {@link TCPClient} of their own; and each waits for the response of the target (i.e. the ACK, the NAK or a response with the {@link #setResponseTerminator(byte[]) response terminator}), if a response was originally sent. The messages are sent at their original timing, at a {@link #setSpeed(double) multiple} of it, or {@link #AS_FAST_AS_POSSIBLE as fast as possible}.
+ * <p>
+ * A file of messages has one message on each line. Each line is unescaped (e.g. "\r\n" is two characters, like the messages of the {@link io.cloudracer.properties.ConfigurationSettings#getFileName() configuration file}), is sent with the {@link #setTerminator(byte[]) terminator}, and waits for a response. The messages of a file have no timing, so they are sent as fast as possible.
+ *
+ * @author John McDonnell
+ */
+public class Replay {
+
+    private final Logger logger = LogManager.getLogger();
+
+    /**
+     * The {@link #setSpeed(double) speed} at which the messages are sent at their original timing.
+     */
+    public static final double ORIGINAL_SPEED = 1;
+
+    /**
+     * The {@link #setSpeed(double) speed} at which the messages are sent as fast as possible, without regard to their original timing.
+     */
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    private static final byte[] DEFAULT_TERMINATOR = { 13, 10, 10 };
+    private static final String DEFAULT_MACHINE = "localhost";
+    private static final String MAXIMUM_SPEED_NAME = "max";
+    /**
+     * The number of messages that may be queued for a connection that is waiting for a response, before the replay waits for it.
+     */
+    private static final int CONNECTION_CAPACITY = 1024;
+
+    private final String hostName;
+    private final int port;
+
+    private double speed = ORIGINAL_SPEED;
+    private int connectionCount = 0;
+    private byte[] terminator = DEFAULT_TERMINATOR;
+    private byte[] ack;
+    private byte[] nak;
+    private byte[] responseTerminator;
+
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder ackCount = new LongAdder();
+    private final LongAdder nakCount = new LongAdder();
+    private final LongAdder mismatchCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private volatile long elapsed;
+
+    /**
+     * A source of the messages to replay.
+     */
+    @FunctionalInterface
+    private interface Source {
+
+        /**
+         * @return the next message, or null if there are no more messages.
+         */
+        ReplayMessage next() throws IOException;
+    }
+
+    /**
+     * Replay messages against the specified target.
+     *
+     * @param hostName the machine of the target.
+     * @param port the port that the target is listening on.
+     */
+    public Replay(final String hostName, final int port) {
+        this.hostName = hostName;
+        this.port = port;
+    }
+
+    /**
+     * Replay a {@link CaptureJournal capture journal} (if the path is a directory) or a file of messages; and wait until every message has been sent, and its response received.
+     *
+     * @param path the directory of a capture journal, or a file of messages.
+     * @throws IOException the journal, or file, could not be read.
+     * @throws InterruptedException interrupted while replaying.
+     */
+    public void replay(final Path path) throws IOException, InterruptedException {
+        if (Files.isDirectory(path)) {
+            this.replayJournal(path);
+        } else {
+            this.replayFile(path);
+        }
+    }
+
+    /**
+     * Replay the records of a {@link CaptureJournal capture journal}, from the first record to the last record written so far; and wait until every message has been sent, and its response received.
+     *
+     * @param directory the directory of the journal (i.e. of its segment files).
+     * @throws IOException the journal could not be read.
+     * @throws InterruptedException interrupted while replaying.
+     */
+    public void replayJournal(final Path directory) throws IOException, InterruptedException {
+        try (final JournalReader reader = new JournalReader(directory)) {
+            this.replay(directory, () -> {
+                final JournalRecord record = reader.poll();
+
+                return record == null ? null : new ReplayMessage(record.getTimestamp(), record.getConnectionId(), record.getMessage(), record.getResponse() != null, record.getResponse());
+            });
+        }
+    }
+
+    /**
+     * Replay a file of messages, one message on each line; and wait until every message has been sent, and its response received.
+     *
+     * @param file the file of messages.
+     * @throws IOException the file could not be read.
+     * @throws InterruptedException interrupted while replaying.
+     */
+    public void replayFile(final Path file) throws IOException, InterruptedException {
+        try (final BufferedReader reader = Files.newBufferedReader(file)) {
+            final long[] index = { 0 };
+            this.replay(file, () -> {
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && line.isEmpty());
+                if (line == null) {
+                    return null;
+                }
+
+                final byte[] message = StringEscapeUtils.unescapeJava(line).getBytes();
+                final byte[] terminatedMessage = new byte[message.length + this.getTerminator().length];
+                System.arraycopy(message, 0, terminatedMessage, 0, message.length);
+                System.arraycopy(this.getTerminator(), 0, terminatedMessage, message.length, this.getTerminator().length);
+                // Unless the messages are spread over several connections, they are all sent on one connection.
+                final long connectionId = this.getConnectionCount() > 0 ? index[0]++ : 0;
+
+                return new ReplayMessage(ReplayMessage.UNTIMED, connectionId, terminatedMessage, true, null);
+            });
+        }
+    }
+
+    private void replay(final Path path, final Source source) throws IOException, InterruptedException {
+        this.logger.info(String.format("Replaying \"%s\" against %s:%d, at %s.", path, this.hostName, this.port, this.getSpeed() == AS_FAST_AS_POSSIBLE ? "the maximum speed" : String.format("%s times the original speed", this.getSpeed())));
+
+        this.sentCount.reset();
+        this.ackCount.reset();
+        this.nakCount.reset();
+        this.mismatchCount.reset();
+        this.failedCount.reset();
+
+        final Map<Long, ReplayConnection> connections = new HashMap<>();
+        final long start = System.nanoTime();
+        try {
+            long firstTimestamp = ReplayMessage.UNTIMED;
+            ReplayMessage message;
+            while ((message = source.next()) != null) {
+                if (this.getSpeed() != AS_FAST_AS_POSSIBLE && message.getTimestamp() != ReplayMessage.UNTIMED) {
+                    if (firstTimestamp == ReplayMessage.UNTIMED) {
+                        firstTimestamp = message.getTimestamp();
+                    }
+                    final long due = start + (long) (TimeUnit.MILLISECONDS.toNanos(message.getTimestamp() - firstTimestamp) / this.getSpeed());
+                    final long delay = due - System.nanoTime();
+                    if (delay > 0) {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    }
+                }
+
+                final long connectionId = this.getConnectionCount() > 0 ? Math.floorMod(message.getConnectionId(), (long) this.getConnectionCount()) : message.getConnectionId();
+                ReplayConnection connection = connections.get(connectionId);
+                if (connection == null) {
+                    connection = new ReplayConnection(this, this.createClient(), String.format("Replay-%d-%d", this.port, connectionId), CONNECTION_CAPACITY);
+                    connection.start();
+                    connections.put(connectionId, connection);
+                }
+                connection.send(message);
+            }
+        } finally {
+            for (final ReplayConnection connection : connections.values()) {
+                connection.finish();
+            }
+            for (final ReplayConnection connection : connections.values()) {
+                connection.join();
+            }
+            this.elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+
+        this.logger.info(String.format("Replayed %d messages, on %d connections, in %d milliseconds (%d messages per second): %d ACK, %d NAK, %d responses that differ from the original and %d failures.", this.getSentCount(), connections.size(), this.getElapsed(), this.getSentCount() * 1000L / this.getElapsed(), this.getAckCount(), this.getNakCount(), this.getMismatchCount(), this.getFailedCount()));
+    }
+
+    private TCPClient createClient() {
+        final TCPClient client = new TCPClient(this.hostName, this.port);
+        if (this.ack != null) {
+            client.setACK(this.ack);
+        }
+        if (this.nak != null) {
+            client.setNAK(this.nak);
+        }
+        if (this.responseTerminator != null) {
+            client.setResponseTerminator(this.responseTerminator);
+        }
+
+        return client;
+    }
+
+    /**
+     * Count a message that was sent, and whose response (if one was waited for) was received.
+     */
+    void sent(final boolean isAck, final boolean isNak, final boolean isMismatch) {
+        this.sentCount.increment();
+        if (isAck) {
+            this.ackCount.increment();
+        }
+        if (isNak) {
+            this.nakCount.increment();
+        }
+        if (isMismatch) {
+            this.mismatchCount.increment();
+        }
+    }
+
+    /**
+     * Count a message that could not be sent, or whose response was not received.
+     */
+    void failed() {
+        this.failedCount.increment();
+    }
+
+    /**
+     * The speed at which the messages are sent, as a multiple of their original timing: {@link #ORIGINAL_SPEED} sends them at their original timing, 2 sends them twice as fast, and {@link #AS_FAST_AS_POSSIBLE} sends them as fast as the target responds.
+     * <p>
+     * Default is {@link #ORIGINAL_SPEED}.
+     *
+     * @return the speed of the replay.
+     */
+    public double getSpeed() {
+        return this.speed;
+    }
+
+    /**
+     * The speed at which the messages are sent, as a multiple of their original timing. The speed must be <b>set before the replay is started</b>.
+     *
+     * @param speed the speed of the replay; see {@link #getSpeed()}.
+     */
+    public void setSpeed(final double speed) {
+        if (speed < 0 || Double.isNaN(speed)) {
+            throw new IllegalArgumentException(String.format("The speed must be a positive multiple of the original timing, or %s, not %s.", AS_FAST_AS_POSSIBLE, speed));
+        }
+        this.speed = speed;
+    }
+
+    /**
+     * The number of connections that the messages are sent on, or zero if the messages of each captured connection are sent on a connection of their own. If the number is specified, the messages of the captured connections (or the lines of a file of messages) are spread over that number of connections.
+     * <p>
+     * Default is zero.
+     *
+     * @return the number of connections, or zero.
+     */
+    public int getConnectionCount() {
+        return this.connectionCount;
+    }
+
+    /**
+     * The number of connections that the messages are sent on, or zero if the messages of each captured connection are sent on a connection of their own. The number must be <b>set before the replay is started</b>.
+     *
+     * @param connectionCount the number of connections, or zero.
+     */
+    public void setConnectionCount(final int connectionCount) {
+        this.connectionCount = connectionCount;
+    }
+
+    /**
+     * The terminator that is appended to each message of a file of messages. The messages of a journal are sent as they were received, with their original terminator.
+     * <p>
+     * Default is the default terminator of the {@link io.cloudracer.mocktcpserver.MockTCPServer server}.
+     *
+     * @return the terminator.
+     */
+    public byte[] getTerminator() {
+        return this.terminator;
+    }
+
+    /**
+     * The terminator that is appended to each message of a file of messages.
+     *
+     * @param terminator the terminator.
+     */
+    public void setTerminator(final byte[] terminator) {
+        this.terminator = terminator;
+    }
+
+    /**
+     * The <b>positive</b> acknowledgement response of the target; see {@link TCPClient#setACK(byte[])}.
+     *
+     * @param ack positive acknowledgement
+     */
+    public void setACK(final byte[] ack) {
+        this.ack = ack;
+    }
+
+    /**
+     * The <b>negative</b> acknowledgement response of the target; see {@link TCPClient#setNAK(byte[])}.
+     *
+     * @param nak negative acknowledgement
+     */
+    public void setNAK(final byte[] nak) {
+        this.nak = nak;
+    }
+
+    /**
+     * The terminator of a response of the target, other than the ACK or NAK; see {@link TCPClient#setResponseTerminator(byte[])}.
+     *
+     * @param responseTerminator the response terminator.
+     */
+    public void setResponseTerminator(final byte[] responseTerminator) {
+        this.responseTerminator = responseTerminator;
+    }
+
+    /**
+     * The number of messages sent by the last replay, and whose response (if one was waited for) was received.
+     *
+     * @return the number of messages sent.
+     */
+    public long getSentCount() {
+        return this.sentCount.sum();
+    }
+
+    /**
+     * The number of ACK responses received by the last replay.
+     *
+     * @return the number of ACK responses.
+     */
+    public long getAckCount() {
+        return this.ackCount.sum();
+    }
+
+    /**
+     * The number of NAK responses received by the last replay.
+     *
+     * @return the number of NAK responses.
+     */
+    public long getNakCount() {
+        return this.nakCount.sum();
+    }
+
+    /**
+     * The number of responses received by the last replay that differ from the response originally sent (i.e. the response captured in the journal).
+     *
+     * @return the number of responses that differ.
+     */
+    public long getMismatchCount() {
+        return this.mismatchCount.sum();
+    }
+
+    /**
+     * The number of messages of the last replay that could not be sent, or whose response was not received (e.g. the target closed the connection, or could not be reached).
+     *
+     * @return the number of failures.
+     */
+    public long getFailedCount() {
+        return this.failedCount.sum();
+    }
+
+    /**
+     * The duration of the last replay, from the first message until the response to the last message was received.
+     *
+     * @return the duration, in milliseconds, of the last replay.
+     */
+    public long getElapsed() {
+        return this.elapsed;
+    }
+
+    /**
+     * Replay a capture journal, or a file of messages, on a command-line.
+     *
+     * @param args see the usage instructions (i.e. <code>--help</code>).
+     * @throws IOException the journal, or file, could not be read.
+     * @throws InterruptedException interrupted while replaying.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        final Logger logger = LogManager.getLogger();
+
+        try {
+            final CommandLine commandLine = new DefaultParser().parse(getCommandLineOptions(), args);
+            if (commandLine.hasOption("help") || !commandLine.hasOption("port") || !(commandLine.hasOption("journal") || commandLine.hasOption("file"))) {
+                printHelp();
+            } else {
+                final Replay replay = new Replay(commandLine.getOptionValue("machine", DEFAULT_MACHINE), Integer.parseInt(commandLine.getOptionValue("port")));
+                if (commandLine.hasOption("speed")) {
+                    final String speed = commandLine.getOptionValue("speed");
+                    replay.setSpeed(MAXIMUM_SPEED_NAME.equalsIgnoreCase(speed) ? AS_FAST_AS_POSSIBLE : Double.parseDouble(speed));
+                }
+                if (commandLine.hasOption("connections")) {
+                    replay.setConnectionCount(Integer.parseInt(commandLine.getOptionValue("connections")));
+                }
+                if (commandLine.hasOption("terminator")) {
+                    replay.setTerminator(getBytes(commandLine.getOptionValue("terminator")));
+                }
+                if (commandLine.hasOption("ack")) {
+                    replay.setACK(getBytes(commandLine.getOptionValue("ack")));
+                }
+                if (commandLine.hasOption("nak")) {
+                    replay.setNAK(getBytes(commandLine.getOptionValue("nak")));
+                }
+                if (commandLine.hasOption("response-terminator")) {
+                    replay.setResponseTerminator(getBytes(commandLine.getOptionValue("response-terminator")));
+                }
+
+                if (commandLine.hasOption("journal")) {
+                    replay.replayJournal(Paths.get(commandLine.getOptionValue("journal")));
+                } else {
+                    replay.replayFile(Paths.get(commandLine.getOptionValue("file")));
+                }
+            }
+        } catch (final ParseException e) {
+            logger.info(String.format("Invalid command line: %s", e.getMessage()));
+            printHelp();
+        }
+    }
+
+    private static byte[] getBytes(final String escaped) {
+        return StringEscapeUtils.unescapeJava(escaped).getBytes();
+    }
+
+    private static void printHelp() {
+        final HelpFormatter formatter = new HelpFormatter();
+        formatter.printHelp("Replay", getCommandLineOptions());
+    }
+
+    private static Options getCommandLineOptions() {
+        final Options options = new Options();
+
+        final Option machine = Option.builder("m")
+                .longOpt("machine")
+                .desc(String.format("the machine of the target; default is %s.", DEFAULT_MACHINE))
+                .numberOfArgs(1)
+                .build();
+        options.addOption(machine);
+        final Option port = Option.builder("p")
+                .longOpt("port")
+                .desc("the port that the target is listening on.")
+                .type(Integer.class)
+                .numberOfArgs(1)
+                .build();
+        options.addOption(port);
+        final OptionGroup source = new OptionGroup();
+        final Option journal = Option.builder("j")
+                .longOpt("journal")
+                .desc("replay the capture journal in the specified directory (i.e. the sub-directory, named after the port, of the directory that the server journaled to).")
+                .numberOfArgs(1)
+                .build();
+        source.addOption(journal);
+        final Option file = Option.builder("f")
+                .longOpt("file")
+                .desc("replay the specified file of messages, one message on each line.")
+                .numberOfArgs(1)
+                .build();
+        source.addOption(file);
+        options.addOptionGroup(source);
+        final Option speed = Option.builder("s")
+                .longOpt("speed")
+                .desc(String.format("the speed of the replay, as a multiple of the original timing (e.g. 2 is twice as fast), or \"%s\" to replay as fast as possible; default is %s.", MAXIMUM_SPEED_NAME, ORIGINAL_SPEED))
+                .numberOfArgs(1)
+                .build();
+        options.addOption(speed);
+        final Option connections = Option.builder("c")
+                .longOpt("connections")
+                .desc("spread the messages over the specified number of connections; by default, the messages of each captured connection are sent on a connection of their own.")
+                .type(Integer.class)
+                .numberOfArgs(1)
+                .build();
+        options.addOption(connections);
+        final Option terminator = Option.builder("t")
+                .longOpt("terminator")
+                .desc(String.format("the terminator appended to each message of a file; default is \"%s\".", StringEscapeUtils.escapeJava(new String(DEFAULT_TERMINATOR))))
+                .numberOfArgs(1)
+                .build();
+        options.addOption(terminator);
+        final Option ack = Option.builder()
+                .longOpt("ack")
+                .desc("the positive acknowledgement of the target; default is \"A\".")
+                .numberOfArgs(1)
+                .build();
+        options.addOption(ack);
+        final Option nak = Option.builder()
+                .longOpt("nak")
+                .desc("the negative acknowledgement of the target; default is \"N\".")
+                .numberOfArgs(1)
+                .build();
+        options.addOption(nak);
+        final Option responseTerminator = Option.builder()
+                .longOpt("response-terminator")
+                .desc("the terminator of a response of the target, other than the ACK or NAK; default is \"\\r\\n\".")
+                .numberOfArgs(1)
+                .build();
+        options.addOption(responseTerminator);
+        options.addOption("h", "help", false, "print these usage instructions and exit.");
+        options.addOption("?", "help", false, "print these usage instructions and exit.");
+
+        return options;
+    }
+}
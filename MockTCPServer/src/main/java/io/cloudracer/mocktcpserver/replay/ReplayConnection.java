@@ -0,0 +1,121 @@
+package io.cloudracer.mocktcpserver.replay;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.cloudracer.mocktcpserver.datastream.DataStream;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+
+/**
+ * Send the messages of one replayed connection, in order, on a {@link TCPClient} of its own; so that a connection that waits for a response does not delay the messages of the other connections.
+ *
+ * @author John McDonnell
+ */
+class ReplayConnection extends Thread {
+
+    private final Logger logger = LogManager.getLogger();
+
+    /**
+     * Marks the end of the messages of the connection.
+     */
+    private static final ReplayMessage END = new ReplayMessage(ReplayMessage.UNTIMED, 0, new byte[0], false, null);
+
+    private final Replay replay;
+    private final TCPClient client;
+    private final BlockingQueue<ReplayMessage> messages;
+
+    private boolean isUnavailable = false;
+
+    ReplayConnection(final Replay replay, final TCPClient client, final String name, final int capacity) {
+        super(name);
+
+        this.replay = replay;
+        this.client = client;
+        this.messages = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Queue a message to be sent; waiting, if the connection has fallen behind, until there is space in the queue.
+     */
+    void send(final ReplayMessage message) throws InterruptedException {
+        this.messages.put(message);
+    }
+
+    /**
+     * Send the messages already queued, and then close the connection.
+     */
+    void finish() throws InterruptedException {
+        this.messages.put(END);
+    }
+
+    @Override
+    public void run() {
+        try {
+            ReplayMessage message;
+            while ((message = this.messages.take()) != END) {
+                this.replay(message);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            IOUtils.closeQuietly(this.client);
+        }
+    }
+
+    private void replay(final ReplayMessage message) {
+        if (!this.isConnected()) {
+            this.replay.failed();
+
+            return;
+        }
+
+        final DataStream response;
+        try {
+            response = this.client.send(message.getMessage(), message.isWaitForResponse());
+        } catch (final IOException e) {
+            this.logger.debug(e.getMessage(), e);
+            this.replay.failed();
+            // The next message is sent on a new connection.
+            IOUtils.closeQuietly(this.client);
+
+            return;
+        }
+        if (!message.isWaitForResponse()) {
+            this.replay.sent(false, false, false);
+        } else if (response == null || response.size() == 0) {
+            // The target closed the connection, rather than respond.
+            this.replay.failed();
+            IOUtils.closeQuietly(this.client);
+        } else {
+            final byte[] bytes = response.toByteArray();
+            final boolean isMismatch = message.getExpectedResponse() != null && !Arrays.equals(message.getExpectedResponse(), bytes);
+
+            this.replay.sent(Arrays.equals(this.client.getACK(), bytes), Arrays.equals(this.client.getNAK(), bytes), isMismatch);
+        }
+    }
+
+    /**
+     * Connect, if the connection is not already open. If the target cannot be reached, the remaining messages of the connection are not sent.
+     */
+    private boolean isConnected() {
+        if (!this.isUnavailable && !this.client.isConectionActive()) {
+            try {
+                this.client.connect();
+            } catch (final IOException e) {
+                this.logger.debug(e.getMessage(), e);
+            }
+            if (!this.client.isConectionActive()) {
+                this.logger.warn(String.format("Unable to connect to %s. The remaining messages of the connection \"%s\" will not be sent.", this.client, super.getName()));
+                this.isUnavailable = true;
+            }
+        }
+
+        return !this.isUnavailable;
+    }
+}
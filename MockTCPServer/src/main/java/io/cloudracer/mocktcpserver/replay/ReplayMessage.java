@@ -0,0 +1,57 @@
+package io.cloudracer.mocktcpserver.replay;
+
+/**
+ * A message to replay, read from a {@link io.cloudracer.mocktcpserver.journal.CaptureJournal capture journal} or a file of messages.
+ *
+ * @author John McDonnell
+ */
+final class ReplayMessage {
+
+    /**
+     * The timestamp of a message that has no timing (i.e. it is sent as soon as possible).
+     */
+    static final long UNTIMED = -1;
+
+    private final long timestamp;
+    private final long connectionId;
+    private final byte[] message;
+    private final boolean isWaitForResponse;
+    private final byte[] expectedResponse;
+
+    ReplayMessage(final long timestamp, final long connectionId, final byte[] message, final boolean isWaitForResponse, final byte[] expectedResponse) {
+        this.timestamp = timestamp;
+        this.connectionId = connectionId;
+        this.message = message;
+        this.isWaitForResponse = isWaitForResponse;
+        this.expectedResponse = expectedResponse;
+    }
+
+    /**
+     * When the message was originally received, in milliseconds since the epoch; or {@link #UNTIMED}.
+     */
+    long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Identifies the connection that originally sent the message, so that the messages of a connection are replayed, in order, on the same connection.
+     */
+    long getConnectionId() {
+        return this.connectionId;
+    }
+
+    byte[] getMessage() {
+        return this.message;
+    }
+
+    boolean isWaitForResponse() {
+        return this.isWaitForResponse;
+    }
+
+    /**
+     * The response originally sent for the message, or null if it is not known.
+     */
+    byte[] getExpectedResponse() {
+        return this.expectedResponse;
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Replay the traffic captured by the {@link io.cloudracer.mocktcpserver.MockTCPServer MockTCPServer} (in a {@link io.cloudracer.mocktcpserver.journal.CaptureJournal capture journal}), or a file of messages, against a target system; so that the throughput of different builds of the target can be compared under the same load.
+ * <p>
+ * Each message is sent by a {@link io.cloudracer.mocktcpserver.tcpclient.TCPClient TCPClient}, which waits for the ACK, NAK or terminated response of the target, at the original timing of the messages, at a multiple of it, or as fast as possible.
+ *
+ * @author John McDonnell
+ **/
+package io.cloudracer.mocktcpserver.replay;
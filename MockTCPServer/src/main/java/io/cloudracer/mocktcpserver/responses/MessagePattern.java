@@ -0,0 +1,113 @@
+package io.cloudracer.mocktcpserver.responses;
+
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A rule that describes the received messages that a set of responses is sent for: a {@link #getMessage() message} and how it is {@link #getMatchType() matched} against each received message.
+ *
+ * @author John McDonnell
+ */
+public final class MessagePattern {
+
+    /**
+     * How the {@link MessagePattern#getMessage() message} of a rule is matched against each received message (without its terminator).
+     */
+    public enum MatchType {
+        /**
+         * The received message is equal to the message. This is the default.
+         */
+        EXACT,
+        /**
+         * The received message starts with the message.
+         */
+        PREFIX,
+        /**
+         * The received message contains the message.
+         */
+        CONTAINS,
+        /**
+         * The whole of the received message matches the message, which is a Regular Expression.
+         */
+        REGEX;
+
+        /**
+         * The {@link MatchType} with the specified name, ignoring case and surrounding white space.
+         *
+         * @param name the name of the match type e.g. "prefix".
+         * @return the {@link MatchType} with the specified name.
+         * @throws IllegalArgumentException the name is not recognised.
+         */
+        public static MatchType fromName(final String name) {
+            return MatchType.valueOf(StringUtils.upperCase(StringUtils.trim(name), Locale.ROOT));
+        }
+    }
+
+    private final MatchType matchType;
+    private final String message;
+
+    /**
+     * A rule that matches received messages, as specified by the {@link MatchType match type}.
+     *
+     * @param matchType how the message is matched against each received message.
+     * @param message the message, or Regular Expression, to match.
+     */
+    public MessagePattern(final MatchType matchType, final String message) {
+        this.matchType = matchType;
+        this.message = message;
+    }
+
+    /**
+     * How the {@link #getMessage() message} is matched against each received message.
+     *
+     * @return the match type.
+     */
+    public MatchType getMatchType() {
+        return matchType;
+    }
+
+    /**
+     * The message, or Regular Expression, that is matched against each received message.
+     *
+     * @return the message.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "MessagePattern [matchType=" + matchType + ", message=" + message + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((matchType == null) ? 0 : matchType.hashCode());
+        result = prime * result + ((message == null) ? 0 : message.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final MessagePattern other = (MessagePattern) obj;
+        if (matchType != other.matchType) {
+            return false;
+        }
+        if (message == null) {
+            return other.message == null;
+        }
+        return message.equals(other.message);
+    }
+}
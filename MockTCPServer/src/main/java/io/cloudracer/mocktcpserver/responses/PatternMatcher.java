@@ -0,0 +1,506 @@
+package io.cloudracer.mocktcpserver.responses;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import io.cloudracer.mocktcpserver.responses.MessagePattern.MatchType;
+
+/**
+ * An immutable engine that matches a received message against every {@link MessagePattern rule} of a server at once, and identifies the first rule (in the order that the rules were specified) that matches.
+ * <p>
+ * The rules are combined so that the cost of matching a message depends on the length of the message rather than the number of rules:
+ * <ul>
+ * <li>{@link MatchType#EXACT Exact} and {@link MatchType#PREFIX prefix} rules are held in a single trie, which is walked once along the message.</li>
+ * <li>{@link MatchType#CONTAINS Contains} rules are held in a single Aho-Corasick automaton, which scans the message once.</li>
+ * <li>{@link MatchType#REGEX Regular Expression} rules are prefiltered by the same automaton: a literal that any match must contain is extracted from each Regular Expression, and the Regular Expression is only evaluated if that literal occurs in the message. A Regular Expression from which no literal can be extracted (e.g. one that contains an alternation) is evaluated for every message.</li>
+ * </ul>
+ * Messages, and rules, are compared as UTF-8 encoded bytes, so that a received message can be matched where it lies in the receive buffer. A message is only decoded if a Regular Expression is evaluated.
+ *
+ * @author John McDonnell
+ */
+public final class PatternMatcher {
+
+    /**
+     * Returned by {@link #match(byte[], int, int)} when no rule matches the message.
+     */
+    public static final int NO_MATCH = -1;
+
+    /**
+     * Inline flags that prevent a literal being extracted from a Regular Expression i.e. case insensitive or comments mode.
+     */
+    private static final Pattern LITERAL_INCOMPATIBLE_FLAGS = Pattern.compile("\\(\\?[a-zA-Z-]*[ix][a-zA-Z-]*[:)]");
+    private static final String ESCAPED_CONTROL_CHARACTERS = "tnrfae";
+    private static final String CONTROL_CHARACTERS = "\t\n\r\f\u0007\u001B";
+    private static final String ESCAPED_CHARACTER_CLASSES = "dDsSwWbBAGZzhHvVR";
+
+    private final MessagePattern[] patterns;
+    private final Pattern[] regexes;
+    private final int[] unfilteredRegexes;
+    private final ByteTrie prefixes = new ByteTrie();
+    private final ByteTrie literals = new ByteTrie();
+
+    /**
+     * Compile the specified rules into a single engine.
+     *
+     * @param patterns the rules, in order of precedence.
+     * @throws java.util.regex.PatternSyntaxException a {@link MatchType#REGEX Regular Expression} rule is invalid.
+     */
+    public PatternMatcher(final List<MessagePattern> patterns) {
+        this.patterns = patterns.toArray(new MessagePattern[patterns.size()]);
+        this.regexes = new Pattern[this.patterns.length];
+
+        final int[] unfiltered = new int[this.patterns.length];
+        int unfilteredCount = 0;
+        for (int rule = 0; rule < this.patterns.length; rule++) {
+            final MessagePattern pattern = this.patterns[rule];
+            switch (pattern.getMatchType()) {
+            case EXACT:
+            case PREFIX:
+                this.prefixes.add(encode(pattern.getMessage()), rule);
+                break;
+            case CONTAINS:
+                this.literals.add(encode(pattern.getMessage()), rule);
+                break;
+            case REGEX:
+                this.regexes[rule] = Pattern.compile(pattern.getMessage());
+                final String literal = requiredLiteral(pattern.getMessage());
+                if (literal == null) {
+                    unfiltered[unfilteredCount++] = rule;
+                } else {
+                    this.literals.add(encode(literal), rule);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported match type: %s.", pattern.getMatchType()));
+            }
+        }
+        this.unfilteredRegexes = Arrays.copyOf(unfiltered, unfilteredCount);
+        this.literals.link();
+    }
+
+    /**
+     * Identify the first rule that matches the specified message.
+     *
+     * @param buffer contains the message, without its terminator.
+     * @param offset the start of the message within the buffer.
+     * @param length the length of the message.
+     * @return the index of the first rule that matches the message, or {@link #NO_MATCH} if no rule matches.
+     */
+    public int match(final byte[] buffer, final int offset, final int length) {
+        int first = this.matchPrefixes(buffer, offset, length, Integer.MAX_VALUE);
+
+        // Scan the message once, for every literal; contains rules match immediately, Regular Expressions become candidates.
+        int[] candidates = null;
+        int candidateCount = 0;
+        if (!this.literals.isEmpty()) {
+            int state = ByteTrie.ROOT;
+            for (int i = 0; i <= length; i++) {
+                if (i > 0) {
+                    state = this.literals.next(state, buffer[offset + i - 1]);
+                }
+                for (int output = this.literals.hasRules(state) ? state : this.literals.dictionary(state); output != ByteTrie.NONE; output = this.literals.dictionary(output)) {
+                    for (final int rule : this.literals.rules(output)) {
+                        if (rule >= first) {
+                            break;
+                        }
+                        if (this.patterns[rule].getMatchType() == MatchType.CONTAINS) {
+                            first = rule;
+                        } else {
+                            if (candidates == null) {
+                                candidates = new int[4];
+                            } else if (candidateCount == candidates.length) {
+                                candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                            }
+                            candidates[candidateCount++] = rule;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (candidateCount > 0 || this.unfilteredRegexes.length > 0) {
+            first = this.matchRegexes(buffer, offset, length, candidates, candidateCount, first);
+        }
+
+        return first == Integer.MAX_VALUE ? NO_MATCH : first;
+    }
+
+    /**
+     * The number of rules.
+     *
+     * @return the number of rules.
+     */
+    public int size() {
+        return this.patterns.length;
+    }
+
+    /**
+     * The rule at the specified index.
+     *
+     * @param rule the index of the rule, as returned by {@link #match(byte[], int, int)}.
+     * @return the rule.
+     */
+    public MessagePattern getPattern(final int rule) {
+        return this.patterns[rule];
+    }
+
+    private int matchPrefixes(final byte[] buffer, final int offset, final int length, final int first) {
+        int match = first;
+        int node = ByteTrie.ROOT;
+        for (int i = 0; node != ByteTrie.NONE; i++) {
+            for (final int rule : this.prefixes.rules(node)) {
+                if (rule >= match) {
+                    break;
+                }
+                if (this.patterns[rule].getMatchType() == MatchType.PREFIX || i == length) {
+                    match = rule;
+                }
+            }
+            if (i == length) {
+                break;
+            }
+            node = this.prefixes.child(node, buffer[offset + i]);
+        }
+
+        return match;
+    }
+
+    /**
+     * Evaluate the candidate, and unfiltered, Regular Expressions in the order of the rules; stopping at the first that matches or at the first rule that is not before the current match.
+     */
+    private int matchRegexes(final byte[] buffer, final int offset, final int length, final int[] candidates, final int candidateCount, final int first) {
+        if (candidateCount > 1) {
+            Arrays.sort(candidates, 0, candidateCount);
+        }
+
+        String message = null;
+        int candidate = 0;
+        int unfiltered = 0;
+        int previous = NO_MATCH;
+        while (candidate < candidateCount || unfiltered < this.unfilteredRegexes.length) {
+            int rule;
+            if (unfiltered == this.unfilteredRegexes.length || (candidate < candidateCount && candidates[candidate] < this.unfilteredRegexes[unfiltered])) {
+                rule = candidates[candidate++];
+            } else {
+                rule = this.unfilteredRegexes[unfiltered++];
+            }
+            if (rule >= first) {
+                break;
+            }
+            if (rule == previous) {
+                continue;
+            }
+            previous = rule;
+
+            if (message == null) {
+                message = new String(buffer, offset, length, StandardCharsets.UTF_8);
+            }
+            if (this.regexes[rule].matcher(message).matches()) {
+                return rule;
+            }
+        }
+
+        return first;
+    }
+
+    private static byte[] encode(final String message) {
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The longest literal that every match of the specified Regular Expression must contain, or null if no such literal can be (conservatively) identified.
+     */
+    static String requiredLiteral(final String regex) {
+        if (regex.indexOf('|') >= 0 || LITERAL_INCOMPATIBLE_FLAGS.matcher(regex).find()) {
+            return null;
+        }
+
+        String longest = "";
+        final StringBuilder run = new StringBuilder();
+        int i = 0;
+        scan: while (i < regex.length()) {
+            final char c = regex.charAt(i);
+            switch (c) {
+            case '\\':
+                if (i + 1 == regex.length()) {
+                    break scan;
+                }
+                final char escaped = regex.charAt(i + 1);
+                if (!Character.isLetterOrDigit(escaped)) {
+                    run.append(escaped);
+                } else if (ESCAPED_CONTROL_CHARACTERS.indexOf(escaped) >= 0) {
+                    run.append(CONTROL_CHARACTERS.charAt(ESCAPED_CONTROL_CHARACTERS.indexOf(escaped)));
+                } else if (ESCAPED_CHARACTER_CLASSES.indexOf(escaped) >= 0) {
+                    longest = longer(longest, run);
+                } else {
+                    // e.g. a back reference, quotation or code point; which are not worth interpreting.
+                    break scan;
+                }
+                i += 2;
+                break;
+            case '?':
+            case '*':
+            case '{':
+                // The quantified character is optional.
+                if (run.length() > 0) {
+                    run.setLength(run.length() - 1);
+                }
+                longest = longer(longest, run);
+                if (c == '{') {
+                    i = regex.indexOf('}', i);
+                    if (i < 0) {
+                        break scan;
+                    }
+                }
+                i++;
+                break;
+            case '+':
+                longest = longer(longest, run);
+                i++;
+                break;
+            case '[':
+                longest = longer(longest, run);
+                i = skipCharacterClass(regex, i);
+                if (i < 0) {
+                    break scan;
+                }
+                break;
+            case '(':
+                longest = longer(longest, run);
+                i = skipGroup(regex, i);
+                if (i < 0) {
+                    break scan;
+                }
+                break;
+            case '.':
+            case '^':
+            case '$':
+                longest = longer(longest, run);
+                i++;
+                break;
+            case ')':
+            case ']':
+                break scan;
+            default:
+                run.append(c);
+                i++;
+            }
+        }
+        longest = longer(longest, run);
+
+        return longest.isEmpty() ? null : longest;
+    }
+
+    /**
+     * The longer of the longest literal, and the current run of literal characters; the run is cleared.
+     */
+    private static String longer(final String longest, final StringBuilder run) {
+        final String result = run.length() > longest.length() ? run.toString() : longest;
+        run.setLength(0);
+
+        return result;
+    }
+
+    /**
+     * The index after the character class that starts at the specified index, or -1 if the class is not closed.
+     */
+    private static int skipCharacterClass(final String regex, final int start) {
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        int depth = 1;
+        while (i < regex.length()) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+            } else if (c == ']' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+
+        return -1;
+    }
+
+    /**
+     * The index after the group that starts at the specified index, or -1 if the group is not closed.
+     */
+    private static int skipGroup(final String regex, final int start) {
+        int i = start + 1;
+        int depth = 1;
+        while (i < regex.length()) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '[') {
+                i = skipCharacterClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else {
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')' && --depth == 0) {
+                    return i + 1;
+                }
+                i++;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "PatternMatcher [size=" + patterns.length + ", unfilteredRegexes=" + unfilteredRegexes.length + "]";
+    }
+
+    /**
+     * A trie of byte strings, held in primitive arrays; each node records the (ascending) indices of the rules whose string ends at the node. Once {@link #link() linked}, the trie is also an Aho-Corasick automaton.
+     */
+    private static final class ByteTrie {
+
+        private static final int ROOT = 0;
+        private static final int NONE = -1;
+        private static final int[] NO_RULES = new int[0];
+
+        /**
+         * The root is likely to have many children, so they are indexed directly; other nodes hold their children in a linked list.
+         */
+        private final int[] rootChildren = new int[256];
+        private int[] firstChild = new int[64];
+        private int[] nextSibling = new int[64];
+        private byte[] label = new byte[64];
+        private int[][] rules = new int[64][];
+        private int[] fail;
+        private int[] dictionary;
+        private int size = 1;
+        private boolean isEmpty = true;
+
+        private ByteTrie() {
+            Arrays.fill(this.rootChildren, NONE);
+            this.firstChild[ROOT] = NONE;
+            this.nextSibling[ROOT] = NONE;
+        }
+
+        private void add(final byte[] key, final int rule) {
+            int node = ROOT;
+            for (final byte b : key) {
+                final int child = this.child(node, b);
+                node = child == NONE ? this.addChild(node, b) : child;
+            }
+
+            final int[] nodeRules = this.rules[node];
+            if (nodeRules == null) {
+                this.rules[node] = new int[] { rule };
+            } else {
+                this.rules[node] = Arrays.copyOf(nodeRules, nodeRules.length + 1);
+                this.rules[node][nodeRules.length] = rule;
+            }
+            this.isEmpty = false;
+        }
+
+        private int addChild(final int node, final byte b) {
+            if (this.size == this.label.length) {
+                final int capacity = this.size * 2;
+                this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+                this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+                this.label = Arrays.copyOf(this.label, capacity);
+                this.rules = Arrays.copyOf(this.rules, capacity);
+            }
+
+            final int child = this.size++;
+            this.label[child] = b;
+            this.firstChild[child] = NONE;
+            if (node == ROOT) {
+                this.rootChildren[b & 0xFF] = child;
+                this.nextSibling[child] = NONE;
+            } else {
+                this.nextSibling[child] = this.firstChild[node];
+                this.firstChild[node] = child;
+            }
+
+            return child;
+        }
+
+        private int child(final int node, final byte b) {
+            if (node == ROOT) {
+                return this.rootChildren[b & 0xFF];
+            }
+            for (int child = this.firstChild[node]; child != NONE; child = this.nextSibling[child]) {
+                if (this.label[child] == b) {
+                    return child;
+                }
+            }
+
+            return NONE;
+        }
+
+        /**
+         * Compute the failure and dictionary links, breadth first, so that the trie can be used as an Aho-Corasick automaton.
+         */
+        private void link() {
+            this.fail = new int[this.size];
+            this.dictionary = new int[this.size];
+            this.dictionary[ROOT] = NONE;
+
+            final int[] queue = new int[this.size];
+            int head = 0;
+            int tail = 0;
+            for (final int child : this.rootChildren) {
+                if (child != NONE) {
+                    this.fail[child] = ROOT;
+                    queue[tail++] = child;
+                }
+            }
+            while (head < tail) {
+                final int node = queue[head++];
+                final int suffix = this.fail[node];
+                this.dictionary[node] = this.hasRules(suffix) ? suffix : this.dictionary[suffix];
+
+                for (int child = this.firstChild[node]; child != NONE; child = this.nextSibling[child]) {
+                    this.fail[child] = this.next(suffix, this.label[child]);
+                    queue[tail++] = child;
+                }
+            }
+        }
+
+        private int next(final int state, final byte b) {
+            for (int node = state;; node = this.fail[node]) {
+                final int child = this.child(node, b);
+                if (child != NONE) {
+                    return child;
+                }
+                if (node == ROOT) {
+                    return ROOT;
+                }
+            }
+        }
+
+        private boolean hasRules(final int node) {
+            return this.rules[node] != null;
+        }
+
+        private int[] rules(final int node) {
+            return this.rules[node] == null ? NO_RULES : this.rules[node];
+        }
+
+        private int dictionary(final int node) {
+            return this.dictionary[node];
+        }
+
+        private boolean isEmpty() {
+            return this.isEmpty;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package io.cloudracer.mocktcpserver.responses;
 
+import java.nio.file.Path;
+
 /**
- * A {@link #getResponse() message} to send, as described by its destination {@link #getMachineName() machine} and {@link #getPort() port}.
+ * A {@link #getResponse() message} (or the content of a {@link #getFile() file}) to send, as described by its destination {@link #getMachineName() machine} and {@link #getPort() port}.
  *
  * @author John McDonnell
  *
@@ -11,6 +13,7 @@ public class ResponseDAO {
     private String machineName;
     private int port;
     private String response;
+    private Path file;
 
     /**
      * A {@link #getResponse() message} to send to a {@link #getPort() port} on a {@link #getMachineName() machine}.
@@ -20,9 +23,22 @@ public class ResponseDAO {
      * @param response the response message to send
      */
     public ResponseDAO(String machineName, int port, String response) {
+        this(machineName, port, response, null);
+    }
+
+    /**
+     * A {@link #getResponse() message}, or the content of a {@link #getFile() file}, to send to a {@link #getPort() port} on a {@link #getMachineName() machine}.
+     *
+     * @param machineName the machine name to send the response to
+     * @param port the port on the machine that the response is to be sent to
+     * @param response the response message to send, which is ignored if a file is specified
+     * @param file the file whose content is sent as the response, or null if the response message is sent
+     */
+    public ResponseDAO(String machineName, int port, String response, Path file) {
         setMachineName(machineName);
         setPort(port);
         setResponse(response);
+        setFile(file);
     }
 
     /**
@@ -64,9 +80,22 @@ public class ResponseDAO {
         this.response = response;
     }
 
+    /**
+     * The file whose content is sent, unaltered, to the specified {@link ResponseDAO#getMachineName() machine name} and {@link ResponseDAO#getPort() port}. The file is streamed from the file system each time that it is sent, so it may be larger than the heap.
+     *
+     * @return the response file, or null if the {@link #getResponse() response message} is sent
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    private void setFile(Path file) {
+        this.file = file;
+    }
+
     @Override
     public String toString() {
-        return "ResponseDAO [machineName=" + machineName + ", port=" + port + ", response=" + response + "]";
+        return "ResponseDAO [machineName=" + machineName + ", port=" + port + ", response=" + response + (file == null ? "" : ", file=" + file) + "]";
     }
 
     @Override
@@ -76,6 +105,7 @@ public class ResponseDAO {
         result = prime * result + ((machineName == null) ? 0 : machineName.hashCode());
         result = prime * result + port;
         result = prime * result + ((response == null) ? 0 : response.hashCode());
+        result = prime * result + ((file == null) ? 0 : file.hashCode());
         return result;
     }
 
@@ -108,6 +138,13 @@ public class ResponseDAO {
         } else if (!response.equals(other.response)) {
             return false;
         }
+        if (file == null) {
+            if (other.file != null) {
+                return false;
+            }
+        } else if (!file.equals(other.file)) {
+            return false;
+        }
         return true;
     }
 }
\ No newline at end of file
@@ -2,9 +2,12 @@ package io.cloudracer.mocktcpserver.responses;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import io.cloudracer.mocktcpserver.responses.MessagePattern.MatchType;
+
 /**
  * A DAO class that contains a {@link Map} of incoming messages with corresponding responses i.e. message sent when a specific message is received.
  *
@@ -14,6 +17,7 @@ import java.util.Map;
 public class Responses {
 
     private final HashMap<String, List<ResponseDAO>> messageResponses = new HashMap<>();
+    private final LinkedHashMap<MessagePattern, List<ResponseDAO>> patternResponses = new LinkedHashMap<>();
 
     /**
      * Add a {@link ResponseDAO response} to a received message
@@ -31,6 +35,24 @@ public class Responses {
         }
     }
 
+    /**
+     * Add a {@link ResponseDAO response} to the messages that match a {@link MessagePattern rule}. A response to an {@link MatchType#EXACT exact} rule is added to the {@link #getResponses() responses} to its message.
+     *
+     * @param receivedMessage the rule that the received messages match.
+     * @param response the {@link ResponseDAO response} to send
+     */
+    public void add(MessagePattern receivedMessage, ResponseDAO response) {
+        if (receivedMessage.getMatchType() == MatchType.EXACT) {
+            add(receivedMessage.getMessage(), response);
+        } else if (patternResponses.containsKey(receivedMessage)) {
+            patternResponses.get(receivedMessage).add(response);
+        } else {
+            final List<ResponseDAO> responseDAOList = new ArrayList<>();
+            responseDAOList.add(response);
+            patternResponses.put(receivedMessage, responseDAOList);
+        }
+    }
+
     /**
      * Create a read-only copy of the responses
      *
@@ -41,9 +63,19 @@ public class Responses {
         return (Map<String, List<ResponseDAO>>) messageResponses.clone();
     }
 
+    /**
+     * Create a read-only copy of the responses to the messages that match a {@link MessagePattern rule}, other than an {@link MatchType#EXACT exact} rule; in the order that the rules were added.
+     *
+     * @return a read-only copy of the responses to each rule.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<MessagePattern, List<ResponseDAO>> getPatternResponses() {
+        return (Map<MessagePattern, List<ResponseDAO>>) patternResponses.clone();
+    }
+
     @Override
     public String toString() {
-        return "Responses [messageResponses=" + messageResponses + "]";
+        return "Responses [messageResponses=" + messageResponses + (patternResponses.isEmpty() ? "" : ", patternResponses=" + patternResponses) + "]";
     }
 
 }
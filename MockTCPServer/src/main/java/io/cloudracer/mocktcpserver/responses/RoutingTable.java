@@ -0,0 +1,180 @@
+package io.cloudracer.mocktcpserver.responses;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+
+/**
+ * An immutable table that routes each received message to the {@link TCPClient clients} that send its responses.
+ * <p>
+ * The table is keyed by the UTF-8 encoded bytes of each message, so that a received message can be looked up where it lies in the receive buffer; without being decoded to a {@link String}, or copied. The table is built once, and can be shared by every connection.
+ * <p>
+ * A message that is equal to an exact message of the table is routed to the clients of that message. Otherwise, the message is routed to the clients of the first {@link MessagePattern rule} that matches it, in the order that the rules were specified; all of the rules are matched at once by a {@link PatternMatcher}.
+ *
+ * @author John McDonnell
+ */
+public final class RoutingTable {
+
+    /**
+     * A table that contains no routes.
+     */
+    public static final RoutingTable EMPTY = new RoutingTable(Collections.emptyMap());
+
+    private final Route[] buckets;
+    private final int size;
+    private final PatternMatcher patternMatcher;
+    private final List<Set<TCPClient>> patternClients;
+
+    private static final class Route {
+
+        private final byte[] message;
+        private final int hash;
+        private final Set<TCPClient> clients;
+        private final Route next;
+
+        private Route(final byte[] message, final int hash, final Set<TCPClient> clients, final Route next) {
+            this.message = message;
+            this.hash = hash;
+            this.clients = clients;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Compile the specified responses into a routing table. The table is not affected by any later change to the responses.
+     *
+     * @param responses the {@link TCPClient clients} that send the responses to each message.
+     */
+    public RoutingTable(final Map<String, ? extends Set<TCPClient>> responses) {
+        this(responses, Collections.<MessagePattern, Set<TCPClient>> emptyMap());
+    }
+
+    /**
+     * Compile the specified responses, and the responses to the specified {@link MessagePattern rules}, into a routing table. The table is not affected by any later change to the responses.
+     *
+     * @param responses the {@link TCPClient clients} that send the responses to each message.
+     * @param patternResponses the {@link TCPClient clients} that send the responses to the messages that match each rule; in the order that the rules are matched.
+     * @throws java.util.regex.PatternSyntaxException a {@link MessagePattern.MatchType#REGEX Regular Expression} rule is invalid.
+     */
+    public RoutingTable(final Map<String, ? extends Set<TCPClient>> responses, final Map<MessagePattern, ? extends Set<TCPClient>> patternResponses) {
+        // A power of two, with a load factor no greater than 0.5.
+        int capacity = 1;
+        while (capacity < responses.size() * 2) {
+            capacity <<= 1;
+        }
+        this.buckets = new Route[capacity];
+        this.size = responses.size();
+
+        for (final Map.Entry<String, ? extends Set<TCPClient>> response : responses.entrySet()) {
+            final byte[] message = response.getKey().getBytes(StandardCharsets.UTF_8);
+            final int hash = hash(message, 0, message.length);
+            final int index = hash & (this.buckets.length - 1);
+            final Set<TCPClient> clients = Collections.unmodifiableSet(new LinkedHashSet<>(response.getValue()));
+
+            this.buckets[index] = new Route(message, hash, clients, this.buckets[index]);
+        }
+
+        final List<MessagePattern> patterns = new ArrayList<>(patternResponses.size());
+        final List<Set<TCPClient>> clients = new ArrayList<>(patternResponses.size());
+        for (final Map.Entry<MessagePattern, ? extends Set<TCPClient>> response : patternResponses.entrySet()) {
+            patterns.add(response.getKey());
+            clients.add(Collections.unmodifiableSet(new LinkedHashSet<>(response.getValue())));
+        }
+        this.patternMatcher = new PatternMatcher(patterns);
+        this.patternClients = Collections.unmodifiableList(clients);
+    }
+
+    /**
+     * The {@link TCPClient clients} that send the responses to the specified message.
+     *
+     * @param buffer contains the message, without its terminator.
+     * @param offset the start of the message within the buffer.
+     * @param length the length of the message.
+     * @return the clients that send the responses to the message, or null if there are no responses to the message.
+     */
+    public Set<TCPClient> get(final byte[] buffer, final int offset, final int length) {
+        if (this.isEmpty()) {
+            return null;
+        }
+
+        final int hash = hash(buffer, offset, length);
+        for (Route route = this.buckets[hash & (this.buckets.length - 1)]; route != null; route = route.next) {
+            if (route.hash == hash && equals(route.message, buffer, offset, length)) {
+                return route.clients;
+            }
+        }
+
+        if (this.patternMatcher.size() > 0) {
+            final int rule = this.patternMatcher.match(buffer, offset, length);
+            if (rule != PatternMatcher.NO_MATCH) {
+                return this.patternClients.get(rule);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * The {@link TCPClient clients} that send the responses to the specified message.
+     *
+     * @param message the message, without its terminator.
+     * @return the clients that send the responses to the message, or null if there are no responses to the message.
+     */
+    public Set<TCPClient> get(final String message) {
+        final byte[] encodedMessage = message.getBytes(StandardCharsets.UTF_8);
+
+        return this.get(encodedMessage, 0, encodedMessage.length);
+    }
+
+    /**
+     * The number of messages, and rules, that have responses.
+     *
+     * @return the number of routes.
+     */
+    public int size() {
+        return this.size + this.patternMatcher.size();
+    }
+
+    /**
+     * True if there are no messages, or rules, that have responses.
+     *
+     * @return true if the table is empty.
+     */
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    private static int hash(final byte[] buffer, final int offset, final int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+
+        // Spread the high bits into the low bits, which select the bucket.
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(final byte[] message, final byte[] buffer, final int offset, final int length) {
+        if (message.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (message[i] != buffer[offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingTable [size=" + size + ", patternMatcher=" + patternMatcher + "]";
+    }
+}
@@ -0,0 +1,331 @@
+package io.cloudracer.mocktcpserver.tcpclient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A pool of persistent, outbound, connections; keyed by destination (i.e. machine and port). A connection is {@link #acquire(String, int) acquired}, used by one {@link Thread} at a time, and then {@link #release(TCPClient) released} to be reused; so that a message is not sent on a new connection, that is opened and closed for that message alone.
+ * <p>
+ * A connection is validated before it is reused: it must be open, and must not have been closed by the server. A connection that is not valid, or that is {@link #invalidate(TCPClient) invalidated} (e.g. a message could not be sent on it), is closed and is replaced in the background; so that the next message to the destination does not wait for the connection to be opened.
+ *
+ * @author John McDonnell
+ */
+public class ConnectionPool implements Closeable {
+
+    private final Logger logger = LogManager.getLogger();
+
+    /**
+     * The default maximum number of connections to each destination.
+     */
+    public static final int DEFAULT_MAXIMUM_CONNECTIONS = 4;
+
+    /**
+     * The default maximum duration, in milliseconds, to wait for a connection to a destination, when every connection to the destination is in use.
+     */
+    public static final long DEFAULT_ACQUIRE_TIMEOUT = 10000;
+
+    private final int maximumConnections;
+    private final long acquireTimeout;
+    private final ConcurrentMap<String, Destination> destinations = new ConcurrentHashMap<>();
+    private final ExecutorService reconnectExecutor;
+
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder reusedCount = new LongAdder();
+    private final LongAdder discardedCount = new LongAdder();
+
+    private volatile boolean isClosed = false;
+
+    /**
+     * The connections to a destination.
+     */
+    private static final class Destination {
+
+        private final String hostName;
+        private final int port;
+        /**
+         * The idle connections, the most recently used first.
+         */
+        private final Deque<TCPClient> idle = new ArrayDeque<>();
+        /**
+         * The connections that are idle, in use or being opened.
+         */
+        private int openCount = 0;
+
+        private Destination(final String hostName, final int port) {
+            this.hostName = hostName;
+            this.port = port;
+        }
+    }
+
+    /**
+     * A pool with the {@link #DEFAULT_MAXIMUM_CONNECTIONS default maximum} number of connections to each destination, and the {@link #DEFAULT_ACQUIRE_TIMEOUT default acquire timeout}.
+     */
+    public ConnectionPool() {
+        this(DEFAULT_MAXIMUM_CONNECTIONS, DEFAULT_ACQUIRE_TIMEOUT);
+    }
+
+    /**
+     * A pool of connections.
+     *
+     * @param maximumConnections the maximum number of connections to each destination.
+     * @param acquireTimeout the maximum duration, in milliseconds, to wait for a connection to a destination, when every connection to the destination is in use.
+     */
+    public ConnectionPool(final int maximumConnections, final long acquireTimeout) {
+        if (maximumConnections < 1) {
+            throw new IllegalArgumentException(String.format("The maximum number of connections to each destination must be at least 1, not %d.", maximumConnections));
+        }
+        this.maximumConnections = maximumConnections;
+        this.acquireTimeout = acquireTimeout;
+        this.reconnectExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, String.format("%s-Reconnect", ConnectionPool.class.getSimpleName()));
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Acquire a connection to the specified destination: an idle connection, if there is a valid one; otherwise a new connection, if the destination has fewer than the {@link #getMaximumConnections() maximum} number of connections; otherwise the first connection to be released.
+     * <p>
+     * The connection must be {@link #release(TCPClient) released}, or {@link #invalidate(TCPClient) invalidated}, once it has been used.
+     *
+     * @param hostName the machine of the destination.
+     * @param port the port of the destination.
+     * @return an open connection to the destination.
+     * @throws IOException the destination could not be reached, no connection was released before the acquire timeout elapsed, or the pool is closed.
+     */
+    public TCPClient acquire(final String hostName, final int port) throws IOException {
+        final Destination destination = this.destinations.computeIfAbsent(String.format("%s:%d", hostName, port), key -> new Destination(hostName, port));
+        final long deadline = System.currentTimeMillis() + this.acquireTimeout;
+
+        while (true) {
+            TCPClient connection;
+            synchronized (destination) {
+                while ((connection = destination.idle.pollFirst()) == null && destination.openCount >= this.maximumConnections) {
+                    this.checkIsOpen();
+                    final long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new IOException(String.format("No connection to %s:%d was released within %d milliseconds.", hostName, port, this.acquireTimeout));
+                    }
+                    try {
+                        destination.wait(remaining);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+
+                        throw new InterruptedIOException(String.format("Interrupted while waiting for a connection to %s:%d.", hostName, port));
+                    }
+                }
+                this.checkIsOpen();
+                if (connection == null) {
+                    destination.openCount++;
+                }
+            }
+
+            if (connection == null) {
+                try {
+                    return this.connect(destination);
+                } catch (final IOException e) {
+                    this.closed(destination);
+
+                    throw e;
+                }
+            }
+            if (connection.isReusable()) {
+                this.reusedCount.increment();
+
+                return connection;
+            }
+            this.discard(destination, connection);
+        }
+    }
+
+    /**
+     * Return a connection to the pool, to be reused.
+     *
+     * @param connection a connection that was {@link #acquire(String, int) acquired} from this pool.
+     */
+    public void release(final TCPClient connection) {
+        final Destination destination = this.getDestination(connection);
+        if (destination == null) {
+            IOUtils.closeQuietly(connection);
+
+            return;
+        }
+
+        synchronized (destination) {
+            if (!this.isClosed && connection.isConectionActive()) {
+                destination.idle.addFirst(connection);
+                destination.notifyAll();
+
+                return;
+            }
+        }
+        this.discard(destination, connection);
+    }
+
+    /**
+     * Close a connection that must not be reused (e.g. a message could not be sent on it), and replace it in the background.
+     *
+     * @param connection a connection that was {@link #acquire(String, int) acquired} from this pool.
+     */
+    public void invalidate(final TCPClient connection) {
+        final Destination destination = this.getDestination(connection);
+        if (destination == null) {
+            IOUtils.closeQuietly(connection);
+        } else {
+            this.discard(destination, connection);
+        }
+    }
+
+    private Destination getDestination(final TCPClient connection) {
+        try {
+            return this.destinations.get(String.format("%s:%d", connection.getHostName(), connection.getPort()));
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    private TCPClient connect(final Destination destination) throws IOException {
+        final TCPClient connection = new TCPClient(destination.hostName, destination.port);
+        // A pooled connection is checked, without blocking, before it is reused.
+        connection.setChannelSocket(true);
+        connection.connect();
+        if (!connection.isConectionActive()) {
+            throw new IOException(String.format("Unable to connect to %s:%d.", destination.hostName, destination.port));
+        }
+        final Socket socket = connection.getSocket();
+        socket.setKeepAlive(true);
+        // The responses are written as they are ready, so they are not delayed to be coalesced.
+        socket.setTcpNoDelay(true);
+        this.createdCount.increment();
+
+        return connection;
+    }
+
+    private void discard(final Destination destination, final TCPClient connection) {
+        IOUtils.closeQuietly(connection);
+        this.discardedCount.increment();
+        this.closed(destination);
+
+        this.reconnect(destination);
+    }
+
+    private void closed(final Destination destination) {
+        synchronized (destination) {
+            destination.openCount--;
+            destination.notifyAll();
+        }
+    }
+
+    /**
+     * Open a connection, in the background, to replace one that was discarded.
+     */
+    private void reconnect(final Destination destination) {
+        synchronized (destination) {
+            if (this.isClosed || destination.openCount >= this.maximumConnections) {
+                return;
+            }
+            destination.openCount++;
+        }
+
+        try {
+            this.reconnectExecutor.execute(() -> {
+                final TCPClient connection;
+                try {
+                    connection = this.connect(destination);
+                } catch (final IOException e) {
+                    this.logger.debug(e.getMessage(), e);
+                    this.closed(destination);
+
+                    return;
+                }
+                this.release(connection);
+            });
+        } catch (final RejectedExecutionException e) {
+            // The pool is closed.
+            this.closed(destination);
+        }
+    }
+
+    private void checkIsOpen() throws IOException {
+        if (this.isClosed) {
+            throw new IOException("The connection pool is closed.");
+        }
+    }
+
+    /**
+     * The maximum number of connections to each destination.
+     *
+     * @return the maximum number of connections to each destination.
+     */
+    public int getMaximumConnections() {
+        return this.maximumConnections;
+    }
+
+    /**
+     * The number of connections opened, including those opened to replace a discarded connection.
+     *
+     * @return the number of connections opened.
+     */
+    public long getCreatedCount() {
+        return this.createdCount.sum();
+    }
+
+    /**
+     * The number of times that an idle connection was reused.
+     *
+     * @return the number of times that a connection was reused.
+     */
+    public long getReusedCount() {
+        return this.reusedCount.sum();
+    }
+
+    /**
+     * The number of connections that were closed because they were not valid, or were {@link #invalidate(TCPClient) invalidated}.
+     *
+     * @return the number of connections discarded.
+     */
+    public long getDiscardedCount() {
+        return this.discardedCount.sum();
+    }
+
+    /**
+     * Close the idle connections, and every connection that is released from now on.
+     */
+    @Override
+    public void close() {
+        this.isClosed = true;
+        this.reconnectExecutor.shutdownNow();
+
+        for (final Destination destination : this.destinations.values()) {
+            synchronized (destination) {
+                for (final TCPClient connection : destination.idle) {
+                    IOUtils.closeQuietly(connection);
+                }
+                destination.openCount -= destination.idle.size();
+                destination.idle.clear();
+                destination.notifyAll();
+            }
+        }
+        try {
+            this.reconnectExecutor.awaitTermination(DEFAULT_ACQUIRE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -6,8 +6,16 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -41,17 +49,40 @@ public class TCPClient implements Closeable {
     private byte[] nak;
     private static final byte[] DEFAULT_RESPONSE_TERMINATOR = { 13, 10 };
     private byte[] responseTerminator = TCPClient.DEFAULT_RESPONSE_TERMINATOR;
+    private static final int UNREAD_BUFFER_CAPACITY = 256;
 
     private String hostName = null;
     private Integer port = null;
 
     private Socket socket;
+    private boolean isChannelSocket = false;
 
     private DataOutputStream dataOutputStream;
 
     private DataInputStream dataInputStream;
 
-    private List<String> responses = new ArrayList<>();
+    private final List<PreparedResponse> responses = new ArrayList<>();
+
+    /**
+     * A response that is ready to send; a message response is unescaped and encoded once, when it is added, rather than each time that it is sent.
+     */
+    private static final class PreparedResponse {
+
+        private final ResponseDAO response;
+        private final String message;
+        private final byte[] encodedMessage;
+
+        private PreparedResponse(final ResponseDAO response) {
+            this.response = response;
+            if (response.getFile() == null) {
+                this.message = StringEscapeUtils.unescapeJava(response.getResponse());
+                this.encodedMessage = this.message.getBytes();
+            } else {
+                this.message = null;
+                this.encodedMessage = null;
+            }
+        }
+    }
 
     /**
      * Messages will be sent to the specified port. Specify the {@link TCPClient#getPort() port} that the TCP {@link TCPClient#getHostName() server} is listening on.
@@ -119,6 +150,22 @@ public class TCPClient implements Closeable {
         return this.send(formattedMessage, waitForResponse, this.getResponseTerminator());
     }
 
+    /**
+     * Send the bytes of a message to the {@link TCPClient#getHostName() server}, exactly as they are (i.e. they are not unescaped, or encoded), and, <b>optionally</b>, wait for a response.
+     *
+     * @param message the bytes of the message to send, including the terminator.
+     * @param waitForResponse if true, wait for a response from the {@link TCPClient#getHostName() server}, otherwise null is returned.
+     * @return the response from the {@link TCPClient#getHostName() server} or null if waitForResponse is false.
+     * @throws IOException there was an error while sending a message to the server
+     */
+    public DataStream send(final byte[] message, final boolean waitForResponse) throws IOException {
+        if (this.logger.isDebugEnabled()) {
+            this.logger.debug(String.format("Sending the message %s.", new String(message)));
+        }
+
+        return this.send(message, waitForResponse, this.getResponseTerminator());
+    }
+
     /**
      * Send a message down the socket.
      *
@@ -131,7 +178,11 @@ public class TCPClient implements Closeable {
     private DataStream send(final String message, final boolean waitForResponse, final byte[] responseTerminator) throws IOException {
         this.logger.info(String.format("Sending the message %s.", message));
 
-        this.getDataOutputStream().write(message.getBytes(), 0, message.getBytes().length);
+        return this.send(message.getBytes(), waitForResponse, responseTerminator);
+    }
+
+    private DataStream send(final byte[] encodedMessage, final boolean waitForResponse, final byte[] responseTerminator) throws IOException {
+        this.getDataOutputStream().write(encodedMessage, 0, encodedMessage.length);
 
         if (waitForResponse) {
             try {
@@ -192,9 +243,10 @@ public class TCPClient implements Closeable {
     }
 
     private boolean isTerminated(final DataStream dataStream, final byte[] terminator) throws TCPClientUnexpectedResponseException {
-        final boolean terminated = Arrays.equals(dataStream.getTail(), terminator)
-                || Arrays.equals(dataStream.toByteArray(), this.getACK())
-                || Arrays.equals(dataStream.toByteArray(), this.getNAK());
+        // Compare the tail in place, and only copy the stream when it is the length of an ACK/NAK, rather than copying the stream for each byte received.
+        final boolean terminated = (terminator != null && dataStream.endsWith(terminator))
+                || (dataStream.size() == this.getACK().length && Arrays.equals(dataStream.toByteArray(), this.getACK()))
+                || (dataStream.size() == this.getNAK().length && Arrays.equals(dataStream.toByteArray(), this.getNAK()));
 
         if (terminator == null && !terminated && (dataStream.size() == this.getACK().length || dataStream.size() == this.getNAK().length)) {
             throw new TCPClientUnexpectedResponseException(dataStream);
@@ -316,7 +368,7 @@ public class TCPClient implements Closeable {
      * @return an open {@link Socket} to the local machine, on the specified port ({@link TCPClient#getPort()}).
      * @throws IOException
      */
-    private Socket getSocket() throws IOException {
+    Socket getSocket() throws IOException {
         if (this.socket == null) {
             final int delayBetweenRetries = 10;
             final int timeout = 1000;
@@ -326,7 +378,11 @@ public class TCPClient implements Closeable {
                 i++;
 
                 try {
-                    this.socket = new Socket(this.getHostName(), this.getPort());
+                    if (this.isChannelSocket) {
+                        this.socket = SocketChannel.open(new InetSocketAddress(this.getHostName(), this.getPort())).socket();
+                    } else {
+                        this.socket = new Socket(this.getHostName(), this.getPort());
+                    }
                 } catch (final IOException e) {
                     logger.info(String.format("Unable to connect to the Server \"%s\" on the port %d.", this.getHostName(), this.getPort()), e);
                 }
@@ -336,6 +392,15 @@ public class TCPClient implements Closeable {
         return this.socket;
     }
 
+    /**
+     * Open the {@link Socket} from a {@link SocketChannel}, rather than as a plain {@link Socket}; so that a file can be {@link #sendFile(Path) sent} without being copied through the heap, and an idle connection can be {@link #isReusable() checked} without blocking. This must be <b>set before the client is connected</b>.
+     *
+     * @param isChannelSocket if true, the socket is opened from a channel.
+     */
+    void setChannelSocket(final boolean isChannelSocket) {
+        this.isChannelSocket = isChannelSocket;
+    }
+
     private void setSocket(final Socket socket) throws IOException {
         if (socket == null && this.socket != null) {
             this.setDataInputStream(null);
@@ -395,12 +460,17 @@ public class TCPClient implements Closeable {
     }
 
     /**
-     * Read-only copy of the {@link java.util.List list} of responses that will be sent by {@link #sendResponses()}.
+     * Read-only copy of the {@link java.util.List list} of responses that will be sent by {@link #sendResponses()}. A file response is listed as its file name.
      *
      * @return response the new response to add.
      */
     public List<String> getResponses() {
-        return Collections.unmodifiableList(responses);
+        final List<String> responseList = new ArrayList<>(responses.size());
+        for (PreparedResponse preparedResponse : responses) {
+            responseList.add(preparedResponse.response.getFile() == null ? preparedResponse.response.getResponse() : preparedResponse.response.getFile().toString());
+        }
+
+        return Collections.unmodifiableList(responseList);
     }
 
     /**
@@ -409,28 +479,82 @@ public class TCPClient implements Closeable {
      * @param response the new response to add.
      */
     public void addResponse(String response) {
-        responses.add(response);
+        addResponse(new ResponseDAO(hostName, getPort(), response));
     }
 
     /**
-     * Send the responses added with {@link #addResponse(String)}.
+     * Add a message, or a {@link ResponseDAO#getFile() file}, to the {@link java.util.List list} of responses that will be sent by {@link #sendResponses()}. Only the response message, or file, is used; the destination is that of this client.
+     * <p>
+     * A client with a file response {@link #setChannelSocket(boolean) opens its socket from a channel}, so that the file is not copied through the heap, unless it is already connected.
+     *
+     * @param response the new response to add.
+     */
+    public void addResponse(ResponseDAO response) {
+        if (response.getFile() != null) {
+            this.setChannelSocket(true);
+        }
+        responses.add(new PreparedResponse(response));
+    }
+
+    /**
+     * Send the responses added with {@link #addResponse(String)} or {@link #addResponse(ResponseDAO)}.
      *
      * @return a {@link List} of {@link ResponseDAO responses} sent.
      *
      * @throws IOException there was an error while sending a message to the server
      */
     public List<ResponseDAO> sendResponses() throws IOException {
+        return this.sendResponses(this);
+    }
+
+    /**
+     * Send the responses added with {@link #addResponse(String)} or {@link #addResponse(ResponseDAO)}, on the connection of another client to the same destination (e.g. a connection {@link ConnectionPool#acquire(String, int) acquired} from a {@link ConnectionPool}), rather than on a connection of this client.
+     *
+     * @param connection the client whose connection the responses are sent on.
+     * @return a {@link List} of {@link ResponseDAO responses} sent.
+     *
+     * @throws IOException there was an error while sending a message to the server
+     */
+    public List<ResponseDAO> sendResponses(final TCPClient connection) throws IOException {
         List<ResponseDAO> responsesSent = new ArrayList<>();
 
-        for (String response : responses) {
-            send(response, false);
+        for (PreparedResponse preparedResponse : responses) {
+            if (preparedResponse.response.getFile() == null) {
+                this.logger.info(String.format("Sending the message %s.", preparedResponse.message));
+
+                connection.getDataOutputStream().write(preparedResponse.encodedMessage, 0, preparedResponse.encodedMessage.length);
+            } else {
+                connection.sendFile(preparedResponse.response.getFile());
+            }
 
-            responsesSent.add(new ResponseDAO(new String(getHostName()), getPort(), new String(response)));
+            responsesSent.add(new ResponseDAO(new String(getHostName()), getPort(), preparedResponse.response.getResponse(), preparedResponse.response.getFile()));
         }
 
         return responsesSent;
     }
 
+    /**
+     * Send the content of the file, without waiting for a response.
+     * <p>
+     * If the socket was opened from a channel (e.g. a client with a file {@link #addResponse(ResponseDAO) response}, or a connection of a {@link ConnectionPool}), the file is transferred directly from the file system cache to the socket (e.g. by <code>sendfile</code> on Linux), so that it is neither copied onto the heap nor read into a buffer. Otherwise, the file is transferred to the output stream of the socket.
+     *
+     * @param file the file to send.
+     * @throws IOException there was an error while reading the file, or sending it to the server
+     */
+    public void sendFile(final Path file) throws IOException {
+        this.logger.info(String.format("Sending the file %s.", file));
+
+        final SocketChannel socketChannel = this.getSocket().getChannel();
+        final WritableByteChannel channel = socketChannel == null ? Channels.newChannel(this.getDataOutputStream()) : socketChannel;
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = fileChannel.size();
+            long position = 0;
+            while (position < size) {
+                position += fileChannel.transferTo(position, size - position, channel);
+            }
+        }
+    }
+
     /**
      * True when the client has an connected, and bound, connection with the server.
      *
@@ -446,6 +570,43 @@ public class TCPClient implements Closeable {
         return isOpen;
     }
 
+    /**
+     * True when the connection can be reused: it is open, and the server has not closed it. Any data that the server has sent, but that has not been read (e.g. the ACK of a response that was not waited for), is discarded. Only a socket that was {@link #setChannelSocket(boolean) opened from a channel} can be checked for having been closed by the server.
+     *
+     * @return true if the connection can be reused.
+     */
+    boolean isReusable() {
+        if (!this.isConectionActive()) {
+            return false;
+        }
+
+        final SocketChannel channel = this.socket.getChannel();
+        if (channel == null) {
+            return true;
+        }
+        try {
+            int read;
+            synchronized (channel.blockingLock()) {
+                // Read without waiting, so that an open connection with nothing to read is not mistaken for one that the server has closed.
+                channel.configureBlocking(false);
+                try {
+                    final ByteBuffer discarded = ByteBuffer.allocate(UNREAD_BUFFER_CAPACITY);
+                    while ((read = channel.read(discarded)) > 0) {
+                        discarded.clear();
+                    }
+                } finally {
+                    channel.configureBlocking(true);
+                }
+            }
+
+            return read != -1;
+        } catch (final IOException e) {
+            this.logger.debug(e.getMessage(), e);
+
+            return false;
+        }
+    }
+
     @Override
     public String toString() {
         return "TCPClient [hostName=" + hostName + ", port=" + port + "]";
@@ -0,0 +1,278 @@
+package io.cloudracer.properties;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xml.sax.SAXException;
+
+import io.cloudracer.mocktcpserver.responses.MessagePattern;
+import io.cloudracer.mocktcpserver.responses.MessagePattern.MatchType;
+import io.cloudracer.mocktcpserver.responses.ResponseDAO;
+
+/**
+ * Load a {@link ConfigurationSettings#getFileName() configuration file} into a {@link ConfigurationModel model}, in a single streaming pass.
+ * <p>
+ * The file is read with an {@link XMLStreamReader}, and each response is added to the model as it is read; so no document tree is built, and the memory used is bounded by the size of the model rather than the size of the file. The file can, optionally, be validated against the bundled {@link #SCHEMA_FILENAME schema}; which is also a streaming pass.
+ *
+ * @author John McDonnell
+ */
+final class ConfigurationLoader {
+
+    private static final Logger logger = LogManager.getLogger(ConfigurationLoader.class);
+
+    /**
+     * The name of the resource file that is the schema of the configuration file.
+     */
+    static final String SCHEMA_FILENAME = "mocktcpserver.xsd";
+
+    private static final String SERVER_ELEMENT_NAME = "server";
+    private static final String INCOMING_ELEMENT_NAME = "incoming";
+    private static final String MESSAGE_ELEMENT_NAME = "message";
+    private static final String RESPONSE_ELEMENT_NAME = "response";
+    private static final String PORT_ATTRIBUTE_NAME = "port";
+    private static final String PORTS_ATTRIBUTE_NAME = "ports";
+    private static final String MATCH_ATTRIBUTE_NAME = "match";
+    private static final String MACHINE_ATTRIBUTE_NAME = "machine";
+    private static final String MESSAGE_ATTRIBUTE_NAME = "message";
+    private static final String FILE_ATTRIBUTE_NAME = "file";
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    private static Schema schema;
+
+    private final URL fileName;
+    /**
+     * Machine names and response messages are repeated throughout a large file, so each distinct value is held once.
+     */
+    private final Map<String, String> values = new HashMap<>();
+
+    private ConfigurationLoader(final URL fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Load the specified configuration file.
+     *
+     * @param fileName the configuration file.
+     * @param isValidating if true, the file is validated against the bundled {@link #SCHEMA_FILENAME schema} before it is loaded.
+     * @return the model of the configuration file.
+     * @throws ConfigurationException error reading the configuration file, or the file is not valid.
+     */
+    static ConfigurationModel load(final URL fileName, final boolean isValidating) throws ConfigurationException {
+        if (isValidating) {
+            validate(fileName);
+        }
+
+        return new ConfigurationLoader(fileName).load();
+    }
+
+    private ConfigurationModel load() throws ConfigurationException {
+        final List<ConfigurationModel.Server> servers = new ArrayList<>();
+
+        try (final InputStream inputStream = this.fileName.openStream()) {
+            final XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(this.fileName.toString(), inputStream);
+            try {
+                Map<String, String> attributes = null;
+                Map<MessagePattern, List<ResponseDAO>> incomingMessages = null;
+                MessagePattern incomingMessage = null;
+                List<ResponseDAO> responses = null;
+
+                while (reader.hasNext()) {
+                    final int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                        case SERVER_ELEMENT_NAME:
+                            attributes = this.getAttributes(reader);
+                            incomingMessages = new LinkedHashMap<>();
+                            break;
+                        case INCOMING_ELEMENT_NAME:
+                            incomingMessage = null;
+                            responses = new ArrayList<>();
+                            break;
+                        case MESSAGE_ELEMENT_NAME:
+                            incomingMessage = this.createMessagePattern(reader.getAttributeValue(null, MATCH_ATTRIBUTE_NAME), reader.getElementText());
+                            break;
+                        case RESPONSE_ELEMENT_NAME:
+                            if (responses != null) {
+                                responses.add(this.createResponseDAO(reader));
+                            }
+                            break;
+                        default:
+                            break;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (INCOMING_ELEMENT_NAME.equals(reader.getLocalName()) && incomingMessages != null && responses != null) {
+                            if (!responses.isEmpty()) {
+                                incomingMessages.computeIfAbsent(incomingMessage, message -> new ArrayList<>()).addAll(responses);
+                            }
+                            responses = null;
+                        } else if (SERVER_ELEMENT_NAME.equals(reader.getLocalName()) && attributes != null) {
+                            servers.add(this.createServer(attributes, incomingMessages));
+                            attributes = null;
+                            incomingMessages = null;
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException | NumberFormatException e) {
+            throw new ConfigurationException(e);
+        }
+
+        return new ConfigurationModel(servers);
+    }
+
+    /**
+     * A server listens on the port specified by the <code>port</code> attribute, or on the range of ports (e.g. "20000-29999") specified by the <code>ports</code> attribute.
+     */
+    private ConfigurationModel.Server createServer(final Map<String, String> attributes, final Map<MessagePattern, List<ResponseDAO>> incomingMessages) throws ConfigurationException {
+        final String portRange = attributes.get(PORTS_ATTRIBUTE_NAME);
+        if (StringUtils.isBlank(portRange)) {
+            final String port = attributes.get(PORT_ATTRIBUTE_NAME);
+            if (StringUtils.isBlank(port)) {
+                throw new ConfigurationException(String.format("A %s element must specify either the \"%s\" or the \"%s\" attribute.", SERVER_ELEMENT_NAME, PORT_ATTRIBUTE_NAME, PORTS_ATTRIBUTE_NAME));
+            }
+
+            return new ConfigurationModel.Server(Integer.parseInt(port.trim()), Integer.parseInt(port.trim()), attributes, incomingMessages);
+        }
+
+        final String[] ports = portRange.split("-");
+        if (ports.length != 2) {
+            throw new ConfigurationException(String.format("The range of ports \"%s\" must be specified as first-last e.g. \"20000-29999\".", portRange));
+        }
+        final int firstPort = Integer.parseInt(ports[0].trim());
+        final int lastPort = Integer.parseInt(ports[1].trim());
+        if (lastPort < firstPort) {
+            throw new ConfigurationException(String.format("The range of ports \"%s\" ends before it starts.", portRange));
+        }
+
+        return new ConfigurationModel.Server(firstPort, lastPort, attributes, incomingMessages);
+    }
+
+    private Map<String, String> getAttributes(final XMLStreamReader reader) {
+        final Map<String, String> attributes = new HashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+
+        return attributes;
+    }
+
+    private MessagePattern createMessagePattern(final String match, final String message) throws ConfigurationException {
+        try {
+            final MatchType matchType = StringUtils.isBlank(match) ? MatchType.EXACT : MatchType.fromName(match);
+
+            return new MessagePattern(matchType, message);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    private ResponseDAO createResponseDAO(final XMLStreamReader reader) {
+        final String machineName = this.value(reader.getAttributeValue(null, MACHINE_ATTRIBUTE_NAME));
+        final int machinePort = Integer.parseInt(reader.getAttributeValue(null, PORT_ATTRIBUTE_NAME));
+        final String responseMessage = this.value(reader.getAttributeValue(null, MESSAGE_ATTRIBUTE_NAME));
+        final String responseFile = reader.getAttributeValue(null, FILE_ATTRIBUTE_NAME);
+
+        return new ResponseDAO(machineName, machinePort, responseMessage, responseFile == null ? null : this.resolveResponseFile(responseFile));
+    }
+
+    private String value(final String value) {
+        if (value == null) {
+            return null;
+        }
+        final String existing = this.values.putIfAbsent(value, value);
+
+        return existing == null ? value : existing;
+    }
+
+    /**
+     * A relative response file is resolved against the folder that contains the configuration file, if the configuration file is on the file system; otherwise against the working folder.
+     */
+    private Path resolveResponseFile(final String responseFile) {
+        final Path file = Paths.get(responseFile.trim());
+        if (file.isAbsolute()) {
+            return file;
+        }
+
+        if (isFile(this.fileName)) {
+            try {
+                return Paths.get(this.fileName.toURI()).resolveSibling(file);
+            } catch (URISyntaxException e) {
+                logger.warn(e);
+            }
+        }
+
+        return file.toAbsolutePath();
+    }
+
+    static boolean isFile(final URL url) {
+        return "file".equals(url.getProtocol());
+    }
+
+    static File getFile(final URL url) {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return new File(url.getFile());
+        }
+    }
+
+    /**
+     * The time that a configuration file on the file system was last modified, so that a modified file can be identified; or zero for any other file.
+     */
+    static long getLastModified(final URL url) {
+        return isFile(url) ? getFile(url).lastModified() : 0;
+    }
+
+    private static void validate(final URL fileName) throws ConfigurationException {
+        try {
+            getSchema().newValidator().validate(new StreamSource(fileName.toString()));
+        } catch (SAXException | IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * The bundled schema is compiled once, and shared; a {@link Schema} is thread-safe.
+     */
+    private static synchronized Schema getSchema() throws SAXException {
+        if (schema == null) {
+            final URL schemaFile = ConfigurationLoader.class.getResource(String.format("/%s", SCHEMA_FILENAME));
+            schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(schemaFile);
+        }
+
+        return schema;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+
+        return inputFactory;
+    }
+}
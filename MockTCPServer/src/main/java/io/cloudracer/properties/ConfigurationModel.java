@@ -0,0 +1,170 @@
+package io.cloudracer.properties;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import io.cloudracer.mocktcpserver.responses.MessagePattern;
+import io.cloudracer.mocktcpserver.responses.ResponseDAO;
+import io.cloudracer.mocktcpserver.responses.Responses;
+
+/**
+ * An immutable, in-memory, model of a {@link ConfigurationSettings#getFileName() configuration file}. The file is parsed once, into this model, which can then be shared by everything that reads the configuration (e.g. the {@link io.cloudracer.mocktcpserver.bootstrap.Bootstrap Bootstrap} and every {@link io.cloudracer.mocktcpserver.MockTCPServer MockTCPServer}).
+ *
+ * @author John McDonnell
+ */
+public final class ConfigurationModel {
+
+    private final Map<Integer, Server> servers;
+    /**
+     * The servers that listen on a range of ports, keyed by the first port of the range, so that the server of any port in a range can be found.
+     */
+    private final NavigableMap<Integer, Server> portRanges = new TreeMap<>();
+
+    /**
+     * The configuration of a single server i.e. a <code>server</code> element of the configuration file. A server listens on a single port, or on a range of ports.
+     */
+    public static final class Server {
+
+        private final int port;
+        private final int lastPort;
+        private final Map<String, String> attributes;
+        private final Map<MessagePattern, List<ResponseDAO>> incoming;
+
+        Server(final int port, final int lastPort, final Map<String, String> attributes, final Map<MessagePattern, List<ResponseDAO>> incoming) {
+            this.port = port;
+            this.lastPort = lastPort;
+            this.attributes = Collections.unmodifiableMap(attributes);
+
+            // The maps are built by the loader, for this server alone, so they are wrapped rather than copied.
+            for (final Map.Entry<MessagePattern, List<ResponseDAO>> message : incoming.entrySet()) {
+                message.setValue(Collections.unmodifiableList(message.getValue()));
+            }
+            this.incoming = Collections.unmodifiableMap(incoming);
+        }
+
+        /**
+         * The port that the server listens on; the first port, if the server listens on a range of ports.
+         *
+         * @return the port.
+         */
+        public int getPort() {
+            return port;
+        }
+
+        /**
+         * The last port that the server listens on; the same as {@link #getPort()}, unless the server listens on a range of ports.
+         *
+         * @return the port.
+         */
+        public int getLastPort() {
+            return lastPort;
+        }
+
+        /**
+         * True if the server listens on a range of ports.
+         *
+         * @return true if the server listens on more than one port.
+         */
+        public boolean isPortRange() {
+            return lastPort > port;
+        }
+
+        /**
+         * The value of the specified attribute of the <code>server</code> element.
+         *
+         * @param name the name of the attribute e.g. "engine".
+         * @return the value of the attribute, or an empty String if the attribute is not specified.
+         */
+        public String getAttribute(final String name) {
+            final String value = attributes.get(name);
+
+            return value == null ? "" : value;
+        }
+
+        /**
+         * The attributes of the <code>server</code> element.
+         *
+         * @return a read-only map of the attribute values, keyed by name.
+         */
+        public Map<String, String> getAttributes() {
+            return attributes;
+        }
+
+        /**
+         * The responses to each incoming message (or rule), in the order that they are specified.
+         *
+         * @return a read-only map of the responses to each incoming message.
+         */
+        public Map<MessagePattern, List<ResponseDAO>> getIncoming() {
+            return incoming;
+        }
+
+        /**
+         * A new, modifiable, copy of the {@link #getIncoming() responses}.
+         *
+         * @return the responses.
+         */
+        public Responses getResponses() {
+            final Responses responses = new Responses();
+            for (final Map.Entry<MessagePattern, List<ResponseDAO>> message : incoming.entrySet()) {
+                for (final ResponseDAO response : message.getValue()) {
+                    responses.add(message.getKey(), response);
+                }
+            }
+
+            return responses;
+        }
+
+        @Override
+        public String toString() {
+            return "Server [port=" + port + ", lastPort=" + lastPort + ", attributes=" + attributes + ", incoming=" + incoming + "]";
+        }
+    }
+
+    ConfigurationModel(final List<Server> servers) {
+        final Map<Integer, Server> serversByPort = new LinkedHashMap<>();
+        for (final Server server : servers) {
+            serversByPort.put(server.getPort(), server);
+            if (server.isPortRange()) {
+                portRanges.put(server.getPort(), server);
+            }
+        }
+        this.servers = Collections.unmodifiableMap(serversByPort);
+    }
+
+    /**
+     * The port of every server, in the order that they are specified. A server that listens on a range of ports is represented by the first port of the range.
+     *
+     * @return a read-only set of ports.
+     */
+    public Set<Integer> getPorts() {
+        return servers.keySet();
+    }
+
+    /**
+     * The configuration of the server on the specified port, including a port within a range of ports.
+     *
+     * @param port the port of the server.
+     * @return the configuration of the server, or null if no server is configured on the port.
+     */
+    public Server getServer(final int port) {
+        final Server server = servers.get(port);
+        if (server != null || portRanges.isEmpty()) {
+            return server;
+        }
+
+        final Map.Entry<Integer, Server> portRange = portRanges.floorEntry(port);
+
+        return portRange == null || port > portRange.getValue().getLastPort() ? null : portRange.getValue();
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigurationModel [servers=" + servers + "]";
+    }
+}
@@ -4,21 +4,15 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-
 import org.apache.commons.configuration2.AbstractConfiguration;
 import org.apache.commons.configuration2.XMLConfiguration;
 import org.apache.commons.configuration2.builder.FileBasedConfigurationBuilder;
@@ -34,15 +28,19 @@ import org.apache.commons.configuration2.io.ProvidedURLLocationStrategy;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.NotImplementedException;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
+import io.cloudracer.mocktcpserver.ConnectionAdmission;
+import io.cloudracer.mocktcpserver.ConnectionAdmission.OverflowPolicy;
 import io.cloudracer.mocktcpserver.MockTCPServer;
-import io.cloudracer.mocktcpserver.responses.ResponseDAO;
+import io.cloudracer.mocktcpserver.MockTCPServer.Engine;
+import io.cloudracer.mocktcpserver.MockTCPServer.ExecutionMode;
+import io.cloudracer.mocktcpserver.ResponseWriter;
+import io.cloudracer.mocktcpserver.ResponseWriter.FlushPolicy;
+import io.cloudracer.mocktcpserver.nio.SelectorTransport;
+import io.cloudracer.mocktcpserver.responses.MessagePattern.MatchType;
 import io.cloudracer.mocktcpserver.responses.Responses;
 
 /**
@@ -60,6 +58,14 @@ public class ConfigurationSettings extends AbstractConfiguration {
      * A System Property that, when set with a value of "true", will result in the <b>default</b> configuration file (stored as a {@link #FILENAME resource file}) being written to disk i.e self-initialised (an existing file will not be overwritten). Once on disk, the configuration file can be modified as required.
      */
     public static final String CONFIGURATION_INITIALISATION_ENABLED = "mocktcpserver.configuration.initialisation.enabled";
+    /**
+     * A System Property that, when set with a value of "true", will result in the configuration file being validated against the bundled schema before it is loaded.
+     */
+    public static final String CONFIGURATION_VALIDATION_ENABLED = "mocktcpserver.configuration.validation.enabled";
+    /**
+     * A System Property that, when set with a value of "true", will result in each {@link MockTCPServer} watching the configuration file, and reloading its responses whenever the file is modified.
+     */
+    public static final String CONFIGURATION_RELOAD_ENABLED = "mocktcpserver.configuration.reload.enabled";
     /**
      * The name of the resource file that is the default configuration file. If the file cannot be located and the {@link #CONFIGURATION_INITIALISATION_ENABLED System Property} is true, this file can be written to the {@link #DEFAULT_FILENAME default location} on file system to initialise the configuration.
      */
@@ -74,126 +80,410 @@ public class ConfigurationSettings extends AbstractConfiguration {
      * The default configuration file is held as a {@link #FILENAME resource file}.
      */
     public static final String DEFAULT_FILENAME = String.format("%s%s%s", FILENAME_PATH, File.separatorChar, FILENAME);
-    private static final String RESPONSES_ELEMENT_NAME = "responses";
-    private static final String RESPONSE_ELEMENT_NAME = "response";
-    private static final String MESSAGE_ELEMENT_NAME = "message";
     private static final String PORT_ATTRIBUTE_NAME = "port";
     private static final String SERVER_ELEMENT_NAME = "server";
+    /**
+     * The name of the server attribute that specifies the {@link Engine transport engine}; see {@link #setServerAttribute(String, String)}.
+     */
+    public static final String ENGINE_ATTRIBUTE_NAME = "engine";
+    /**
+     * The name of the server attribute that specifies the number of acceptors for each port; see {@link #setServerAttribute(String, String)}.
+     */
+    public static final String ACCEPTOR_COUNT_ATTRIBUTE_NAME = "acceptors";
+    /**
+     * The name of the server attribute that specifies the {@link ExecutionMode execution mode}; see {@link #setServerAttribute(String, String)}.
+     */
+    public static final String EXECUTION_MODE_ATTRIBUTE_NAME = "execution";
+    private static final String MAXIMUM_CONNECTIONS_ATTRIBUTE_NAME = "max-connections";
+    private static final String OVERFLOW_POLICY_ATTRIBUTE_NAME = "overflow";
+    private static final String QUEUE_CAPACITY_ATTRIBUTE_NAME = "queue-capacity";
+    private static final String QUEUE_TIMEOUT_ATTRIBUTE_NAME = "queue-timeout";
+    private static final String FLUSH_POLICY_ATTRIBUTE_NAME = "flush";
+    private static final String FLUSH_COUNT_ATTRIBUTE_NAME = "flush-count";
+    private static final String FLUSH_INTERVAL_ATTRIBUTE_NAME = "flush-interval";
+    private static final String DRAIN_TIMEOUT_ATTRIBUTE_NAME = "drain-timeout";
+    /**
+     * The name of the server attribute that specifies the directory of the capture journal; see {@link #setServerAttribute(String, String)}.
+     */
+    public static final String JOURNAL_ATTRIBUTE_NAME = "journal";
+    private static final String MAXIMUM_OUTBOUND_CONNECTIONS_ATTRIBUTE_NAME = "max-outbound-connections";
     /**
      * The name of the attribute, in the configuration file, that specifies this servers port number.
      */
     public static final String PORT_PROPERTY_NAME = String.format("%s[@%s]", SERVER_ELEMENT_NAME, PORT_ATTRIBUTE_NAME);
 
+    /**
+     * The {@link ConfigurationModel models} that have been parsed, keyed by the {@link #getFileName() configuration file}.
+     */
+    private static final Map<String, CachedModel> MODELS = new HashMap<>();
+
+    private static final class CachedModel {
+
+        private final ConfigurationModel model;
+        private final long lastModified;
+        private final boolean isValidated;
+
+        private CachedModel(final ConfigurationModel model, final long lastModified, final boolean isValidated) {
+            this.model = model;
+            this.lastModified = lastModified;
+            this.isValidated = isValidated;
+        }
+    }
+
     private URL propertiesFile;
     private FileBasedConfigurationBuilder<XMLConfiguration> configurationBuilder;
+    private final ConfigurationModel configurationModel;
+    private final Map<String, String> serverAttributes = new HashMap<>();
+
+    /**
+     * Read the configuration from the {@link #getFileName() configuration file}.
+     */
+    public ConfigurationSettings() {
+        this(null);
+    }
+
+    /**
+     * Read the configuration from the specified {@link ConfigurationModel model}, rather than the {@link #getFileName() configuration file}; e.g. a model read from a {@link ConfigurationSnapshot snapshot}.
+     *
+     * @param configurationModel the model of the configuration. If null, the configuration file is read.
+     */
+    public ConfigurationSettings(final ConfigurationModel configurationModel) {
+        this.configurationModel = configurationModel;
+    }
+
+    /**
+     * Read the configuration from the specified {@link ConfigurationSnapshot snapshot}. If the snapshot does not exist, is of a different version, or the configuration file that it was compiled from has since been modified, the {@link #getFileName() configuration file} is compiled into the snapshot first.
+     *
+     * @param snapshot the snapshot file.
+     * @return the settings read from the snapshot.
+     * @throws ConfigurationException error reading the snapshot, or compiling the configuration file
+     */
+    public static ConfigurationSettings fromSnapshot(final Path snapshot) throws ConfigurationException {
+        if (ConfigurationSnapshot.isCurrent(snapshot)) {
+            return new ConfigurationSettings(ConfigurationSnapshot.read(snapshot));
+        }
+
+        return new ConfigurationSettings(ConfigurationSnapshot.compile(new ConfigurationSettings().getFileName(), snapshot));
+    }
 
     /**
-     * Retrieve a unmodifiable set of server port numbers, to listen on, that are specified in the {@link #getFileName() configuration file}.
+     * Retrieve a unmodifiable set of server port numbers, to listen on, that are specified in the {@link #getFileName() configuration file}. A server that listens on a range of ports is represented by the first port of the range; see {@link #getLastPort(int)}.
      *
      * @return an unmodifiable set of server port numbers specified in the {@link #getFileName() configuration file}
      * @throws ConfigurationException error reading the configuration file
      */
     public Set<Integer> getPorts() throws ConfigurationException {
-        try {
-            final String expression = "/configuration/server";
-            final XPath xPath = XPathFactory.newInstance().newXPath();
-
-            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            final DocumentBuilder builder = factory.newDocumentBuilder();
-            final Document document = builder.parse(getFileName().toString());
-            final NodeList portNodes = (NodeList) xPath.compile(expression).evaluate(document, XPathConstants.NODESET);
-            final Set<Integer> ports = new HashSet<>();
-            for (int i = 0; i < portNodes.getLength(); i++) {
-                final Node server = portNodes.item(i);
-                final String portValue = server.getAttributes().getNamedItem(PORT_ATTRIBUTE_NAME).getNodeValue();
-                final Integer port = Integer.parseInt(portValue);
-
-                ports.add(port);
+        return getConfigurationModel().getPorts();
+    }
+
+    /**
+     * Returns the last port of the range of ports that starts at the specified port, if the {@link MockTCPServer} configured on that port listens on a range of ports.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the last port of the range, or the specified port if the server listens on a single port.
+     * @throws ConfigurationException error reading the configuration file
+     */
+    public int getLastPort(final int port) throws ConfigurationException {
+        final ConfigurationModel.Server server = getConfigurationModel().getServer(port);
+
+        return server == null || server.getPort() != port ? port : server.getLastPort();
+    }
+
+    /**
+     * The {@link ConfigurationModel model} of the {@link #getFileName() configuration file}.
+     * <p>
+     * The file is parsed once, in a single streaming pass, and the model is shared by every {@link ConfigurationSettings} that reads the same file; the file is only parsed again if it is modified. If the {@link #CONFIGURATION_VALIDATION_ENABLED System Property} is true, the file is validated against the bundled schema before it is parsed.
+     *
+     * @return the model of the configuration file, or the model that these settings were constructed with.
+     * @throws ConfigurationException error reading the configuration file
+     */
+    public ConfigurationModel getConfigurationModel() throws ConfigurationException {
+        if (this.configurationModel != null) {
+            return this.configurationModel;
+        }
+
+        final URL fileName = getFileName();
+        final long lastModified = ConfigurationLoader.getLastModified(fileName);
+        final boolean isValidating = this.isConfigurationValidationEnabled();
+
+        synchronized (MODELS) {
+            final CachedModel cachedModel = MODELS.get(fileName.toString());
+            if (cachedModel != null && cachedModel.lastModified == lastModified && (cachedModel.isValidated || !isValidating)) {
+                return cachedModel.model;
             }
 
-            return Collections.unmodifiableSet(ports);
-        } catch (ParserConfigurationException | SAXException | IOException | XPathExpressionException e) {
-            throw new ConfigurationException(e);
+            final ConfigurationModel model = ConfigurationLoader.load(fileName, isValidating);
+            MODELS.put(fileName.toString(), new CachedModel(model, lastModified, isValidating));
+
+            return model;
         }
     }
 
     /**
-     * Returns all of the responses specified for the {@link MockTCPServer} configured on the specified port.
+     * Returns all of the responses specified for the {@link MockTCPServer} configured on the specified port. Each incoming message is matched as specified by its {@link MatchType match type}; by default, {@link MatchType#EXACT exactly}.
      *
      * @param port of the {@link MockTCPServer} in question.
      * @return The responses for the {@link MockTCPServer} running on the specified port.
-     * @throws ConfigurationException error reading the configuration file
+     * @throws ConfigurationException error reading the configuration file, or a match type is not recognised
      */
     public Responses getResponses(int port) throws ConfigurationException {
-        final Responses responses = new Responses();
-
-        final NodeList incomingList = getIncomingMessages(port);
-        for (int incomingIndex = 0; incomingIndex <= incomingList.getLength() - 1; ++incomingIndex) {
-            final Node incoming = incomingList.item(incomingIndex);
-            final String incomingMessage = getIncomingMessage(incoming);
-            final Node responseList = getIncomingResponses(incoming);
-            for (int responseIndex = 0; responseIndex <= responseList.getChildNodes().getLength() - 1; ++responseIndex) {
-                final Node response = responseList.getChildNodes().item(responseIndex);
-                if (response.getNodeName().equals(RESPONSE_ELEMENT_NAME)) {
-                    responses.add(incomingMessage, createResponseDAO(response));
-                }
+        final ConfigurationModel.Server server = getConfigurationModel().getServer(port);
+
+        return server == null ? new Responses() : server.getResponses();
+    }
+
+    /**
+     * Returns the {@link Engine transport engine} specified for the {@link MockTCPServer} configured on the specified port. A range of ports is always served by the {@link Engine#NIO NIO engine}.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured {@link Engine}, or {@link Engine#BLOCKING} if no engine is specified (or {@link Engine#NIO} for a range of ports).
+     * @throws ConfigurationException error reading the configuration file, the engine is not recognised, or the {@link Engine#BLOCKING blocking engine} is specified for a range of ports
+     */
+    public Engine getEngine(final int port) throws ConfigurationException {
+        final Engine engine;
+        try {
+            final String engineName = getServerAttribute(port, ENGINE_ATTRIBUTE_NAME);
+
+            engine = StringUtils.isBlank(engineName) ? null : Engine.fromName(engineName);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(e);
+        }
+
+        final ConfigurationModel.Server server = getConfigurationModel().getServer(port);
+        if (server != null && server.isPortRange()) {
+            if (engine == Engine.BLOCKING) {
+                throw new ConfigurationException(String.format("The server on ports %d-%d cannot use the %s engine; a range of ports is served by the %s engine.", server.getPort(), server.getLastPort(), Engine.BLOCKING, Engine.NIO));
             }
+
+            return Engine.NIO;
         }
 
-        return responses;
+        return engine == null ? Engine.BLOCKING : engine;
     }
 
-    private NodeList getIncomingMessages(final int port) throws ConfigurationException {
+    /**
+     * Returns the {@link ExecutionMode execution mode} specified for the {@link MockTCPServer} configured on the specified port.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured {@link ExecutionMode}, or {@link ExecutionMode#PLATFORM} if no execution mode is specified.
+     * @throws ConfigurationException error reading the configuration file, or the execution mode is not recognised
+     */
+    public ExecutionMode getExecutionMode(final int port) throws ConfigurationException {
         try {
-            final String expression = String.format("/configuration/server[@port='%d']/incoming", port);
-            final XPath xPath = XPathFactory.newInstance().newXPath();
-
-            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            final Document document = builder.parse(getFileName().toString());
-            return (NodeList) xPath.compile(expression).evaluate(document, XPathConstants.NODESET);
-        } catch (ParserConfigurationException | SAXException | IOException | XPathExpressionException e) {
+            final String executionMode = getServerAttribute(port, EXECUTION_MODE_ATTRIBUTE_NAME);
+
+            return StringUtils.isBlank(executionMode) ? ExecutionMode.PLATFORM : ExecutionMode.fromName(executionMode);
+        } catch (IllegalArgumentException e) {
             throw new ConfigurationException(e);
         }
+    }
+
+    /**
+     * Returns the number of acceptors (i.e. listening sockets, bound with <code>SO_REUSEPORT</code>, each served by its own event loop) that the {@link MockTCPServer} configured on the specified port opens for each port, when it uses the {@link Engine#NIO NIO engine}.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured number of acceptors, or {@link SelectorTransport#DEFAULT_ACCEPTOR_COUNT} if no number is specified.
+     * @throws ConfigurationException error reading the configuration file, or the number of acceptors is not a positive number
+     */
+    public int getAcceptorCount(final int port) throws ConfigurationException {
+        try {
+            final String acceptorCount = getServerAttribute(port, ACCEPTOR_COUNT_ATTRIBUTE_NAME);
+            final int count = StringUtils.isBlank(acceptorCount) ? SelectorTransport.DEFAULT_ACCEPTOR_COUNT : Integer.parseInt(acceptorCount.trim());
+            if (count < 1) {
+                throw new ConfigurationException(String.format("The number of acceptors for port %d must be at least 1, but is %d.", port, count));
+            }
 
+            return count;
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(e);
+        }
     }
 
-    private String getIncomingMessage(final Node incoming) {
-        String message = null;
+    /**
+     * Returns the maximum number of connections that the {@link MockTCPServer} configured on the specified port will run concurrently.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured maximum, or zero if there is no limit.
+     * @throws ConfigurationException error reading the configuration file, or the maximum is not a number
+     */
+    public int getMaximumConnections(final int port) throws ConfigurationException {
+        try {
+            final String maximumConnections = getServerAttribute(port, MAXIMUM_CONNECTIONS_ATTRIBUTE_NAME);
 
-        for (int i = 0; i <= incoming.getChildNodes().getLength() - 1; ++i) {
-            final Node node = incoming.getChildNodes().item(i);
-            if (node.getNodeName().equals(MESSAGE_ELEMENT_NAME)) {
-                message = incoming.getChildNodes().item(i).getTextContent();
+            return StringUtils.isBlank(maximumConnections) ? 0 : Integer.parseInt(maximumConnections.trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(e);
+        }
+    }
 
-                break;
-            }
+    /**
+     * Returns the {@link OverflowPolicy overflow policy} specified for the {@link MockTCPServer} configured on the specified port.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured {@link OverflowPolicy}, or {@link OverflowPolicy#REJECT} if no policy is specified.
+     * @throws ConfigurationException error reading the configuration file, or the policy is not recognised
+     */
+    public OverflowPolicy getOverflowPolicy(final int port) throws ConfigurationException {
+        try {
+            final String overflowPolicy = getServerAttribute(port, OVERFLOW_POLICY_ATTRIBUTE_NAME);
+
+            return StringUtils.isBlank(overflowPolicy) ? OverflowPolicy.REJECT : OverflowPolicy.fromName(overflowPolicy);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * Returns the maximum number of connections that may wait to run, when the {@link MockTCPServer} configured on the specified port uses the {@link OverflowPolicy#QUEUE queue overflow policy}.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured capacity, or {@link ConnectionAdmission#DEFAULT_QUEUE_CAPACITY} if no capacity is specified.
+     * @throws ConfigurationException error reading the configuration file, or the capacity is not a number
+     */
+    public int getQueueCapacity(final int port) throws ConfigurationException {
+        try {
+            final String queueCapacity = getServerAttribute(port, QUEUE_CAPACITY_ATTRIBUTE_NAME);
+
+            return StringUtils.isBlank(queueCapacity) ? ConnectionAdmission.DEFAULT_QUEUE_CAPACITY : Integer.parseInt(queueCapacity.trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * Returns the maximum duration, in milliseconds, that a connection may wait to run, when the {@link MockTCPServer} configured on the specified port uses the {@link OverflowPolicy#QUEUE queue overflow policy}.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured timeout, or {@link ConnectionAdmission#DEFAULT_QUEUE_TIMEOUT} if no timeout is specified.
+     * @throws ConfigurationException error reading the configuration file, or the timeout is not a number
+     */
+    public long getQueueTimeout(final int port) throws ConfigurationException {
+        try {
+            final String queueTimeout = getServerAttribute(port, QUEUE_TIMEOUT_ATTRIBUTE_NAME);
+
+            return StringUtils.isBlank(queueTimeout) ? ConnectionAdmission.DEFAULT_QUEUE_TIMEOUT : Long.parseLong(queueTimeout.trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(e);
         }
+    }
+
+    /**
+     * Returns the {@link FlushPolicy flush policy} specified for the {@link MockTCPServer} configured on the specified port.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured {@link FlushPolicy}, or {@link FlushPolicy#DRAIN} if no policy is specified.
+     * @throws ConfigurationException error reading the configuration file, or the policy is not recognised
+     */
+    public FlushPolicy getFlushPolicy(final int port) throws ConfigurationException {
+        try {
+            final String flushPolicy = getServerAttribute(port, FLUSH_POLICY_ATTRIBUTE_NAME);
 
-        return message;
+            return StringUtils.isBlank(flushPolicy) ? FlushPolicy.DRAIN : FlushPolicy.fromName(flushPolicy);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(e);
+        }
     }
 
-    private Node getIncomingResponses(final Node incoming) {
-        Node responses = null;
+    /**
+     * Returns the number of pending responses that are written together, when the {@link MockTCPServer} configured on the specified port uses the {@link FlushPolicy#COUNT count flush policy}.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured count, or {@link ResponseWriter#DEFAULT_FLUSH_COUNT} if no count is specified.
+     * @throws ConfigurationException error reading the configuration file, or the count is not a number
+     */
+    public int getFlushCount(final int port) throws ConfigurationException {
+        try {
+            final String flushCount = getServerAttribute(port, FLUSH_COUNT_ATTRIBUTE_NAME);
 
-        for (int i = 0; i <= incoming.getChildNodes().getLength() - 1; ++i) {
-            final Node node = incoming.getChildNodes().item(i);
-            if (node.getNodeName().equals(RESPONSES_ELEMENT_NAME)) {
-                responses = incoming.getChildNodes().item(i);
+            return StringUtils.isBlank(flushCount) ? ResponseWriter.DEFAULT_FLUSH_COUNT : Integer.parseInt(flushCount.trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(e);
+        }
+    }
 
-                break;
-            }
+    /**
+     * Returns the maximum duration, in microseconds, that a response may be pending, when the {@link MockTCPServer} configured on the specified port uses the {@link FlushPolicy#INTERVAL interval flush policy}.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured interval, or {@link ResponseWriter#DEFAULT_FLUSH_INTERVAL} if no interval is specified.
+     * @throws ConfigurationException error reading the configuration file, or the interval is not a number
+     */
+    public long getFlushInterval(final int port) throws ConfigurationException {
+        try {
+            final String flushInterval = getServerAttribute(port, FLUSH_INTERVAL_ATTRIBUTE_NAME);
+
+            return StringUtils.isBlank(flushInterval) ? ResponseWriter.DEFAULT_FLUSH_INTERVAL : Long.parseLong(flushInterval.trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * Returns the maximum duration, in milliseconds, that the {@link MockTCPServer} configured on the specified port waits, when it is closed, for the messages already in progress to be received and acknowledged.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured timeout, or {@link MockTCPServer#DEFAULT_DRAIN_TIMEOUT} if no timeout is specified.
+     * @throws ConfigurationException error reading the configuration file, or the timeout is not a number
+     */
+    public long getDrainTimeout(final int port) throws ConfigurationException {
+        try {
+            final String drainTimeout = getServerAttribute(port, DRAIN_TIMEOUT_ATTRIBUTE_NAME);
+
+            return StringUtils.isBlank(drainTimeout) ? MockTCPServer.DEFAULT_DRAIN_TIMEOUT : Long.parseLong(drainTimeout.trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * Returns the maximum number of persistent connections to each machine and port that the {@link MockTCPServer} configured on the specified port sends its responses to.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured maximum, or {@link MockTCPServer#DEFAULT_MAXIMUM_OUTBOUND_CONNECTIONS} (zero: a new connection is opened for each message) if no maximum is specified.
+     * @throws ConfigurationException error reading the configuration file, or the maximum is not a number
+     */
+    public int getMaximumOutboundConnections(final int port) throws ConfigurationException {
+        try {
+            final String maximumOutboundConnections = getServerAttribute(port, MAXIMUM_OUTBOUND_CONNECTIONS_ATTRIBUTE_NAME);
+
+            return StringUtils.isBlank(maximumOutboundConnections) ? MockTCPServer.DEFAULT_MAXIMUM_OUTBOUND_CONNECTIONS : Integer.parseInt(maximumOutboundConnections.trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(e);
         }
+    }
+
+    /**
+     * Returns the directory of the {@link io.cloudracer.mocktcpserver.journal.CaptureJournal capture journal} that the {@link MockTCPServer} configured on the specified port writes the messages that it receives to. The journal of each port is written to a sub-directory, named after the port, of this directory.
+     *
+     * @param port of the {@link MockTCPServer} in question.
+     * @return the configured directory, or null if the messages are not journaled.
+     * @throws ConfigurationException error reading the configuration file
+     */
+    public Path getJournal(final int port) throws ConfigurationException {
+        final String journal = getServerAttribute(port, JOURNAL_ATTRIBUTE_NAME);
+
+        return StringUtils.isBlank(journal) ? null : Paths.get(journal.trim());
+    }
 
-        return responses;
+    /**
+     * Set an attribute of every server, overriding the value in the configuration (e.g. a value specified on the command line). The attribute must be <b>set before the servers are created</b>.
+     *
+     * @param attributeName the name of the attribute e.g. {@link #ENGINE_ATTRIBUTE_NAME}.
+     * @param value the value of the attribute, for every server.
+     */
+    public void setServerAttribute(final String attributeName, final String value) {
+        this.serverAttributes.put(attributeName, value);
     }
 
-    private ResponseDAO createResponseDAO(final Node response) {
-        final String machineName = response.getAttributes().getNamedItem("machine").getTextContent();
-        final int machinePort = Integer.parseInt(response.getAttributes().getNamedItem(PORT_ATTRIBUTE_NAME).getTextContent());
-        final String responseMessage = response.getAttributes().getNamedItem("message").getTextContent();
+    private String getServerAttribute(final int port, final String attributeName) throws ConfigurationException {
+        final String value = this.serverAttributes.get(attributeName);
+        if (value != null) {
+            return value;
+        }
+
+        final ConfigurationModel.Server server = getConfigurationModel().getServer(port);
 
-        return new ResponseDAO(machineName, machinePort, responseMessage);
+        return server == null ? "" : server.getAttribute(attributeName);
     }
 
     /**
@@ -323,6 +613,26 @@ public class ConfigurationSettings extends AbstractConfiguration {
         return BooleanUtils.toBoolean(System.getProperties().getProperty(CONFIGURATION_INITIALISATION_ENABLED, BooleanUtils.toStringTrueFalse(Boolean.FALSE)));
     }
 
+    /**
+     * Returns the value of the {@link #CONFIGURATION_VALIDATION_ENABLED System Property}.
+     *
+     * @return the value of the {@link #CONFIGURATION_VALIDATION_ENABLED System Property}. If the {@link #CONFIGURATION_VALIDATION_ENABLED System Property} is not found, false is returned.
+     * @see #CONFIGURATION_VALIDATION_ENABLED
+     */
+    public boolean isConfigurationValidationEnabled() {
+        return BooleanUtils.toBoolean(System.getProperties().getProperty(CONFIGURATION_VALIDATION_ENABLED, BooleanUtils.toStringTrueFalse(Boolean.FALSE)));
+    }
+
+    /**
+     * Returns the value of the {@link #CONFIGURATION_RELOAD_ENABLED System Property}. Settings constructed with a {@link #ConfigurationSettings(ConfigurationModel) model} are never reloaded.
+     *
+     * @return the value of the {@link #CONFIGURATION_RELOAD_ENABLED System Property}. If the {@link #CONFIGURATION_RELOAD_ENABLED System Property} is not found, false is returned.
+     * @see #CONFIGURATION_RELOAD_ENABLED
+     */
+    public boolean isConfigurationReloadEnabled() {
+        return this.configurationModel == null && BooleanUtils.toBoolean(System.getProperties().getProperty(CONFIGURATION_RELOAD_ENABLED, BooleanUtils.toStringTrueFalse(Boolean.FALSE)));
+    }
+
     private void save() {
         try {
             // Create the destination folder, if it does not already exist.
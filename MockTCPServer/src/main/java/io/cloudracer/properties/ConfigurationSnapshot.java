@@ -0,0 +1,245 @@
+package io.cloudracer.properties;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+
+import io.cloudracer.mocktcpserver.responses.MessagePattern;
+import io.cloudracer.mocktcpserver.responses.MessagePattern.MatchType;
+import io.cloudracer.mocktcpserver.responses.ResponseDAO;
+
+/**
+ * A compact, binary, precompiled copy of a {@link ConfigurationModel configuration model}; which can be memory-mapped and read at startup, much faster than the configuration file can be parsed.
+ * <p>
+ * A snapshot starts with a header that records the {@link #VERSION format version}, and the configuration file that it was compiled from (and when that file was last modified), so that a snapshot that is out of date can be {@link #isCurrent(Path) identified} and compiled again. Every String (e.g. each message, machine name and response) is held once, in a table, and referred to by its index; a String that is null is referred to by a marker.
+ *
+ * @author John McDonnell
+ */
+public final class ConfigurationSnapshot {
+
+    /**
+     * The version of the snapshot format. A snapshot of any other version is not current, and must be compiled again.
+     */
+    public static final int VERSION = 2;
+
+    private static final int MAGIC = 0x4D544353; // MTCS
+    private static final int NULL_STRING = -1;
+
+    private ConfigurationSnapshot() {
+        // Do nothing. This class cannot be constructed.
+    }
+
+    /**
+     * Compile the specified configuration file into a snapshot. The snapshot is written to a temporary file, which then replaces the snapshot, so that a partially written snapshot is never read.
+     *
+     * @param configurationFile the configuration file.
+     * @param snapshot the snapshot file to write.
+     * @return the model of the configuration file.
+     * @throws ConfigurationException error reading the configuration file, or writing the snapshot.
+     */
+    public static ConfigurationModel compile(final URL configurationFile, final Path snapshot) throws ConfigurationException {
+        final long lastModified = ConfigurationLoader.getLastModified(configurationFile);
+        final ConfigurationModel configurationModel = ConfigurationLoader.load(configurationFile, false);
+
+        final Map<String, Integer> strings = new LinkedHashMap<>();
+        for (final Integer port : configurationModel.getPorts()) {
+            final ConfigurationModel.Server server = configurationModel.getServer(port);
+            for (final Map.Entry<String, String> attribute : server.getAttributes().entrySet()) {
+                index(strings, attribute.getKey());
+                index(strings, attribute.getValue());
+            }
+            for (final Map.Entry<MessagePattern, List<ResponseDAO>> incoming : server.getIncoming().entrySet()) {
+                index(strings, incoming.getKey().getMessage());
+                for (final ResponseDAO response : incoming.getValue()) {
+                    index(strings, response.getMachineName());
+                    index(strings, response.getResponse());
+                    index(strings, response.getFile() == null ? null : response.getFile().toString());
+                }
+            }
+        }
+
+        try {
+            final Path parent = snapshot.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            final Path temporary = Files.createTempFile(parent, snapshot.getFileName().toString(), ".tmp");
+            try {
+                try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    output.writeInt(MAGIC);
+                    output.writeInt(VERSION);
+                    output.writeUTF(configurationFile.toString());
+                    output.writeLong(lastModified);
+
+                    output.writeInt(strings.size());
+                    for (final String string : strings.keySet()) {
+                        final byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+                        output.writeInt(encoded.length);
+                        output.write(encoded);
+                    }
+
+                    output.writeInt(configurationModel.getPorts().size());
+                    for (final Integer port : configurationModel.getPorts()) {
+                        writeServer(output, strings, configurationModel.getServer(port));
+                    }
+                }
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+
+        return configurationModel;
+    }
+
+    /**
+     * True if the specified snapshot exists, is of the current {@link #VERSION version}, and the configuration file that it was compiled from has not been modified since (or no longer exists).
+     *
+     * @param snapshot the snapshot file.
+     * @return true if the snapshot can be {@link #read(Path) read}.
+     */
+    public static boolean isCurrent(final Path snapshot) {
+        try (final InputStream inputStream = Files.newInputStream(snapshot); final DataInputStream input = new DataInputStream(inputStream)) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return false;
+            }
+            final URL configurationFile = new URL(input.readUTF());
+            final long lastModified = input.readLong();
+
+            return !ConfigurationLoader.isFile(configurationFile) || !ConfigurationLoader.getFile(configurationFile).exists() || ConfigurationLoader.getLastModified(configurationFile) == lastModified;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Read the specified snapshot, which is memory-mapped rather than read through a stream.
+     *
+     * @param snapshot the snapshot file.
+     * @return the model of the configuration file that the snapshot was compiled from.
+     * @throws ConfigurationException the snapshot cannot be read, or is not of the current {@link #VERSION version}.
+     */
+    public static ConfigurationModel read(final Path snapshot) throws ConfigurationException {
+        try (final FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC) {
+                throw new ConfigurationException(String.format("\"%s\" is not a configuration snapshot.", snapshot));
+            }
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new ConfigurationException(String.format("The configuration snapshot \"%s\" is version %d, but version %d is required.", snapshot, version, VERSION));
+            }
+            // Skip the configuration file name (written as modified UTF-8, with a two byte length) and when it was last modified.
+            final int configurationFileLength = buffer.getShort() & 0xFFFF;
+            buffer.position(buffer.position() + configurationFileLength + Long.BYTES);
+
+            final String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                final byte[] encoded = new byte[buffer.getInt()];
+                buffer.get(encoded);
+                strings[i] = new String(encoded, StandardCharsets.UTF_8);
+            }
+
+            final int serverCount = buffer.getInt();
+            final List<ConfigurationModel.Server> servers = new ArrayList<>(serverCount);
+            for (int i = 0; i < serverCount; i++) {
+                servers.add(readServer(buffer, strings));
+            }
+
+            return new ConfigurationModel(servers);
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    private static void writeServer(final DataOutputStream output, final Map<String, Integer> strings, final ConfigurationModel.Server server) throws IOException {
+        output.writeInt(server.getPort());
+        output.writeInt(server.getLastPort());
+
+        output.writeInt(server.getAttributes().size());
+        for (final Map.Entry<String, String> attribute : server.getAttributes().entrySet()) {
+            output.writeInt(indexOf(strings, attribute.getKey()));
+            output.writeInt(indexOf(strings, attribute.getValue()));
+        }
+
+        output.writeInt(server.getIncoming().size());
+        for (final Map.Entry<MessagePattern, List<ResponseDAO>> incoming : server.getIncoming().entrySet()) {
+            output.writeByte(incoming.getKey().getMatchType().ordinal());
+            output.writeInt(indexOf(strings, incoming.getKey().getMessage()));
+            output.writeInt(incoming.getValue().size());
+            for (final ResponseDAO response : incoming.getValue()) {
+                output.writeInt(indexOf(strings, response.getMachineName()));
+                output.writeInt(response.getPort());
+                output.writeInt(indexOf(strings, response.getResponse()));
+                output.writeInt(indexOf(strings, response.getFile() == null ? null : response.getFile().toString()));
+            }
+        }
+    }
+
+    private static ConfigurationModel.Server readServer(final MappedByteBuffer buffer, final String[] strings) {
+        final int port = buffer.getInt();
+        final int lastPort = buffer.getInt();
+
+        final int attributeCount = buffer.getInt();
+        final Map<String, String> attributes = new HashMap<>();
+        for (int i = 0; i < attributeCount; i++) {
+            attributes.put(string(strings, buffer.getInt()), string(strings, buffer.getInt()));
+        }
+
+        final int incomingCount = buffer.getInt();
+        final Map<MessagePattern, List<ResponseDAO>> incoming = new LinkedHashMap<>();
+        for (int i = 0; i < incomingCount; i++) {
+            final MatchType matchType = MatchType.values()[buffer.get()];
+            final MessagePattern message = new MessagePattern(matchType, string(strings, buffer.getInt()));
+            final int responseCount = buffer.getInt();
+            final List<ResponseDAO> responses = new ArrayList<>(responseCount);
+            for (int j = 0; j < responseCount; j++) {
+                final String machineName = string(strings, buffer.getInt());
+                final int machinePort = buffer.getInt();
+                final String response = string(strings, buffer.getInt());
+                final String file = string(strings, buffer.getInt());
+                responses.add(new ResponseDAO(machineName, machinePort, response, file == null ? null : Paths.get(file)));
+            }
+            incoming.put(message, responses);
+        }
+
+        return new ConfigurationModel.Server(port, lastPort, attributes, incoming);
+    }
+
+    private static void index(final Map<String, Integer> strings, final String string) {
+        if (string != null) {
+            strings.putIfAbsent(string, strings.size());
+        }
+    }
+
+    /**
+     * The index of the specified String in the table; or a marker, if the String is null (e.g. an attribute that is missing from a configuration file that has not been validated).
+     */
+    private static int indexOf(final Map<String, Integer> strings, final String string) {
+        return string == null ? NULL_STRING : strings.get(string);
+    }
+
+    private static String string(final String[] strings, final int index) {
+        return index == NULL_STRING ? null : strings[index];
+    }
+}
@@ -0,0 +1,155 @@
+package io.cloudracer.properties;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Watch {@link ConfigurationSettings#getFileName() configuration files}, and notify listeners when a file is modified.
+ * <p>
+ * A single {@link WatchService} and {@link Thread} serve every file and listener. Listeners are notified on that Thread, so a listener can do slow work (e.g. reload the file) without delaying anything else; an editor often writes a file in several steps, so changes are {@link #SETTLE_DURATION settled} and each listener is notified once.
+ *
+ * @author John McDonnell
+ */
+public final class ConfigurationWatcher extends Thread implements Closeable {
+
+    /**
+     * The time, in milliseconds, to wait for further changes before listeners are notified.
+     */
+    public static final long SETTLE_DURATION = 100;
+
+    private static final Logger logger = LogManager.getLogger(ConfigurationWatcher.class);
+
+    private static ConfigurationWatcher defaultWatcher;
+
+    private final WatchService watchService;
+    private final Map<Path, List<Runnable>> listeners = new ConcurrentHashMap<>();
+    private final Set<Path> folders = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create, and start, a watcher.
+     *
+     * @param name the name of the watcher {@link Thread}.
+     * @throws IOException the {@link WatchService} could not be opened.
+     */
+    public ConfigurationWatcher(final String name) throws IOException {
+        super(name);
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.setDaemon(true);
+        this.start();
+    }
+
+    /**
+     * The watcher shared by all servers in this JVM. It is created on first use, and its {@link Thread} is a daemon so it does not prevent the JVM from exiting.
+     *
+     * @return the shared watcher.
+     */
+    public static synchronized ConfigurationWatcher getDefault() {
+        if (ConfigurationWatcher.defaultWatcher == null) {
+            try {
+                ConfigurationWatcher.defaultWatcher = new ConfigurationWatcher("MockTCPServer-ConfigurationWatcher");
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return ConfigurationWatcher.defaultWatcher;
+    }
+
+    /**
+     * Notify the listener whenever the specified file is created or modified. Only files on the file system can be watched.
+     *
+     * @param file the file to watch.
+     * @param listener notified, on the watcher {@link Thread}, after the file is modified.
+     * @return closed to stop notifying the listener.
+     * @throws IOException the file is not on the file system, or its folder cannot be watched.
+     */
+    public Closeable watch(final URL file, final Runnable listener) throws IOException {
+        if (!ConfigurationLoader.isFile(file)) {
+            throw new IOException(String.format("\"%s\" is not on the file system, so it cannot be watched.", file));
+        }
+        final Path path = ConfigurationLoader.getFile(file).toPath().toAbsolutePath().normalize();
+
+        final Path folder = path.getParent();
+        if (this.folders.add(folder)) {
+            folder.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        this.listeners.computeIfAbsent(path, key -> new CopyOnWriteArrayList<>()).add(listener);
+
+        return () -> this.listeners.get(path).remove(listener);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!this.isInterrupted()) {
+                final Set<Path> changes = new HashSet<>();
+
+                WatchKey key = this.watchService.take();
+                // Collect the changes that follow closely, so that a file written in several steps is only reported once.
+                while (key != null) {
+                    final Path folder = (Path) key.watchable();
+                    for (final WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() != StandardWatchEventKinds.OVERFLOW) {
+                            changes.add(folder.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+
+                    key = this.watchService.poll(SETTLE_DURATION, TimeUnit.MILLISECONDS);
+                }
+
+                this.notifyListeners(changes);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ClosedWatchServiceException e) {
+            logger.debug("The watch service is closed.");
+        }
+    }
+
+    private void notifyListeners(final Set<Path> changes) {
+        for (final Path change : changes) {
+            final List<Runnable> fileListeners = this.listeners.get(change);
+            if (fileListeners != null) {
+                logger.debug(String.format("\"%s\" has been modified.", change));
+
+                for (final Runnable listener : fileListeners) {
+                    try {
+                        listener.run();
+                    } catch (final RuntimeException e) {
+                        logger.error(e.getMessage(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop watching every file.
+     */
+    @Override
+    public void close() throws IOException {
+        this.watchService.close();
+        this.interrupt();
+    }
+}
@@ -7,8 +7,8 @@ import static org.junit.Assert.assertNull;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration2.ex.ConfigurationException;
@@ -163,7 +163,7 @@ public abstract class AbstractTestTools {
     }
 
     protected void testResponses(final MockTCPServer server, final int responseListenerPort, final String message, final List<String> expectedMessages, final int timeout, final int retryInterval) throws IOException, InterruptedException, ConfigurationException {
-        final List<String> actualMessages = new ArrayList<>();
+        final List<String> actualMessages = new CopyOnWriteArrayList<>();
         final MockTCPServer mockTCPServer = new MockTCPServer(responseListenerPort) {
 
             @Override
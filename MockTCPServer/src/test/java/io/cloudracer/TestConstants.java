@@ -100,10 +100,26 @@ public abstract class TestConstants {
      * Server port 2222.
      */
     public static final int MOCK_SERVER_PORT_2222 = 2222;
+    /**
+     * Server port 3333.
+     */
+    public static final int MOCK_SERVER_PORT_3333 = 3333;
+    /**
+     * Server port 4444, configured with the NIO engine.
+     */
+    public static final int MOCK_SERVER_PORT_4444 = 4444;
+    /**
+     * Server port 5555, configured with the interval flush policy.
+     */
+    public static final int MOCK_SERVER_PORT_5555 = 5555;
+    /**
+     * Server port 7777, configured with pattern (i.e. prefix and regex) rules.
+     */
+    public static final int MOCK_SERVER_PORT_7777 = 7777;
     /**
      * Default set of configured ports.
      */
-    public static final Set<Integer> PORT_SET = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(MOCK_SERVER_PORT_1234, MOCK_SERVER_PORT_6789, MOCK_SERVER_PORT_1111)));
+    public static final Set<Integer> PORT_SET = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(MOCK_SERVER_PORT_1234, MOCK_SERVER_PORT_6789, MOCK_SERVER_PORT_1111, MOCK_SERVER_PORT_3333, MOCK_SERVER_PORT_4444, MOCK_SERVER_PORT_5555, MOCK_SERVER_PORT_7777)));
 
     private static final byte[] ACK = { 65 }; // Default ACK.
     private static final byte[] NAK = { 78 }; // Default NAK.
@@ -2,10 +2,13 @@ package io.cloudracer.datastream;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 
 import org.junit.Before;
@@ -14,6 +17,7 @@ import org.junit.Test;
 import io.cloudracer.AbstractTestTools;
 import io.cloudracer.TestConstants;
 import io.cloudracer.mocktcpserver.datastream.DataStream;
+import io.cloudracer.mocktcpserver.datastream.DataStreamRegexMatcher;
 
 /**
  * Stream consistency, robustness and performance.
@@ -100,6 +104,79 @@ public class TestDataStreamUT extends AbstractTestTools {
         this.checkLogMonitorForUnexpectedMessages();
     }
 
+    /**
+     * Writing a byte, and comparing the tail to a terminator, does not allocate; measured as the bytes allocated by this {@link Thread} per byte processed.
+     * <p>
+     * This is skipped if the JVM cannot measure the bytes allocated by a {@link Thread}.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void tailComparisonDoesNotAllocate() throws IOException {
+        final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported() && allocationMXBean.isThreadAllocatedMemoryEnabled());
+
+        final int bytesPerIteration = 1024 * 1024;
+        final int iterations = 5;
+        final byte[] terminator = TestConstants.DEFAULT_TERMINATOR.getBytes();
+        final DataStream dataStream = new DataStream(terminator.length, this.getClass().getSimpleName());
+
+        // Warm up, so that the stream reaches its capacity (and the JIT compiler has run), before measuring.
+        int terminatorsFound = this.writeAndCompare(dataStream, terminator, bytesPerIteration);
+
+        final long threadId = Thread.currentThread().getId();
+        final long allocatedBefore = allocationMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            terminatorsFound += this.writeAndCompare(dataStream, terminator, bytesPerIteration);
+        }
+        final long allocated = allocationMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        final double allocatedPerByte = (double) allocated / ((long) bytesPerIteration * iterations);
+        assertTrue(String.format("%f bytes allocated per byte processed.", allocatedPerByte), allocatedPerByte < 0.001);
+        assertEquals(0, terminatorsFound);
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A {@link DataStreamRegexMatcher} matches the decoded content of the stream, or a view of its bytes, with the same result where the content is ASCII.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void regexMatcher() throws IOException {
+        final DataStream dataStream = new DataStream(this.getClass().getSimpleName());
+        this.writeStringToStream(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR, dataStream);
+
+        for (final boolean isMatchBytes : new boolean[] { false, true }) {
+            assertTrue(new DataStreamRegexMatcher("(?s)<test-root>.*</test-root>\\s*", isMatchBytes).matches(dataStream));
+            assertFalse(new DataStreamRegexMatcher("(?s)<root>.*", isMatchBytes).matches(dataStream));
+        }
+        assertEquals("(?s)<root>.*", new DataStreamRegexMatcher("(?s)<root>.*").getRegEx());
+        assertEquals("test-root", dataStream.asCharSequence().subSequence(1, 10).toString());
+
+        dataStream.close();
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private int writeAndCompare(final DataStream dataStream, final byte[] terminator, final int length) throws IOException {
+        final byte testCharacter = 65; // 65 = A.
+        int terminatorsFound = 0;
+
+        dataStream.reset();
+        for (int i = 0; i < length; i++) {
+            dataStream.write(testCharacter);
+            if (dataStream.endsWith(terminator)) {
+                terminatorsFound++;
+            }
+        }
+
+        return terminatorsFound;
+    }
+
     private void writeStringToStream(final String data, final DataStream dataStream) throws IOException {
         final byte[] dataBytes = data.getBytes();
         final StringBuilder dataWritten = new StringBuilder();
@@ -137,11 +214,13 @@ public class TestDataStreamUT extends AbstractTestTools {
         final byte[] expectedString = dataStream.toString().getBytes();
         assertEquals("toString() conversion of unexpected size.", dataStream.size(), expectedString.length);
         assertArrayEquals("toString() compared to toInputStream().", input, expectedString);
+        assertEquals("asCharSequence() compared to toString().", dataStream.toString(), dataStream.asCharSequence().toString());
 
         // getTail() size, and content, equals the DataStrem.
         final byte[] expectedTail = Arrays.copyOfRange(expectedString, expectedString.length - dataStream.getTail().length, expectedString.length);
         assertEquals("Tail of unexpected size.", expectedTail.length, dataStream.getTail().length);
         assertArrayEquals("Tail contains an unexpected value.", expectedTail, dataStream.getTail());
+        assertTrue("endsWith() does not match the tail.", dataStream.endsWith(expectedTail));
 
         if (dataStream.size() == 0) {
             assertEquals("getTailLength() of returns an unexpected value.", 0, dataStream.size());
@@ -0,0 +1,103 @@
+package io.cloudracer.datastream;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.datastream.FrameDecoder;
+
+/**
+ * Framing of terminated messages that are received in chunks of any size.
+ */
+public class TestFrameDecoderUT extends AbstractTestTools {
+
+    private static final byte[] TERMINATOR = TestConstants.DEFAULT_TERMINATOR.getBytes();
+
+    private final List<String> frames = new ArrayList<>();
+
+    @Override
+    @Before
+    public void setUp() {
+        this.resetLogMonitor();
+        this.frames.clear();
+    }
+
+    /**
+     * A chunk may complete zero, one or several messages.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void severalMessagesInOneChunk() throws IOException {
+        final FrameDecoder frameDecoder = new FrameDecoder(TERMINATOR);
+        final String chunk = String.format("One%sTwo%sThree%sFou", TestConstants.DEFAULT_TERMINATOR, TestConstants.DEFAULT_TERMINATOR, TestConstants.DEFAULT_TERMINATOR);
+
+        assertEquals(3, this.decode(frameDecoder, chunk));
+        assertEquals(Arrays.asList(terminate("One"), terminate("Two"), terminate("Three")), this.frames);
+        assertEquals(3, frameDecoder.getPartialFrameLength());
+
+        assertEquals(0, this.decode(frameDecoder, "r"));
+        assertEquals(1, this.decode(frameDecoder, TestConstants.DEFAULT_TERMINATOR));
+        assertEquals(terminate("Four"), this.frames.get(3));
+        assertEquals(0, frameDecoder.getPartialFrameLength());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Every message is decoded, regardless of where the chunk boundaries fall; including within the terminator.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void everyChunkSize() throws IOException {
+        final String stream = String.format("%s%s%s", TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR, "\r\r\n\r\r\n\n", TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR);
+        final byte[] bytes = stream.getBytes();
+
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+            final FrameDecoder frameDecoder = new FrameDecoder(TERMINATOR);
+            this.frames.clear();
+
+            for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                frameDecoder.decode(bytes, offset, Math.min(chunkSize, bytes.length - offset), (buffer, frameOffset, length) -> this.frames.add(new String(buffer, frameOffset, length)));
+            }
+
+            assertEquals(String.format("Chunk size %d.", chunkSize), Arrays.asList(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR, "\r\r\n\r\r\n\n", TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR), this.frames);
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A terminator that overlaps itself (e.g. "aab" within "aaab") is found without backtracking.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void selfOverlappingTerminator() throws IOException {
+        final FrameDecoder frameDecoder = new FrameDecoder("aab".getBytes());
+
+        assertEquals(2, this.decode(frameDecoder, "xaaabyaaaab"));
+        assertEquals(Arrays.asList("xaaab", "yaaaab"), this.frames);
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private int decode(final FrameDecoder frameDecoder, final String chunk) throws IOException {
+        final byte[] bytes = chunk.getBytes();
+
+        return frameDecoder.decode(bytes, 0, bytes.length, (buffer, offset, length) -> this.frames.add(new String(buffer, offset, length)));
+    }
+
+    private static String terminate(final String message) {
+        return String.format("%s%s", message, TestConstants.DEFAULT_TERMINATOR);
+    }
+}
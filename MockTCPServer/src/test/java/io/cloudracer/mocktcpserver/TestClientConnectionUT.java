@@ -0,0 +1,248 @@
+package io.cloudracer.mocktcpserver;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.ResponseWriter.FlushPolicy;
+import io.cloudracer.mocktcpserver.datastream.DataStreamRegexMatcher;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+
+/**
+ * Processing of the messages received by a {@link ClientConnection}, without a transport.
+ *
+ * @author John McDonnell
+ */
+public class TestClientConnectionUT extends AbstractTestTools {
+
+    private static final byte[] PIPELINED_MESSAGES = String.format("One%1$sTwo%1$sThree%1$s", TestConstants.DEFAULT_TERMINATOR).getBytes();
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private final List<String> responses = new ArrayList<>();
+    private volatile int writeCount = 0;
+
+    @Override
+    @Before
+    public void setUp() {
+        this.resetLogMonitor();
+    }
+
+    /**
+     * Pipelined messages, that arrive in the same chunk, are each processed and the ACK/NAK responses are written in a single write, in the order that the messages were received.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void pipelinedMessages() throws IOException {
+        final ClientConnection connection = this.getConnection(new DataStreamRegexMatcher("(?s)(One|Three).*"));
+        final byte[] chunk = String.format("%sFou", new String(PIPELINED_MESSAGES)).getBytes();
+
+        assertEquals(3, connection.receive(chunk, 0, chunk.length));
+        assertEquals("ANA", this.written.toString());
+        assertEquals(1, this.writeCount);
+        assertEquals(Arrays.asList("A", "N", "A"), this.responses);
+        assertEquals(3, connection.getMessagesReceivedCount());
+
+        // Complete the partial message.
+        final byte[] remainder = String.format("r%s", TestConstants.DEFAULT_TERMINATOR).getBytes();
+        assertEquals(1, connection.receive(remainder, 0, remainder.length));
+        assertEquals("ANAN", this.written.toString());
+        assertEquals(2, this.writeCount);
+
+        connection.close();
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Nothing is written for a chunk that does not complete a message.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void partialMessage() throws IOException {
+        final ClientConnection connection = this.getConnection(null);
+        final byte[] chunk = "Partial".getBytes();
+
+        assertEquals(0, connection.receive(chunk, 0, chunk.length));
+        assertEquals(0, this.writeCount);
+        assertEquals(0, connection.getMessagesReceivedCount());
+
+        connection.close();
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Each response is written as soon as its message has been processed, when the flush policy is {@link FlushPolicy#IMMEDIATE}.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void flushImmediate() throws IOException {
+        final ClientConnection connection = this.getConnection(null);
+        connection.setFlushPolicy(FlushPolicy.IMMEDIATE);
+
+        assertEquals(3, connection.receive(PIPELINED_MESSAGES, 0, PIPELINED_MESSAGES.length));
+        assertEquals("AAA", this.written.toString());
+        assertEquals(3, this.writeCount);
+
+        connection.close();
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * The responses are written once the flush count of responses are pending, when the flush policy is {@link FlushPolicy#COUNT}. Any responses still pending are written when the stream ends.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void flushCount() throws IOException {
+        final ClientConnection connection = this.getConnection(null);
+        connection.setFlushPolicy(FlushPolicy.COUNT);
+        connection.setFlushCount(2);
+
+        assertEquals(3, connection.receive(PIPELINED_MESSAGES, 0, PIPELINED_MESSAGES.length));
+        assertEquals("AA", this.written.toString());
+        assertEquals(1, this.writeCount);
+        assertEquals(Arrays.asList("A", "A"), this.responses);
+
+        connection.receive(-1);
+        assertEquals("AAA", this.written.toString());
+        assertEquals(2, this.writeCount);
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * The responses are written, together, once the flush interval has elapsed, when the flush policy is {@link FlushPolicy#INTERVAL}.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEST_TIMEOUT_5_MINUTE)
+    public void flushInterval() throws IOException, InterruptedException {
+        final ClientConnection connection = this.getConnection(null);
+        connection.setFlushPolicy(FlushPolicy.INTERVAL);
+        connection.setFlushInterval(TimeUnit.MILLISECONDS.toMicros(TestConstants.ONE_TENTH_OF_A_SECOND));
+
+        assertEquals(3, connection.receive(PIPELINED_MESSAGES, 0, PIPELINED_MESSAGES.length));
+        assertEquals(0, this.writeCount);
+
+        synchronized (this.written) {
+            while (this.writeCount == 0) {
+                this.written.wait(TestConstants.ONE_TENTH_OF_A_SECOND);
+            }
+        }
+        assertEquals("AAA", this.written.toString());
+        assertEquals(1, this.writeCount);
+
+        connection.close();
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A message is acknowledged when its terminator ends with the byte 0xFF; which must not be mistaken for the end of the stream.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void terminatorEndingInFF() throws IOException {
+        final byte[] terminator = { 13, (byte) 0xFF };
+        final ClientConnection connection = this.getConnection(null, terminator);
+        final byte[] message = { 'O', 'n', 'e', 13, (byte) 0xFF };
+
+        assertEquals(1, connection.receive(message, 0, message.length));
+        assertEquals("A", this.written.toString());
+        assertEquals(Arrays.asList("A"), this.responses);
+
+        connection.close();
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * The ACK is written before the configured responses to the message are sent, so the client does not wait for them; nor loses its ACK if they cannot be sent.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void ackBeforeResponses() throws IOException {
+        // A port that nothing is listening on, so that the response cannot be sent.
+        final int port;
+        try (final ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        final TCPClient destination = new TCPClient(TestConstants.MACHINE_LOCALHOST_NAME, port);
+        destination.addResponse(TestConstants.MACHINE_A_RESPONSE_MESSAGE);
+        final ClientConnection connection = this.getConnection(null, TestConstants.DEFAULT_TERMINATOR.getBytes(), Collections.singletonMap("One", Collections.singleton(destination)));
+        final byte[] chunk = String.format("One%s", TestConstants.DEFAULT_TERMINATOR).getBytes();
+
+        try {
+            connection.receive(chunk, 0, chunk.length);
+            throw new AssertionError("The response was sent to a port that nothing is listening on.");
+        } catch (final IOException | RuntimeException e) {
+            // Expected.
+        }
+        assertEquals("A", this.written.toString());
+
+        connection.close();
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private ClientConnection getConnection(final DataStreamRegexMatcher expectedMessage) {
+        return this.getConnection(expectedMessage, TestConstants.DEFAULT_TERMINATOR.getBytes());
+    }
+
+    private ClientConnection getConnection(final DataStreamRegexMatcher expectedMessage, final byte[] terminator) {
+        return this.getConnection(expectedMessage, terminator, Collections.emptyMap());
+    }
+
+    private ClientConnection getConnection(final DataStreamRegexMatcher expectedMessage, final byte[] terminator, final Map<String, Set<TCPClient>> responses) {
+        final OutputStream countingStream = new OutputStream() {
+
+            @Override
+            public void write(final int b) {
+                this.write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                synchronized (TestClientConnectionUT.this.written) {
+                    TestClientConnectionUT.this.writeCount++;
+                    TestClientConnectionUT.this.written.write(b, off, len);
+                    TestClientConnectionUT.this.written.notifyAll();
+                }
+            }
+        };
+
+        return new ClientConnection((InputStream) null, new DataOutputStream(countingStream), false, false, expectedMessage, terminator, responses) {
+
+            @Override
+            public synchronized void afterResponse(final byte[] response) throws IOException {
+                super.afterResponse(response);
+                TestClientConnectionUT.this.responses.add(new String(response));
+            }
+        };
+    }
+}
@@ -0,0 +1,189 @@
+package io.cloudracer.mocktcpserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.ConnectionAdmission.OverflowPolicy;
+import io.cloudracer.mocktcpserver.datastream.DataStream;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+
+/**
+ * Limit the number of connections that the blocking engine runs concurrently, and handle the overflow according to each {@link OverflowPolicy}.
+ *
+ * @author John McDonnell
+ */
+public class TestConnectionAdmissionST extends AbstractTestTools {
+
+    private static final int TIMEOUT = 10000;
+    private static final long QUEUE_TIMEOUT = 200;
+
+    private final ExecutorService clientExecutor = Executors.newSingleThreadExecutor();
+
+    private TCPClient secondClient;
+
+    @Override
+    @Before
+    public void setUp() throws IOException, ConfigurationException, InterruptedException {
+        this.resetLogMonitor();
+
+        this.secondClient = getClientFactory(TestConstants.MOCK_SERVER_PORT_6789);
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        this.clientExecutor.shutdownNow();
+        this.secondClient.close();
+
+        super.cleanUp();
+    }
+
+    /**
+     * When the maximum number of connections are running, a new connection is closed without being run.
+     *
+     * @throws IOException see source documentation.
+     * @throws ConfigurationException error reading the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     */
+    @Test(timeout = TIMEOUT)
+    public void reject() throws IOException, ConfigurationException, InterruptedException {
+        final ConnectionAdmission admission = this.startServer(OverflowPolicy.REJECT, QUEUE_TIMEOUT);
+
+        assertArrayEquals(TestConstants.getAck(), this.getClient().send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+        assertTrue("The connection was not rejected.", this.isRejected(this.secondClient));
+
+        waitForCount(admission::getRejectedCount, 1);
+        assertEquals(1, admission.getAdmittedCount());
+        assertEquals(0, admission.getQueuedCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * When the maximum number of connections are running, a new connection waits in the queue and is run when a running connection ends.
+     *
+     * @throws IOException see source documentation.
+     * @throws ConfigurationException error reading the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     * @throws ExecutionException the queued client failed
+     */
+    @Test(timeout = TIMEOUT)
+    public void queue() throws IOException, ConfigurationException, InterruptedException, ExecutionException {
+        final ConnectionAdmission admission = this.startServer(OverflowPolicy.QUEUE, TIMEOUT);
+
+        assertArrayEquals(TestConstants.getAck(), this.getClient().send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+        final Future<DataStream> response = this.sendInBackground(this.secondClient);
+        waitForCount(admission::getQueuedCount, 1);
+
+        // End the running connection, so that the queued connection is run.
+        this.setClient(null);
+
+        assertArrayEquals(TestConstants.getAck(), response.get().toByteArray());
+        assertEquals(2, admission.getAdmittedCount());
+        assertEquals(0, admission.getRejectedCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A queued connection that is not run within the queue timeout is closed.
+     *
+     * @throws IOException see source documentation.
+     * @throws ConfigurationException error reading the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     */
+    @Test(timeout = TIMEOUT)
+    public void queueTimeout() throws IOException, ConfigurationException, InterruptedException {
+        final ConnectionAdmission admission = this.startServer(OverflowPolicy.QUEUE, QUEUE_TIMEOUT);
+
+        assertArrayEquals(TestConstants.getAck(), this.getClient().send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+        assertTrue("The queued connection did not time out.", this.isRejected(this.secondClient));
+
+        waitForCount(admission::getRejectedCount, 1);
+        assertEquals(1, admission.getQueuedCount());
+        assertEquals(1, admission.getAdmittedCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * When the maximum number of connections are running, the server stops accepting; a new connection waits in the accept backlog and is run when a running connection ends.
+     *
+     * @throws IOException see source documentation.
+     * @throws ConfigurationException error reading the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     * @throws ExecutionException the client in the backlog failed
+     */
+    @Test(timeout = TIMEOUT)
+    public void backlog() throws IOException, ConfigurationException, InterruptedException, ExecutionException {
+        final ConnectionAdmission admission = this.startServer(OverflowPolicy.BACKLOG, QUEUE_TIMEOUT);
+
+        assertArrayEquals(TestConstants.getAck(), this.getClient().send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+        final Future<DataStream> response = this.sendInBackground(this.secondClient);
+        waitForCount(admission::getQueuedCount, 1);
+
+        // End the running connection, so that the server accepts the connection in the backlog.
+        this.setClient(null);
+
+        assertArrayEquals(TestConstants.getAck(), response.get().toByteArray());
+        assertEquals(2, admission.getAdmittedCount());
+        assertEquals(0, admission.getRejectedCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private ConnectionAdmission startServer(final OverflowPolicy overflowPolicy, final long queueTimeout) throws ConfigurationException, InterruptedException {
+        final MockTCPServer server = this.getServer(false);
+        server.setIsSendResponses(false);
+        server.setMaximumConnections(1);
+        server.setOverflowPolicy(overflowPolicy);
+        server.setQueueCapacity(1);
+        server.setQueueTimeout(queueTimeout);
+        server.start();
+
+        while (server.getConnectionAdmission() == null) {
+            TimeUnit.MILLISECONDS.sleep(TestConstants.ONE_TENTH_OF_A_SECOND);
+        }
+
+        return server.getConnectionAdmission();
+    }
+
+    private Future<DataStream> sendInBackground(final TCPClient client) {
+        return this.clientExecutor.submit(() -> client.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR));
+    }
+
+    /**
+     * The server closes a rejected connection without responding, so the client receives either the end of the stream or a reset, instead of an ACK.
+     */
+    private boolean isRejected(final TCPClient client) {
+        try {
+            return !Arrays.equals(TestConstants.getAck(), client.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+        } catch (final IOException e) {
+            return true;
+        }
+    }
+
+    private static void waitForCount(final LongSupplier count, final long expected) throws InterruptedException {
+        while (count.getAsLong() < expected) {
+            TimeUnit.MILLISECONDS.sleep(TestConstants.ONE_TENTH_OF_A_SECOND);
+        }
+        assertEquals(expected, count.getAsLong());
+    }
+}
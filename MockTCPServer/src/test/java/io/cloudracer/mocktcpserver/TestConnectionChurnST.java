@@ -0,0 +1,111 @@
+package io.cloudracer.mocktcpserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.MockTCPServer.Engine;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+
+/**
+ * Connections that are opened, used once and closed, so that the cost of the accept path dominates.
+ *
+ * @author John McDonnell
+ */
+public class TestConnectionChurnST extends AbstractTestTools {
+
+    private final Logger logger = LogManager.getLogger(TestConnectionChurnST.class);
+
+    /**
+     * The number of connections opened, and closed, by the {@link #benchmark() benchmark}. Set this System Property to churn many more connections.
+     */
+    private static final String BENCHMARK_CONNECTIONS_PROPERTY_NAME = "mocktcpserver.benchmark.churn";
+    private static final int BENCHMARK_CONNECTIONS_DEFAULT = 500;
+
+    @Override
+    @Before
+    public void setUp() throws IOException {
+        this.resetLogMonitor();
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        super.cleanUp();
+    }
+
+    /**
+     * The name of this machine is resolved once, and then reused for every accepted connection.
+     */
+    @Test
+    public void localHostName() {
+        assertSame(MockTCPServer.getLocalHostName(), MockTCPServer.getLocalHostName());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Report the rate at which each {@link Engine} accepts, acknowledges and closes short lived connections; and the time that would be spent resolving the name of this machine if it were resolved for every connection.
+     *
+     * @throws IOException see source documentation.
+     * @throws ConfigurationException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEST_TIMEOUT_5_MINUTE)
+    public void benchmark() throws IOException, ConfigurationException, InterruptedException, ExecutionException {
+        final int totalConnections = Integer.getInteger(BENCHMARK_CONNECTIONS_PROPERTY_NAME, BENCHMARK_CONNECTIONS_DEFAULT);
+
+        for (final Engine engine : Engine.values()) {
+            final MockTCPServer server = this.getServer(false);
+            server.setIsSendResponses(false);
+            server.setEngine(engine);
+            server.start();
+            server.getReadyFuture().get();
+
+            final long start = System.nanoTime();
+            for (int i = 0; i < totalConnections; i++) {
+                final TCPClient tcpClient = new TCPClient(TestConstants.MOCK_SERVER_PORT_6789);
+                try {
+                    assertArrayEquals(TestConstants.getAck(), tcpClient.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+                } finally {
+                    tcpClient.close();
+                }
+            }
+            final long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            this.logger.info(String.format("Engine %s: %d connections opened, acknowledged and closed in %d milliseconds (%d connections per second).", engine, totalConnections, elapsed, totalConnections * 1000L / elapsed));
+            assertEquals(engine, server.getEngine());
+
+            this.setServer(null);
+        }
+
+        final long resolveStart = System.nanoTime();
+        for (int i = 0; i < totalConnections; i++) {
+            InetAddress.getLocalHost().getHostName();
+        }
+        final long resolved = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - resolveStart);
+        final long cachedStart = System.nanoTime();
+        for (int i = 0; i < totalConnections; i++) {
+            MockTCPServer.getLocalHostName();
+        }
+        final long cached = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - cachedStart);
+        this.logger.info(String.format("Resolving the name of this machine for each of %d connections takes %d microseconds, against %d microseconds when it is resolved once.", totalConnections, resolved, cached));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+}
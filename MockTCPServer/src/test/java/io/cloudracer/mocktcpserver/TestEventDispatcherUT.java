@@ -0,0 +1,206 @@
+package io.cloudracer.mocktcpserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.datastream.DataStream;
+
+/**
+ * Delivery of server events by an {@link EventDispatcher}, and the lock-free {@link RingBuffer} that it publishes to.
+ *
+ * @author John McDonnell
+ */
+public class TestEventDispatcherUT extends AbstractTestTools {
+
+    private static final int TOTAL_PRODUCERS = 4;
+    private static final int EVENTS_PER_PRODUCER = 10000;
+
+    @Override
+    @Before
+    public void setUp() {
+        this.resetLogMonitor();
+    }
+
+    /**
+     * Elements are polled in the order that they were offered, and an offer to a full buffer is refused; including after the buffer has wrapped.
+     */
+    @Test
+    public void ringBuffer() {
+        final RingBuffer<Integer> ringBuffer = new RingBuffer<>(3);
+        assertEquals(4, ringBuffer.capacity());
+        assertTrue(ringBuffer.isEmpty());
+        assertNull(ringBuffer.poll());
+
+        for (int wrap = 0; wrap < 3; wrap++) {
+            for (int i = 0; i < ringBuffer.capacity(); i++) {
+                assertTrue(ringBuffer.offer(i));
+            }
+            assertFalse(ringBuffer.offer(-1));
+            assertEquals(ringBuffer.capacity(), ringBuffer.size());
+
+            for (int i = 0; i < ringBuffer.capacity(); i++) {
+                assertEquals(Integer.valueOf(i), ringBuffer.poll());
+            }
+            assertTrue(ringBuffer.isEmpty());
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Events published by many {@link Thread threads} at once are each delivered exactly once, on the single consumer Thread, and the events of each publisher are delivered in the order that they were published.
+     *
+     * @throws InterruptedException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void concurrentPublishers() throws InterruptedException {
+        final BitSet delivered = new BitSet(TOTAL_PRODUCERS * EVENTS_PER_PRODUCER);
+        final int[] lastPort = new int[TOTAL_PRODUCERS];
+        final List<String> errors = new ArrayList<>();
+        final List<Thread> consumers = new CopyOnWriteArrayList<>();
+
+        // A small buffer, so that the publishers are stalled.
+        final EventDispatcher eventDispatcher = new EventDispatcher(16);
+        eventDispatcher.addListener(new EventDispatcher.Listener() {
+
+            @Override
+            public void onConnection(final String clientMachine, final int clientPort, final String serverMachine, final int serverPort) {
+                // Not synchronised: the listener is only ever called by the consumer Thread.
+                if (consumers.isEmpty()) {
+                    consumers.add(Thread.currentThread());
+                }
+                final int producer = Integer.parseInt(clientMachine);
+                if (clientPort <= lastPort[producer]) {
+                    errors.add(String.format("Producer %d: event %d delivered after event %d.", producer, clientPort, lastPort[producer]));
+                }
+                lastPort[producer] = clientPort;
+                delivered.set(producer * EVENTS_PER_PRODUCER + clientPort - 1);
+            }
+        });
+        eventDispatcher.start(String.format("%s-Events", this.getClass().getSimpleName()));
+
+        final List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < TOTAL_PRODUCERS; i++) {
+            final String producer = Integer.toString(i);
+            producers.add(new Thread(() -> {
+                for (int event = 1; event <= EVENTS_PER_PRODUCER; event++) {
+                    eventDispatcher.connection(producer, event, null, 0);
+                }
+            }));
+        }
+        for (final Thread producer : producers) {
+            producer.start();
+        }
+        for (final Thread producer : producers) {
+            producer.join();
+        }
+        eventDispatcher.close();
+
+        assertEquals(new ArrayList<String>(), errors);
+        assertEquals(TOTAL_PRODUCERS * EVENTS_PER_PRODUCER, delivered.cardinality());
+        assertEquals(TOTAL_PRODUCERS * EVENTS_PER_PRODUCER, eventDispatcher.getDeliveredCount());
+        assertEquals(1, consumers.size());
+        assertEquals(0, eventDispatcher.getPendingCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A listener receives a copy of each message, that is not changed when the connection reuses its {@link DataStream}; and events published before the dispatcher is started, or after it is closed, are delivered on the publishing {@link Thread}.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void messageCopy() throws IOException, InterruptedException {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final CountDownLatch delivered = new CountDownLatch(2);
+        final EventDispatcher eventDispatcher = new EventDispatcher(EventDispatcher.DEFAULT_CAPACITY);
+        eventDispatcher.addListener(new EventDispatcher.Listener() {
+
+            @Override
+            public void onMessage(final DataStream message) {
+                messages.add(message.toString());
+                delivered.countDown();
+            }
+        });
+        final DataStream message = new DataStream(TestConstants.DEFAULT_TERMINATOR.length());
+
+        this.write(message, "Before");
+        eventDispatcher.message(message);
+        assertEquals(1, messages.size());
+
+        eventDispatcher.start(String.format("%s-Events", this.getClass().getSimpleName()));
+        this.write(message, "Started");
+        eventDispatcher.message(message);
+        this.write(message, "Reused");
+        assertTrue(delivered.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+
+        eventDispatcher.close();
+        eventDispatcher.message(message);
+
+        assertEquals(3, messages.size());
+        assertEquals("Before", messages.get(0));
+        assertEquals("Started", messages.get(1));
+        assertEquals("Reused", messages.get(2));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * The consumer {@link Thread} of a dispatcher that is started without listeners is not started until a listener is added.
+     *
+     * @throws InterruptedException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void lazyConsumer() throws InterruptedException {
+        final String name = String.format("%s-Lazy", this.getClass().getSimpleName());
+        final List<String> consumers = new CopyOnWriteArrayList<>();
+        final CountDownLatch delivered = new CountDownLatch(1);
+        final EventDispatcher eventDispatcher = new EventDispatcher(EventDispatcher.DEFAULT_CAPACITY);
+
+        eventDispatcher.start(name);
+        assertFalse(eventDispatcher.hasListeners());
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            assertFalse(name.equals(thread.getName()));
+        }
+
+        eventDispatcher.addListener(new EventDispatcher.Listener() {
+
+            @Override
+            public void onResponse(final byte[] response) {
+                consumers.add(Thread.currentThread().getName());
+                delivered.countDown();
+            }
+        });
+        eventDispatcher.response(TestConstants.getAck());
+        assertTrue(delivered.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+        eventDispatcher.close();
+
+        assertEquals(name, consumers.get(0));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private void write(final DataStream dataStream, final String data) throws IOException {
+        final byte[] bytes = data.getBytes();
+
+        dataStream.reset();
+        dataStream.write(bytes, 0, bytes.length);
+    }
+}
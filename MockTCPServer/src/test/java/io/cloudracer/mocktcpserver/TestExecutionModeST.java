@@ -0,0 +1,155 @@
+package io.cloudracer.mocktcpserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.MockTCPServer.ExecutionMode;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+
+/**
+ * Run the connections accepted by the blocking engine using each {@link ExecutionMode execution mode}, and a pluggable {@link java.util.concurrent.Executor Executor}.
+ *
+ * @author John McDonnell
+ */
+public class TestExecutionModeST extends AbstractTestTools {
+
+    // Print to the console only so that the LogMonitor does not interpret it as an error.
+    private final Logger logger = LogManager.getLogger(TestExecutionModeST.class);
+
+    /**
+     * The number of concurrent connections opened by the {@link #benchmark() benchmark}. Set this System Property to soak test many more connections (e.g. tens of thousands, if the file descriptor limit allows).
+     */
+    private static final String BENCHMARK_CONNECTIONS_PROPERTY_NAME = "mocktcpserver.benchmark.connections";
+    private static final int BENCHMARK_CONNECTIONS_DEFAULT = 500;
+
+    private static final int TIMEOUT = 10000;
+
+    final List<TCPClient> clientList = new ArrayList<>();
+
+    @Override
+    @Before
+    public void setUp() throws IOException, ConfigurationException, InterruptedException {
+        this.resetLogMonitor();
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        this.closeClients();
+
+        super.cleanUp();
+    }
+
+    /**
+     * Each connection is run by the pluggable {@link java.util.concurrent.Executor Executor}, instead of a {@link Thread} being started for it.
+     *
+     * @throws IOException see source documentation.
+     * @throws ConfigurationException error reading the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     */
+    @Test(timeout = TIMEOUT)
+    public void connectionExecutor() throws IOException, ConfigurationException, InterruptedException {
+        final AtomicInteger threadsCreated = new AtomicInteger();
+        final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            threadsCreated.incrementAndGet();
+
+            return new Thread(runnable);
+        });
+        try {
+            final MockTCPServer server = this.getServer(false);
+            server.setIsSendResponses(false);
+            server.setConnectionExecutor(executor);
+            server.start();
+
+            assertArrayEquals(TestConstants.getAck(), this.getClient().send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+            assertEquals(1, threadsCreated.get());
+        } finally {
+            executor.shutdown();
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * The server returns the expected ACK when connections are run on virtual threads (or, on an earlier runtime, when it has fallen back to platform threads).
+     *
+     * @throws IOException see source documentation.
+     * @throws ConfigurationException error reading the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     */
+    @Test(timeout = TIMEOUT)
+    public void virtual() throws IOException, ConfigurationException, InterruptedException {
+        final MockTCPServer server = this.getServer(false);
+        server.setIsSendResponses(false);
+        server.setExecutionMode(ExecutionMode.VIRTUAL);
+        server.start();
+
+        assertArrayEquals(TestConstants.getAck(), this.getClient().send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+        assertArrayEquals(TestConstants.getAck(), this.getClient().send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Open many concurrent connections using each {@link ExecutionMode execution mode}, and compare the time taken for every connection to receive an ACK.
+     *
+     * @throws IOException see source documentation.
+     * @throws ConfigurationException error reading the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     */
+    @Test(timeout = TestConstants.TEST_TIMEOUT_5_MINUTE)
+    public void benchmark() throws IOException, ConfigurationException, InterruptedException {
+        final int totalConnections = Integer.getInteger(BENCHMARK_CONNECTIONS_PROPERTY_NAME, BENCHMARK_CONNECTIONS_DEFAULT);
+
+        for (final ExecutionMode executionMode : ExecutionMode.values()) {
+            final MockTCPServer server = this.getServer(false);
+            server.setIsSendResponses(false);
+            server.setExecutionMode(executionMode);
+            server.start();
+
+            final long start = System.nanoTime();
+            for (int i = 0; i < totalConnections; i++) {
+                clientList.add(getClientFactory(TestConstants.MOCK_SERVER_PORT_6789));
+                assertArrayEquals(TestConstants.getAck(), clientList.get(i).send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+            }
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // The server falls back to platform threads if virtual threads are not available.
+            this.logger.info(String.format("Execution mode %s (running as %s): %d concurrent connections acknowledged in %d milliseconds.", executionMode, server.getExecutionMode(), totalConnections, elapsed));
+            assertTrue(clientList.get(totalConnections - 1).isConectionActive());
+
+            this.closeClients();
+            this.setServer(null);
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private void closeClients() throws IOException {
+        // Close all open clients and remove them from the list.
+        for (Iterator<TCPClient> iterator = clientList.iterator(); iterator.hasNext();) {
+            TCPClient tcpClient = iterator.next();
+            tcpClient.close();
+            iterator.remove();
+        }
+    }
+}
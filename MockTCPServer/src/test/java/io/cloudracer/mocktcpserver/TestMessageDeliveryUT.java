@@ -0,0 +1,186 @@
+package io.cloudracer.mocktcpserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.MessageDelivery.OverflowPolicy;
+import io.cloudracer.mocktcpserver.datastream.DataStream;
+
+/**
+ * Batched delivery of messages to a {@link MessageListener}, by a {@link MessageDelivery}.
+ *
+ * @author John McDonnell
+ */
+public class TestMessageDeliveryUT extends AbstractTestTools {
+
+    private final Logger logger = LogManager.getLogger(TestMessageDeliveryUT.class);
+
+    /**
+     * The number of messages offered by the {@link #benchmark() benchmark}. Set this System Property to benchmark many more messages.
+     */
+    private static final String BENCHMARK_MESSAGES_PROPERTY_NAME = "mocktcpserver.benchmark.messages";
+    private static final int BENCHMARK_MESSAGES_DEFAULT = 1000000;
+    private static final int TOTAL_PRODUCERS = 4;
+
+    private static final int PORT = 1;
+
+    @Override
+    @Before
+    public void setUp() {
+        this.resetLogMonitor();
+    }
+
+    /**
+     * A batch is delivered as soon as it is full, and a partial batch once the maximum delay has elapsed.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void batches() throws IOException, InterruptedException {
+        final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        final CountDownLatch delivered = new CountDownLatch(3);
+        final MessageDelivery messageDelivery = new MessageDelivery(messages -> {
+            final List<String> batch = new ArrayList<>();
+            for (final MessageEvent message : messages) {
+                batch.add(message.getMessage().toString());
+            }
+            batches.add(batch);
+            delivered.countDown();
+        }, 2, TestConstants.ONE_TENTH_OF_A_SECOND, MessageDelivery.DEFAULT_CAPACITY, OverflowPolicy.DROP);
+        try {
+            // Offered together, so that they can fill two batches.
+            for (final String message : new String[] { "One", "Two", "Three", "Four", "Five" }) {
+                assertTrue(messageDelivery.offer(this.getEvent(message)));
+            }
+
+            assertTrue(delivered.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+        } finally {
+            messageDelivery.close();
+        }
+
+        final List<String> messages = new ArrayList<>();
+        for (final List<String> batch : batches) {
+            assertTrue(batch.size() <= 2);
+            messages.addAll(batch);
+        }
+        assertEquals(3, batches.size());
+        assertEquals(5, messages.size());
+        assertEquals("One", messages.get(0));
+        assertEquals("Five", messages.get(4));
+        assertEquals(5, messageDelivery.getDeliveredCount());
+        assertEquals(3, messageDelivery.getBatchCount());
+        assertEquals(0, messageDelivery.getDroppedCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * While the listener is slow, the messages that do not fit in the queue are dropped and counted, rather than the caller waiting.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void drop() throws IOException, InterruptedException {
+        final int capacity = 4;
+        final int total = 100;
+        final CountDownLatch listening = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final MessageDelivery messageDelivery = new MessageDelivery(messages -> {
+            listening.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 1, 0, capacity, OverflowPolicy.DROP);
+        try {
+            assertTrue(messageDelivery.offer(this.getEvent("Slow")));
+            assertTrue(listening.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+
+            int accepted = 0;
+            for (int i = 0; i < total; i++) {
+                if (messageDelivery.offer(this.getEvent(Integer.toString(i)))) {
+                    accepted++;
+                }
+            }
+            assertEquals(capacity, accepted);
+            assertEquals(total - capacity, messageDelivery.getDroppedCount());
+        } finally {
+            release.countDown();
+            messageDelivery.close();
+        }
+
+        assertEquals(capacity + 1, messageDelivery.getDeliveredCount());
+        assertFalse(messageDelivery.offer(this.getEvent("Closed")));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Report the rate at which messages, offered by several {@link Thread threads}, are delivered when the caller waits for space rather than dropping messages; every message is delivered.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEST_TIMEOUT_5_MINUTE)
+    public void benchmark() throws IOException, InterruptedException {
+        final int totalMessages = Integer.getInteger(BENCHMARK_MESSAGES_PROPERTY_NAME, BENCHMARK_MESSAGES_DEFAULT);
+        final int messagesPerProducer = totalMessages / TOTAL_PRODUCERS;
+        final AtomicLong received = new AtomicLong();
+        final MessageEvent event = this.getEvent(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR);
+
+        final MessageDelivery messageDelivery = new MessageDelivery(messages -> received.addAndGet(messages.size()), MessageDelivery.DEFAULT_BATCH_SIZE, MessageDelivery.DEFAULT_MAXIMUM_DELAY, MessageDelivery.DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+        final long start = System.nanoTime();
+        try {
+            final List<Thread> producers = new ArrayList<>();
+            for (int i = 0; i < TOTAL_PRODUCERS; i++) {
+                producers.add(new Thread(() -> {
+                    for (int message = 0; message < messagesPerProducer; message++) {
+                        messageDelivery.offer(event);
+                    }
+                }));
+            }
+            for (final Thread producer : producers) {
+                producer.start();
+            }
+            for (final Thread producer : producers) {
+                producer.join();
+            }
+        } finally {
+            messageDelivery.close();
+        }
+        final long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        assertEquals(messagesPerProducer * TOTAL_PRODUCERS, received.get());
+        assertEquals(0, messageDelivery.getDroppedCount());
+        this.logger.info(String.format("%d messages delivered in %d batches, in %d milliseconds (%d messages per second).", received.get(), messageDelivery.getBatchCount(), elapsed, received.get() * 1000 / elapsed));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private MessageEvent getEvent(final String message) throws IOException {
+        final DataStream dataStream = new DataStream(TestConstants.DEFAULT_TERMINATOR.length());
+        final byte[] bytes = message.getBytes();
+        dataStream.write(bytes, 0, bytes.length);
+
+        return new MessageEvent(PORT, dataStream, System.currentTimeMillis());
+    }
+}
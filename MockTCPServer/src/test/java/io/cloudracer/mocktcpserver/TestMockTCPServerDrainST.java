@@ -0,0 +1,241 @@
+package io.cloudracer.mocktcpserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.MockTCPServer.Engine;
+import io.cloudracer.mocktcpserver.ResponseWriter.FlushPolicy;
+import io.cloudracer.mocktcpserver.datastream.DataStream;
+import io.cloudracer.properties.ConfigurationSettings;
+
+/**
+ * Close the server in bounded time, draining the open connections: messages in progress are acknowledged, and connections that do not complete their message are forcibly closed.
+ *
+ * @author John McDonnell
+ */
+public class TestMockTCPServerDrainST extends AbstractTestTools {
+
+    private static final String PARTIAL_MESSAGE = "Hel";
+
+    private MockTCPServer server;
+    private Socket client;
+
+    @Override
+    @Before
+    public void setUp() throws IOException {
+        this.resetLogMonitor();
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        IOUtils.closeQuietly(this.client);
+        IOUtils.closeQuietly(this.server);
+    }
+
+    /**
+     * An idle connection is closed as soon as the server is closed, without waiting for the drain timeout.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void idle() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        assertEquals(MockTCPServer.DEFAULT_DRAIN_TIMEOUT, new ConfigurationSettings().getDrainTimeout(TestConstants.MOCK_SERVER_PORT_2222));
+
+        this.startServer(Engine.BLOCKING);
+        this.server.setDrainTimeout(TestConstants.ONE_MINUTE);
+        this.connect();
+        this.send(String.format("Hello%s", TestConstants.DEFAULT_TERMINATOR));
+        assertEquals(TestConstants.getAck()[0], this.client.getInputStream().read());
+
+        final long start = System.currentTimeMillis();
+        this.server.close();
+
+        assertTrue(System.currentTimeMillis() - start < TestConstants.FIVE_SECONDS);
+        assertEquals(-1, this.client.getInputStream().read());
+        assertEquals(1, this.server.getDrainedConnectionCount());
+        assertEquals(0, this.server.getKilledConnectionCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A message that is in progress when the blocking server is closed is completed, and acknowledged, before the connection is closed.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void inProgress() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        this.inProgress(Engine.BLOCKING);
+    }
+
+    /**
+     * A message that is in progress when the non-blocking server is closed is completed, and acknowledged, before the connection is closed.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void inProgressNIO() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        this.inProgress(Engine.NIO);
+    }
+
+    /**
+     * A response that the non-blocking server is still holding, under its flush policy, when it is closed is written before the channel is closed.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void pendingNIO() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        this.server = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_2222, false);
+        this.server.setEngine(Engine.NIO);
+        // Hold the acknowledgement until a second response is written, which never happens.
+        this.server.setFlushPolicy(FlushPolicy.COUNT);
+        this.server.setFlushCount(2);
+        this.server.start();
+        this.server.getReadyFuture().get();
+        this.connect();
+        this.send(String.format("Hello%s", TestConstants.DEFAULT_TERMINATOR));
+        TimeUnit.MILLISECONDS.sleep(TestConstants.ONE_TENTH_OF_A_SECOND);
+
+        this.server.close(TestConstants.FIVE_SECONDS);
+
+        final InputStream inputStream = this.client.getInputStream();
+        assertArrayEquals(TestConstants.getAck(), new byte[] { (byte) inputStream.read() });
+        assertEquals(-1, inputStream.read());
+        assertEquals(1, this.server.getDrainedConnectionCount());
+        assertEquals(0, this.server.getKilledConnectionCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A non-blocking server closed from a message callback acknowledges the message and closes without waiting for the drain timeout, as its event loop is not blocked by the close.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void closeFromCallbackNIO() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        this.server = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_2222, false) {
+
+            @Override
+            public void onMessage(final DataStream message) {
+                this.close(TestConstants.FIVE_SECONDS);
+            }
+        };
+        this.server.setEngine(Engine.NIO);
+        this.server.start();
+        this.server.getReadyFuture().get();
+        this.connect();
+
+        final long start = System.currentTimeMillis();
+        this.send(String.format("Hello%s", TestConstants.DEFAULT_TERMINATOR));
+
+        final InputStream inputStream = this.client.getInputStream();
+        assertArrayEquals(TestConstants.getAck(), new byte[] { (byte) inputStream.read() });
+        assertEquals(-1, inputStream.read());
+        assertTrue(this.server.awaitClosed(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+        assertTrue(System.currentTimeMillis() - start < TestConstants.FIVE_SECONDS);
+        assertEquals(1, this.server.getDrainedConnectionCount());
+        assertEquals(0, this.server.getKilledConnectionCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A connection that does not complete its message within the drain timeout is forcibly closed, so the server closes in bounded time.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void stalled() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        this.startServer(Engine.BLOCKING);
+        this.connect();
+        this.send(PARTIAL_MESSAGE);
+        TimeUnit.MILLISECONDS.sleep(TestConstants.ONE_TENTH_OF_A_SECOND);
+
+        final long start = System.currentTimeMillis();
+        this.server.close(TestConstants.ONE_TENTH_OF_A_SECOND * 2);
+
+        assertTrue(System.currentTimeMillis() - start < TestConstants.FIVE_SECONDS);
+        assertEquals(-1, this.client.getInputStream().read());
+        assertEquals(0, this.server.getDrainedConnectionCount());
+        assertEquals(1, this.server.getKilledConnectionCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private void inProgress(final Engine engine) throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        this.startServer(engine);
+        this.connect();
+        this.send(PARTIAL_MESSAGE);
+        TimeUnit.MILLISECONDS.sleep(TestConstants.ONE_TENTH_OF_A_SECOND);
+
+        final CompletableFuture<Void> closing = CompletableFuture.runAsync(() -> this.server.close(TestConstants.FIVE_SECONDS));
+        // Complete the message once the server is draining.
+        TimeUnit.MILLISECONDS.sleep(TestConstants.ONE_TENTH_OF_A_SECOND * 2);
+        this.send(String.format("lo%s", TestConstants.DEFAULT_TERMINATOR));
+
+        final InputStream inputStream = this.client.getInputStream();
+        assertArrayEquals(TestConstants.getAck(), new byte[] { (byte) inputStream.read() });
+        assertEquals(-1, inputStream.read());
+
+        closing.get();
+        assertEquals(1, this.server.getDrainedConnectionCount());
+        assertEquals(0, this.server.getKilledConnectionCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private void startServer(final Engine engine) throws ConfigurationException, InterruptedException, ExecutionException {
+        this.server = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_2222, false);
+        this.server.setEngine(engine);
+        this.server.start();
+        this.server.getReadyFuture().get();
+    }
+
+    private void connect() throws IOException {
+        this.client = new Socket("localhost", TestConstants.MOCK_SERVER_PORT_2222);
+    }
+
+    private void send(final String data) throws IOException {
+        final OutputStream outputStream = this.client.getOutputStream();
+        outputStream.write(data.getBytes(StandardCharsets.UTF_8));
+        outputStream.flush();
+    }
+}
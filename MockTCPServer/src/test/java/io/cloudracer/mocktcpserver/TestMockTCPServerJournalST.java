@@ -0,0 +1,136 @@
+package io.cloudracer.mocktcpserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.MockTCPServer.Engine;
+import io.cloudracer.mocktcpserver.journal.CaptureJournal;
+import io.cloudracer.mocktcpserver.journal.JournalReader;
+import io.cloudracer.mocktcpserver.journal.JournalRecord;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+import io.cloudracer.properties.ConfigurationSettings;
+
+/**
+ * Every message received by the server, and the response sent for it, is written to a {@link CaptureJournal capture journal}.
+ *
+ * @author John McDonnell
+ */
+public class TestMockTCPServerJournalST extends AbstractTestTools {
+
+    private MockTCPServer server;
+    private TCPClient client;
+    private Path folder;
+
+    @Override
+    @Before
+    public void setUp() throws IOException {
+        this.resetLogMonitor();
+
+        this.folder = Files.createTempDirectory(this.getClass().getSimpleName());
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        IOUtils.closeQuietly(this.client);
+        IOUtils.closeQuietly(this.server);
+        FileUtils.deleteDirectory(this.folder.toFile());
+    }
+
+    /**
+     * Each {@link Engine} writes the messages of a connection, and their responses, to the journal of its port; which is closed when the server is closed.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void journal() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        assertNull(new ConfigurationSettings().getJournal(TestConstants.MOCK_SERVER_PORT_2222));
+
+        for (final Engine engine : Engine.values()) {
+            final Path directory = this.folder.resolve(engine.toString());
+            this.startServer(engine);
+            this.server.setJournalDirectory(directory);
+            this.server.start();
+            this.server.getReadyFuture().get();
+
+            this.client = new TCPClient(TestConstants.MOCK_SERVER_PORT_2222);
+            assertArrayEquals(TestConstants.getAck(), this.client.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+            assertArrayEquals(TestConstants.getAck(), this.client.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+
+            try (final JournalReader reader = new JournalReader(directory.resolve(String.valueOf(TestConstants.MOCK_SERVER_PORT_2222)))) {
+                final JournalRecord first = reader.poll(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS);
+                final JournalRecord second = reader.poll(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS);
+                for (final JournalRecord record : new JournalRecord[] { first, second }) {
+                    assertEquals(TestConstants.MOCK_SERVER_PORT_2222, record.getPort());
+                    assertArrayEquals(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR.getBytes(StandardCharsets.UTF_8), record.getMessage());
+                    assertArrayEquals(TestConstants.getAck(), record.getResponse());
+                }
+                assertEquals(first.getConnectionId(), second.getConnectionId());
+                assertNull(reader.poll());
+            }
+
+            final CaptureJournal journal = this.server.getJournal();
+            this.client.close();
+            this.server.close();
+            assertEquals(2, journal.getAppendedCount());
+            assertFalse(journal.append(0, TestConstants.MOCK_SERVER_PORT_2222, 0, new byte[0], null));
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A journal that is set is shared, and is not closed when the server is closed.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void sharedJournal() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        try (final CaptureJournal journal = new CaptureJournal(this.folder)) {
+            this.startServer(Engine.BLOCKING);
+            this.server.setJournal(journal);
+            this.server.start();
+            this.server.getReadyFuture().get();
+
+            this.client = new TCPClient(TestConstants.MOCK_SERVER_PORT_2222);
+            assertArrayEquals(TestConstants.getAck(), this.client.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+            this.client.close();
+            this.server.close();
+
+            assertEquals(1, journal.getAppendedCount());
+            assertTrue(journal.append(0, TestConstants.MOCK_SERVER_PORT_2222, 0, new byte[0], null));
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private void startServer(final Engine engine) throws ConfigurationException, InterruptedException {
+        this.server = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_2222, false);
+        this.server.setEngine(engine);
+    }
+}
@@ -0,0 +1,205 @@
+package io.cloudracer.mocktcpserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.MockTCPServer.Engine;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+
+/**
+ * Mock TCP Server tests, using the {@link Engine#NIO non-blocking engine}.
+ *
+ * @author John McDonnell
+ */
+public class TestMockTCPServerNIOST extends AbstractTestTools {
+
+    private static final int TIMEOUT = 10000;
+
+    final List<TCPClient> clientList = new ArrayList<>();
+
+    @Override
+    @Before
+    public void setUp() throws IOException, ConfigurationException, InterruptedException {
+        super.setUp();
+
+        getServer().setIsSendResponses(false);
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        super.cleanUp();
+
+        // Close all open clients and remove them from the list.
+        for (Iterator<TCPClient> iterator = clientList.iterator(); iterator.hasNext();) {
+            TCPClient tcpClient = iterator.next();
+            tcpClient.close();
+            iterator.remove();
+        }
+    }
+
+    @Override
+    protected MockTCPServer getServerFactory(final int port, final boolean start) throws ConfigurationException, InterruptedException {
+        final MockTCPServer server = super.getServerFactory(port, false);
+        server.setEngine(Engine.NIO);
+        if (start) {
+            server.start();
+        }
+
+        return server;
+    }
+
+    /**
+     * Many clients are served, each receiving the expected ACK, without a {@link Thread} being started for each client.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test(timeout = TIMEOUT)
+    public void ack() throws IOException {
+        final int totalClients = 500;
+        final int maximumAdditionalThreads = 10;
+        final int threadsBefore = Thread.activeCount();
+
+        for (int i = 0; i < totalClients; i++) {
+            clientList.add(getClientFactory(TestConstants.MOCK_SERVER_PORT_6789));
+            assertArrayEquals(TestConstants.getAck(), clientList.get(clientList.size() - 1).send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+        }
+        for (TCPClient tcpClient : clientList) {
+            assertArrayEquals(TestConstants.getAck(), tcpClient.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+            assertTrue(tcpClient.isConectionActive());
+        }
+
+        assertTrue(String.format("Unexpected number of threads: %d.", Thread.activeCount()), Thread.activeCount() < threadsBefore + maximumAdditionalThreads);
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Having set more than one acceptor, every client is served, and each connection is accepted by exactly one of the acceptors.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ConfigurationException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TIMEOUT)
+    public void acceptors() throws IOException, ConfigurationException, InterruptedException, ExecutionException {
+        final int totalClients = 50;
+        final int totalAcceptors = 2;
+
+        setServer(null);
+        final MockTCPServer server = getServer(false);
+        server.setIsSendResponses(false);
+        server.setAcceptorCount(totalAcceptors);
+        server.start();
+        server.getReadyFuture().get();
+
+        for (int i = 0; i < totalClients; i++) {
+            clientList.add(getClientFactory(TestConstants.MOCK_SERVER_PORT_6789));
+            assertArrayEquals(TestConstants.getAck(), clientList.get(clientList.size() - 1).send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+        }
+
+        final long[] acceptCounts = server.getAcceptCounts();
+        assertEquals(totalAcceptors, acceptCounts.length);
+        assertEquals(totalClients, Arrays.stream(acceptCounts).sum());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Having set a customised terminator, the server returns the expected ACK to a message terminated with the custom terminator.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException
+     * @throws ConfigurationException
+     */
+    @Test(timeout = TIMEOUT)
+    public void ackWithCustomTerminator() throws IOException, ConfigurationException, InterruptedException {
+        final byte[] customTerminator = new byte[] { 88, 89, 90 }; // XYZ
+        final String message = String.format("%s%s", TestConstants.WELLFORMED_XML, new String(customTerminator));
+
+        this.getServer().setTerminator(customTerminator);
+
+        assertArrayEquals(TestConstants.getAck(), this.getClient().send(message).toByteArray());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Having set the Server to always return a NAK, the Server returns the expected NAK when an ACK would normally be expected.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException
+     * @throws ConfigurationException
+     */
+    @Test(timeout = TIMEOUT)
+    public void forceNAK() throws IOException, ConfigurationException, InterruptedException {
+        assertArrayEquals(TestConstants.getAck(), this.getClient().send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+
+        this.getClient().close();
+        this.getServer().setIsAlwaysNAKResponse(true);
+
+        assertArrayEquals(TestConstants.getNak(), this.getClient().send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Having set the Server to expect only messages that match a specified Regular Expression, ensure that a NAK is returned for messages that do not match and an ACK for messages that do match.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException
+     * @throws ConfigurationException
+     */
+    @Test(timeout = TIMEOUT)
+    public void expectSpecificMessage() throws IOException, ConfigurationException, InterruptedException {
+        final String message = String.format("%s%s", "Hello World!!", TestConstants.DEFAULT_TERMINATOR);
+        final String messageRegularExpression = String.format("%s%s", "Hello.*", TestConstants.DEFAULT_TERMINATOR);
+        final String invalidMessage = String.format("%s%s", "This does not match the expected Regular Expression.", TestConstants.DEFAULT_TERMINATOR);
+
+        this.getServer().setExpectedMessage(messageRegularExpression);
+
+        assertArrayEquals(TestConstants.getAck(), this.getClient().send(message).toByteArray());
+        assertNull(this.getServer().getAssertionError());
+        assertArrayEquals(TestConstants.getNak(), this.getClient().send(invalidMessage).toByteArray());
+        assertNotNull(this.getServer().getAssertionError());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Test that the configured responses are sent.
+     *
+     * @throws IOException
+     * @throws InterruptedException
+     * @throws ConfigurationException
+     */
+    @Test(timeout = TestConstants.TEST_TIMEOUT_5_MINUTE)
+    public void sendResponses() throws IOException, InterruptedException, ConfigurationException {
+        final List<String> expectedMessages = new ArrayList<>(Arrays.asList(StringEscapeUtils.unescapeJava(TestConstants.MACHINE_A_RESPONSE_MESSAGE), StringEscapeUtils.unescapeJava(TestConstants.MACHINE_B_RESPONSE_MESSAGE)));
+
+        assertEquals(Engine.NIO, getServer().getEngine());
+        getServer().setIsSendResponses(true);
+        testResponses(getServer(), TestConstants.MOCK_SERVER_PORT_5678, TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR, expectedMessages, TestConstants.SERVER_TIMEOUT, TestConstants.ONE_TENTH_OF_A_SECOND);
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+}
@@ -0,0 +1,172 @@
+package io.cloudracer.mocktcpserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.datastream.DataStream;
+import io.cloudracer.mocktcpserver.responses.RoutingTable;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+import io.cloudracer.properties.ConfigurationSettings;
+
+/**
+ * Reload the responses when the configuration file is modified, without restarting the server.
+ *
+ * @author John McDonnell
+ */
+public class TestMockTCPServerReloadST extends AbstractTestTools {
+
+    private static final String INCOMING_TEMPLATE = "<incoming><message>%s</message><responses><response machine=\"localhost\" port=\"2345\" message=\"%s\\u000d\\u000a\\u000a\" /></responses></incoming>";
+
+    private Path folder;
+    private Path configurationFile;
+    private MockTCPServer server;
+
+    @Override
+    @Before
+    public void setUp() throws IOException {
+        this.resetLogMonitor();
+
+        System.getProperties().put(ConfigurationSettings.CONFIGURATION_RELOAD_ENABLED, TestConstants.TRUE);
+        this.folder = Files.createTempDirectory(this.getClass().getSimpleName());
+        this.configurationFile = this.folder.resolve("mocktcpserver.xml");
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        IOUtils.closeQuietly(this.server);
+        System.getProperties().remove(ConfigurationSettings.CONFIGURATION_RELOAD_ENABLED);
+        FileUtils.deleteDirectory(this.folder.toFile());
+    }
+
+    /**
+     * When the configuration file is modified, the routing table is replaced; and a connection that is already open uses the replacement from its next message.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS * 2)
+    public void reload() throws ConfigurationException, IOException, InterruptedException {
+        this.writeConfiguration(String.format(INCOMING_TEMPLATE, "Ping", "Pong"));
+        this.server = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_2222, true, this.getSettings());
+
+        final RoutingTable original = this.server.getRoutingTable();
+        assertNotNull(original.get("Ping"));
+
+        final List<String> responses = new CopyOnWriteArrayList<>();
+        final MockTCPServer responseListener = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_2345) {
+
+            @Override
+            public void onMessage(final DataStream message) {
+                responses.add(message.toString());
+
+                super.onMessage(message);
+            }
+        };
+        final TCPClient tcpClient = new TCPClient(this.server.getPort());
+        try {
+            // Open the connection before the configuration file is modified.
+            assertArrayEquals(TestConstants.getAck(), tcpClient.send(String.format("Unknown%s", TestConstants.DEFAULT_TERMINATOR)).toByteArray());
+
+            this.writeConfiguration(String.format(INCOMING_TEMPLATE, "Hello", "World"));
+            this.waitFor(() -> this.server.getReloadCount() > 0);
+
+            final RoutingTable replacement = this.server.getRoutingTable();
+            assertNull(replacement.get("Ping"));
+            assertNotNull(replacement.get("Hello"));
+            assertEquals(0, this.server.getReloadFailureCount());
+            assertTrue(this.server.getReloadDuration() > 0);
+
+            assertArrayEquals(TestConstants.getAck(), tcpClient.send(String.format("Hello%s", TestConstants.DEFAULT_TERMINATOR)).toByteArray());
+            this.waitFor(() -> !responses.isEmpty());
+            assertEquals(Arrays.asList(String.format("World%s", TestConstants.DEFAULT_TERMINATOR)), responses);
+        } finally {
+            tcpClient.close();
+            responseListener.close();
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * If the modified configuration file cannot be read, the failure is counted and the current routing table is kept.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS * 2)
+    public void reloadFailure() throws ConfigurationException, IOException, InterruptedException {
+        this.writeConfiguration(String.format(INCOMING_TEMPLATE, "Ping", "Pong"));
+        this.server = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_2222, true, this.getSettings());
+        final RoutingTable original = this.server.getRoutingTable();
+
+        this.writeConfiguration("<incoming><message>Unterminated");
+        this.waitFor(() -> this.server.getReloadFailureCount() > 0);
+
+        assertSame(original, this.server.getRoutingTable());
+        assertEquals(0, this.server.getReloadCount());
+
+        // The failure is logged as an error, as expected.
+        this.resetLogMonitor();
+    }
+
+    private ConfigurationSettings getSettings() {
+        return new ConfigurationSettings() {
+
+            @Override
+            public URL getFileName() {
+                try {
+                    return TestMockTCPServerReloadST.this.configurationFile.toUri().toURL();
+                } catch (final MalformedURLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private void writeConfiguration(final String incoming) throws IOException {
+        final boolean exists = Files.exists(this.configurationFile);
+        final long lastModified = exists ? Files.getLastModifiedTime(this.configurationFile).toMillis() : 0;
+
+        final String configuration = String.format("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<configuration xmlns=\"http://mocktcpserver.cloudracer.io/schemas\">\n    <server port=\"%d\">\n        %s\n    </server>\n</configuration>\n", TestConstants.MOCK_SERVER_PORT_2222, incoming);
+        Files.write(this.configurationFile, configuration.getBytes(StandardCharsets.UTF_8));
+        // Ensure that the modification is detected, even where the file system records the time that a file was modified in whole seconds.
+        if (exists) {
+            Files.setLastModifiedTime(this.configurationFile, FileTime.fromMillis(lastModified + TestConstants.TWO_SECONDS));
+        }
+    }
+
+    private void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        while (!condition.getAsBoolean()) {
+            TimeUnit.MILLISECONDS.sleep(TestConstants.ONE_TENTH_OF_A_SECOND);
+        }
+    }
+}
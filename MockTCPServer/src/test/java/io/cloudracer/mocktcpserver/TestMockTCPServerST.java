@@ -1,6 +1,7 @@
 package io.cloudracer.mocktcpserver;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -8,8 +9,13 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.logging.log4j.LogManager;
@@ -20,6 +26,7 @@ import org.junit.Test;
 
 import io.cloudracer.AbstractTestTools;
 import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.datastream.DataStream;
 import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
 
 /**
@@ -99,6 +106,95 @@ public class TestMockTCPServerST extends AbstractTestTools {
         this.checkLogMonitorForUnexpectedMessages();
     }
 
+    /**
+     * By default, the server callbacks are called on the Thread of the connection, before the message is acknowledged, and no event is published.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     * @throws ConfigurationException error reading the configuration file
+     * @throws ExecutionException the MockTCPServer failed to start
+     */
+    @Test(timeout = TIMEOUT)
+    public void synchronousCallbacks() throws IOException, InterruptedException, ConfigurationException, ExecutionException {
+        final List<String> callbackThreads = new CopyOnWriteArrayList<>();
+        server2222.close();
+        server2222 = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_2222, false) {
+
+            @Override
+            public void onMessage(final DataStream message) {
+                callbackThreads.add(Thread.currentThread().getName());
+            }
+        };
+        server2222.setIsSendResponses(false);
+        assertFalse(server2222.getIsAsynchronousCallbacks());
+        server2222.start();
+        server2222.getReadyFuture().get();
+
+        final TCPClient tcpClient = getClientFactory(TestConstants.MOCK_SERVER_PORT_2222);
+        clientList.add(tcpClient);
+        assertArrayEquals(TestConstants.getAck(), tcpClient.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+
+        assertEquals(1, callbackThreads.size());
+        assertFalse(callbackThreads.get(0).endsWith("-Events"));
+        // Without a listener, no event is published.
+        assertFalse(server2222.getEventDispatcher().hasListeners());
+        assertEquals(0, server2222.getEventDispatcher().getDeliveredCount());
+    }
+
+    /**
+     * If the server callbacks are asynchronous, they are delivered by the {@link EventDispatcher event dispatcher}, so a message is received, and acknowledged, while the server is locked; and every event is delivered to an added listener.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     * @throws ConfigurationException error reading the configuration file
+     * @throws ExecutionException the MockTCPServer failed to start
+     */
+    @Test(timeout = TIMEOUT)
+    public void eventsWithoutServerLock() throws IOException, InterruptedException, ConfigurationException, ExecutionException {
+        // Restart the server with asynchronous callbacks.
+        server1111.close();
+        server1111 = getServerFactory(TestConstants.MOCK_SERVER_PORT_1111, false);
+        server1111.setIsSendResponses(false);
+        server1111.setIsAsynchronousCallbacks(true);
+        server1111.start();
+        server1111.getReadyFuture().get();
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch delivered = new CountDownLatch(5);
+        server1111.getEventDispatcher().addListener(new EventDispatcher.Listener() {
+
+            @Override
+            public void onConnection(final String clientMachine, final int clientPort, final String serverMachine, final int serverPort) {
+                events.add(String.format("connection %d", serverPort));
+                delivered.countDown();
+            }
+
+            @Override
+            public void onMessage(final DataStream message) {
+                events.add(String.format("message %s", message));
+                delivered.countDown();
+            }
+
+            @Override
+            public void onResponse(final byte[] response) {
+                events.add(String.format("response %s", new String(response)));
+                delivered.countDown();
+            }
+        });
+
+        final TCPClient tcpClient = getClientFactory(TestConstants.MOCK_SERVER_PORT_1111);
+        clientList.add(tcpClient);
+        assertArrayEquals(TestConstants.getAck(), tcpClient.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+        synchronized (server1111) {
+            assertArrayEquals(TestConstants.getAck(), tcpClient.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+        }
+
+        assertTrue(delivered.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+        final String message = String.format("message %s", TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR);
+        final String response = String.format("response %s", new String(TestConstants.getAck()));
+        assertEquals(Arrays.asList(String.format("connection %d", TestConstants.MOCK_SERVER_PORT_1111), message, response, message, response), events);
+    }
+
     /**
      * Having set a customised terminator, the server returns the expected ACK to a message terminated with the custom terminator.
      *
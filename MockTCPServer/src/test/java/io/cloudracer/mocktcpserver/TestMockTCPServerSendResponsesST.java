@@ -1,18 +1,27 @@
 package io.cloudracer.mocktcpserver;
 
+import static org.junit.Assert.assertEquals;
+
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import io.cloudracer.AbstractTestTools;
 import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.datastream.DataStream;
+import io.cloudracer.mocktcpserver.responses.ResponseDAO;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
 
 /**
  * Mock TCP Server tests.
@@ -21,6 +30,8 @@ import io.cloudracer.TestConstants;
  */
 public class TestMockTCPServerSendResponsesST extends AbstractTestTools {
 
+    private static final int FILE_RESPONSE_LENGTH = 64 * 1024;
+
     @Override
     @Before
     public void setUp() throws IOException, ConfigurationException, InterruptedException {
@@ -48,4 +59,51 @@ public class TestMockTCPServerSendResponsesST extends AbstractTestTools {
 
         this.checkLogMonitorForUnexpectedMessages();
     }
-}
\ No newline at end of file
+
+    /**
+     * Test that a file response is sent, unaltered, in order with a message response.
+     *
+     * @throws IOException
+     * @throws InterruptedException
+     * @throws ConfigurationException
+     */
+    @Test(timeout = TestConstants.TEST_TIMEOUT_5_MINUTE)
+    public void sendFileResponse() throws IOException, InterruptedException, ConfigurationException {
+        final String fileContent = StringUtils.repeat('A', FILE_RESPONSE_LENGTH) + TestConstants.DEFAULT_TERMINATOR;
+        final Path file = Files.createTempFile(this.getClass().getSimpleName(), ".txt");
+        final List<String> actualMessages = new CopyOnWriteArrayList<>();
+        try {
+            Files.write(file, fileContent.getBytes());
+
+            final MockTCPServer mockTCPServer = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_5678) {
+
+                @Override
+                public void onMessage(DataStream message) {
+                    actualMessages.add(message.toString());
+
+                    if (actualMessages.size() == 2) {
+                        close();
+                    }
+                }
+            };
+
+            final TCPClient tcpClient = new TCPClient(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_5678);
+            tcpClient.addResponse(new ResponseDAO(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_5678, null, file));
+            tcpClient.addResponse(TestConstants.MACHINE_A_RESPONSE_MESSAGE);
+            assertEquals(Arrays.asList(file.toString(), TestConstants.MACHINE_A_RESPONSE_MESSAGE), tcpClient.getResponses());
+
+            final List<ResponseDAO> responsesSent = tcpClient.sendResponses();
+            assertEquals(file, responsesSent.get(0).getFile());
+
+            // Will close when the expected number of messages are received.
+            mockTCPServer.join();
+            tcpClient.close();
+        } finally {
+            Files.delete(file);
+        }
+
+        assertEquals(Arrays.asList(fileContent, StringEscapeUtils.unescapeJava(TestConstants.MACHINE_A_RESPONSE_MESSAGE)), actualMessages);
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+}
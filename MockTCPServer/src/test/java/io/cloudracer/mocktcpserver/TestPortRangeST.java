@@ -0,0 +1,192 @@
+package io.cloudracer.mocktcpserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.MockTCPServer.Engine;
+import io.cloudracer.mocktcpserver.bootstrap.Bootstrap;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+import io.cloudracer.properties.ConfigurationSettings;
+
+/**
+ * A server that listens on a range of ports, where every port is served by the shared event loops rather than a {@link Thread} per port.
+ *
+ * @author John McDonnell
+ */
+public class TestPortRangeST extends AbstractTestTools {
+
+    private final Logger logger = LogManager.getLogger(TestPortRangeST.class);
+
+    /**
+     * The number of ports listened on by the {@link #benchmark() benchmark}. Set this System Property to benchmark many more ports (e.g. 10000, if the file descriptor limit allows).
+     */
+    private static final String BENCHMARK_PORTS_PROPERTY_NAME = "mocktcpserver.benchmark.ports";
+    private static final int BENCHMARK_PORTS_DEFAULT = 1000;
+
+    private static final int FIRST_PORT = 20000;
+    private static final int LAST_PORT = 20009;
+    private static final int MAXIMUM_ADDITIONAL_THREADS = 10;
+
+    private Path folder;
+    private Path configurationFile;
+
+    @Override
+    @Before
+    public void setUp() throws IOException {
+        this.resetLogMonitor();
+
+        this.folder = Files.createTempDirectory(this.getClass().getSimpleName());
+        this.configurationFile = this.folder.resolve("mocktcpserver.xml");
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(this.folder.toFile());
+    }
+
+    /**
+     * Every port in the range is acknowledged by the single server that is configured for the range.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS * 2)
+    public void portRange() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        this.writeConfiguration(String.format("ports=\"%d-%d\"", FIRST_PORT, LAST_PORT));
+        final ConfigurationSettings configurationSettings = this.getSettings();
+        assertEquals(1, configurationSettings.getPorts().size());
+        assertEquals(LAST_PORT, configurationSettings.getLastPort(FIRST_PORT));
+        assertEquals(Engine.NIO, configurationSettings.getEngine(FIRST_PORT + 1));
+
+        try (final Bootstrap bootstrap = new Bootstrap()) {
+            bootstrap.startup(configurationSettings).get();
+
+            final MockTCPServer server = bootstrap.getServerPool().get(FIRST_PORT);
+            assertEquals(LAST_PORT, server.getLastPort());
+            assertEquals(Engine.NIO, server.getEngine());
+            assertSame(server, bootstrap.getServerPool().get(LAST_PORT));
+            assertNull(bootstrap.getServerPool().get(LAST_PORT + 1));
+
+            for (int port = FIRST_PORT; port <= LAST_PORT; port++) {
+                final TCPClient tcpClient = new TCPClient(port);
+                try {
+                    assertArrayEquals(TestConstants.getAck(), tcpClient.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+                } finally {
+                    tcpClient.close();
+                }
+            }
+
+            bootstrap.shutdown();
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A range of ports cannot be served by the {@link Engine#BLOCKING blocking engine}.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     */
+    @Test(expected = ConfigurationException.class)
+    public void blockingPortRange() throws ConfigurationException, IOException {
+        this.writeConfiguration(String.format("ports=\"%d-%d\" engine=\"blocking\"", FIRST_PORT, LAST_PORT));
+
+        this.getSettings().getEngine(FIRST_PORT);
+    }
+
+    /**
+     * Report the time taken to bind, and release, a range of ports; and the memory and threads used to listen on them.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEST_TIMEOUT_5_MINUTE)
+    public void benchmark() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        final int totalPorts = Integer.getInteger(BENCHMARK_PORTS_PROPERTY_NAME, BENCHMARK_PORTS_DEFAULT);
+        final int lastPort = FIRST_PORT + totalPorts - 1;
+
+        final int threadsBefore = Thread.activeCount();
+        final long memoryBefore = this.getUsedMemory();
+
+        final long start = System.nanoTime();
+        final MockTCPServer server = new MockTCPServer(FIRST_PORT, false);
+        server.setLastPort(lastPort);
+        server.start();
+        server.getReadyFuture().get();
+        final long startup = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        try {
+            final long memory = this.getUsedMemory() - memoryBefore;
+            final int threads = Thread.activeCount() - threadsBefore;
+
+            final TCPClient tcpClient = new TCPClient(lastPort);
+            try {
+                assertArrayEquals(TestConstants.getAck(), tcpClient.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+            } finally {
+                tcpClient.close();
+            }
+
+            this.logger.info(String.format("%d ports bound in %d milliseconds, using %d KB of heap and %d additional thread(s).", totalPorts, startup, memory / 1024, threads));
+            assertTrue(String.format("Unexpected number of threads: %d.", threads), threads < MAXIMUM_ADDITIONAL_THREADS);
+        } finally {
+            final long close = System.nanoTime();
+            server.close();
+            this.logger.info(String.format("%d ports released in %d milliseconds.", totalPorts, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - close)));
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private long getUsedMemory() {
+        System.gc();
+
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
+    private ConfigurationSettings getSettings() {
+        return new ConfigurationSettings() {
+
+            @Override
+            public URL getFileName() {
+                try {
+                    return TestPortRangeST.this.configurationFile.toUri().toURL();
+                } catch (final MalformedURLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private void writeConfiguration(final String serverAttributes) throws IOException {
+        final String configuration = String.format("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<configuration xmlns=\"http://mocktcpserver.cloudracer.io/schemas\">\n    <server %s />\n</configuration>\n", serverAttributes);
+        Files.write(this.configurationFile, configuration.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,9 +1,23 @@
 package io.cloudracer.mocktcpserver.bootstrap;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.lang3.StringEscapeUtils;
@@ -11,6 +25,11 @@ import org.junit.Test;
 
 import io.cloudracer.AbstractTestTools;
 import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.MessageDelivery;
+import io.cloudracer.mocktcpserver.MessageEvent;
+import io.cloudracer.mocktcpserver.bootstrap.MockTCPServerPool.Status;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+import io.cloudracer.properties.ConfigurationSettings;
 
 /**
  * Bootstrap multiple servers using details from the configuration file.
@@ -25,11 +44,13 @@ public class TestBootstrap extends AbstractTestTools {
      * @throws ConfigurationException error reading the configuration file
      * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
      * @throws IOException error while sending responses
+     * @throws ExecutionException a server failed to start
      */
     @Test(timeout = TestConstants.TEST_TIMEOUT_5_MINUTE)
-    public void startup() throws ConfigurationException, InterruptedException, IOException {
+    public void startup() throws ConfigurationException, InterruptedException, IOException, ExecutionException {
         try (final Bootstrap bootstrap = new Bootstrap();) {
-            bootstrap.startup();
+            bootstrap.startup().get();
+            assertEquals(Status.STARTED, bootstrap.getStatus());
 
             final List<String> expectedMessages = new ArrayList<>(Arrays.asList(StringEscapeUtils.unescapeJava(TestConstants.MACHINE_A_RESPONSE_MESSAGE), StringEscapeUtils.unescapeJava(TestConstants.MACHINE_B_RESPONSE_MESSAGE)));
 
@@ -41,4 +62,121 @@ public class TestBootstrap extends AbstractTestTools {
             bootstrap.shutdown();
         }
     }
+
+    /**
+     * A listener added to the Bootstrap receives the messages of every server in its pool.
+     *
+     * @throws ConfigurationException error reading the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     * @throws ExecutionException a server failed to start
+     * @throws IOException error while sending a message
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void messageListener() throws ConfigurationException, InterruptedException, ExecutionException, IOException {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final CountDownLatch received = new CountDownLatch(TestConstants.PORT_SET.size());
+
+        try (final Bootstrap bootstrap = new Bootstrap()) {
+            bootstrap.startup().get();
+            final MessageDelivery messageDelivery = bootstrap.addMessageListener(batch -> {
+                for (final MessageEvent event : batch) {
+                    messages.add(event.toString());
+                    received.countDown();
+                }
+            });
+
+            final List<String> expectedMessages = new ArrayList<>();
+            for (final Integer port : TestConstants.PORT_SET) {
+                final String message = String.format("Unknown %d%s", port, TestConstants.DEFAULT_TERMINATOR);
+                final TCPClient tcpClient = new TCPClient(port);
+                try {
+                    assertArrayEquals(TestConstants.getAck(), tcpClient.send(message).toByteArray());
+                } finally {
+                    tcpClient.close();
+                }
+                expectedMessages.add(String.format("%d: %s", port, message));
+            }
+
+            assertTrue(received.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+            assertEquals(new HashSet<>(expectedMessages), new HashSet<>(messages));
+
+            // The delivery is closed, once its messages are delivered, when the pool is shutdown.
+            bootstrap.shutdown();
+            assertEquals(TestConstants.PORT_SET.size(), messageDelivery.getDeliveredCount());
+            assertEquals(0, messageDelivery.getDroppedCount());
+        }
+
+        checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Every port is accepting connections as soon as the pool is ready, and every server is closed as soon as the pool is shutdown.
+     *
+     * @throws ConfigurationException error reading the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     * @throws ExecutionException a server failed to start
+     * @throws IOException error while connecting to a server
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void lifecycle() throws ConfigurationException, InterruptedException, ExecutionException, IOException {
+        final Bootstrap bootstrap = new Bootstrap();
+        assertEquals(Status.STARTING, bootstrap.getStatus());
+
+        final MockTCPServerPool serverPool = bootstrap.startup().get();
+        assertEquals(Status.STARTED, bootstrap.getStatus());
+        for (final Integer port : TestConstants.PORT_SET) {
+            try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                assertTrue(socket.isConnected());
+            }
+        }
+
+        bootstrap.shutdown();
+        assertTrue(bootstrap.awaitShutdown(0, TimeUnit.MILLISECONDS));
+        assertEquals(Status.STOPPED, bootstrap.getStatus());
+        for (final Integer port : TestConstants.PORT_SET) {
+            assertTrue(serverPool.get(port).awaitClosed(0, TimeUnit.MILLISECONDS));
+        }
+        bootstrap.join(TestConstants.ONE_SECOND);
+        assertFalse(bootstrap.isAlive());
+
+        checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Each server is got from the Bootstrap, as well as from its server pool.
+     *
+     * @throws ConfigurationException error reading the configuration file
+     * @throws InterruptedException the MockTCPServer was unexpectedly interrupted
+     * @throws ExecutionException a server failed to start
+     * @throws IOException error while closing the servers
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void get() throws ConfigurationException, InterruptedException, ExecutionException, IOException {
+        try (final Bootstrap bootstrap = new Bootstrap()) {
+            bootstrap.startup().get();
+
+            for (final Integer port : TestConstants.PORT_SET) {
+                assertEquals(port.intValue(), bootstrap.get(port).getPort());
+                assertSame(bootstrap.getServerPool().get(port), bootstrap.get(port));
+            }
+        }
+
+        checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * The configuration of each pool is its own, so that two pools in one JVM do not share it.
+     */
+    @Test
+    public void configurationSettingsPerPool() {
+        final Bootstrap first = new Bootstrap();
+        final Bootstrap second = new Bootstrap();
+        final ConfigurationSettings configurationSettings = new ConfigurationSettings();
+        first.setConfigurationSettings(configurationSettings);
+
+        assertSame(configurationSettings, first.getConfigurationSettings());
+        assertNotSame(configurationSettings, second.getConfigurationSettings());
+
+        checkLogMonitorForUnexpectedMessages();
+    }
 }
@@ -0,0 +1,253 @@
+package io.cloudracer.mocktcpserver.journal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+
+/**
+ * Records appended to, and tailed from, a {@link CaptureJournal}.
+ *
+ * @author John McDonnell
+ */
+public class TestCaptureJournalUT extends AbstractTestTools {
+
+    private final Logger logger = LogManager.getLogger(TestCaptureJournalUT.class);
+
+    /**
+     * The number of records appended by the {@link #benchmark() benchmark}. Set this System Property to benchmark many more records.
+     */
+    private static final String BENCHMARK_RECORDS_PROPERTY_NAME = "mocktcpserver.benchmark.journal";
+    private static final int BENCHMARK_RECORDS_DEFAULT = 1000000;
+    private static final int TOTAL_WRITERS = 4;
+    private static final int RECORDS_PER_WRITER = 2000;
+    /**
+     * Small enough that the records roll over many segments.
+     */
+    private static final int SEGMENT_SIZE = 4096;
+
+    private static final int PORT = 1;
+    private static final byte[] ACK = TestConstants.getAck();
+
+    private Path folder;
+
+    @Override
+    @Before
+    public void setUp() throws IOException {
+        this.resetLogMonitor();
+
+        this.folder = Files.createTempDirectory(this.getClass().getSimpleName());
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(this.folder.toFile());
+    }
+
+    /**
+     * Each record is read back as it was appended, including a record without a response.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void appendAndRead() throws IOException {
+        try (final CaptureJournal journal = new CaptureJournal(this.folder, SEGMENT_SIZE); final JournalReader reader = new JournalReader(this.folder)) {
+            assertNull(reader.poll());
+
+            assertTrue(journal.append(1, PORT, 2, this.getMessage(0), ACK));
+            assertTrue(journal.append(3, PORT, 4, this.getMessage(1), null));
+            assertEquals(2, journal.getAppendedCount());
+
+            final JournalRecord first = reader.poll();
+            assertEquals(1, first.getTimestamp());
+            assertEquals(PORT, first.getPort());
+            assertEquals(2, first.getConnectionId());
+            assertArrayEquals(this.getMessage(0), first.getMessage());
+            assertArrayEquals(ACK, first.getResponse());
+
+            final JournalRecord second = reader.poll();
+            assertEquals(4, second.getConnectionId());
+            assertArrayEquals(this.getMessage(1), second.getMessage());
+            assertNull(second.getResponse());
+
+            assertNull(reader.poll());
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * When a segment is full, the records continue in the next segment; and a record that is larger than a segment is refused.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void roll() throws IOException {
+        final int totalRecords = 500;
+        try (final CaptureJournal journal = new CaptureJournal(this.folder, SEGMENT_SIZE)) {
+            for (int i = 0; i < totalRecords; i++) {
+                journal.append(i, PORT, 0, this.getMessage(i), ACK);
+            }
+            try {
+                journal.append(0, PORT, 0, new byte[SEGMENT_SIZE], ACK);
+                throw new AssertionError("A record larger than a segment was appended.");
+            } catch (final IOException e) {
+                // Expected.
+            }
+        }
+        assertTrue(JournalSegment.getIndexes(this.folder).size() > 1);
+
+        try (final JournalReader reader = new JournalReader(this.folder)) {
+            for (int i = 0; i < totalRecords; i++) {
+                final JournalRecord record = reader.poll();
+                assertEquals(i, record.getTimestamp());
+                assertArrayEquals(this.getMessage(i), record.getMessage());
+            }
+            assertNull(reader.poll());
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Records appended concurrently are each read exactly once, and in the order that each writer appended them, by a reader that tails the journal while it is being written.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.ONE_MINUTE)
+    public void concurrentWriters() throws IOException, InterruptedException, ExecutionException {
+        final ExecutorService writers = Executors.newFixedThreadPool(TOTAL_WRITERS);
+        try (final CaptureJournal journal = new CaptureJournal(this.folder, SEGMENT_SIZE); final JournalReader reader = new JournalReader(this.folder)) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < TOTAL_WRITERS; writer++) {
+                final long connectionId = writer;
+                futures.add(writers.submit(() -> {
+                    for (int i = 0; i < RECORDS_PER_WRITER; i++) {
+                        journal.append(System.currentTimeMillis(), PORT, connectionId, this.getMessage(i), ACK);
+                    }
+
+                    return null;
+                }));
+            }
+
+            final Map<Long, Integer> nextMessages = new HashMap<>();
+            for (int i = 0; i < TOTAL_WRITERS * RECORDS_PER_WRITER; i++) {
+                final JournalRecord record = reader.poll(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS);
+                assertNotNull(record);
+
+                final int nextMessage = nextMessages.getOrDefault(record.getConnectionId(), 0);
+                assertArrayEquals(this.getMessage(nextMessage), record.getMessage());
+                nextMessages.put(record.getConnectionId(), nextMessage + 1);
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            assertNull(reader.poll());
+            assertEquals(TOTAL_WRITERS * RECORDS_PER_WRITER, journal.getAppendedCount());
+        } finally {
+            writers.shutdownNow();
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A journal that is opened again continues in a new segment, after the records already written; and a closed journal refuses further records.
+     *
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void reopen() throws IOException {
+        final CaptureJournal first = new CaptureJournal(this.folder, SEGMENT_SIZE);
+        first.append(0, PORT, 0, this.getMessage(0), ACK);
+        first.close();
+        assertFalse(first.append(1, PORT, 0, this.getMessage(1), ACK));
+        assertEquals(1, first.getDroppedCount());
+
+        try (final CaptureJournal second = new CaptureJournal(this.folder, SEGMENT_SIZE)) {
+            second.append(2, PORT, 0, this.getMessage(2), ACK);
+        }
+
+        try (final JournalReader reader = new JournalReader(this.folder)) {
+            assertEquals(0, reader.poll().getTimestamp());
+            assertEquals(2, reader.poll().getTimestamp());
+            assertNull(reader.poll());
+            // Both segments were closed, so the reader waits for the segment that follows them.
+            assertEquals(2, reader.getSegmentIndex());
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Report the rate at which concurrent writers append records with segments of the {@link CaptureJournal#DEFAULT_SEGMENT_SIZE default size}.
+     *
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEST_TIMEOUT_5_MINUTE)
+    public void benchmark() throws IOException, InterruptedException, ExecutionException {
+        final int totalRecords = Integer.getInteger(BENCHMARK_RECORDS_PROPERTY_NAME, BENCHMARK_RECORDS_DEFAULT);
+        final byte[] message = TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR.getBytes(StandardCharsets.UTF_8);
+
+        final ExecutorService writers = Executors.newFixedThreadPool(TOTAL_WRITERS);
+        try (final CaptureJournal journal = new CaptureJournal(this.folder)) {
+            final List<Future<?>> futures = new ArrayList<>();
+            final long start = System.nanoTime();
+            for (int writer = 0; writer < TOTAL_WRITERS; writer++) {
+                final long connectionId = writer;
+                futures.add(writers.submit(() -> {
+                    for (int i = 0; i < totalRecords / TOTAL_WRITERS; i++) {
+                        journal.append(System.currentTimeMillis(), PORT, connectionId, message, ACK);
+                    }
+
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            final long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            this.logger.info(String.format("%d records appended by %d writers in %d milliseconds (%d records per second), in %d segments.", journal.getAppendedCount(), TOTAL_WRITERS, elapsed, journal.getAppendedCount() * 1000L / elapsed, JournalSegment.getIndexes(this.folder).size()));
+        } finally {
+            writers.shutdownNow();
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private byte[] getMessage(final int index) {
+        return String.format("Message %d%s", index, TestConstants.DEFAULT_TERMINATOR).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,159 @@
+package io.cloudracer.mocktcpserver.replay;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.MockTCPServer;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+
+/**
+ * Replay the traffic captured by a server, or a file of messages, against another server.
+ *
+ * @author John McDonnell
+ */
+public class TestReplayST extends AbstractTestTools {
+
+    /**
+     * The pause between the captured messages of a connection.
+     */
+    private static final long GAP = TestConstants.ONE_TENTH_OF_A_SECOND * 3;
+    private static final int TOTAL_MESSAGES = 4;
+
+    private MockTCPServer server;
+    private Path folder;
+
+    @Override
+    @Before
+    public void setUp() throws IOException {
+        this.resetLogMonitor();
+
+        this.folder = Files.createTempDirectory(this.getClass().getSimpleName());
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        IOUtils.closeQuietly(this.server);
+        FileUtils.deleteDirectory(this.folder.toFile());
+    }
+
+    /**
+     * A captured journal is replayed at its original timing, and as fast as possible; and the responses of the target are compared with the captured responses.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.ONE_MINUTE)
+    public void replayJournal() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        final Path journal = this.capture().resolve(String.valueOf(TestConstants.MOCK_SERVER_PORT_2222));
+
+        this.startServer(false);
+        final Replay replay = new Replay(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_2222);
+        replay.replay(journal);
+        assertEquals(TOTAL_MESSAGES, replay.getSentCount());
+        assertEquals(TOTAL_MESSAGES, replay.getAckCount());
+        assertEquals(0, replay.getMismatchCount());
+        assertEquals(0, replay.getFailedCount());
+        // The messages of the first connection were captured with two pauses between them.
+        assertTrue(replay.getElapsed() >= GAP * 2 - TestConstants.ONE_TENTH_OF_A_SECOND);
+
+        replay.setSpeed(Replay.AS_FAST_AS_POSSIBLE);
+        replay.replayJournal(journal);
+        assertEquals(TOTAL_MESSAGES, replay.getAckCount());
+        assertTrue(replay.getElapsed() < GAP * 2);
+        this.server.close();
+
+        // A target that responds differently is reported.
+        this.startServer(true);
+        replay.replayJournal(journal);
+        assertEquals(TOTAL_MESSAGES, replay.getNakCount());
+        assertEquals(TOTAL_MESSAGES, replay.getMismatchCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Each line of a file of messages is unescaped, terminated, sent and acknowledged; on one connection, or spread over several.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.ONE_MINUTE)
+    public void replayFile() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        final Path file = this.folder.resolve("messages.txt");
+        Files.write(file, Arrays.asList(TestConstants.WELLFORMED_XML, "", StringEscapeUtils.escapeJava("Line one\nLine two"), TestConstants.WELLFORMED_XML), StandardCharsets.UTF_8);
+
+        this.startServer(false);
+        final Replay replay = new Replay(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_2222);
+        replay.replay(file);
+        assertEquals(3, replay.getSentCount());
+        assertEquals(3, replay.getAckCount());
+
+        replay.setConnectionCount(2);
+        replay.replayFile(file);
+        assertEquals(3, replay.getAckCount());
+        assertEquals(0, replay.getFailedCount());
+        this.server.close();
+
+        // Once the target cannot be reached, the messages are reported as failed rather than sent.
+        replay.replayFile(file);
+        assertEquals(0, replay.getSentCount());
+        assertEquals(3, replay.getFailedCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * Capture the messages of two connections in a journal.
+     */
+    private Path capture() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        final Path directory = this.folder.resolve("capture");
+        this.server = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_2222, false);
+        this.server.setJournalDirectory(directory);
+        this.server.start();
+        this.server.getReadyFuture().get();
+
+        try (final TCPClient first = new TCPClient(TestConstants.MOCK_SERVER_PORT_2222); final TCPClient second = new TCPClient(TestConstants.MOCK_SERVER_PORT_2222)) {
+            for (int i = 0; i < TOTAL_MESSAGES - 1; i++) {
+                if (i > 0) {
+                    TimeUnit.MILLISECONDS.sleep(GAP);
+                }
+                assertArrayEquals(TestConstants.getAck(), first.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+            }
+            assertArrayEquals(TestConstants.getAck(), second.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+        }
+        this.server.close();
+
+        return directory;
+    }
+
+    private void startServer(final boolean isAlwaysNAKResponse) throws ConfigurationException, InterruptedException, ExecutionException {
+        this.server = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_2222, false);
+        this.server.setIsAlwaysNAKResponse(isAlwaysNAKResponse);
+        this.server.start();
+        this.server.getReadyFuture().get();
+    }
+}
@@ -0,0 +1,112 @@
+package io.cloudracer.mocktcpserver.responses;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.responses.MessagePattern.MatchType;
+
+/**
+ * Benchmark the cost of matching a received message against many rules at once.
+ * <p>
+ * The result depends upon the JIT compiler, garbage collection and the load on the machine, so this class is not named as a test and is not run by the test suite; run it on request, with <code>mvn test -Dtest=PatternMatcherBenchmark</code>.
+ *
+ * @author John McDonnell
+ */
+public class PatternMatcherBenchmark extends AbstractTestTools {
+
+    private final Logger logger = LogManager.getLogger();
+
+    @Override
+    @Before
+    public void setUp() {
+        this.resetLogMonitor();
+    }
+
+    /**
+     * Benchmark the cost of a match with 10, 1,000 and 100,000 rules (a third of each are prefix, contains and Regular Expression rules). The cost should be largely independent of the number of rules; it is asserted, generously, that the cost with 100,000 rules is within fifty times the cost with 10 rules (matching each rule in turn would be ten thousand times the cost).
+     */
+    @Test(timeout = TestConstants.TEST_TIMEOUT_5_MINUTE)
+    public void benchmark() {
+        final int[] ruleCounts = { 10, 1000, 100000 };
+        final double[] nanosecondsPerMatch = new double[ruleCounts.length];
+
+        for (int i = 0; i < ruleCounts.length; i++) {
+            nanosecondsPerMatch[i] = this.benchmark(ruleCounts[i]);
+        }
+
+        assertTrue(String.format("%.0fns per match with %d rules, compared to %.0fns with %d rules.", nanosecondsPerMatch[2], ruleCounts[2], nanosecondsPerMatch[0], ruleCounts[0]), nanosecondsPerMatch[2] < nanosecondsPerMatch[0] * 50);
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private double benchmark(final int ruleCount) {
+        final int rulesPerType = Math.max(1, ruleCount / 3);
+        final List<MessagePattern> patterns = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            final int rule = i / 3;
+            switch (i % 3) {
+            case 0:
+                patterns.add(new MessagePattern(MatchType.PREFIX, String.format("P%06d:", rule)));
+                break;
+            case 1:
+                patterns.add(new MessagePattern(MatchType.CONTAINS, String.format("C%06d", rule)));
+                break;
+            default:
+                patterns.add(new MessagePattern(MatchType.REGEX, String.format("R%06d-\\d+", rule)));
+            }
+        }
+
+        final long buildStart = System.nanoTime();
+        final PatternMatcher patternMatcher = new PatternMatcher(patterns);
+        final long buildDuration = System.nanoTime() - buildStart;
+
+        final byte[][] messages = new byte[64][];
+        for (int i = 0; i < messages.length; i++) {
+            final int rule = (i * 7919) % rulesPerType;
+            final String message;
+            switch (i % 4) {
+            case 0:
+                message = String.format("P%06d:a payload of moderate length", rule);
+                break;
+            case 1:
+                message = String.format("a payload that contains C%06d somewhere", rule);
+                break;
+            case 2:
+                message = String.format("R%06d-1234567890", rule);
+                break;
+            default:
+                message = "a payload of moderate length that matches no rule";
+            }
+            messages[i] = message.getBytes(StandardCharsets.UTF_8);
+        }
+
+        final int iterations = 200000;
+        int matches = 0;
+        // Warm up, so that the JIT compiler has run, before measuring.
+        for (int i = 0; i < iterations; i++) {
+            matches += patternMatcher.match(messages[i % messages.length], 0, messages[i % messages.length].length) == PatternMatcher.NO_MATCH ? 0 : 1;
+        }
+        final long matchStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            matches += patternMatcher.match(messages[i % messages.length], 0, messages[i % messages.length].length) == PatternMatcher.NO_MATCH ? 0 : 1;
+        }
+        final double nanosecondsPerMatch = (double) (System.nanoTime() - matchStart) / iterations;
+
+        assertEquals(iterations * 2 * 3 / 4, matches);
+        this.logger.info(String.format("%d rules: compiled in %dms; %.0fns per match.", ruleCount, TimeUnit.NANOSECONDS.toMillis(buildDuration), nanosecondsPerMatch));
+
+        return nanosecondsPerMatch;
+    }
+}
@@ -1,8 +1,11 @@
 package io.cloudracer.mocktcpserver.responses;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -54,4 +57,20 @@ public class ResponseDAOST extends AbstractTestTools {
 
         this.checkLogMonitorForUnexpectedMessages();
     }
-}
\ No newline at end of file
+
+    /**
+     * Create a {@link ResponseDAO} object that sends the content of a file.
+     */
+    @Test(timeout = TIMEOUT)
+    public void createFileResponseDAO() {
+        final Path file = Paths.get("response.txt");
+        final ResponseDAO responseDAO = new ResponseDAO(TestConstants.MACHINE_A_NAME, TestConstants.MACHINE_A_PORT, null, file);
+
+        assertEquals(file, responseDAO.getFile());
+        assertEquals(String.format("%s [machineName=%s, port=%d, response=null, file=%s]", ResponseDAO.class.getSimpleName(), TestConstants.MACHINE_A_NAME, TestConstants.MACHINE_A_PORT, file), responseDAO.toString());
+        assertEquals(responseDAO, new ResponseDAO(TestConstants.MACHINE_A_NAME, TestConstants.MACHINE_A_PORT, null, file));
+        assertNotEquals(responseDAO, new ResponseDAO(TestConstants.MACHINE_A_NAME, TestConstants.MACHINE_A_PORT, null));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+}
@@ -0,0 +1,133 @@
+package io.cloudracer.mocktcpserver.responses;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.mocktcpserver.responses.MessagePattern.MatchType;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+
+/**
+ * Match received messages against many rules at once.
+ *
+ * @author John McDonnell
+ */
+public class TestPatternMatcherUT extends AbstractTestTools {
+
+    @Override
+    @Before
+    public void setUp() {
+        this.resetLogMonitor();
+    }
+
+    /**
+     * Each match type matches as specified, and the first matching rule (in the order that the rules were specified) is identified.
+     */
+    @Test
+    public void match() {
+        final PatternMatcher patternMatcher = new PatternMatcher(Arrays.asList(
+                new MessagePattern(MatchType.REGEX, "(?s)Order:\\d+ .*"),
+                new MessagePattern(MatchType.PREFIX, "Order:"),
+                new MessagePattern(MatchType.CONTAINS, "urgent"),
+                new MessagePattern(MatchType.EXACT, "Ping"),
+                new MessagePattern(MatchType.REGEX, "(Invoice|Receipt):[A-Z]+"),
+                new MessagePattern(MatchType.PREFIX, "")));
+
+        assertEquals(0, this.match(patternMatcher, "Order:42 for Gerät"));
+        assertEquals(1, this.match(patternMatcher, "Order:x urgent"));
+        assertEquals(2, this.match(patternMatcher, "An urgent message"));
+        assertEquals(3, this.match(patternMatcher, "Ping"));
+        assertEquals(4, this.match(patternMatcher, "Receipt:ABC"));
+        assertEquals(5, this.match(patternMatcher, "Pong"));
+        assertEquals(5, this.match(patternMatcher, ""));
+
+        final PatternMatcher withoutDefault = new PatternMatcher(Arrays.asList(new MessagePattern(MatchType.EXACT, "Ping"), new MessagePattern(MatchType.CONTAINS, "abcab")));
+        assertEquals(PatternMatcher.NO_MATCH, this.match(withoutDefault, "Pings"));
+        assertEquals(1, this.match(withoutDefault, "xxabcabcab"));
+        assertEquals(PatternMatcher.NO_MATCH, this.match(withoutDefault, "abcaabca"));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * The literal that prefilters a Regular Expression is one that every match must contain; or none, if that cannot be determined.
+     */
+    @Test
+    public void requiredLiteral() {
+        assertEquals("Order:", PatternMatcher.requiredLiteral("(?s)Order:\\d+ .*"));
+        assertEquals("-ORDER-", PatternMatcher.requiredLiteral("[A-Z]{3}-ORDER-(\\d+)"));
+        assertEquals("xa.", PatternMatcher.requiredLiteral("xa\\.b?c+"));
+        assertEquals("Total", PatternMatcher.requiredLiteral("Total\\x41"));
+        assertNull(PatternMatcher.requiredLiteral("(Invoice|Receipt):.*"));
+        assertNull(PatternMatcher.requiredLiteral("(?i)Order:.*"));
+        assertNull(PatternMatcher.requiredLiteral(".*"));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * The responses to a message that is not equal to an exact message are routed by the first matching rule.
+     */
+    @Test
+    public void routingTable() {
+        final Map<String, Set<TCPClient>> responses = new HashMap<>();
+        final Map<MessagePattern, Set<TCPClient>> patternResponses = new LinkedHashMap<>();
+        final TCPClient exactClient = new TCPClient(1);
+        final TCPClient prefixClient = new TCPClient(2);
+        responses.put("Order:1", Collections.singleton(exactClient));
+        patternResponses.put(new MessagePattern(MatchType.PREFIX, "Order:"), Collections.singleton(prefixClient));
+
+        final RoutingTable routingTable = new RoutingTable(responses, patternResponses);
+
+        assertEquals(Collections.singleton(exactClient), routingTable.get("Order:1"));
+        assertEquals(Collections.singleton(prefixClient), routingTable.get("Order:2"));
+        assertNull(routingTable.get("Invoice:1"));
+        assertEquals(2, routingTable.size());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * With many rules of each type, every message is matched by the rule that it was written for; see {@link PatternMatcherBenchmark} for the cost of a match.
+     */
+    @Test
+    public void manyRules() {
+        final int rulesPerType = 1000;
+        final List<MessagePattern> patterns = new ArrayList<>(rulesPerType * 3);
+        for (int rule = 0; rule < rulesPerType; rule++) {
+            patterns.add(new MessagePattern(MatchType.PREFIX, String.format("P%06d:", rule)));
+            patterns.add(new MessagePattern(MatchType.CONTAINS, String.format("C%06d", rule)));
+            patterns.add(new MessagePattern(MatchType.REGEX, String.format("R%06d-\\d+", rule)));
+        }
+        final PatternMatcher patternMatcher = new PatternMatcher(patterns);
+
+        for (int rule = 0; rule < rulesPerType; rule += 97) {
+            assertEquals(rule * 3, this.match(patternMatcher, String.format("P%06d:a payload", rule)));
+            assertEquals(rule * 3 + 1, this.match(patternMatcher, String.format("a payload that contains C%06d somewhere", rule)));
+            assertEquals(rule * 3 + 2, this.match(patternMatcher, String.format("R%06d-1234567890", rule)));
+        }
+        assertEquals(PatternMatcher.NO_MATCH, this.match(patternMatcher, "a payload that matches no rule"));
+        assertEquals(PatternMatcher.NO_MATCH, this.match(patternMatcher, String.format("R%06d-x", 1)));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private int match(final PatternMatcher patternMatcher, final String message) {
+        final byte[] buffer = String.format("xx%syy", message).getBytes(StandardCharsets.UTF_8);
+
+        return patternMatcher.match(buffer, 2, buffer.length - 4);
+    }
+}
@@ -0,0 +1,81 @@
+package io.cloudracer.mocktcpserver.responses;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.tcpclient.TCPClient;
+
+/**
+ * Route received messages, as they lie in a receive buffer, to the clients that send their responses.
+ *
+ * @author John McDonnell
+ */
+public class TestRoutingTableUT extends AbstractTestTools {
+
+    private static final String NON_ASCII_MESSAGE = "Nachricht für Gerät";
+
+    private final TCPClient clientA = new TCPClient(TestConstants.MACHINE_A_NAME, TestConstants.MACHINE_A_RESPONSE_PORT);
+    private final TCPClient clientB = new TCPClient(TestConstants.MACHINE_B_NAME, TestConstants.MACHINE_B_RESPONSE_PORT);
+
+    @Override
+    @Before
+    public void setUp() {
+        this.resetLogMonitor();
+    }
+
+    /**
+     * A message is found where it lies within a buffer, and a message without responses is not found.
+     */
+    @Test
+    public void lookupWithinBuffer() {
+        final RoutingTable routingTable = new RoutingTable(this.getResponses());
+        final byte[] buffer = String.format("xx%s%syy", TestConstants.INCOMING_MESSAGE_ONE, TestConstants.DEFAULT_TERMINATOR).getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(Collections.singleton(this.clientA), routingTable.get(buffer, 2, TestConstants.INCOMING_MESSAGE_ONE.length()));
+        assertNull(routingTable.get(buffer, 2, TestConstants.INCOMING_MESSAGE_ONE.length() - 1));
+        assertNull(routingTable.get(buffer, 0, buffer.length));
+        assertEquals(Collections.singleton(this.clientB), routingTable.get(NON_ASCII_MESSAGE));
+        assertEquals(2, routingTable.size());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * The table is not affected by changes to the responses that it was compiled from.
+     */
+    @Test
+    public void immutable() {
+        final Map<String, Set<TCPClient>> responses = this.getResponses();
+        final RoutingTable routingTable = new RoutingTable(responses);
+
+        responses.get(TestConstants.INCOMING_MESSAGE_ONE).add(this.clientB);
+        responses.clear();
+
+        assertEquals(Collections.singleton(this.clientA), routingTable.get(TestConstants.INCOMING_MESSAGE_ONE));
+        assertTrue(RoutingTable.EMPTY.isEmpty());
+        assertNull(RoutingTable.EMPTY.get(TestConstants.INCOMING_MESSAGE_ONE));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private Map<String, Set<TCPClient>> getResponses() {
+        final Map<String, Set<TCPClient>> responses = new HashMap<>();
+        responses.put(TestConstants.INCOMING_MESSAGE_ONE, new HashSet<>(Collections.singleton(this.clientA)));
+        responses.put(NON_ASCII_MESSAGE, new HashSet<>(Collections.singleton(this.clientB)));
+
+        return responses;
+    }
+}
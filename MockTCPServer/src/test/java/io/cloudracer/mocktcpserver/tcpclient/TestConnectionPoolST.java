@@ -0,0 +1,196 @@
+package io.cloudracer.mocktcpserver.tcpclient;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.MockTCPServer;
+import io.cloudracer.mocktcpserver.datastream.DataStream;
+
+/**
+ * Persistent, outbound, connections that are reused, capped and replaced by a {@link ConnectionPool}.
+ *
+ * @author John McDonnell
+ */
+public class TestConnectionPoolST extends AbstractTestTools {
+
+    private static final int TOTAL_MESSAGES = 5;
+
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private volatile CountDownLatch receivedLatch;
+
+    private MockTCPServer destination;
+    private MockTCPServer server;
+
+    @Override
+    @Before
+    public void setUp() throws IOException {
+        this.resetLogMonitor();
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        IOUtils.closeQuietly(this.server);
+        IOUtils.closeQuietly(this.destination);
+    }
+
+    /**
+     * Every message is sent on the same connection, although the destination acknowledges each message and the acknowledgements are never read.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void reuse() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        this.startDestination(TOTAL_MESSAGES);
+
+        try (final ConnectionPool pool = new ConnectionPool()) {
+            for (int i = 0; i < TOTAL_MESSAGES; i++) {
+                this.send(pool);
+            }
+
+            assertTrue(this.receivedLatch.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+            assertEquals(1, pool.getCreatedCount());
+            assertEquals(TOTAL_MESSAGES - 1, pool.getReusedCount());
+            assertEquals(0, pool.getDiscardedCount());
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * When every connection to a destination is in use, a connection is not acquired until one is released.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void maximumConnections() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        this.startDestination(0);
+
+        try (final ConnectionPool pool = new ConnectionPool(1, TestConstants.ONE_TENTH_OF_A_SECOND)) {
+            final TCPClient connection = pool.acquire(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_5678);
+            try {
+                pool.acquire(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_5678);
+                throw new AssertionError("A connection was acquired beyond the maximum.");
+            } catch (final IOException e) {
+                // Expected.
+            }
+
+            pool.release(connection);
+            assertSame(connection, pool.acquire(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_5678));
+            pool.release(connection);
+            assertEquals(1, pool.getCreatedCount());
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A connection that the destination has closed is not reused; it is discarded, and the message is sent on a new connection.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void reconnect() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        this.startDestination(1);
+
+        try (final ConnectionPool pool = new ConnectionPool(1, TestConstants.FIVE_SECONDS)) {
+            final TCPClient closed = this.send(pool);
+            assertTrue(this.receivedLatch.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+            // Restart the destination, which closes the connection.
+            this.destination.close();
+            this.startDestination(1);
+
+            assertNotSame(closed, this.send(pool));
+            assertTrue(this.receivedLatch.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+            assertEquals(1, pool.getDiscardedCount());
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * The responses that a server sends, for each message that it receives, are sent on a pooled connection to each destination.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     * @throws ExecutionException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void serverResponses() throws ConfigurationException, IOException, InterruptedException, ExecutionException {
+        // The server sends two responses to the destination for each message.
+        this.startDestination(TOTAL_MESSAGES * 2);
+        this.server = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_6789, false);
+        // Pooling is off by default.
+        assertEquals(MockTCPServer.DEFAULT_MAXIMUM_OUTBOUND_CONNECTIONS, this.server.getMaximumOutboundConnections());
+        this.server.setMaximumOutboundConnections(ConnectionPool.DEFAULT_MAXIMUM_CONNECTIONS);
+        this.server.start();
+        this.server.getReadyFuture().get();
+
+        try (final TCPClient client = new TCPClient(TestConstants.MOCK_SERVER_PORT_6789)) {
+            for (int i = 0; i < TOTAL_MESSAGES; i++) {
+                assertArrayEquals(TestConstants.getAck(), client.send(TestConstants.WELLFORMED_XML_WITH_VALID_TERMINATOR).toByteArray());
+            }
+        }
+
+        assertTrue(this.receivedLatch.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+        assertTrue(this.received.contains(StringEscapeUtils.unescapeJava(TestConstants.MACHINE_A_RESPONSE_MESSAGE)));
+        assertTrue(this.received.contains(StringEscapeUtils.unescapeJava(TestConstants.MACHINE_B_RESPONSE_MESSAGE)));
+        assertEquals(1, this.server.getConnectionPool().getCreatedCount());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private TCPClient send(final ConnectionPool pool) throws IOException {
+        final TCPClient responses = new TCPClient(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_5678);
+        responses.addResponse(TestConstants.MACHINE_A_RESPONSE_MESSAGE);
+
+        final TCPClient connection = pool.acquire(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_5678);
+        responses.sendResponses(connection);
+        pool.release(connection);
+
+        return connection;
+    }
+
+    private void startDestination(final int expectedMessages) throws ConfigurationException, InterruptedException, ExecutionException {
+        this.receivedLatch = new CountDownLatch(expectedMessages);
+        this.destination = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_5678, false) {
+
+            @Override
+            public void onMessage(final DataStream message) {
+                TestConnectionPoolST.this.received.add(message.toString());
+                TestConnectionPoolST.this.receivedLatch.countDown();
+            }
+        };
+        this.destination.start();
+        this.destination.getReadyFuture().get();
+    }
+}
@@ -0,0 +1,108 @@
+package io.cloudracer.mocktcpserver.tcpclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.MockTCPServer;
+import io.cloudracer.mocktcpserver.datastream.DataStream;
+import io.cloudracer.mocktcpserver.responses.ResponseDAO;
+
+/**
+ * The sockets that a {@link TCPClient} opens to send its responses.
+ *
+ * @author John McDonnell
+ */
+public class TestTCPClientST extends AbstractTestTools {
+
+    private final CountDownLatch received = new CountDownLatch(1);
+
+    private MockTCPServer destination;
+
+    @Override
+    @Before
+    public void setUp() throws IOException {
+        this.resetLogMonitor();
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        IOUtils.closeQuietly(this.destination);
+    }
+
+    /**
+     * A client with a file response opens its socket from a channel, so that the file is transferred to the socket without being copied through the heap.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void fileResponse() throws ConfigurationException, IOException, InterruptedException {
+        this.startDestination();
+        final Path file = Files.createTempFile(this.getClass().getSimpleName(), ".txt");
+        try {
+            Files.write(file, String.format("File%s", TestConstants.DEFAULT_TERMINATOR).getBytes());
+
+            try (final TCPClient tcpClient = new TCPClient(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_5678)) {
+                tcpClient.addResponse(new ResponseDAO(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_5678, null, file));
+                tcpClient.sendResponses();
+
+                assertNotNull(tcpClient.getSocket().getChannel());
+                assertTrue(this.received.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+            }
+        } finally {
+            Files.delete(file);
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A client with only message responses opens a plain socket.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     * @throws InterruptedException see source documentation.
+     */
+    @Test(timeout = TestConstants.TEN_SECONDS)
+    public void messageResponse() throws ConfigurationException, IOException, InterruptedException {
+        this.startDestination();
+
+        try (final TCPClient tcpClient = new TCPClient(TestConstants.MACHINE_LOCALHOST_NAME, TestConstants.MOCK_SERVER_PORT_5678)) {
+            tcpClient.addResponse(TestConstants.MACHINE_A_RESPONSE_MESSAGE);
+            assertEquals(1, tcpClient.sendResponses().size());
+
+            assertNull(tcpClient.getSocket().getChannel());
+            assertTrue(this.received.await(TestConstants.FIVE_SECONDS, TimeUnit.MILLISECONDS));
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    private void startDestination() throws ConfigurationException, InterruptedException {
+        this.destination = new MockTCPServer(TestConstants.MOCK_SERVER_PORT_5678) {
+
+            @Override
+            public void onMessage(final DataStream message) {
+                TestTCPClientST.this.received.countDown();
+            }
+        };
+    }
+}
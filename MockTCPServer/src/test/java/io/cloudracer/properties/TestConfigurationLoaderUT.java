@@ -0,0 +1,110 @@
+package io.cloudracer.properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.responses.MessagePattern;
+import io.cloudracer.mocktcpserver.responses.MessagePattern.MatchType;
+import io.cloudracer.mocktcpserver.responses.ResponseDAO;
+
+/**
+ * Load configuration files, in a single streaming pass, with and without validation.
+ *
+ * @author John McDonnell
+ */
+public class TestConfigurationLoaderUT extends AbstractTestTools {
+
+    private static final String CONFIGURATION_START = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<configuration xmlns=\"http://mocktcpserver.cloudracer.io/schemas\">\n";
+    private static final String CONFIGURATION_END = "</configuration>\n";
+
+    @Override
+    @Before
+    public void setUp() {
+        this.resetLogMonitor();
+    }
+
+    /**
+     * The configuration file, used for testing, is valid and is loaded as expected.
+     *
+     * @throws ConfigurationException see source documentation.
+     */
+    @Test
+    public void loadValidated() throws ConfigurationException {
+        final ConfigurationModel configurationModel = ConfigurationLoader.load(this.getClass().getResource("/mocktcpserver.xml"), true);
+
+        assertEquals(TestConstants.PORT_SET, configurationModel.getPorts());
+        assertEquals(TestConstants.EXPECTED_INCOMING_MESSAGE_RESPONSES_RESULT_FOR_PORT_6789, configurationModel.getServer(TestConstants.MOCK_SERVER_PORT_6789).getResponses().toString());
+        assertEquals("200", configurationModel.getServer(TestConstants.MOCK_SERVER_PORT_5555).getAttribute("flush-interval"));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A file that is not valid is rejected, but only if it is validated.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     */
+    @Test(expected = ConfigurationException.class)
+    public void loadInvalid() throws ConfigurationException, IOException {
+        final Path file = Files.createTempFile(this.getClass().getSimpleName(), ".xml");
+        try {
+            Files.write(file, String.format("%s    <server port=\"1234\" engine=\"unknown\" />\n%s", CONFIGURATION_START, CONFIGURATION_END).getBytes(StandardCharsets.UTF_8));
+
+            assertEquals("unknown", ConfigurationLoader.load(file.toUri().toURL(), false).getServer(TestConstants.MOCK_SERVER_PORT_1234).getAttribute("engine"));
+            ConfigurationLoader.load(file.toUri().toURL(), true);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * A large file is loaded incrementally, and repeated values are held once.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void loadLarge() throws ConfigurationException, IOException {
+        final int incomingCount = 100000;
+        final Path file = Files.createTempFile(this.getClass().getSimpleName(), ".xml");
+        try {
+            try (final Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(CONFIGURATION_START);
+                writer.write("    <server port=\"1234\">\n");
+                for (int i = 0; i < incomingCount; i++) {
+                    writer.write(String.format("        <incoming><message match=\"prefix\"><![CDATA[Message %d]]></message><responses><response machine=\"localhost\" port=\"2345\" message=\"Response\" /></responses></incoming>\n", i));
+                }
+                writer.write("    </server>\n");
+                writer.write(CONFIGURATION_END);
+            }
+
+            final ConfigurationModel configurationModel = ConfigurationLoader.load(file.toUri().toURL(), true);
+            final ConfigurationModel.Server server = configurationModel.getServer(TestConstants.MOCK_SERVER_PORT_1234);
+
+            assertEquals(incomingCount, server.getIncoming().size());
+            final List<ResponseDAO> first = server.getIncoming().get(new MessagePattern(MatchType.PREFIX, "Message 0"));
+            final List<ResponseDAO> last = server.getIncoming().get(new MessagePattern(MatchType.PREFIX, String.format("Message %d", incomingCount - 1)));
+            assertEquals(new ResponseDAO("localhost", 2345, "Response"), first.get(0));
+            assertSame(first.get(0).getMachineName(), last.get(0).getMachineName());
+            assertSame(first.get(0).getResponse(), last.get(0).getResponse());
+        } finally {
+            Files.delete(file);
+        }
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+}
@@ -0,0 +1,146 @@
+package io.cloudracer.properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.cloudracer.AbstractTestTools;
+import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.responses.ResponseDAO;
+
+/**
+ * Compile configuration files into snapshots, and read them back.
+ *
+ * @author John McDonnell
+ */
+public class TestConfigurationSnapshotUT extends AbstractTestTools {
+
+    private Path folder;
+
+    @Override
+    @Before
+    public void setUp() throws IOException {
+        this.resetLogMonitor();
+
+        this.folder = Files.createTempDirectory(this.getClass().getSimpleName());
+    }
+
+    @Override
+    @After
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(this.folder.toFile());
+    }
+
+    /**
+     * A snapshot is read back as a model that is equal to the model of the configuration file that it was compiled from.
+     *
+     * @throws ConfigurationException see source documentation.
+     */
+    @Test
+    public void roundTrip() throws ConfigurationException {
+        final URL configurationFile = this.getClass().getResource("/mocktcpserver.xml");
+        final Path snapshot = this.folder.resolve("mocktcpserver.snapshot");
+
+        final ConfigurationModel compiled = ConfigurationSnapshot.compile(configurationFile, snapshot);
+        assertTrue(ConfigurationSnapshot.isCurrent(snapshot));
+
+        final ConfigurationModel read = ConfigurationSnapshot.read(snapshot);
+        assertEquals(TestConstants.PORT_SET, read.getPorts());
+        assertEquals(compiled.toString(), read.toString());
+        assertEquals(TestConstants.EXPECTED_INCOMING_MESSAGE_RESPONSES_RESULT_FOR_PORT_6789, read.getServer(TestConstants.MOCK_SERVER_PORT_6789).getResponses().toString());
+        assertEquals(200, new ConfigurationSettings(read).getFlushInterval(TestConstants.MOCK_SERVER_PORT_5555));
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A snapshot is out of date once the configuration file that it was compiled from is modified, and is compiled again when it is next used.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void stale() throws ConfigurationException, IOException {
+        final Path configurationFile = this.folder.resolve("mocktcpserver.xml");
+        final Path snapshot = this.folder.resolve("mocktcpserver.snapshot");
+        this.writeConfiguration(configurationFile, TestConstants.MOCK_SERVER_PORT_1234);
+
+        ConfigurationSnapshot.compile(configurationFile.toUri().toURL(), snapshot);
+        assertTrue(ConfigurationSnapshot.isCurrent(snapshot));
+
+        this.writeConfiguration(configurationFile, TestConstants.MOCK_SERVER_PORT_6789);
+        Files.setLastModifiedTime(configurationFile, FileTime.fromMillis(Files.getLastModifiedTime(configurationFile).toMillis() + 2000));
+        assertFalse(ConfigurationSnapshot.isCurrent(snapshot));
+        assertEquals(TestConstants.MOCK_SERVER_PORT_1234, ConfigurationSnapshot.read(snapshot).getPorts().iterator().next().intValue());
+
+        ConfigurationSnapshot.compile(configurationFile.toUri().toURL(), snapshot);
+        assertTrue(ConfigurationSnapshot.isCurrent(snapshot));
+        assertEquals(TestConstants.MOCK_SERVER_PORT_6789, ConfigurationSnapshot.read(snapshot).getPorts().iterator().next().intValue());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A response without a machine, in a configuration file that has not been validated, is compiled and read as a response with no machine.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     */
+    @Test
+    public void missingMachine() throws ConfigurationException, IOException {
+        final Path configurationFile = this.folder.resolve("mocktcpserver.xml");
+        final String configuration = String.format("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<configuration xmlns=\"http://mocktcpserver.cloudracer.io/schemas\">\n    <server port=\"%d\">\n        <incoming><message>Ping</message><responses><response port=\"2345\" message=\"Pong\" /></responses></incoming>\n    </server>\n</configuration>\n", TestConstants.MOCK_SERVER_PORT_1234);
+        Files.write(configurationFile, configuration.getBytes(StandardCharsets.UTF_8));
+        final Path snapshot = this.folder.resolve("mocktcpserver.snapshot");
+
+        ConfigurationSnapshot.compile(configurationFile.toUri().toURL(), snapshot);
+
+        final List<ResponseDAO> responses = ConfigurationSnapshot.read(snapshot).getServer(TestConstants.MOCK_SERVER_PORT_1234).getIncoming().values().iterator().next();
+        assertNull(responses.get(0).getMachineName());
+        assertEquals("Pong", responses.get(0).getResponse());
+
+        this.checkLogMonitorForUnexpectedMessages();
+    }
+
+    /**
+     * A snapshot of a different version is not current, and cannot be read.
+     *
+     * @throws ConfigurationException see source documentation.
+     * @throws IOException see source documentation.
+     */
+    @Test(expected = ConfigurationException.class)
+    public void versionMismatch() throws ConfigurationException, IOException {
+        final Path snapshot = this.folder.resolve("mocktcpserver.snapshot");
+        ConfigurationSnapshot.compile(this.getClass().getResource("/mocktcpserver.xml"), snapshot);
+
+        // The version follows the four byte magic number.
+        try (final RandomAccessFile file = new RandomAccessFile(snapshot.toFile(), "rw")) {
+            file.seek(Integer.BYTES);
+            file.writeInt(ConfigurationSnapshot.VERSION + 1);
+        }
+
+        assertFalse(ConfigurationSnapshot.isCurrent(snapshot));
+        ConfigurationSnapshot.read(snapshot);
+    }
+
+    private void writeConfiguration(final Path configurationFile, final int port) throws IOException {
+        final String configuration = String.format("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<configuration xmlns=\"http://mocktcpserver.cloudracer.io/schemas\">\n    <server port=\"%d\">\n        <incoming><message>Ping</message><responses><response machine=\"localhost\" port=\"2345\" message=\"Pong\" /></responses></incoming>\n    </server>\n</configuration>\n", port);
+        Files.write(configurationFile, configuration.getBytes(StandardCharsets.UTF_8));
+    }
+}
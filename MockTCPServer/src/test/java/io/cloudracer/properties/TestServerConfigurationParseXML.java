@@ -42,11 +42,11 @@ public class TestServerConfigurationParseXML {
         try {
             parser = builderFactory.newDocumentBuilder();
 
-            Document document = parser.parse(ClassLoader.class.getResourceAsStream(xml));
+            Document document = parser.parse(TestServerConfigurationParseXML.class.getResourceAsStream(xml));
 
             SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
 
-            Source schemaFile = new StreamSource(ClassLoader.class.getResourceAsStream(schemaName));
+            Source schemaFile = new StreamSource(TestServerConfigurationParseXML.class.getResourceAsStream(schemaName));
             Schema schema = factory.newSchema(schemaFile);
 
             Validator validator = schema.newValidator();
@@ -1,9 +1,14 @@
 package io.cloudracer.properties;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPathExpressionException;
@@ -18,6 +23,15 @@ import org.xml.sax.SAXException;
 
 import io.cloudracer.AbstractTestTools;
 import io.cloudracer.TestConstants;
+import io.cloudracer.mocktcpserver.ConnectionAdmission;
+import io.cloudracer.mocktcpserver.ConnectionAdmission.OverflowPolicy;
+import io.cloudracer.mocktcpserver.MockTCPServer.Engine;
+import io.cloudracer.mocktcpserver.MockTCPServer.ExecutionMode;
+import io.cloudracer.mocktcpserver.ResponseWriter;
+import io.cloudracer.mocktcpserver.ResponseWriter.FlushPolicy;
+import io.cloudracer.mocktcpserver.responses.MessagePattern;
+import io.cloudracer.mocktcpserver.responses.MessagePattern.MatchType;
+import io.cloudracer.mocktcpserver.responses.Responses;
 
 /**
  * Test that the property file can be located, and read/written.
@@ -101,4 +115,112 @@ public class TestServerConfigurationSettingsST extends AbstractTestTools {
     public void getResponses() throws ConfigurationException, XPathExpressionException, ParserConfigurationException, SAXException, IOException {
         assertEquals(TestConstants.EXPECTED_INCOMING_MESSAGE_RESPONSES_RESULT_FOR_PORT_6789, this.getConfigurationSettings().getResponses(TestConstants.MOCK_SERVER_PORT_6789).toString());
     }
-}
\ No newline at end of file
+
+    /**
+     * Get the server responses to the rules (i.e. incoming messages that are not matched exactly) from the configuration file, in the order that they are specified.
+     *
+     * @throws ConfigurationException
+     */
+    @Test
+    public void getPatternResponses() throws ConfigurationException {
+        final Responses responses = this.getConfigurationSettings().getResponses(TestConstants.MOCK_SERVER_PORT_7777);
+
+        assertTrue(responses.getResponses().isEmpty());
+        assertEquals(Arrays.asList(new MessagePattern(MatchType.PREFIX, "Order:"), new MessagePattern(MatchType.REGEX, "Invoice:\\d+")), new ArrayList<>(responses.getPatternResponses().keySet()));
+    }
+
+    /**
+     * The configuration file is parsed once, into a model that is shared by every {@link ConfigurationSettings} that reads the file.
+     *
+     * @throws ConfigurationException
+     */
+    @Test
+    public void getConfigurationModel() throws ConfigurationException {
+        final ConfigurationModel configurationModel = this.getConfigurationSettings().getConfigurationModel();
+
+        assertSame(configurationModel, new ConfigurationSettings().getConfigurationModel());
+        assertEquals(TestConstants.PORT_SET, configurationModel.getPorts());
+        assertEquals("nio", configurationModel.getServer(TestConstants.MOCK_SERVER_PORT_4444).getAttribute("engine"));
+        assertEquals("", configurationModel.getServer(TestConstants.MOCK_SERVER_PORT_1111).getAttribute("engine"));
+        assertEquals("", configurationModel.getServer(TestConstants.MOCK_SERVER_PORT_6789).getAttribute("engine"));
+        assertNull(configurationModel.getServer(TestConstants.MOCK_SERVER_PORT_2345));
+    }
+
+    /**
+     * Get the server transport engines from the configuration file.
+     *
+     * @throws ConfigurationException
+     */
+    @Test
+    public void getEngine() throws ConfigurationException {
+        assertEquals(Engine.NIO, this.getConfigurationSettings().getEngine(TestConstants.MOCK_SERVER_PORT_4444));
+        assertEquals(Engine.BLOCKING, this.getConfigurationSettings().getEngine(TestConstants.MOCK_SERVER_PORT_6789));
+    }
+
+    /**
+     * The configured execution mode is returned, and the platform execution mode is returned when none is configured.
+     *
+     * @throws ConfigurationException
+     */
+    @Test
+    public void getExecutionMode() throws ConfigurationException {
+        assertEquals(ExecutionMode.VIRTUAL, this.getConfigurationSettings().getExecutionMode(TestConstants.MOCK_SERVER_PORT_3333));
+        assertEquals(ExecutionMode.PLATFORM, this.getConfigurationSettings().getExecutionMode(TestConstants.MOCK_SERVER_PORT_6789));
+    }
+
+    /**
+     * The configured connection limits are returned, and the defaults are returned when none are configured.
+     *
+     * @throws ConfigurationException
+     */
+    @Test
+    public void getConnectionLimits() throws ConfigurationException {
+        assertEquals(2, this.getConfigurationSettings().getMaximumConnections(TestConstants.MOCK_SERVER_PORT_3333));
+        assertEquals(OverflowPolicy.QUEUE, this.getConfigurationSettings().getOverflowPolicy(TestConstants.MOCK_SERVER_PORT_3333));
+        assertEquals(5, this.getConfigurationSettings().getQueueCapacity(TestConstants.MOCK_SERVER_PORT_3333));
+        assertEquals(500, this.getConfigurationSettings().getQueueTimeout(TestConstants.MOCK_SERVER_PORT_3333));
+
+        assertEquals(0, this.getConfigurationSettings().getMaximumConnections(TestConstants.MOCK_SERVER_PORT_6789));
+        assertEquals(OverflowPolicy.REJECT, this.getConfigurationSettings().getOverflowPolicy(TestConstants.MOCK_SERVER_PORT_6789));
+        assertEquals(ConnectionAdmission.DEFAULT_QUEUE_CAPACITY, this.getConfigurationSettings().getQueueCapacity(TestConstants.MOCK_SERVER_PORT_6789));
+        assertEquals(ConnectionAdmission.DEFAULT_QUEUE_TIMEOUT, this.getConfigurationSettings().getQueueTimeout(TestConstants.MOCK_SERVER_PORT_6789));
+    }
+
+    /**
+     * The flush policy, and its settings, that is specified for a server; or the defaults if none are specified.
+     *
+     * @throws ConfigurationException
+     */
+    @Test
+    public void getFlushSettings() throws ConfigurationException {
+        assertEquals(FlushPolicy.INTERVAL, this.getConfigurationSettings().getFlushPolicy(TestConstants.MOCK_SERVER_PORT_5555));
+        assertEquals(200, this.getConfigurationSettings().getFlushInterval(TestConstants.MOCK_SERVER_PORT_5555));
+        assertEquals(ResponseWriter.DEFAULT_FLUSH_COUNT, this.getConfigurationSettings().getFlushCount(TestConstants.MOCK_SERVER_PORT_5555));
+
+        assertEquals(FlushPolicy.DRAIN, this.getConfigurationSettings().getFlushPolicy(TestConstants.MOCK_SERVER_PORT_6789));
+        assertEquals(ResponseWriter.DEFAULT_FLUSH_INTERVAL, this.getConfigurationSettings().getFlushInterval(TestConstants.MOCK_SERVER_PORT_6789));
+    }
+
+    /**
+     * An attribute that is set (e.g. on the command line) overrides the configuration of every server, including servers that are not in the configuration file.
+     *
+     * @throws ConfigurationException
+     */
+    @Test
+    public void setServerAttribute() throws ConfigurationException {
+        final ConfigurationSettings configurationSettings = new ConfigurationSettings();
+        configurationSettings.setServerAttribute(ConfigurationSettings.ENGINE_ATTRIBUTE_NAME, Engine.NIO.name());
+        configurationSettings.setServerAttribute(ConfigurationSettings.EXECUTION_MODE_ATTRIBUTE_NAME, ExecutionMode.VIRTUAL.name());
+        configurationSettings.setServerAttribute(ConfigurationSettings.ACCEPTOR_COUNT_ATTRIBUTE_NAME, "2");
+        configurationSettings.setServerAttribute(ConfigurationSettings.JOURNAL_ATTRIBUTE_NAME, "journal");
+
+        for (final int port : Arrays.asList(TestConstants.MOCK_SERVER_PORT_6789, TestConstants.MOCK_SERVER_PORT_2345)) {
+            assertEquals(Engine.NIO, configurationSettings.getEngine(port));
+            assertEquals(ExecutionMode.VIRTUAL, configurationSettings.getExecutionMode(port));
+            assertEquals(2, configurationSettings.getAcceptorCount(port));
+            assertEquals(Paths.get("journal"), configurationSettings.getJournal(port));
+        }
+        // The configuration of other settings is unchanged.
+        assertEquals(Engine.BLOCKING, this.getConfigurationSettings().getEngine(TestConstants.MOCK_SERVER_PORT_6789));
+    }
+}